@@ -1,8 +1,8 @@
 package com.ExamPort.ExamPort.Controller;
 
 import com.ExamPort.ExamPort.Entity.Exam;
-import com.ExamPort.ExamPort.Entity.Question;
 import com.ExamPort.ExamPort.Entity.ExamOption;
+import com.ExamPort.ExamPort.Repository.ExamSummary;
 import com.ExamPort.ExamPort.Service.TaskService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,9 +12,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 
 @RestController
@@ -23,20 +26,22 @@ public class ApiExamController {
     
     private static final Logger logger = LoggerFactory.getLogger(ApiExamController.class);
 
+    private static final com.fasterxml.jackson.databind.ObjectWriter ANSWERS_WRITER = com.fasterxml.jackson.databind.json.JsonMapper.builder().build()
+            .writerFor(new com.fasterxml.jackson.core.type.TypeReference<Map<String, String>>() {});
+
     @Autowired
     private TaskService task;
     @Autowired
     private com.ExamPort.ExamPort.Repository.UserRepository userRepository;
     @Autowired
+    private com.ExamPort.ExamPort.Security.CurrentUser currentUser;
+    @Autowired
     private com.ExamPort.ExamPort.Repository.Exam_repo examRepo;
     @Autowired
     private com.ExamPort.ExamPort.Repository.QuestionRepository questionRepo;
     
     @Autowired
     private com.ExamPort.ExamPort.Repository.ResultRepository resultRepository;
-    
-    @Autowired
-    private jakarta.persistence.EntityManager entityManager;
 
     @PostMapping
     public void addExam(@RequestBody Exam e) {
@@ -51,23 +56,62 @@ public class ApiExamController {
         logger.info("Fetching exams for instructor:{}",username);
         
         try{
-            com.ExamPort.ExamPort.Entity.User instructor=userRepository.findByUsername(username).orElse(null);
+            com.ExamPort.ExamPort.Entity.User instructor=currentUser.get().orElse(null);
             if (instructor == null) {
                 logger.warn("Instructor not found: {}",username);
                 return List.of();
             }
             
-            List<Exam> exams=examRepo.findByCourse_Instructor_Id(instructor.getId());
+            List<ExamSummary> exams=examRepo.findSummariesByInstructorId(instructor.getId());
             logger.info("Found{} exams for instructor: {}",exams.size(),username);
             
-            return exams.stream().map(this::enhanceExamData).collect(Collectors.toList());
+            Map<Long, Integer> studentCounts = studentCountsByCourse(exams);
+            return exams.stream().map(exam -> enhanceExamData(exam, studentCounts)).collect(Collectors.toList());
         }catch(Exception e) {
             logger.error("Error fetching exams for instructor: {}",username,e);
             return List.of();
         }
     }
     
+    /**
+     * Enhanced data of a single exam, including its questions for the exam interface
+     */
     private Map<String, Object> enhanceExamData(Exam exam) {
+        ExamSummary summary = ExamSummary.of(exam);
+        Map<String, Object> examData = enhanceExamData(summary, studentCountsByCourse(List.of(summary)));
+        examData.put("questions", exam.getQuestions() != null ? exam.getQuestions() : List.of());
+        return examData;
+    }
+
+    /**
+     * Student counts of the exams' courses: enrolled students for public courses, members for private ones.
+     * Uses one grouped query per kind for the whole list.
+     */
+    private Map<Long, Integer> studentCountsByCourse(Collection<ExamSummary> exams) {
+        Set<Long> publicCourses = new HashSet<>();
+        Set<Long> privateCourses = new HashSet<>();
+        for (ExamSummary exam : exams) {
+            if (exam.getCourseId() == null) {
+                continue;
+            }
+            if (exam.getCourseVisibility() == com.ExamPort.ExamPort.Entity.CourseVisibility.PUBLIC) {
+                publicCourses.add(exam.getCourseId());
+            } else if (exam.getCourseVisibility() == com.ExamPort.ExamPort.Entity.CourseVisibility.PRIVATE) {
+                privateCourses.add(exam.getCourseId());
+            }
+        }
+        Map<Long, Integer> counts = new HashMap<>();
+        if (!publicCourses.isEmpty()) {
+            enrollmentService.getEnrollmentCountsByCourse(publicCourses)
+                    .forEach((courseId, count) -> counts.put(courseId, count.intValue()));
+        }
+        if (!privateCourses.isEmpty()) {
+            counts.putAll(courseMembershipService.countsOf(privateCourses));
+        }
+        return counts;
+    }
+
+    private Map<String, Object> enhanceExamData(ExamSummary exam, Map<Long, Integer> studentCounts) {
         Map<String, Object> examData=new HashMap<>();
         
         // Basic exam info
@@ -86,39 +130,29 @@ public class ApiExamController {
         // Enhanced computed fields
         
         // 1. Number of questions with formatted display
-        int questionCount=exam.getQuestions()!=null?exam.getQuestions().size():0;
+        int questionCount=(int) exam.getQuestionCount();
         examData.put("questionCount",questionCount);
         examData.put("questionsDisplay",questionCount + " question" + (questionCount != 1 ? "s" : ""));
         
         // 2. Total marks (calculate from questions if not set)
         int totalMarks=exam.getTotalMarks();
-        if (totalMarks==0 && exam.getQuestions() != null) {
-            totalMarks=exam.getQuestions().stream()
-                .mapToInt(q -> q.getMarks() != null ? q.getMarks() : 1)
-                .sum();
+        if (totalMarks==0) {
+            totalMarks=(int) exam.getQuestionMarks();
         }
         examData.put("totalMarks", totalMarks);
         examData.put("marksDisplay", totalMarks + " mark" + (totalMarks != 1 ? "s" : ""));
         
         // 3. Number of students (from course enrollment and allowed emails) with formatted display
-        int studentCount = 0;
-        if (exam.getCourse() != null) {
-            if ("PUBLIC".equals(exam.getCourse().getVisibility())) {
-                // For public courses, count enrolled students
-                studentCount = (int) enrollmentService.getEnrollmentCountByCourse(exam.getCourse().getId());
-            } else if ("PRIVATE".equals(exam.getCourse().getVisibility()) && exam.getCourse().getAllowedEmails() != null) {
-                // For private courses, count allowed emails (backward compatibility)
-                studentCount = exam.getCourse().getAllowedEmails().size();
-            }
-        }
+        // Public courses count enrolled students, private courses count course members
+        int studentCount = exam.getCourseId() != null ? studentCounts.getOrDefault(exam.getCourseId(), 0) : 0;
         examData.put("studentCount", studentCount);
         examData.put("studentsDisplay", studentCount + " student" + (studentCount != 1 ? "s" : ""));
         
         // 4. Course information
-        if (exam.getCourse() != null) {
+        if (exam.getCourseId() != null) {
             Map<String, Object> courseInfo = new HashMap<>();
-            courseInfo.put("id", exam.getCourse().getId());
-            courseInfo.put("name", exam.getCourse().getName());
+            courseInfo.put("id", exam.getCourseId());
+            courseInfo.put("name", exam.getCourseName());
             examData.put("course", courseInfo);
         }
         
@@ -141,20 +175,13 @@ public class ApiExamController {
         Map<String, Object> actions = determineActions(exam, status);
         examData.put("actions", actions);
         
-        // 10. Include questions data for exam interface
-        if (exam.getQuestions() != null) {
-            examData.put("questions", exam.getQuestions());
-        } else {
-            examData.put("questions", List.of());
-        }
-        
         logger.debug("Enhanced exam data for: {} - {} questions, {} students, status: {}", 
                     exam.getTitle(), questionCount, studentCount, status);
         
         return examData;
     }
     
-    private Map<String, Object> formatDateTime(Exam exam) {
+    private Map<String, Object> formatDateTime(ExamSummary exam) {
         Map<String, Object> dateTimeInfo = new HashMap<>();
         
         try {
@@ -217,7 +244,7 @@ public class ApiExamController {
         }
     }
     
-    private Map<String, Object> determineActions(Exam exam, String status) {
+    private Map<String, Object> determineActions(ExamSummary exam, String status) {
         Map<String, Object> actions = new HashMap<>();
         
         // Determine available actions based on exam status
@@ -262,16 +289,13 @@ public class ApiExamController {
         return actions;
     }
     
-    private Map<String, Object> calculateTimeRemaining(Exam exam) {
+    private Map<String, Object> calculateTimeRemaining(ExamSummary exam) {
         Map<String, Object> timeInfo = new HashMap<>();
         
         try {
-            if (exam.getEndDate() != null && exam.getEndTime() != null) {
-                // Parse end date and time
-                String endDateTimeStr = exam.getEndDate() + " " + exam.getEndTime();
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-                LocalDateTime endDateTime = LocalDateTime.parse(endDateTimeStr, formatter);
-                LocalDateTime now = LocalDateTime.now();
+            if (exam.getEndAt() != null) {
+                Instant endDateTime = exam.getEndAt();
+                Instant now = Instant.now();
                 
                 if (endDateTime.isAfter(now)) {
                     long totalMinutes = ChronoUnit.MINUTES.between(now, endDateTime);
@@ -336,41 +360,36 @@ public class ApiExamController {
         return timeInfo;
     }
     
-    private String determineExamStatus(Exam exam) {
-        try {
-            LocalDateTime now = LocalDateTime.now();
-            
-            if (exam.getStartDate() != null && exam.getStartTime() != null) {
-                String startDateTimeStr = exam.getStartDate() + " " + exam.getStartTime();
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-                LocalDateTime startDateTime = LocalDateTime.parse(startDateTimeStr, formatter);
-                
-                if (now.isBefore(startDateTime)) {
-                    return "upcoming";
-                }
-            }
-            
-            if (exam.getEndDate() != null && exam.getEndTime() != null) {
-                String endDateTimeStr = exam.getEndDate() + " " + exam.getEndTime();
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-                LocalDateTime endDateTime = LocalDateTime.parse(endDateTimeStr, formatter);
-                
-                if (now.isAfter(endDateTime)) {
-                    return "completed";
-                }
-            }
-            
-            return exam.isIsactive() ? "active" : "inactive";
-        } catch (Exception e) {
-            logger.warn("Error determining exam status for: {}", exam.getTitle(), e);
-            return exam.isIsactive() ? "active" : "inactive";
+    private String determineExamStatus(ExamSummary exam) {
+        Instant now = Instant.now();
+        
+        if (exam.getStartAt() != null && now.isBefore(exam.getStartAt())) {
+            return "upcoming";
+        }
+        
+        if (exam.getEndAt() != null && now.isAfter(exam.getEndAt())) {
+            return "completed";
         }
+        
+        return exam.isIsactive() ? "active" : "inactive";
     }
 
+    /**
+     * All exams by ID, one page at a time. The next page is requested with the X-Next-Cursor header value as ?cursor=.
+     */
     @GetMapping
-    public List<Exam> getExam() {
-        logger.info("Fetching all exams");
-        return task.GetExam();
+    public org.springframework.http.ResponseEntity<?> getExam(@RequestParam(value = "cursor", required = false) String cursor,
+                                     @RequestParam(value = "limit", required = false) Integer limit) {
+        logger.info("Fetching exams page after cursor: {}", cursor);
+        try {
+            int pageSize = keysetPagination.pageSize(limit);
+            com.ExamPort.ExamPort.Service.KeysetPagination.Cursor after = keysetPagination.decode(cursor, 1);
+            List<ExamSummary> exams = examRepo.findSummaryPageAfter(after != null ? after.getLong(0) : 0L, keysetPagination.rowsFor(pageSize));
+            return keysetPagination.respond(exams, pageSize, exam -> new Object[]{exam.getExam_id()}, exam -> exam);
+        } catch (com.ExamPort.ExamPort.Exception.ValidationException e) {
+            logger.warn("Invalid exams page request - {}", e.getMessage());
+            return org.springframework.http.ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
     
     @GetMapping("/{id}")
@@ -378,33 +397,20 @@ public class ApiExamController {
         logger.info("Fetching exam by ID: {}", id);
         
         try {
-            Exam exam = examRepo.findById(id).orElse(null);
-            if (exam == null) {
+            com.ExamPort.ExamPort.Service.ExamSnapshot snapshot = examSnapshotCache.get(id);
+            if (snapshot == null) {
                 logger.warn("Exam not found with ID: {}", id);
                 return Map.of("error", "Exam not found");
             }
             
-            // Force loading of questions if they're lazy loaded
-            if (exam.getQuestions() != null) {
-                exam.getQuestions().size(); // This triggers lazy loading
-                logger.info("Found exam: {} with {} questions", exam.getTitle(), exam.getQuestions().size());
-                
-                // Log each question for debugging
-                for (int i = 0; i < exam.getQuestions().size(); i++) {
-                    Question q = exam.getQuestions().get(i);
-                    logger.info("Question {}: ID={}, Text={}, Type={}, Options={}, CorrectOptions={}", 
-                               i+1, q.getQue_id(), q.getQuestion(), q.getType(), 
-                               q.getOptions() != null ? q.getOptions().size() : 0,
-                               q.getCorrect_options());
-                }
-            } else {
-                logger.warn("Exam {} has null questions list", exam.getTitle());
-            }
+            // Snapshot already holds questions, options and correct options, no lazy loading here
+            Exam exam = snapshot.getExam();
+            logger.debug("Found exam: {} with {} questions", exam.getTitle(), exam.getQuestions().size());
             
             Map<String, Object> enhancedData = enhanceExamData(exam);
             
             // Add completed students information
-            List<Map<String, Object>> completedStudents = getCompletedStudents(id);
+            List<Map<String, Object>> completedStudents = getCompletedStudents(snapshot);
             enhancedData.put("completedStudents", completedStudents);
             enhancedData.put("completedStudentsCount", completedStudents.size());
             
@@ -418,7 +424,10 @@ public class ApiExamController {
         }
     }
     
-    private List<Map<String, Object>> getCompletedStudents(Long examId) {
+    private List<Map<String, Object>> getCompletedStudents(com.ExamPort.ExamPort.Service.ExamSnapshot snapshot) {
+        Long examId = snapshot.getExamId();
+        Exam exam = snapshot.getExam();
+        int totalMarks = snapshot.getTotalMarks();
         try {
             // Get all results for this exam
             List<com.ExamPort.ExamPort.Entity.Result> results = resultRepository.findByExamExamId(examId);
@@ -435,15 +444,6 @@ public class ApiExamController {
                     studentInfo.put("email", user.getEmail());
                     studentInfo.put("username", user.getUsername());
                     studentInfo.put("score", result.getScore());
-                    // Get exam details for total marks
-                    Exam exam = examRepo.findById(examId).orElse(null);
-                    int totalMarks = exam != null ? exam.getTotalMarks() : 0;
-                    if (totalMarks == 0 && exam != null && exam.getQuestions() != null) {
-                        totalMarks = exam.getQuestions().stream()
-                            .mapToInt(q -> q.getMarks() != null ? q.getMarks() : 1)
-                            .sum();
-                    }
-                    
                     studentInfo.put("totalMarks", totalMarks);
                     studentInfo.put("percentage", calculatePercentage(result.getScore(), exam));
                     studentInfo.put("passed", result.getPassed());
@@ -500,7 +500,7 @@ public class ApiExamController {
         
         try {
             // Get user by username
-            com.ExamPort.ExamPort.Entity.User user = userRepository.findByUsername(username).orElse(null);
+            com.ExamPort.ExamPort.Entity.User user = currentUser.get().orElse(null);
             if (user == null) {
                 logger.warn("User not found: {}", username);
                 return Map.of(
@@ -510,7 +510,8 @@ public class ApiExamController {
             }
 
             // Get exam
-            Exam exam = examRepo.findById(examId).orElse(null);
+            com.ExamPort.ExamPort.Service.ExamSnapshot snapshot = examSnapshotCache.get(examId);
+            Exam exam = snapshot != null ? snapshot.getExam() : null;
             if (exam == null) {
                 logger.warn("Exam not found: {}", examId);
                 return Map.of(
@@ -526,9 +527,9 @@ public class ApiExamController {
             if (!hasAccess) {
                 if (exam.getCourse() == null) {
                     reason = "Exam has no associated course";
-                } else if ("PRIVATE".equals(exam.getCourse().getVisibility())) {
+                } else if (exam.getCourse().getVisibility() == com.ExamPort.ExamPort.Entity.CourseVisibility.PRIVATE) {
                     reason = "You are not in the allowed emails list for this private course";
-                } else if ("PUBLIC".equals(exam.getCourse().getVisibility())) {
+                } else if (exam.getCourse().getVisibility() == com.ExamPort.ExamPort.Entity.CourseVisibility.PUBLIC) {
                     reason = "You are not enrolled in this course";
                 } else {
                     reason = "Course visibility is not properly configured";
@@ -566,6 +567,33 @@ public class ApiExamController {
     @Autowired
     private com.ExamPort.ExamPort.Service.EmailService emailService;
 
+    @Autowired
+    private com.ExamPort.ExamPort.Service.ExamSnapshotCache examSnapshotCache;
+
+    @Autowired
+    private com.ExamPort.ExamPort.Service.ExamAccessIndex examAccessIndex;
+
+    @Autowired
+    private com.ExamPort.ExamPort.Service.CourseMembershipService courseMembershipService;
+
+    @Autowired
+    private com.ExamPort.ExamPort.Service.ResultBatchWriter resultBatchWriter;
+
+    @Autowired
+    private com.ExamPort.ExamPort.Service.ResultIdGenerator resultIdGenerator;
+
+    @Autowired
+    private com.ExamPort.ExamPort.Service.RegradeService regradeService;
+
+    @Autowired
+    private com.ExamPort.ExamPort.Service.KeysetPagination keysetPagination;
+
+    @Autowired
+    private com.ExamPort.ExamPort.Service.AttemptStore attemptStore;
+
+    @Autowired
+    private com.ExamPort.ExamPort.Service.ExamSessionService examSessionService;
+
     @GetMapping("/allowed/{email}")
     public List<Map<String, Object>> getAllowedExams(@PathVariable String email) {
         logger.info("Fetching allowed exams for email: {}", email);
@@ -579,45 +607,25 @@ public class ApiExamController {
             }
             Long userId = user.getId();
             
-            List<Exam> allExams = task.GetExam();
-            List<Exam> allowedExams = allExams.stream()
-                    .filter(exam -> isExamAccessibleToStudent(exam, user))
-                    .toList();
+            // Exams of private courses listing the email and of public courses the user is enrolled in
+            List<ExamSummary> allowedExams = new ArrayList<>();
+            for (Long examId : examAccessIndex.accessibleExamIds(userId, email)) {
+                com.ExamPort.ExamPort.Service.ExamSnapshot snapshot = examSnapshotCache.get(examId);
+                if (snapshot != null) {
+                    allowedExams.add(ExamSummary.of(snapshot.getExam()));
+                }
+            }
             
             logger.info("Found {} allowed exams for email: {} (user ID: {})", allowedExams.size(), email, userId);
             
-            // Log detailed information about exam access
             if (allowedExams.isEmpty()) {
-                logger.info("No exams found for user {}. Checking enrollment and course access:", email);
-                
-                // Check enrolled courses
-                List<com.ExamPort.ExamPort.Entity.Enrollment> enrollments = enrollmentService.getEnrollmentsByStudent(userId);
-                logger.info("User {} has {} enrollments", email, enrollments.size());
-                
-                for (com.ExamPort.ExamPort.Entity.Enrollment enrollment : enrollments) {
-                    com.ExamPort.ExamPort.Entity.Course course = enrollment.getCourse();
-                    logger.info("Enrolled in course: {} (ID: {}, Visibility: {})", 
-                               course.getName(), course.getId(), course.getVisibility());
-                    
-                    // Check if course has exams
-                    List<Exam> courseExams = allExams.stream()
-                            .filter(exam -> exam.getCourse() != null && exam.getCourse().getId().equals(course.getId()))
-                            .toList();
-                    logger.info("Course {} has {} exams", course.getName(), courseExams.size());
-                }
-                
-                // Check private course access
-                List<Exam> privateExams = allExams.stream()
-                        .filter(exam -> exam.getCourse() != null && 
-                                       "PRIVATE".equals(exam.getCourse().getVisibility()) &&
-                                       exam.getCourse().getAllowedEmails() != null &&
-                                       exam.getCourse().getAllowedEmails().contains(email))
-                        .toList();
-                logger.info("User {} has access to {} private course exams", email, privateExams.size());
+                logger.info("No exams found for user {}: {} exams in enrolled courses, {} exams in courses listing the email",
+                           email, examAccessIndex.examIdsByEnrollment(userId).size(), examAccessIndex.examIdsByAllowedEmail(email).size());
             }
             
+            Map<Long, Integer> studentCounts = studentCountsByCourse(allowedExams);
             return allowedExams.stream()
-                    .map(exam -> enhanceExamDataForStudent(exam, userId))
+                    .map(exam -> enhanceExamDataForStudent(exam, userId, studentCounts))
                     .collect(Collectors.toList());
         } catch (Exception e) {
             logger.error("Error fetching allowed exams for email: {}", email, e);
@@ -635,7 +643,7 @@ public class ApiExamController {
         
         try {
             // Get user by username
-            com.ExamPort.ExamPort.Entity.User user = userRepository.findByUsername(username).orElse(null);
+            com.ExamPort.ExamPort.Entity.User user = currentUser.get().orElse(null);
             if (user == null) {
                 logger.warn("User not found: {}", username);
                 return List.of();
@@ -645,23 +653,18 @@ public class ApiExamController {
             List<com.ExamPort.ExamPort.Entity.Enrollment> enrollments = enrollmentService.getEnrollmentsByStudent(user.getId());
             logger.info("Found {} enrollments for student: {}", enrollments.size(), username);
             
-            List<Exam> enrolledExams = new ArrayList<>();
-            
-            for (com.ExamPort.ExamPort.Entity.Enrollment enrollment : enrollments) {
-                com.ExamPort.ExamPort.Entity.Course course = enrollment.getCourse();
-                logger.info("Processing course: {} (ID: {})", course.getName(), course.getId());
-                
-                // Get exams for this course
-                List<Exam> courseExams = examRepo.findByCourse_Id(course.getId());
-                logger.info("Found {} exams for course: {}", courseExams.size(), course.getName());
-                
-                enrolledExams.addAll(courseExams);
-            }
+            // Exams of all enrolled courses in one query
+            List<Long> courseIds = enrollments.stream()
+                    .map(enrollment -> enrollment.getCourse().getId())
+                    .distinct()
+                    .collect(Collectors.toList());
+            List<ExamSummary> enrolledExams = courseIds.isEmpty() ? List.of() : examRepo.findSummariesByCourseIds(courseIds);
             
             logger.info("Total exams from enrolled courses: {}", enrolledExams.size());
             
+            Map<Long, Integer> studentCounts = studentCountsByCourse(enrolledExams);
             return enrolledExams.stream()
-                    .map(exam -> enhanceExamDataForStudent(exam, user.getId()))
+                    .map(exam -> enhanceExamDataForStudent(exam, user.getId(), studentCounts))
                     .collect(Collectors.toList());
                     
         } catch (Exception e) {
@@ -680,41 +683,15 @@ public class ApiExamController {
         }
 
         com.ExamPort.ExamPort.Entity.Course course = exam.getCourse();
-        String email = user.getEmail();
-        Long userId = user.getId();
 
-        // Check course visibility and access
-        if ("PRIVATE".equals(course.getVisibility())) {
-            // For private courses, check if user is in allowed emails list (backward compatibility)
-            boolean isInAllowedEmails = course.getAllowedEmails() != null && 
-                                      course.getAllowedEmails().contains(email);
-            
-            if (isInAllowedEmails) {
-                logger.info("User {} has access to private course {} via allowed emails", email, course.getName());
-                return true;
-            } else {
-                logger.info("User {} does not have access to private course {} - not in allowed emails", email, course.getName());
-                return false;
-            }
-        } else if ("PUBLIC".equals(course.getVisibility())) {
-            // For public courses, check enrollment status
-            boolean isEnrolled = enrollmentService.isStudentEnrolledInCourse(userId, course.getId());
-            
-            if (isEnrolled) {
-                logger.info("User {} has access to public course {} via enrollment", email, course.getName());
-                return true;
-            } else {
-                logger.info("User {} does not have access to public course {} - not enrolled", email, course.getName());
-                return false;
-            }
-        }
-
-        logger.warn("Course {} has unknown visibility: {}", course.getName(), course.getVisibility());
-        return false;
+        // Private courses: user must be in the allowed emails list. Public courses: user must be enrolled.
+        boolean hasAccess = examAccessIndex.canAccessCourse(user.getId(), user.getEmail(), course.getId());
+        logger.debug("User {} access to {} course {}: {}", user.getEmail(), course.getVisibility(), course.getName(), hasAccess);
+        return hasAccess;
     }
     
-    private Map<String, Object> enhanceExamDataForStudent(Exam exam, Long userId) {
-        Map<String, Object> examData = enhanceExamData(exam);
+    private Map<String, Object> enhanceExamDataForStudent(ExamSummary exam, Long userId, Map<Long, Integer> studentCounts) {
+        Map<String, Object> examData = enhanceExamData(exam, studentCounts);
         
         // Create a mutable copy of the exam data
         Map<String, Object> mutableExamData = new HashMap<>(examData);
@@ -788,82 +765,146 @@ public class ApiExamController {
         return mutableExamData;
     }
     
-    private String determineStudentExamStatus(Exam exam, boolean hasSubmitted) {
+    private String determineStudentExamStatus(ExamSummary exam, boolean hasSubmitted) {
+        Instant now = Instant.now();
+        logger.info("Determining status for exam: {}, hasSubmitted: {}, current time: {}", 
+                   exam.getTitle(), hasSubmitted, now);
+        
+        // If already submitted, it's completed
+        if (hasSubmitted) {
+            logger.info("Exam {} marked as completed - student has submitted", exam.getTitle());
+            return "completed";
+        }
+        
+        // If current time is before start time, it's upcoming
+        if (exam.getStartAt() != null && now.isBefore(exam.getStartAt())) {
+            return "upcoming";
+        }
+        
+        // If current time is after end time and not submitted, it's missed
+        if (exam.getEndAt() != null && now.isAfter(exam.getEndAt())) {
+            logger.info("Exam {} marked as missed - current time {} is after end time {}", exam.getTitle(), now, exam.getEndAt());
+            return "missed";
+        }
+        
+        // If exam is active and within time bounds, it's active
+        return exam.isIsactive() ? "active" : "inactive";
+    }
+    
+    /**
+     * Start the exam, or return the session already started. The deadline is enforced on submit
+     * and an open session is submitted automatically once it passes.
+     */
+    @PostMapping("/{id}/start")
+    public org.springframework.http.ResponseEntity<Map<String, Object>> startExam(@PathVariable Long id,
+                                                                               org.springframework.security.core.Authentication authentication) {
+        com.ExamPort.ExamPort.Entity.User user = currentUser.get().orElse(null);
+        org.springframework.http.ResponseEntity<Map<String, Object>> denied = checkAttemptAccess(id, user);
+        if (denied != null) {
+            return denied;
+        }
         try {
-            LocalDateTime now = LocalDateTime.now();
-            logger.info("Determining status for exam: {}, hasSubmitted: {}, current time: {}", 
-                       exam.getTitle(), hasSubmitted, now);
-            
-            // If already submitted, it's completed
-            if (hasSubmitted) {
-                logger.info("Exam {} marked as completed - student has submitted", exam.getTitle());
-                return "completed";
-            }
-            
-            // Check if exam has start date and time
-            if (exam.getStartDate() != null && exam.getStartTime() != null) {
-                String startDateTimeStr = exam.getStartDate() + " " + exam.getStartTime();
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-                LocalDateTime startDateTime = LocalDateTime.parse(startDateTimeStr, formatter);
-                
-                // If current time is before start time, it's upcoming
-                if (now.isBefore(startDateTime)) {
-                    return "upcoming";
-                }
-            }
-            
-            // Check if exam has end date and time
-            if (exam.getEndDate() != null && exam.getEndTime() != null) {
-                String endDateTimeStr = exam.getEndDate() + " " + exam.getEndTime();
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-                LocalDateTime endDateTime = LocalDateTime.parse(endDateTimeStr, formatter);
-                
-                logger.info("Exam {} end time: {}, current time: {}, is after end: {}", 
-                           exam.getTitle(), endDateTime, now, now.isAfter(endDateTime));
-                
-                // If current time is after end time and not submitted, it's missed
-                if (now.isAfter(endDateTime)) {
-                    logger.info("Exam {} marked as missed - current time is after end time", exam.getTitle());
-                    return "missed";
-                }
-            }
-            
-            // If exam is active and within time bounds, it's active
-            return exam.isIsactive() ? "active" : "inactive";
-        } catch (Exception e) {
-            logger.error("Error determining student exam status for: {} - {}", exam.getTitle(), e.getMessage(), e);
-            
-            // Fallback: if there's an error parsing dates, check if exam is generally expired
+            com.ExamPort.ExamPort.Service.ExamSessionService.Session session =
+                    examSessionService.start(user.getId(), examSnapshotCache.get(id).getExam());
+            Instant now = Instant.now();
+            Map<String, Object> response = new HashMap<>();
+            response.put("examId", id);
+            response.put("startedAt", session.getStartedAt().toString());
+            response.put("deadline", session.getDeadline().toString());
+            response.put("serverTime", now.toString());
+            response.put("remainingSeconds", Math.max(0, ChronoUnit.SECONDS.between(now, session.getDeadline())));
+            return org.springframework.http.ResponseEntity.ok(response);
+        } catch (com.ExamPort.ExamPort.Exception.ValidationException e) {
+            logger.warn("User {} cannot start exam {}: {}", user.getId(), id, e.getMessage());
+            return org.springframework.http.ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    /**
+     * Autosave answers of an exam in progress. Only changed answers need to be sent, an empty answer clears the question.
+     */
+    @PostMapping("/{id}/autosave")
+    public org.springframework.http.ResponseEntity<Map<String, Object>> autosave(@PathVariable Long id, @RequestBody Map<String, Object> requestBody,
+                                                                              org.springframework.security.core.Authentication authentication) {
+        com.ExamPort.ExamPort.Entity.User user = currentUser.get().orElse(null);
+        org.springframework.http.ResponseEntity<Map<String, Object>> denied = checkAttemptAccess(id, user);
+        if (denied != null) {
+            return denied;
+        }
+        
+        // Autosaves belong to an open session: none once the exam is submitted or its time is up.
+        // The first autosave of a client that did not call /start starts the session.
+        com.ExamPort.ExamPort.Service.ExamSessionService.Session session = examSessionService.sessionOf(user.getId(), id);
+        if (session == null) {
             try {
-                if (exam.getEndDate() != null) {
-                    // Simple date comparison without time
-                    LocalDateTime now = LocalDateTime.now();
-                    String[] dateParts = exam.getEndDate().split("-");
-                    if (dateParts.length == 3) {
-                        int year = Integer.parseInt(dateParts[0]);
-                        int month = Integer.parseInt(dateParts[1]);
-                        int day = Integer.parseInt(dateParts[2]);
-                        LocalDateTime examEndDate = LocalDateTime.of(year, month, day, 23, 59);
-                        
-                        if (now.isAfter(examEndDate) && !hasSubmitted) {
-                            logger.info("Exam {} marked as missed via fallback logic", exam.getTitle());
-                            return "missed";
-                        }
-                    }
-                }
-            } catch (Exception fallbackError) {
-                logger.error("Fallback date parsing also failed for exam: {}", exam.getTitle(), fallbackError);
+                session = examSessionService.start(user.getId(), examSnapshotCache.get(id).getExam());
+            } catch (com.ExamPort.ExamPort.Exception.ValidationException e) {
+                logger.warn("Autosave rejected for user {} and exam {}: {}", user.getId(), id, e.getMessage());
+                return org.springframework.http.ResponseEntity.status(409).body(Map.of("error", e.getMessage()));
             }
-            
-            return exam.isIsactive() ? "active" : "inactive";
         }
+        if (examSessionService.isPastDeadline(session.getDeadline(), Instant.now())) {
+            logger.warn("Autosave after the deadline rejected for user {} and exam {}", user.getId(), id);
+            return org.springframework.http.ResponseEntity.status(409).body(Map.of("error", "Exam time is over"));
+        }
+        
+        Map<String, String> delta = new HashMap<>();
+        Object answers = requestBody.get("answers");
+        if (answers instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) answers).entrySet()) {
+                delta.put(String.valueOf(entry.getKey()), entry.getValue() != null ? entry.getValue().toString() : null);
+            }
+        }
+        try {
+            long version = attemptStore.save(user.getId(), id, delta);
+            Map<String, Object> response = new HashMap<>();
+            response.put("saved", true);
+            response.put("version", version);
+            return org.springframework.http.ResponseEntity.ok(response);
+        } catch (com.ExamPort.ExamPort.Exception.ValidationException e) {
+            logger.warn("Autosave rejected for user {} and exam {}: {}", user.getId(), id, e.getMessage());
+            return org.springframework.http.ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    /**
+     * Autosaved answers of an exam in progress, to restore them after a reload
+     */
+    @GetMapping("/{id}/autosave")
+    public org.springframework.http.ResponseEntity<Map<String, Object>> getAutosave(@PathVariable Long id,
+                                                                                 org.springframework.security.core.Authentication authentication) {
+        com.ExamPort.ExamPort.Entity.User user = currentUser.get().orElse(null);
+        org.springframework.http.ResponseEntity<Map<String, Object>> denied = checkAttemptAccess(id, user);
+        if (denied != null) {
+            return denied;
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("answers", attemptStore.answersOf(user.getId(), id));
+        response.put("version", attemptStore.versionOf(user.getId(), id));
+        return org.springframework.http.ResponseEntity.ok(response);
+    }
+    
+    private org.springframework.http.ResponseEntity<Map<String, Object>> checkAttemptAccess(Long examId, com.ExamPort.ExamPort.Entity.User user) {
+        if (user == null) {
+            return org.springframework.http.ResponseEntity.status(404).body(Map.of("error", "User not found"));
+        }
+        com.ExamPort.ExamPort.Service.ExamSnapshot snapshot = examSnapshotCache.get(examId);
+        if (snapshot == null) {
+            return org.springframework.http.ResponseEntity.status(404).body(Map.of("error", "Exam not found"));
+        }
+        if (!examAccessIndex.canAccessCourse(user.getId(), user.getEmail(), snapshot.getCourseId())) {
+            logger.warn("User {} has no access to exam {}", user.getId(), examId);
+            return org.springframework.http.ResponseEntity.status(403).body(Map.of("error", "Access denied"));
+        }
+        return null;
     }
     
     // Submit exam endpoint
     @PostMapping("/{id}/submit")
-    @org.springframework.transaction.annotation.Transactional
     public Map<String, Object> submitExam(@PathVariable Long id, @RequestBody Map<String, Object> requestBody, 
-                                         org.springframework.security.core.Authentication authentication) {
+                                         @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                         org.springframework.security.core.Authentication authentication,
+                                         jakarta.servlet.http.HttpServletResponse httpResponse) {
         logger.info("Submitting exam: {} with request body: {}", id, requestBody);
         
         // Extract answers and time taken from the request body
@@ -873,16 +914,25 @@ public class ApiExamController {
             answers = new HashMap<>();
         }
         
-        Integer timeTaken = (Integer) requestBody.get("timeTaken");
-        if (timeTaken == null) {
-            timeTaken = 0;
+        // Lets a retried submit get the original result back, from the header or the request body
+        if (idempotencyKey == null && requestBody.get("idempotencyKey") != null) {
+            idempotencyKey = requestBody.get("idempotencyKey").toString();
+        }
+        if (idempotencyKey != null && (idempotencyKey.isBlank() || idempotencyKey.length() > 64)) {
+            logger.warn("Invalid idempotency key for exam submission: {}", id);
+            return Map.of("error", "Idempotency key must be 1 to 64 characters");
+        }
+        if (idempotencyKey == null) {
+            // Without a key of its own the client could not safely retry a submit whose save timed out
+            idempotencyKey = java.util.UUID.randomUUID().toString();
         }
         
-        logger.info("Extracted {} answers for exam {} with time taken: {} seconds", answers.size(), id, timeTaken);
+        logger.info("Extracted {} answers for exam {}", answers.size(), id);
         
         try {
             // Get exam
-            Exam exam = examRepo.findById(id).orElse(null);
+            com.ExamPort.ExamPort.Service.ExamSnapshot snapshot = examSnapshotCache.get(id);
+            Exam exam = snapshot != null ? snapshot.getExam() : null;
             if (exam == null) {
                 logger.warn("Exam not found for submission: {}", id);
                 return Map.of("error", "Exam not found");
@@ -890,29 +940,52 @@ public class ApiExamController {
             
             // Get user
             String username = authentication.getName();
-            com.ExamPort.ExamPort.Entity.User user = userRepository.findByUsername(username).orElse(null);
+            com.ExamPort.ExamPort.Entity.User user = currentUser.get().orElse(null);
             if (user == null) {
                 logger.warn("User not found for submission: {}", username);
                 return Map.of("error", "User not found");
             }
             
-            // Check if user already submitted this exam
-            if (resultRepository.findByUserIdAndExamExamId(user.getId(), id).isPresent()) {
-                logger.warn("User {} already submitted exam {}", username, id);
-                return Map.of("error", "Exam already submitted");
+            // A submit needs the session started by /start or the first autosave, and is rejected past
+            // its deadline plus grace; the time taken is measured from the session start, never taken from the client
+            com.ExamPort.ExamPort.Service.ExamSessionService.Session session = examSessionService.sessionOf(user.getId(), id);
+            Instant now = Instant.now();
+            Integer timeTaken;
+            if (session == null) {
+                // A retried submit finds its session closed by the first one; the writer answers it with the stored result
+                com.ExamPort.ExamPort.Entity.Result stored = resultRepository.findByUserIdAndExamExamId(user.getId(), id).orElse(null);
+                if (stored == null) {
+                    logger.warn("Submission of exam {} by {} without a started session rejected", id, username);
+                    httpResponse.setStatus(409);
+                    return Map.of("error", "Exam session not started");
+                }
+                timeTaken = stored.getTimeTaken();
+            } else {
+                if (examSessionService.isPastDeadline(session.getDeadline(), now)) {
+                    logger.warn("Late submission of exam {} by {} rejected", id, username);
+                    httpResponse.setStatus(409);
+                    return Map.of("error", "Submission deadline has passed");
+                }
+                timeTaken = examSessionService.timeTakenSeconds(session, now);
+            }
+            
+            // Final answers are the autosaved ones updated with those sent along with the submit
+            Map<String, String> savedAnswers = attemptStore.answersForSubmit(user.getId(), id);
+            if (!savedAnswers.isEmpty()) {
+                savedAnswers.putAll(answers);
+                answers = savedAnswers;
             }
             
             // Log the submitted answers
-            logger.info("Submitted answers for exam {}: {}", exam.getTitle(), answers);
+            logger.debug("Submitted answers for exam {}: {}", exam.getTitle(), answers);
             
-            // Calculate score
-            double score = calculateScore(exam, answers);
-            double totalMarks = exam.getTotalMarks() > 0 ? exam.getTotalMarks() : 
-                               (exam.getQuestions() != null ? exam.getQuestions().stream()
-                                   .mapToInt(q -> q.getMarks() != null ? q.getMarks() : 1).sum() : 0);
+            // Calculate score against the compiled answer key
+            com.ExamPort.ExamPort.Service.AnswerKey answerKey = snapshot.getAnswerKey();
+            double score = answerKey.totalScore(answers);
+            double totalMarks = answerKey.getTotalMarks();
             
             // Determine if passed (60% threshold)
-            boolean passed = totalMarks > 0 && (score / totalMarks) >= 0.6;
+            boolean passed = com.ExamPort.ExamPort.Service.ResultGrader.isPassed(score, totalMarks);
             
             // Convert answers to JSON string
             String answersJson = convertAnswersToJson(answers);
@@ -920,9 +993,9 @@ public class ApiExamController {
             // Create and save result
             com.ExamPort.ExamPort.Entity.Result result = new com.ExamPort.ExamPort.Entity.Result();
             
-            // Generate a unique ID (timestamp + user ID + exam ID)
-            Long resultId = System.currentTimeMillis() + (user.getId() * 1000) + id;
-            result.setId(resultId);
+            // Ids come from the node-aware generator, no database round-trip
+            result.setId(resultIdGenerator.nextId());
+            result.setIdempotencyKey(idempotencyKey);
             
             result.setAnswers(answersJson);
             result.setExamExamId(id);
@@ -933,66 +1006,42 @@ public class ApiExamController {
             result.setAttemptDate(LocalDateTime.now());
             
             // Generate feedback
-            String feedback = generateFeedback(score, totalMarks, passed);
+            String feedback = com.ExamPort.ExamPort.Service.ResultGrader.feedback(score, totalMarks, passed);
             result.setFeedback(feedback);
             
-            // Save result using native SQL to avoid Hibernate issues
+            // Queue the result for the next group commit and wait for its durable receipt.
+            // The writer also rejects a second submission of the same exam by the same user.
+            com.ExamPort.ExamPort.Service.ResultBatchWriter.Receipt receipt;
             try {
-                String sql = "INSERT INTO result (id, answers, attempt_date, exam_exam_id, feedback, passed, score, time_taken, user_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
-                
-                int rowsAffected = entityManager.createNativeQuery(sql)
-                    .setParameter(1, resultId)
-                    .setParameter(2, answersJson)
-                    .setParameter(3, result.getAttemptDate())
-                    .setParameter(4, id)
-                    .setParameter(5, feedback)
-                    .setParameter(6, passed)
-                    .setParameter(7, score)
-                    .setParameter(8, timeTaken)
-                    .setParameter(9, user.getId())
-                    .executeUpdate();
-                
-                if (rowsAffected > 0) {
-                    logger.info("Successfully saved result with ID: {}", resultId);
-                    result.setId(resultId); // Set the ID for response
-                } else {
-                    throw new RuntimeException("Failed to insert result");
-                }
-                
-            } catch (Exception e) {
-                logger.error("Error saving result with ID {}, trying alternative ID", resultId, e);
-                // Try with a different ID if there's a conflict
-                resultId = System.currentTimeMillis() + (user.getId() * 10000) + (id * 100);
-                
-                try {
-                    String sql = "INSERT INTO result (id, answers, attempt_date, exam_exam_id, feedback, passed, score, time_taken, user_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
-                    
-                    int rowsAffected = entityManager.createNativeQuery(sql)
-                        .setParameter(1, resultId)
-                        .setParameter(2, answersJson)
-                        .setParameter(3, result.getAttemptDate())
-                        .setParameter(4, id)
-                        .setParameter(5, feedback)
-                        .setParameter(6, passed)
-                        .setParameter(7, score)
-                        .setParameter(8, timeTaken)
-                        .setParameter(9, user.getId())
-                        .executeUpdate();
-                    
-                    if (rowsAffected > 0) {
-                        logger.info("Successfully saved result with alternative ID: {}", resultId);
-                        result.setId(resultId);
-                    } else {
-                        throw new RuntimeException("Failed to insert result with alternative ID");
-                    }
-                    
-                } catch (Exception e2) {
-                    logger.error("Failed to save result even with alternative ID", e2);
-                    throw new RuntimeException("Failed to save exam result", e2);
-                }
+                receipt = resultBatchWriter.write(result);
+            } catch (com.ExamPort.ExamPort.Service.ResultBatchWriter.ReceiptTimeoutException e) {
+                // The result may still commit: the client retries with the same key and gets the stored result back
+                logger.warn("Result of exam {} by {} not confirmed in time, client asked to retry", id, username);
+                Map<String, Object> retryResponse = new HashMap<>();
+                retryResponse.put("error", "Your submission is still being saved, please retry with the same Idempotency-Key");
+                retryResponse.put("retryable", true);
+                retryResponse.put("idempotency_key", idempotencyKey);
+                return retryResponse;
+            }
+            com.ExamPort.ExamPort.Service.ResultBatchWriter.Outcome outcome = receipt.getOutcome();
+            examSessionService.finish(user.getId(), id);
+            if (outcome == com.ExamPort.ExamPort.Service.ResultBatchWriter.Outcome.ALREADY_SUBMITTED) {
+                logger.warn("User {} already submitted exam {}", username, id);
+                return Map.of("error", "Exam already submitted");
+            }
+            boolean replayed = outcome == com.ExamPort.ExamPort.Service.ResultBatchWriter.Outcome.REPLAYED;
+            if (replayed) {
+                // Retried submit with the same idempotency key: answer with the stored result
+                result = receipt.getResult();
+                score = result.getScore();
+                passed = result.getPassed();
+                feedback = result.getFeedback();
+                timeTaken = result.getTimeTaken();
+                logger.info("Replaying stored result: {} for user: {} and exam: {}", result.getId(), username, id);
+            } else {
+                logger.info("Saved exam result: {} for user: {} with score: {}/{}", 
+                           result.getId(), username, score, totalMarks);
             }
-            logger.info("Saved exam result: {} for user: {} with score: {}/{}", 
-                       result.getId(), username, score, totalMarks);
             
             // Calculate completion stats
             int totalQuestions = exam.getQuestions() != null ? exam.getQuestions().size() : 0;
@@ -1021,18 +1070,21 @@ public class ApiExamController {
             response.put("time_taken", timeTaken);
             response.put("feedback", feedback);
             response.put("submitted_at", result.getAttemptDate().toString());
+            response.put("replayed", replayed);
             
             logger.info("Exam {} submitted successfully by {}. Score: {}/{} ({}%), Passed: {}", 
                        exam.getTitle(), username, score, totalMarks, Math.round(scorePercentage), passed);
             
-            // Send email notification to student
-            try {
-                logger.info("Sending exam result email to student: {}", user.getEmail());
-                emailService.sendExamResultNotificationHtml(user, exam, result, answers);
-                logger.info("Exam result email sent successfully to: {}", user.getEmail());
-            } catch (Exception emailError) {
-                logger.error("Failed to send exam result email to: {} - {}", user.getEmail(), emailError.getMessage());
-                // Don't fail the exam submission if email fails
+            // Send email notification to student, a replayed submit was already notified
+            if (!replayed) {
+                try {
+                    logger.info("Sending exam result email to student: {}", user.getEmail());
+                    emailService.sendExamResultNotificationHtml(user, exam, result, answers);
+                    logger.info("Exam result email sent successfully to: {}", user.getEmail());
+                } catch (Exception emailError) {
+                    logger.error("Failed to send exam result email to: {} - {}", user.getEmail(), emailError.getMessage());
+                    // Don't fail the exam submission if email fails
+                }
             }
             
             return response;
@@ -1043,156 +1095,15 @@ public class ApiExamController {
         }
     }
     
-    private double calculateScore(Exam exam, Map<String, String> answers) {
-        if (exam.getQuestions() == null || exam.getQuestions().isEmpty()) {
-            return 0.0;
-        }
-        
-        double totalScore = 0.0;
-        logger.info("Starting score calculation for exam: {} with {} questions", exam.getTitle(), exam.getQuestions().size());
-        
-        for (com.ExamPort.ExamPort.Entity.Question question : exam.getQuestions()) {
-            String userAnswer = answers.get(String.valueOf(question.getQue_id()));
-            logger.debug("Processing question {}: User answer: '{}'", question.getQue_id(), userAnswer);
-            
-            if (userAnswer == null || userAnswer.trim().isEmpty()) {
-                logger.debug("Question {}: No answer provided", question.getQue_id());
-                continue; // No answer provided
-            }
-            
-            double questionScore = 0.0;
-            int questionMarks = question.getMarks() != null ? question.getMarks() : 1;
-            
-            if ("mcq".equals(question.getType()) || "multiple".equals(question.getType())) {
-                // For MCQ questions, check against correct options
-                if (question.getCorrect_options() != null && !question.getCorrect_options().isEmpty()) {
-                    logger.debug("Question {}: Correct options indices: {}", question.getQue_id(), question.getCorrect_options());
-                    
-                    if ("mcq".equals(question.getType())) {
-                        // Single choice - try multiple comparison methods
-                        int correctOptionIndex = question.getCorrect_options().get(0);
-                        if (question.getOptions() != null && correctOptionIndex < question.getOptions().size()) {
-                            String correctAnswer = question.getOptions().get(correctOptionIndex).getAvailableOption();
-                            String correctOptionId = String.valueOf(question.getOptions().get(correctOptionIndex).getOption_id());
-                            String correctIndexStr = String.valueOf(correctOptionIndex);
-                            
-                            logger.debug("Question {}: Correct answer text: '{}', Option ID: '{}', Index: '{}'", 
-                                        question.getQue_id(), correctAnswer, correctOptionId, correctIndexStr);
-                            
-                            // Try different comparison methods
-                            boolean isCorrectByText = correctAnswer != null && correctAnswer.equals(userAnswer.trim());
-                            boolean isCorrectByIndex = correctIndexStr.equals(userAnswer.trim());
-                            boolean isCorrectByOptionId = correctOptionId.equals(userAnswer.trim());
-                            
-                            logger.debug("Question {}: Comparison results - byText: {}, byIndex: {}, byOptionId: {}", 
-                                        question.getQue_id(), isCorrectByText, isCorrectByIndex, isCorrectByOptionId);
-                            
-                            if (isCorrectByText || isCorrectByIndex || isCorrectByOptionId) {
-                                questionScore = questionMarks;
-                                logger.info("Question {}: CORRECT! Awarded {} marks", question.getQue_id(), questionMarks);
-                            } else {
-                                logger.info("Question {}: INCORRECT. User: '{}', Correct: '{}'", 
-                                           question.getQue_id(), userAnswer, correctAnswer);
-                            }
-                        }
-                    } else {
-                        // Multiple choice - partial scoring
-                        String[] userAnswers = userAnswer.split(",");
-                        List<String> userAnswersList = java.util.Arrays.stream(userAnswers)
-                            .map(String::trim)
-                            .collect(java.util.stream.Collectors.toList());
-                        
-                        List<String> correctAnswers = question.getCorrect_options().stream()
-                            .filter(index -> question.getOptions() != null && index < question.getOptions().size())
-                            .map(index -> question.getOptions().get(index).getAvailableOption())
-                            .collect(java.util.stream.Collectors.toList());
-                        
-                        logger.debug("Question {}: User answers: {}, Correct answers: {}", 
-                                    question.getQue_id(), userAnswersList, correctAnswers);
-                        
-                        // Calculate partial score based on correct selections
-                        int correctSelections = 0;
-                        int incorrectSelections = 0;
-                        
-                        for (String userAns : userAnswersList) {
-                            if (correctAnswers.contains(userAns)) {
-                                correctSelections++;
-                            } else {
-                                incorrectSelections++;
-                            }
-                        }
-                        
-                        // Partial scoring: (correct - incorrect) / total_correct * marks
-                        if (correctAnswers.size() > 0) {
-                            double partialScore = Math.max(0, correctSelections - incorrectSelections);
-                            questionScore = (partialScore / correctAnswers.size()) * questionMarks;
-                        }
-                        
-                        logger.info("Question {}: Multiple choice - Correct: {}, Incorrect: {}, Score: {}/{}", 
-                                   question.getQue_id(), correctSelections, incorrectSelections, questionScore, questionMarks);
-                    }
-                }
-            } else {
-                // For text questions, give full marks if answered (manual grading needed)
-                questionScore = questionMarks;
-                logger.info("Question {}: Text question - Awarded full marks: {}", question.getQue_id(), questionMarks);
-            }
-            
-            totalScore += questionScore;
-            logger.debug("Question {}: Final score: {}/{}, Running total: {}", 
-                        question.getQue_id(), questionScore, questionMarks, totalScore);
-        }
-        
-        logger.info("Final score calculation completed: {}/{} total marks", totalScore, exam.getTotalMarks());
-        return Math.round(totalScore * 100.0) / 100.0;
-    }
-    
     private String convertAnswersToJson(Map<String, String> answers) {
         try {
-            // Simple JSON conversion
-            StringBuilder json = new StringBuilder("{");
-            boolean first = true;
-            for (Map.Entry<String, String> entry : answers.entrySet()) {
-                if (!first) json.append(",");
-                json.append("\"").append(entry.getKey()).append("\":\"")
-                    .append(entry.getValue().replace("\"", "\\\"")).append("\"");
-                first = false;
-            }
-            json.append("}");
-            return json.toString();
+            return ANSWERS_WRITER.writeValueAsString(answers);
         } catch (Exception e) {
             logger.warn("Error converting answers to JSON", e);
             return answers.toString();
         }
     }
     
-    private String generateFeedback(double score, double totalMarks, boolean passed) {
-        if (totalMarks == 0) {
-            return "Exam completed. Manual review required.";
-        }
-        
-        double percentage = (score / totalMarks) * 100;
-        
-        StringBuilder feedback = new StringBuilder();
-        feedback.append(String.format("You scored %.1f out of %.1f marks (%.1f%%). ", score, totalMarks, percentage));
-        
-        if (passed) {
-            if (percentage >= 90) {
-                feedback.append("Excellent work! Outstanding performance.");
-            } else if (percentage >= 80) {
-                feedback.append("Great job! Very good performance.");
-            } else if (percentage >= 70) {
-                feedback.append("Good work! Solid performance.");
-            } else {
-                feedback.append("You passed! Keep up the good work.");
-            }
-        } else {
-            feedback.append("You did not meet the passing criteria (60%). Please review the material and try again.");
-        }
-        
-        return feedback.toString();
-    }
-    
     @PutMapping("/{id}")
     @org.springframework.transaction.annotation.Transactional
     public Map<String, Object> updateExam(@PathVariable Long id, @RequestBody Exam examData, 
@@ -1209,7 +1120,7 @@ public class ApiExamController {
             
             // Verify user has permission to update this exam
             String username = authentication.getName();
-            com.ExamPort.ExamPort.Entity.User user = userRepository.findByUsername(username).orElse(null);
+            com.ExamPort.ExamPort.Entity.User user = currentUser.get().orElse(null);
             if (user == null) {
                 logger.warn("User not found: {}", username);
                 return Map.of("error", "User not found");
@@ -1248,4 +1159,68 @@ public class ApiExamController {
             return Map.of("error", "Error updating exam: " + e.getMessage(), "success", false);
         }
     }
+    
+    /**
+     * Re-grade all stored results of an exam against its current answer key
+     */
+    @PostMapping("/{id}/regrade")
+    public Map<String, Object> regradeExam(@PathVariable Long id, org.springframework.security.core.Authentication authentication) {
+        String username = authentication.getName();
+        logger.info("Regrade requested for exam: {} by user: {}", id, username);
+        
+        try {
+            Map<String, Object> accessError = checkRegradeAccess(id, username);
+            if (accessError != null) {
+                return accessError;
+            }
+            
+            return regradeService.regrade(id).toMap();
+        } catch (Exception e) {
+            logger.error("Error starting regrade for exam: {}", id, e);
+            return Map.of("error", "Error starting regrade: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Status of the running or most recent re-grade job of an exam
+     */
+    @GetMapping("/{id}/regrade")
+    public Map<String, Object> getRegradeStatus(@PathVariable Long id, org.springframework.security.core.Authentication authentication) {
+        Map<String, Object> accessError = checkRegradeAccess(id, authentication.getName());
+        if (accessError != null) {
+            return accessError;
+        }
+        com.ExamPort.ExamPort.Service.RegradeService.RegradeJob job = regradeService.getLatestJob(id);
+        if (job == null) {
+            return Map.of("error", "No regrade job found for this exam");
+        }
+        return job.toMap();
+    }
+    
+    /**
+     * Only the instructor of the exam's course may re-grade it or see its re-grade jobs.
+     * Returns the error response, or null when access is allowed.
+     */
+    private Map<String, Object> checkRegradeAccess(Long id, String username) {
+        com.ExamPort.ExamPort.Service.ExamSnapshot snapshot = examSnapshotCache.get(id);
+        if (snapshot == null) {
+            logger.warn("Exam not found for regrade: {}", id);
+            return Map.of("error", "Exam not found");
+        }
+        
+        com.ExamPort.ExamPort.Entity.User user = currentUser.get().orElse(null);
+        if (user == null) {
+            logger.warn("User not found: {}", username);
+            return Map.of("error", "User not found");
+        }
+        
+        Exam exam = snapshot.getExam();
+        if (exam.getCourse() != null && 
+            exam.getCourse().getInstructor() != null &&
+            !exam.getCourse().getInstructor().getId().equals(user.getId())) {
+            logger.warn("User {} does not have permission to regrade exam {}", username, id);
+            return Map.of("error", "Permission denied");
+        }
+        return null;
+    }
 }
@@ -3,6 +3,7 @@ package com.ExamPort.ExamPort.Controller;
 import com.ExamPort.ExamPort.Entity.User;
 import com.ExamPort.ExamPort.Repository.UserRepository;
 import com.ExamPort.ExamPort.Service.AuthService;
+import com.ExamPort.ExamPort.Service.PendingEnrollmentService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,6 +26,9 @@ public class AuthController {
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private PendingEnrollmentService pendingEnrollmentService;
+
     private BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
 
     @PostMapping("/register")
@@ -50,6 +54,14 @@ return ResponseEntity.badRequest().body(error);
             user.setEmailVerified(false); // Set email as not verified initially
             User savedUser = userRepository.save(user);
             
+            // Enroll in the private courses whose rosters were waiting for this email
+            int autoEnrolledCount = 0;
+            try {
+                autoEnrolledCount = pendingEnrollmentService.materialize(savedUser);
+            } catch (Exception e) {
+                logger.error("Pending course enrollments failed for user: {}", savedUser.getUsername(), e);
+            }
+            
             // Send email verification
             boolean emailSent = authService.sendEmailVerification(savedUser);
             
@@ -64,6 +76,7 @@ return ResponseEntity.badRequest().body(error);
             response.put("phoneNumber", user.getPhoneNumber());
             response.put("emailVerified", user.isEmailVerified());
             response.put("verificationEmailSent", emailSent);
+            response.put("autoEnrolledCount", autoEnrolledCount);
             response.put("message", emailSent ? 
                 "Registration successful! Please check your email to verify your account." :
                 "Registration successful! However, verification email could not be sent.");
@@ -125,7 +138,7 @@ return ResponseEntity.internalServerError().body(error);
             
             // Generate JWT token
             logger.info("Generating JWT token...");
-            String token = jwtUtil.generateToken(user.getUsername(), user.getRole());
+            String token = jwtUtil.generateToken(user.getId(), user.getUsername(), user.getRole());
             logger.info("User logged in successfully: {} with role: {}", user.getUsername(), user.getRole());
             
             Map<String, Object> response = new HashMap<>();
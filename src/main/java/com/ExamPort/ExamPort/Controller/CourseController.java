@@ -2,9 +2,15 @@ package com.ExamPort.ExamPort.Controller;
 
 import com.ExamPort.ExamPort.Entity.*;
 import com.ExamPort.ExamPort.Repository.CourseRepository;
-import com.ExamPort.ExamPort.Repository.UserRepository;
+import com.ExamPort.ExamPort.Security.CurrentUser;
 import com.ExamPort.ExamPort.Repository.EnrollmentRepository;
+import com.ExamPort.ExamPort.Service.CourseMembershipService;
+import com.ExamPort.ExamPort.Service.EnrollmentCountService;
+import com.ExamPort.ExamPort.Service.ExamAccessIndex;
+import com.ExamPort.ExamPort.Service.ExamSnapshotCache;
+import com.ExamPort.ExamPort.Service.KeysetPagination;
 import com.ExamPort.ExamPort.Service.PaymentService;
+import com.ExamPort.ExamPort.Service.RosterImportService;
 import com.ExamPort.ExamPort.Service.ValidationService;
 import com.ExamPort.ExamPort.Exception.ValidationException;
 import com.ExamPort.ExamPort.Exception.CourseException;
@@ -16,13 +22,11 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
 import java.math.BigDecimal;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -39,7 +43,7 @@ public class CourseController {
     private CourseRepository courseRepository;
     
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUser currentUser;
     
     @Autowired
     private EnrollmentRepository enrollmentRepository;
@@ -50,6 +54,24 @@ public class CourseController {
     @Autowired
     private ValidationService validationService;
 
+    @Autowired
+    private ExamSnapshotCache examSnapshotCache;
+
+    @Autowired
+    private ExamAccessIndex examAccessIndex;
+
+    @Autowired
+    private CourseMembershipService courseMembershipService;
+
+    @Autowired
+    private RosterImportService rosterImportService;
+
+    @Autowired
+    private KeysetPagination keysetPagination;
+
+    @Autowired
+    private EnrollmentCountService enrollmentCountService;
+
     @PostMapping("/create")
     @Transactional
     public ResponseEntity<?> createCourse(@RequestParam("name") String name,
@@ -65,7 +87,7 @@ public class CourseController {
         
         try {
             // Find instructor
-            Optional<User> instructorOpt = userRepository.findByUsername(username);
+            Optional<User> instructorOpt = currentUser.get();
             if (instructorOpt.isEmpty()) {
                 logger.warn("Course creation failed - Instructor not found: {}", username);
                 return ResponseEntity.badRequest().body(Map.of("error", "Instructor not found"));
@@ -99,36 +121,9 @@ public class CourseController {
                 }
             }
             
-            // Process allowed emails for private courses
-            List<String> allowedEmails = null;
-            if (visibility == CourseVisibility.PRIVATE) {
-                if (file == null || file.isEmpty()) {
-                    return ResponseEntity.badRequest().body(Map.of("error", "Email file is required for private courses"));
-                }
-                
-                logger.debug("Processing email file for private course: {}", name);
-                allowedEmails = new ArrayList<>();
-                try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
-                    String line;
-                    int lineNum = 1;
-                    while ((line = reader.readLine()) != null) {
-                        String email = line.trim();
-                        if (!email.isEmpty()) {
-                            // Basic validation
-                            if (email.length() > 100) {
-                                logger.warn("Email validation failed - Email too long at line {}: {}", lineNum, email);
-                                return ResponseEntity.badRequest().body(Map.of("error", "Email too long at line " + lineNum + ": " + email));
-                            }
-                            if (!validationService.isValidEmail(email)) {
-                                logger.warn("Email validation failed - Invalid format at line {}: {}", lineNum, email);
-                                return ResponseEntity.badRequest().body(Map.of("error", "Invalid email format at line " + lineNum + ": " + email));
-                            }
-                            allowedEmails.add(email);
-                        }
-                        lineNum++;
-                    }
-                }
-                logger.debug("Processed {} valid emails for private course: {}", allowedEmails.size(), name);
+            // Private courses need a roster file, it is imported once the course exists
+            if (visibility == CourseVisibility.PRIVATE && (file == null || file.isEmpty())) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Email file is required for private courses"));
             }
             
             // Create course object
@@ -138,7 +133,6 @@ public class CourseController {
             course.setVisibility(visibility);
             course.setPricing(pricing);
             course.setPrice(price);
-            course.setAllowedEmails(allowedEmails);
             course.setInstructor(instructor);
             
             // Validate course using validation service
@@ -146,31 +140,25 @@ public class CourseController {
             
             // Save course
             Course savedCourse = courseRepository.save(course);
+            examAccessIndex.courseSaved(savedCourse);
             
-            // Auto-enroll students for private courses
+            // Import the roster and auto-enroll registered students for private courses
             int autoEnrolledCount = 0;
-            if (visibility == CourseVisibility.PRIVATE && allowedEmails != null && !allowedEmails.isEmpty()) {
-                logger.info("Auto-enrolling students in private course: {}", name);
-                for (String email : allowedEmails) {
-                    try {
-                        Optional<User> studentOpt = userRepository.findByEmail(email);
-                        if (studentOpt.isPresent()) {
-                            User student = studentOpt.get();
-                            
-                            // Check if student is not already enrolled
-                            Optional<Enrollment> existingEnrollment = enrollmentRepository.findByStudent_IdAndCourse_Id(student.getId(), savedCourse.getId());
-                            if (existingEnrollment.isEmpty()) {
-                                Enrollment enrollment = new Enrollment(student, savedCourse, EnrollmentStatus.ENROLLED);
-                                enrollmentRepository.save(enrollment);
-                                autoEnrolledCount++;
-                                logger.debug("Auto-enrolled student: {} in private course: {}", email, name);
-                            }
-                        } else {
-                            logger.debug("Student with email {} not found in system for auto-enrollment", email);
-                        }
-                    } catch (Exception e) {
-                        logger.warn("Failed to auto-enroll student with email: {} in course: {} - {}", email, name, e.getMessage());
+            Map<String, Object> rosterImport = null;
+            if (visibility == CourseVisibility.PRIVATE) {
+                if (rosterImportService.runsInBackground(file)) {
+                    rosterImport = rosterImportService.importInBackground(savedCourse.getId(), file, RosterImportService.Mode.ADD).toMap();
+                } else {
+                    RosterImportService.RosterImportReport report = rosterImportService.importNow(savedCourse.getId(), file.getInputStream(), RosterImportService.Mode.ADD);
+                    if (report.getValidEmails() == 0) {
+                        // Nothing usable in the file, do not keep the course
+                        TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+                        return ResponseEntity.badRequest().body(Map.of(
+                            "error", "Allowed emails are required for private courses",
+                            "rosterImport", report.toMap()));
                     }
+                    autoEnrolledCount = (int) report.getEnrollmentsCreated();
+                    rosterImport = report.toMap();
                 }
                 logger.info("Auto-enrolled {} students in private course: {}", autoEnrolledCount, name);
             }
@@ -196,6 +184,9 @@ public class CourseController {
                 response.put("autoEnrolledStudents", autoEnrolledCount);
                 response.put("enrollmentMessage", "Automatically enrolled " + autoEnrolledCount + " students");
             }
+            if (rosterImport != null) {
+                response.put("rosterImport", rosterImport);
+            }
             
             return ResponseEntity.ok(response);
             
@@ -222,7 +213,7 @@ public class CourseController {
         logger.info("Fetching courses for instructor: {}", username);
         
         try {
-            Optional<User> instructorOpt = userRepository.findByUsername(username);
+            Optional<User> instructorOpt = currentUser.get();
             if (instructorOpt.isEmpty()) {
                 logger.warn("Get courses failed - Instructor not found: {}", username);
                 return ResponseEntity.badRequest().body("Instructor not found");
@@ -231,6 +222,14 @@ public class CourseController {
             User instructor = instructorOpt.get();
             List<Course> courses = courseRepository.findByInstructor_Id(instructor.getId());
             
+            // Counts for the whole list: one grouped query each for enrollments and private course members
+            List<Long> courseIds = courses.stream().map(Course::getId).toList();
+            Map<Long, Long> enrollmentCounts = enrollmentCountService.countsOf(courseIds);
+            Map<Long, Integer> memberCounts = courseMembershipService.countsOf(courses.stream()
+                .filter(course -> course.getVisibility() == CourseVisibility.PRIVATE)
+                .map(Course::getId)
+                .toList());
+            
             // Create response with enrollment counts and exam counts
             List<Map<String, Object>> coursesWithStats = new ArrayList<>();
             for (Course course : courses) {
@@ -247,23 +246,18 @@ public class CourseController {
                     "fullName", instructor.getFullName() != null ? instructor.getFullName() : instructor.getUsername()
                 ));
                 
-                // Add enrollment count - handle private courses differently
-                Long enrollmentCount = 0L;
+                // Add enrollment count - private courses also show their allowed emails count
+                Long enrollmentCount = enrollmentCounts.getOrDefault(course.getId(), 0L);
                 if (course.getVisibility() == CourseVisibility.PRIVATE) {
-                    // For private courses, count actual enrollments but also show allowed emails count
-                    enrollmentCount = enrollmentRepository.countEnrolledStudentsByCourseId(course.getId());
-                    int allowedEmailsCount = course.getAllowedEmails() != null ? course.getAllowedEmails().size() : 0;
+                    int allowedEmailsCount = memberCounts.getOrDefault(course.getId(), 0);
                     courseData.put("allowedEmailsCount", allowedEmailsCount);
                     logger.debug("Private course {} - Enrolled: {}, Allowed emails: {}", 
                                course.getName(), enrollmentCount, allowedEmailsCount);
-                } else {
-                    // For public courses, count actual enrollments
-                    enrollmentCount = enrollmentRepository.countEnrolledStudentsByCourseId(course.getId());
                 }
                 courseData.put("enrollmentCount", enrollmentCount);
                 
-                // Add exam count (if exams relationship exists)
-                int examCount = course.getExams() != null ? course.getExams().size() : 0;
+                // Add exam count
+                int examCount = examAccessIndex.examCountOf(course.getId());
                 courseData.put("examCount", examCount);
                 
                 coursesWithStats.add(courseData);
@@ -296,16 +290,24 @@ public class CourseController {
         }
     }
 
+    /**
+     * Public courses by ID, one page at a time. The next page is requested with the X-Next-Cursor header value as ?cursor=.
+     */
     @GetMapping("/public")
-    public ResponseEntity<?> getPublicCourses() {
+    public ResponseEntity<?> getPublicCourses(@RequestParam(value = "cursor", required = false) String cursor,
+                                              @RequestParam(value = "limit", required = false) Integer limit) {
         logger.info("Fetching public courses");
         
         try {
-            List<Course> publicCourses = courseRepository.findByVisibility(CourseVisibility.PUBLIC);
+            int pageSize = keysetPagination.pageSize(limit);
+            KeysetPagination.Cursor after = keysetPagination.decode(cursor, 1);
+            List<Course> publicCourses = courseRepository.findPageByVisibilityAfter(CourseVisibility.PUBLIC,
+                after != null ? after.getLong(0) : 0L, keysetPagination.rowsFor(pageSize));
+            Map<Long, Long> enrollmentCounts = enrollmentCountService.countsOf(
+                publicCourses.stream().map(Course::getId).toList());
             
             // Create response with enrollment counts
-            List<Map<String, Object>> coursesWithStats = new ArrayList<>();
-            for (Course course : publicCourses) {
+            return keysetPagination.respond(publicCourses, pageSize, course -> new Object[]{course.getId()}, course -> {
                 Map<String, Object> courseData = new HashMap<>();
                 courseData.put("id", course.getId());
                 courseData.put("name", course.getName());
@@ -321,14 +323,14 @@ public class CourseController {
                 ));
                 
                 // Add enrollment count
-                Long enrollmentCount = enrollmentRepository.countEnrolledStudentsByCourseId(course.getId());
+                Long enrollmentCount = enrollmentCounts.getOrDefault(course.getId(), 0L);
                 courseData.put("enrollmentCount", enrollmentCount);
                 
-                coursesWithStats.add(courseData);
-            }
-            
-            logger.info("Retrieved {} public courses", publicCourses.size());
-            return ResponseEntity.ok(coursesWithStats);
+                return courseData;
+            });
+        } catch (ValidationException e) {
+            logger.warn("Invalid public courses page request - {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             logger.error("Error fetching public courses", e);
             return ResponseEntity.internalServerError().body("Error fetching public courses");
@@ -343,7 +345,7 @@ public class CourseController {
         
         try {
             // Find student
-            Optional<User> studentOpt = userRepository.findByUsername(username);
+            Optional<User> studentOpt = currentUser.get();
             if (studentOpt.isEmpty()) {
                 logger.warn("Enrollment failed - Student not found: {}", username);
                 return ResponseEntity.badRequest().body("Student not found");
@@ -380,6 +382,8 @@ public class CourseController {
             // Create enrollment
             Enrollment enrollment = new Enrollment(student, course, EnrollmentStatus.ENROLLED);
             enrollmentRepository.save(enrollment);
+            examAccessIndex.enrolled(student.getId(), courseId);
+            enrollmentCountService.changed(courseId);
             
             logger.info("Student: {} successfully enrolled in free course: {}", username, course.getName());
             
@@ -405,7 +409,7 @@ public class CourseController {
         
         try {
             // Find student
-            Optional<User> studentOpt = userRepository.findByUsername(username);
+            Optional<User> studentOpt = currentUser.get();
             if (studentOpt.isEmpty()) {
                 logger.warn("Purchase failed - Student not found: {}", username);
                 return ResponseEntity.badRequest().body("Student not found");
@@ -474,7 +478,7 @@ public class CourseController {
             }
             
             // Get student from authentication context
-            Optional<User> studentOpt = userRepository.findByUsername(username);
+            Optional<User> studentOpt = currentUser.get();
             if (studentOpt.isEmpty()) {
                 throw new ValidationException("authentication", "Student not found");
             }
@@ -558,7 +562,7 @@ public class CourseController {
         logger.info("Fetching enrolled courses for student: {}", username);
         
         try {
-            Optional<User> studentOpt = userRepository.findByUsername(username);
+            Optional<User> studentOpt = currentUser.get();
             if (studentOpt.isEmpty()) {
                 logger.warn("Get enrolled courses failed - Student not found: {}", username);
                 return ResponseEntity.badRequest().body("Student not found");
@@ -600,7 +604,7 @@ public class CourseController {
         logger.info("Checking course access for course: {} by user: {}", courseId, username);
         
         try {
-            Optional<User> userOpt = userRepository.findByUsername(username);
+            Optional<User> userOpt = currentUser.get();
             if (userOpt.isEmpty()) {
                 return ResponseEntity.badRequest().body("User not found");
             }
@@ -626,7 +630,7 @@ public class CourseController {
                 }
             } else if (course.getVisibility() == CourseVisibility.PRIVATE) {
                 // For private courses, check if user's email is in allowed emails
-                if (course.getAllowedEmails() != null && course.getAllowedEmails().contains(user.getEmail())) {
+                if (courseMembershipService.isMember(courseId, user.getEmail())) {
                     hasAccess = true;
                     accessType = "allowed";
                     
@@ -670,7 +674,7 @@ public class CourseController {
         
         try {
             // Find instructor
-            Optional<User> instructorOpt = userRepository.findByUsername(username);
+            Optional<User> instructorOpt = currentUser.get();
             if (instructorOpt.isEmpty()) {
                 logger.warn("Course update failed - Instructor not found: {}", username);
                 return ResponseEntity.badRequest().body(Map.of("error", "Instructor not found"));
@@ -719,31 +723,10 @@ public class CourseController {
                 }
             }
             
-            // Process allowed emails for private courses
-            List<String> allowedEmails = course.getAllowedEmails(); // Keep existing if no new file
-            if (visibility == CourseVisibility.PRIVATE && file != null && !file.isEmpty()) {
-                logger.debug("Processing new email file for private course: {}", name);
-                allowedEmails = new ArrayList<>();
-                try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
-                    String line;
-                    int lineNum = 1;
-                    while ((line = reader.readLine()) != null) {
-                        String email = line.trim();
-                        if (!email.isEmpty()) {
-                            if (email.length() > 100) {
-                                logger.warn("Email validation failed - Email too long at line {}: {}", lineNum, email);
-                                return ResponseEntity.badRequest().body(Map.of("error", "Email too long at line " + lineNum + ": " + email));
-                            }
-                            if (!validationService.isValidEmail(email)) {
-                                logger.warn("Email validation failed - Invalid format at line {}: {}", lineNum, email);
-                                return ResponseEntity.badRequest().body(Map.of("error", "Invalid email format at line " + lineNum + ": " + email));
-                            }
-                            allowedEmails.add(email);
-                        }
-                        lineNum++;
-                    }
-                }
-                logger.debug("Processed {} valid emails for private course update: {}", allowedEmails.size(), name);
+            // A private course keeps its roster unless a new file replaces it
+            boolean newRoster = visibility == CourseVisibility.PRIVATE && file != null && !file.isEmpty();
+            if (visibility == CourseVisibility.PRIVATE && !newRoster && courseMembershipService.countOf(courseId) == 0) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Email file is required for private courses"));
             }
             
             // Update course fields
@@ -752,44 +735,41 @@ public class CourseController {
             course.setVisibility(visibility);
             course.setPricing(pricing);
             course.setPrice(price);
-            if (visibility == CourseVisibility.PRIVATE) {
-                course.setAllowedEmails(allowedEmails);
-            } else {
-                course.setAllowedEmails(null); // Clear allowed emails for public courses
-            }
             
             // Validate updated course
             validationService.validateCourseCreation(course, instructor);
             
             // Save updated course
             Course updatedCourse = courseRepository.save(course);
+            examSnapshotCache.invalidateCourse(courseId);
+            examAccessIndex.courseSaved(updatedCourse);
             
-            // Auto-enroll new students for private courses if new emails were added
+            // Replace the roster from a new file, or re-check the existing one for students who registered since
             int newAutoEnrolledCount = 0;
-            if (visibility == CourseVisibility.PRIVATE && allowedEmails != null && !allowedEmails.isEmpty()) {
-                logger.info("Auto-enrolling new students in updated private course: {}", name);
-                for (String email : allowedEmails) {
-                    try {
-                        Optional<User> studentOpt = userRepository.findByEmail(email);
-                        if (studentOpt.isPresent()) {
-                            User student = studentOpt.get();
-                            
-                            // Check if student is not already enrolled
-                            Optional<Enrollment> existingEnrollment = enrollmentRepository.findByStudent_IdAndCourse_Id(student.getId(), updatedCourse.getId());
-                            if (existingEnrollment.isEmpty()) {
-                                Enrollment enrollment = new Enrollment(student, updatedCourse, EnrollmentStatus.ENROLLED);
-                                enrollmentRepository.save(enrollment);
-                                newAutoEnrolledCount++;
-                                logger.debug("Auto-enrolled new student: {} in updated private course: {}", email, name);
-                            }
-                        }
-                    } catch (Exception e) {
-                        logger.warn("Failed to auto-enroll student with email: {} in updated course: {} - {}", email, name, e.getMessage());
+            Map<String, Object> rosterImport = null;
+            if (newRoster) {
+                if (rosterImportService.runsInBackground(file)) {
+                    rosterImport = rosterImportService.importInBackground(courseId, file, RosterImportService.Mode.REPLACE).toMap();
+                } else {
+                    RosterImportService.RosterImportReport report = rosterImportService.importNow(courseId, file.getInputStream(), RosterImportService.Mode.REPLACE);
+                    if (report.getValidEmails() == 0) {
+                        // Keep the previous roster rather than emptying the course
+                        TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+                        return ResponseEntity.badRequest().body(Map.of(
+                            "error", "Allowed emails are required for private courses",
+                            "rosterImport", report.toMap()));
                     }
+                    newAutoEnrolledCount = (int) report.getEnrollmentsCreated();
+                    rosterImport = report.toMap();
                 }
-                if (newAutoEnrolledCount > 0) {
-                    logger.info("Auto-enrolled {} new students in updated private course: {}", newAutoEnrolledCount, name);
-                }
+            } else if (visibility == CourseVisibility.PRIVATE) {
+                newAutoEnrolledCount = rosterImportService.enrollMembers(courseId);
+            } else {
+                // Public courses have no roster
+                courseMembershipService.setMembers(courseId, List.of());
+            }
+            if (newAutoEnrolledCount > 0) {
+                logger.info("Auto-enrolled {} new students in updated private course: {}", newAutoEnrolledCount, name);
             }
             
             logger.info("Course updated successfully: {} by instructor: {}", name, username);
@@ -812,6 +792,9 @@ public class CourseController {
                 response.put("newAutoEnrolledStudents", newAutoEnrolledCount);
                 response.put("enrollmentMessage", "Automatically enrolled " + newAutoEnrolledCount + " new students");
             }
+            if (rosterImport != null) {
+                response.put("rosterImport", rosterImport);
+            }
             
             return ResponseEntity.ok(response);
             
@@ -840,7 +823,7 @@ public class CourseController {
         
         try {
             // Find instructor
-            Optional<User> instructorOpt = userRepository.findByUsername(username);
+            Optional<User> instructorOpt = currentUser.get();
             if (instructorOpt.isEmpty()) {
                 logger.warn("Course deletion failed - Instructor not found: {}", username);
                 return ResponseEntity.badRequest().body(Map.of("error", "Instructor not found"));
@@ -882,6 +865,9 @@ public class CourseController {
             
             // Delete the course (this will cascade delete enrollments and exams due to JPA relationships)
             courseRepository.delete(course);
+            examSnapshotCache.invalidateCourse(courseId);
+            examAccessIndex.courseDeleted(courseId);
+            courseMembershipService.removeCourse(courseId);
             
             logger.info("Course deleted successfully: {} (ID: {}) by instructor: {}", courseName, courseId, username);
             
@@ -897,4 +883,147 @@ public class CourseController {
             return ResponseEntity.internalServerError().body(Map.of("error", "An unexpected error occurred: " + e.getMessage()));
         }
     }
-}
\ No newline at end of file
+
+    @GetMapping("/{courseId}/members")
+    public ResponseEntity<?> getCourseMembers(@PathVariable Long courseId, Authentication authentication) {
+        String username = authentication.getName();
+        try {
+            findOwnedPrivateCourse(courseId);
+            List<String> emails = courseMembershipService.emailsOf(courseId);
+            emails.sort(null);
+            return ResponseEntity.ok(Map.of("courseId", courseId, "count", emails.size(), "emails", emails));
+        } catch (CourseException e) {
+            logger.warn("Listing members of course {} failed for {} - {}", courseId, username, e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error listing members of course: {} for instructor: {}", courseId, username, e);
+            return ResponseEntity.internalServerError().body(Map.of("error", "An unexpected error occurred: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Add emails to a private course, body: {"emails": [...]}. Registered students are enrolled right away, the rest when they register.
+     */
+    @PostMapping("/{courseId}/members")
+    @Transactional
+    public ResponseEntity<?> addCourseMembers(@PathVariable Long courseId, @RequestBody Map<String, List<String>> body,
+                                              Authentication authentication) {
+        String username = authentication.getName();
+        try {
+            findOwnedPrivateCourse(courseId);
+            List<String> emails = validMemberEmails(body);
+            int added = courseMembershipService.addMembers(courseId, emails);
+            int enrolled = rosterImportService.enrollMembers(courseId, emails);
+            logger.info("Instructor {} added {} members to course {}, {} enrolled", username, added, courseId, enrolled);
+            return ResponseEntity.ok(Map.of("courseId", courseId, "requested", emails.size(), "added", added,
+                "autoEnrolledCount", enrolled));
+        } catch (ValidationException | CourseException e) {
+            logger.warn("Adding members to course {} failed for {} - {}", courseId, username, e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error adding members to course: {} by instructor: {}", courseId, username, e);
+            return ResponseEntity.internalServerError().body(Map.of("error", "An unexpected error occurred: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Remove emails from a private course, body: {"emails": [...]}. Existing enrollments are kept.
+     */
+    @DeleteMapping("/{courseId}/members")
+    @Transactional
+    public ResponseEntity<?> removeCourseMembers(@PathVariable Long courseId, @RequestBody Map<String, List<String>> body,
+                                                 Authentication authentication) {
+        String username = authentication.getName();
+        try {
+            findOwnedPrivateCourse(courseId);
+            List<String> emails = body != null && body.get("emails") != null ? body.get("emails") : List.of();
+            int removed = courseMembershipService.removeMembers(courseId, emails);
+            logger.info("Instructor {} removed {} members from course {}", username, removed, courseId);
+            return ResponseEntity.ok(Map.of("courseId", courseId, "requested", emails.size(), "removed", removed));
+        } catch (CourseException e) {
+            logger.warn("Removing members from course {} failed for {} - {}", courseId, username, e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error removing members from course: {} by instructor: {}", courseId, username, e);
+            return ResponseEntity.internalServerError().body(Map.of("error", "An unexpected error occurred: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Add the emails of an uploaded roster file to a private course and enroll the ones already registered.
+     * Large files are imported in the background, poll the returned job for progress.
+     */
+    @PostMapping("/{courseId}/members/import")
+    @Transactional
+    public ResponseEntity<?> importCourseMembers(@PathVariable Long courseId, @RequestParam("file") MultipartFile file,
+                                                 Authentication authentication) {
+        String username = authentication.getName();
+        try {
+            findOwnedPrivateCourse(courseId);
+            if (file == null || file.isEmpty()) {
+                throw new ValidationException("file", "A roster file is required");
+            }
+            if (rosterImportService.runsInBackground(file)) {
+                RosterImportService.RosterImportJob job = rosterImportService.importInBackground(courseId, file, RosterImportService.Mode.ADD);
+                logger.info("Instructor {} started roster import {} for course {}", username, job.getId(), courseId);
+                return ResponseEntity.accepted().body(job.toMap());
+            }
+            RosterImportService.RosterImportReport report = rosterImportService.importNow(courseId, file.getInputStream(), RosterImportService.Mode.ADD);
+            logger.info("Instructor {} imported roster for course {}: {}", username, courseId, report.toMap());
+            return ResponseEntity.ok(report.toMap());
+        } catch (ValidationException | CourseException e) {
+            logger.warn("Roster import for course {} failed for {} - {}", courseId, username, e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error importing roster for course: {} by instructor: {}", courseId, username, e);
+            return ResponseEntity.internalServerError().body(Map.of("error", "An unexpected error occurred: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{courseId}/roster-imports/{jobId}")
+    public ResponseEntity<?> getRosterImport(@PathVariable Long courseId, @PathVariable String jobId,
+                                             Authentication authentication) {
+        String username = authentication.getName();
+        try {
+            findOwnedPrivateCourse(courseId);
+            RosterImportService.RosterImportJob job = rosterImportService.getJob(jobId);
+            if (job == null || !courseId.equals(job.getCourseId())) {
+                return ResponseEntity.status(404).body(Map.of("error", "Roster import not found"));
+            }
+            return ResponseEntity.ok(job.toMap());
+        } catch (CourseException e) {
+            logger.warn("Reading roster import {} of course {} failed for {} - {}", jobId, courseId, username, e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error reading roster import: {} for instructor: {}", jobId, username, e);
+            return ResponseEntity.internalServerError().body(Map.of("error", "An unexpected error occurred: " + e.getMessage()));
+        }
+    }
+
+    private Course findOwnedPrivateCourse(Long courseId) {
+        User instructor = currentUser.get()
+            .orElseThrow(() -> new CourseException.CourseAccessDeniedException("Instructor not found"));
+        Course course = courseRepository.findById(courseId)
+            .orElseThrow(() -> new CourseException.CourseNotFoundException(courseId));
+        if (course.getInstructor() == null || !course.getInstructor().getId().equals(instructor.getId())) {
+            throw new CourseException.CourseAccessDeniedException("You can only manage members of your own courses");
+        }
+        if (course.getVisibility() != CourseVisibility.PRIVATE) {
+            throw new CourseException.InvalidCourseDataException("Only private courses have a member list");
+        }
+        return course;
+    }
+
+    private List<String> validMemberEmails(Map<String, List<String>> body) {
+        List<String> emails = body != null ? body.get("emails") : null;
+        if (emails == null || emails.isEmpty()) {
+            throw new ValidationException("emails", "At least one email is required");
+        }
+        for (String email : emails) {
+            if (email == null || email.length() > 100 || !validationService.isValidEmail(email)) {
+                throw new ValidationException("emails", "Invalid email: " + email);
+            }
+        }
+        return emails;
+    }
+}
@@ -4,19 +4,26 @@ import com.ExamPort.ExamPort.Entity.Result;
 import com.ExamPort.ExamPort.Entity.Exam;
 import com.ExamPort.ExamPort.Entity.User;
 
-import com.ExamPort.ExamPort.Repository.ResultRepository;
 import com.ExamPort.ExamPort.Repository.Exam_repo;
-import com.ExamPort.ExamPort.Repository.UserRepository;
+import com.ExamPort.ExamPort.Repository.ResultRepository;
+import com.ExamPort.ExamPort.Security.CurrentUser;
+import com.ExamPort.ExamPort.Service.AdminStatsService;
+import com.ExamPort.ExamPort.Service.ExamAccessIndex;
+import com.ExamPort.ExamPort.Service.ExamSnapshot;
+import com.ExamPort.ExamPort.Service.ExamSnapshotCache;
+import com.ExamPort.ExamPort.Service.GlobalRankingService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import java.util.*;
-import java.time.LocalDateTime;
+import java.time.Instant;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 
 @RestController
 @RequestMapping("/api/dashboard")
@@ -25,11 +32,22 @@ public class DashboardController {
     private static final Logger logger = LoggerFactory.getLogger(DashboardController.class);
     
     @Autowired
-    private UserRepository userRepository;
-    @Autowired
-    private Exam_repo examRepository;
+    private CurrentUser currentUser;
     @Autowired
     private ResultRepository resultRepository;
+    @Autowired
+    private ExamSnapshotCache examSnapshotCache;
+    @Autowired
+    private GlobalRankingService globalRankingService;
+    @Autowired
+    private AdminStatsService adminStatsService;
+    @Autowired
+    private ExamAccessIndex examAccessIndex;
+    @Autowired
+    private Exam_repo examRepo;
+
+    @Value("${app.exams.upcoming-window-days:7}")
+    private int upcomingWindowDays;
     
 
     @GetMapping
@@ -37,35 +55,25 @@ public class DashboardController {
         logger.info("Dashboard stats requested");
         
         try {
-            // 1. Total Users
-            long totalUsers = userRepository.count();
-            logger.debug("Total users: {}", totalUsers);
-
-            // 2. Total Exams
-            long totalExams = examRepository.count();
-            logger.debug("Total exams: {}", totalExams);
-
-            // 3. Total Attempts
-            long totalAttempts = resultRepository.count();
-            logger.debug("Total attempts: {}", totalAttempts);
+            // Totals, average score and role counts come from the periodically refreshed snapshot
+            AdminStatsService.Snapshot snapshot = adminStatsService.get();
+            long totalUsers = snapshot.getTotalUsers();
+            long totalExams = snapshot.getTotalExams();
+            long totalAttempts = snapshot.getTotalAttempts();
+            double averageScore = snapshot.getAverageScore();
+            logger.debug("Stats snapshot: {} users, {} exams, {} attempts, average score {}",
+                       totalUsers, totalExams, totalAttempts, averageScore);
 
-            // 4. Average Score
-            List<Result> results = resultRepository.findAll();
-            double averageScore = results.isEmpty() ? 0.0 : results.stream().mapToDouble(Result::getScore).average().orElse(0.0);
-            logger.debug("Average score calculated: {}", averageScore);
-
-            
-            // 5. Users By Role
-            List<Object[]> usersByRoleRaw = userRepository.countUsersByRole();
+            // Users By Role
             List<Map<String, Object>> usersByRole = new ArrayList<>();
             Map<String, String> roleColors = Map.of(
                 "student", "#8B5CF6",
                 "instructor", "#06B6D4",
                 "admin", "#10B981"
             );
-            for (Object[] row : usersByRoleRaw) {
-                String role = (String) row[0];
-                long count = (long) row[1];
+            for (Map.Entry<String, Long> row : snapshot.getUsersByRole().entrySet()) {
+                String role = row.getKey();
+                long count = row.getValue();
                 usersByRole.add(Map.of(
                     "name", capitalize(role) + "s",
                     "value", count,
@@ -89,6 +97,7 @@ public class DashboardController {
             response.put("totalUsers", totalUsers);
             response.put("upcomingExams", new ArrayList<>());
             response.put("recentResults", new ArrayList<>());
+            response.put("generatedAt", snapshot.getGeneratedAt());
             
             logger.info("Dashboard stats compiled successfully");
             return response;
@@ -104,7 +113,7 @@ public class DashboardController {
         logger.info("Fetching student dashboard data for user: {}", username);
         
         try {
-            User user = userRepository.findByUsername(username).orElse(null);
+            User user = currentUser.get().orElse(null);
             if (user == null) {
                 logger.warn("User not found: {}", username);
                 return Map.of("error", "User not found");
@@ -124,26 +133,33 @@ public class DashboardController {
             // Get user's results
             List<Result> userResults = resultRepository.findByUserIdOrderByAttemptDateDesc(user.getId());
             
-            // Get all exams that the user is allowed to take
-            List<Exam> allExams = examRepository.findAll();
-            List<Exam> allowedExams = allExams.stream()
-                .filter(exam -> exam.getCourse() != null && 
-                              exam.getCourse().getAllowedEmails() != null && 
-                              exam.getCourse().getAllowedEmails().contains(user.getEmail()))
-                .toList();
+            // Get all exams that the user is allowed to take (courses listing the user's email)
+            List<Exam> allowedExams = new ArrayList<>();
+            for (Long examId : examAccessIndex.examIdsByAllowedEmail(user.getEmail())) {
+                ExamSnapshot snapshot = examSnapshotCache.get(examId);
+                if (snapshot != null) {
+                    allowedExams.add(snapshot.getExam());
+                }
+            }
             
             // Get submitted exam IDs
             Set<Long> submittedExamIds = userResults.stream()
                 .map(Result::getExamExamId)
                 .collect(java.util.stream.Collectors.toSet());
             
-            // Current time for filtering
-            LocalDateTime now = LocalDateTime.now();
-            
-            // 1. Filter exams based on requirements
+            // 1. Exams of those courses whose window overlaps the next app.exams.upcoming-window-days
+            Instant now = Instant.now();
+            List<Long> courseIds = examAccessIndex.courseIdsByAllowedEmail(user.getEmail());
+            List<Long> windowExamIds = courseIds.isEmpty() ? List.of()
+                : examRepo.findIdsInWindow(courseIds, now, now.plus(upcomingWindowDays, ChronoUnit.DAYS));
             List<Map<String, Object>> upcomingExams = new ArrayList<>();
             
-            for (Exam exam : allowedExams) {
+            for (Long examId : windowExamIds) {
+                ExamSnapshot windowSnapshot = examSnapshotCache.get(examId);
+                if (windowSnapshot == null) {
+                    continue;
+                }
+                Exam exam = windowSnapshot.getExam();
                 // Skip if already submitted
                 if (submittedExamIds.contains(exam.getExam_id())) {
                     continue;
@@ -192,7 +208,8 @@ public class DashboardController {
             Map<String, List<Result>> resultsByCourse = new HashMap<>();
             for (Result result : userResults) {
                 try {
-                    Exam exam = examRepository.findById(result.getExamExamId()).orElse(null);
+                    ExamSnapshot snapshot = examSnapshotCache.get(result.getExamExamId());
+                    Exam exam = snapshot != null ? snapshot.getExam() : null;
                     if (exam != null && exam.getCourse() != null) {
                         String courseName = exam.getCourse().getName();
                         resultsByCourse.computeIfAbsent(courseName, k -> new ArrayList<>()).add(result);
@@ -227,7 +244,7 @@ public class DashboardController {
             stats.put("totalExams", totalExams);
             stats.put("completedExams", completedExams);
             stats.put("averageScore", Math.round(averageScore * 100.0) / 100.0);
-            stats.put("rank", calculateUserRank(user.getId(), averageScore));
+            stats.put("rank", globalRankingService.rankOf(user.getId()));
             
             dashboardData.put("upcomingExams", upcomingExams);
             dashboardData.put("recentResults", recentResults);
@@ -244,38 +261,19 @@ public class DashboardController {
         return dashboardData;
     }
     
-    private String determineExamStatus(Exam exam, LocalDateTime now) {
-        try {
-            // Check if exam has start date and time
-            if (exam.getStartDate() != null && exam.getStartTime() != null) {
-                String startDateTimeStr = exam.getStartDate() + " " + exam.getStartTime();
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-                LocalDateTime startDateTime = LocalDateTime.parse(startDateTimeStr, formatter);
-                
-                // If current time is before start time, it's scheduled
-                if (now.isBefore(startDateTime)) {
-                    return "scheduled";
-                }
-            }
-            
-            // Check if exam has end date and time
-            if (exam.getEndDate() != null && exam.getEndTime() != null) {
-                String endDateTimeStr = exam.getEndDate() + " " + exam.getEndTime();
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-                LocalDateTime endDateTime = LocalDateTime.parse(endDateTimeStr, formatter);
-                
-                // If current time is after end time, it's overdue
-                if (now.isAfter(endDateTime)) {
-                    return "overdue";
-                }
-            }
-            
-            // If exam is active and within time bounds, it's active
-            return exam.isIsactive() ? "active" : "inactive";
-        } catch (Exception e) {
-            logger.warn("Error determining exam status for: {}", exam.getTitle(), e);
-            return exam.isIsactive() ? "active" : "inactive";
+    private String determineExamStatus(Exam exam, Instant now) {
+        // If current time is before start time, it's scheduled
+        if (exam.getStartAt() != null && now.isBefore(exam.getStartAt())) {
+            return "scheduled";
         }
+        
+        // If current time is after end time, it's overdue
+        if (exam.getEndAt() != null && now.isAfter(exam.getEndAt())) {
+            return "overdue";
+        }
+        
+        // If exam is active and within time bounds, it's active
+        return exam.isIsactive() ? "active" : "inactive";
     }
     
     private String formatDateTime(String date, String time) {
@@ -333,7 +331,8 @@ public class DashboardController {
         resultMap.put("id", result.getId());
         
         try {
-            Exam exam = examRepository.findById(result.getExamExamId()).orElse(null);
+            ExamSnapshot snapshot = examSnapshotCache.get(result.getExamExamId());
+            Exam exam = snapshot != null ? snapshot.getExam() : null;
             resultMap.put("title", exam != null ? exam.getTitle() : "Unknown Exam");
             resultMap.put("totalMarks", exam != null ? exam.getTotalMarks() : 100);
         } catch (Exception e) {
@@ -362,30 +361,6 @@ public class DashboardController {
         return "F";
     }
     
-    private int calculateUserRank(Long userId, double averageScore) {
-        try {
-            // Get all users' average scores
-            List<Object[]> userAverages = resultRepository.findAll().stream()
-                .collect(java.util.stream.Collectors.groupingBy(Result::getUserId))
-                .entrySet().stream()
-                .map(entry -> new Object[]{
-                    entry.getKey(),
-                    entry.getValue().stream().mapToDouble(Result::getScore).average().orElse(0.0)
-                })
-                .sorted((a, b) -> Double.compare((Double) b[1], (Double) a[1]))
-                .collect(java.util.stream.Collectors.toList());
-            
-            for (int i = 0; i < userAverages.size(); i++) {
-                if (userAverages.get(i)[0].equals(userId)) {
-                    return i + 1;
-                }
-            }
-        } catch (Exception e) {
-            logger.warn("Error calculating user rank", e);
-        }
-        return 0;
-    }
-
     private String capitalize(String str) {
         if (str == null || str.isEmpty()) return str;
         return str.substring(0, 1).toUpperCase() + str.substring(1).toLowerCase();
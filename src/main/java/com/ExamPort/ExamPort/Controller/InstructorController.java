@@ -2,7 +2,7 @@ package com.ExamPort.ExamPort.Controller;
 
 import com.ExamPort.ExamPort.Service.EnrollmentService;
 import com.ExamPort.ExamPort.Repository.CourseRepository;
-import com.ExamPort.ExamPort.Repository.UserRepository;
+import com.ExamPort.ExamPort.Security.CurrentUser;
 import com.ExamPort.ExamPort.Entity.User;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,7 +28,7 @@ public class InstructorController {
     private CourseRepository courseRepository;
     
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUser currentUser;
 
     @GetMapping("/dashboard")
     public ResponseEntity<?> getDashboardData(Principal principal) {
@@ -42,7 +42,7 @@ public class InstructorController {
         
         try {
             // Get instructor user
-            Optional<User> instructorOpt = userRepository.findByUsername(username);
+            Optional<User> instructorOpt = currentUser.get();
             if (instructorOpt.isEmpty()) {
                 logger.warn("Instructor not found: {}", username);
                 return ResponseEntity.status(404).body("Instructor not found");
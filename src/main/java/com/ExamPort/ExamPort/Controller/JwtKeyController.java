@@ -0,0 +1,73 @@
+package com.ExamPort.ExamPort.Controller;
+
+import com.ExamPort.ExamPort.Security.JwtKeyRing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Admin view and rotation of the JWT signing keys. Restricted to admins in SecurityConfig.
+ */
+@RestController
+@RequestMapping("/api/admin/jwt-keys")
+public class JwtKeyController {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtKeyController.class);
+
+    @Autowired
+    private JwtKeyRing keyRing;
+
+    /**
+     * Key ids in the ring with their creation time and end of validity; key material is never returned
+     */
+    @GetMapping
+    public ResponseEntity<?> listKeys() {
+        JwtKeyRing.RingKey signing = keyRing.signingKey();
+        List<Map<String, Object>> keys = new ArrayList<>();
+        for (JwtKeyRing.RingKey key : keyRing.keys()) {
+            keys.add(toMap(key, key.getId().equals(signing.getId())));
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("keys", keys);
+        response.put("signingKeyId", signing.getId());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Start signing with a new key. Tokens signed with the previous key stay valid until they expire.
+     */
+    @PostMapping("/rotate")
+    public ResponseEntity<?> rotate(Principal principal) {
+        logger.info("JWT key rotation requested by {}", principal != null ? principal.getName() : null);
+        try {
+            JwtKeyRing.RingKey key = keyRing.rotate();
+            return ResponseEntity.ok(toMap(key, true));
+        } catch (Exception e) {
+            logger.error("JWT key rotation failed", e);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Key rotation failed");
+            errorResponse.put("message", e.getMessage());
+            return ResponseEntity.status(500).body(errorResponse);
+        }
+    }
+
+    private static Map<String, Object> toMap(JwtKeyRing.RingKey key, boolean signing) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", key.getId());
+        map.put("createdAt", key.getCreatedAt().toString());
+        map.put("validUntil", key.getValidUntil() != null ? key.getValidUntil().toString() : null);
+        map.put("signing", signing);
+        return map;
+    }
+}
@@ -0,0 +1,47 @@
+package com.ExamPort.ExamPort.Controller;
+
+import com.ExamPort.ExamPort.Entity.User;
+import com.ExamPort.ExamPort.Security.CurrentUser;
+import com.ExamPort.ExamPort.Service.LiveUpdateService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.security.Principal;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/events")
+public class LiveUpdateController {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiveUpdateController.class);
+
+    public static final String STREAM_PATH = "/api/events";
+
+    @Autowired
+    private CurrentUser currentUser;
+
+    @Autowired
+    private LiveUpdateService liveUpdateService;
+
+    /**
+     * Server-sent event stream of the signed-in user's exam status, schedule and result changes.
+     * EventSource cannot send headers, so the JWT may be passed as ?token= on this endpoint.
+     */
+    @GetMapping
+    public ResponseEntity<?> stream(Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(401).body("Unauthorized");
+        }
+        Optional<User> userOpt = currentUser.get();
+        if (userOpt.isEmpty()) {
+            logger.warn("Live update stream requested for unknown user: {}", principal.getName());
+            return ResponseEntity.status(404).body("User not found");
+        }
+        return ResponseEntity.ok(liveUpdateService.subscribe(userOpt.get()));
+    }
+}
@@ -1,12 +1,16 @@
 package com.ExamPort.ExamPort.Controller;
 
 import com.ExamPort.ExamPort.Entity.Question;
+import com.ExamPort.ExamPort.Exception.ValidationException;
 import com.ExamPort.ExamPort.Repository.QuestionRepository;
+import com.ExamPort.ExamPort.Service.ExamSnapshotCache;
+import com.ExamPort.ExamPort.Service.KeysetPagination;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -15,9 +19,27 @@ public class QuestionController {
     @Autowired
     private QuestionRepository questionRepository;
 
+    @Autowired
+    private ExamSnapshotCache examSnapshotCache;
+
+    @Autowired
+    private KeysetPagination keysetPagination;
+
+    /**
+     * All questions by ID, one page at a time. The next page is requested with the X-Next-Cursor header value as ?cursor=.
+     */
     @GetMapping
-    public List<Question> getAllQuestions() {
-        return questionRepository.findAll();
+    public ResponseEntity<?> getAllQuestions(@RequestParam(value = "cursor", required = false) String cursor,
+                                             @RequestParam(value = "limit", required = false) Integer limit) {
+        try {
+            int pageSize = keysetPagination.pageSize(limit);
+            KeysetPagination.Cursor after = keysetPagination.decode(cursor, 1);
+            List<Question> questions = questionRepository.findPageAfter(after != null ? after.getLong(0) : 0L,
+                    keysetPagination.rowsFor(pageSize));
+            return keysetPagination.respond(questions, pageSize, question -> new Object[]{question.getQue_id()}, question -> question);
+        } catch (ValidationException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
     @GetMapping("/{id}")
@@ -40,6 +62,7 @@ public class QuestionController {
         }
         question.setQue_id(id);
         Question updated = questionRepository.save(question);
+        examSnapshotCache.invalidateAll();
         return ResponseEntity.ok(updated);
     }
 
@@ -49,6 +72,7 @@ public class QuestionController {
             return ResponseEntity.notFound().build();
         }
         questionRepository.deleteById(id);
+        examSnapshotCache.invalidateAll();
         return ResponseEntity.noContent().build();
     }
 }
@@ -3,9 +3,15 @@ package com.ExamPort.ExamPort.Controller;
 import com.ExamPort.ExamPort.Entity.Result;
 import com.ExamPort.ExamPort.Entity.User;
 import com.ExamPort.ExamPort.Entity.Exam;
+import com.ExamPort.ExamPort.Exception.ValidationException;
 import com.ExamPort.ExamPort.Repository.ResultRepository;
 import com.ExamPort.ExamPort.Repository.UserRepository;
-import com.ExamPort.ExamPort.Repository.Exam_repo;
+import com.ExamPort.ExamPort.Security.CurrentUser;
+import com.ExamPort.ExamPort.Service.ExamSnapshot;
+import com.ExamPort.ExamPort.Service.ExamSnapshotCache;
+import com.ExamPort.ExamPort.Service.ExamLeaderboard;
+import com.ExamPort.ExamPort.Service.KeysetPagination;
+import com.ExamPort.ExamPort.Service.LeaderboardService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,13 +36,24 @@ public class ResultController {
     
     @Autowired
     private UserRepository userRepository;
+
+    @Autowired
+    private CurrentUser currentUser;
+    
+    @Autowired
+    private ExamSnapshotCache examSnapshotCache;
     
     @Autowired
-    private Exam_repo examRepository;
+    private LeaderboardService leaderboardService;
     
-    // Get results for the authenticated user
+    @Autowired
+    private KeysetPagination keysetPagination;
+    
+    // Get results for the authenticated user, latest attempt first, one page at a time (next page: ?cursor=<X-Next-Cursor>)
     @GetMapping("/me")
-    public ResponseEntity<?> getMyResults(Principal principal) {
+    public ResponseEntity<?> getMyResults(Principal principal,
+                                          @RequestParam(value = "cursor", required = false) String cursor,
+                                          @RequestParam(value = "limit", required = false) Integer limit) {
         if (principal == null) {
             logger.warn("Unauthorized access attempt to /me endpoint");
             return ResponseEntity.status(401).body("Unauthorized");
@@ -46,21 +63,32 @@ public class ResultController {
         logger.info("Fetching results for user: {}", username);
         
         try {
-            User user = userRepository.findByUsername(username).orElse(null);
+            User user = currentUser.get().orElse(null);
             if (user == null) {
                 logger.warn("User not found: {}", username);
                 return ResponseEntity.status(404).body("User not found");
             }
             
-            List<Result> results = resultRepository.findByUserIdOrderByAttemptDateDesc(user.getId());
+            int pageSize = keysetPagination.pageSize(limit);
+            KeysetPagination.Cursor after = keysetPagination.decode(cursor, 2);
+            List<Result> results;
+            if (after == null) {
+                results = resultRepository.findUserResultsPage(user.getId(), keysetPagination.rowsFor(pageSize));
+            } else if (after.isNull(0)) {
+                results = resultRepository.findUserResultsPageAfterUndated(user.getId(), after.getLong(1),
+                    keysetPagination.rowsFor(pageSize));
+            } else {
+                results = resultRepository.findUserResultsPageAfter(user.getId(), after.getDateTime(0), after.getLong(1),
+                    keysetPagination.rowsFor(pageSize));
+            }
             logger.info("Found {} results for user: {}", results.size(), username);
             
-            List<Map<String, Object>> enhancedResults = results.stream()
-                .map(this::enhanceResultData)
-                .collect(Collectors.toList());
-            
-            return ResponseEntity.ok(enhancedResults);
+            return keysetPagination.respond(results, pageSize,
+                result -> new Object[]{result.getAttemptDate(), result.getId()}, this::enhanceResultData);
             
+        } catch (ValidationException e) {
+            logger.warn("Invalid results page request for user: {} - {}", username, e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             logger.error("Error fetching results for user: {}", username, e);
             return ResponseEntity.internalServerError().body("Error fetching results");
@@ -69,13 +97,17 @@ public class ResultController {
     
     // Alias endpoint for my-results (for compatibility)
     @GetMapping("/my-results")
-    public ResponseEntity<?> getMyResultsAlias(Principal principal) {
-        return getMyResults(principal);
+    public ResponseEntity<?> getMyResultsAlias(Principal principal,
+                                               @RequestParam(value = "cursor", required = false) String cursor,
+                                               @RequestParam(value = "limit", required = false) Integer limit) {
+        return getMyResults(principal, cursor, limit);
     }
     
-    // Get results for a specific exam (instructor only)
+    // Get results for a specific exam (instructor only), best score first, one page at a time (next page: ?cursor=<X-Next-Cursor>)
     @GetMapping("/exam/{examId}")
-    public ResponseEntity<?> getExamResults(@PathVariable Long examId, Principal principal) {
+    public ResponseEntity<?> getExamResults(@PathVariable Long examId, Principal principal,
+                                            @RequestParam(value = "cursor", required = false) String cursor,
+                                            @RequestParam(value = "limit", required = false) Integer limit) {
         if (principal == null) {
             logger.warn("Unauthorized access attempt to exam results endpoint");
             return ResponseEntity.status(401).body("Unauthorized");
@@ -85,22 +117,121 @@ public class ResultController {
         logger.info("Fetching results for exam: {} by user: {}", examId, username);
         
         try {
-            // TODO: Add instructor authorization check
-            List<Result> results = resultRepository.findByExamExamIdOrderByScoreDesc(examId);
+            if (!canSeeExamResults(examId)) {
+                logger.warn("Unauthorized access to results of exam: {} by user: {}", examId, username);
+                return ResponseEntity.status(403).body("Unauthorized");
+            }
+            int pageSize = keysetPagination.pageSize(limit);
+            KeysetPagination.Cursor after = keysetPagination.decode(cursor, 2);
+            List<Result> results;
+            if (after == null) {
+                results = resultRepository.findExamResultsPage(examId, keysetPagination.rowsFor(pageSize));
+            } else if (after.isNull(0)) {
+                results = resultRepository.findExamResultsPageAfterUnscored(examId, after.getLong(1),
+                    keysetPagination.rowsFor(pageSize));
+            } else {
+                results = resultRepository.findExamResultsPageAfter(examId, after.getDouble(0), after.getLong(1),
+                    keysetPagination.rowsFor(pageSize));
+            }
             logger.info("Found {} results for exam: {}", results.size(), examId);
             
-            List<Map<String, Object>> enhancedResults = results.stream()
-                .map(this::enhanceResultData)
-                .collect(Collectors.toList());
-            
-            return ResponseEntity.ok(enhancedResults);
+            return keysetPagination.respond(results, pageSize,
+                result -> new Object[]{result.getScore(), result.getId()}, this::enhanceResultData);
             
+        } catch (ValidationException e) {
+            logger.warn("Invalid results page request for exam: {} - {}", examId, e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             logger.error("Error fetching results for exam: {}", examId, e);
             return ResponseEntity.internalServerError().body("Error fetching exam results");
         }
     }
     
+    // Leaderboard page for an exam, served from memory. Students only see ranks and scores.
+    @GetMapping("/exam/{examId}/leaderboard")
+    public ResponseEntity<?> getExamLeaderboard(@PathVariable Long examId,
+                                                @RequestParam(defaultValue = "0") int page,
+                                                @RequestParam(defaultValue = "10") int size,
+                                                Principal principal) {
+        if (principal == null) {
+            logger.warn("Unauthorized access attempt to leaderboard endpoint");
+            return ResponseEntity.status(401).body("Unauthorized");
+        }
+        if (page < 0 || size < 1 || size > 100) {
+            return ResponseEntity.badRequest().body("Page must be 0 or more and size between 1 and 100");
+        }
+        
+        try {
+            List<ExamLeaderboard.Standing> standings = leaderboardService.page(examId, page, size);
+            boolean showStudents = canSeeExamResults(examId);
+            
+            // One query for the names on this page
+            Map<Long, User> users = new HashMap<>();
+            if (showStudents) {
+                userRepository.findAllById(standings.stream().map(ExamLeaderboard.Standing::getUserId).toList())
+                    .forEach(user -> users.put(user.getId(), user));
+            }
+            
+            List<Map<String, Object>> entries = standings.stream().map(standing -> {
+                Map<String, Object> entry = new HashMap<>();
+                entry.put("rank", standing.getRank());
+                entry.put("score", standing.getScore());
+                if (showStudents) {
+                    User user = users.get(standing.getUserId());
+                    entry.put("userId", standing.getUserId());
+                    entry.put("resultId", standing.getResultId());
+                    entry.put("name", user != null ? (user.getFullName() != null ? user.getFullName() : user.getUsername()) : "Unknown");
+                }
+                return entry;
+            }).collect(Collectors.toList());
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("examId", examId);
+            response.put("page", page);
+            response.put("size", size);
+            response.put("totalParticipants", leaderboardService.participantCount(examId));
+            response.put("entries", entries);
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            logger.error("Error fetching leaderboard for exam: {}", examId, e);
+            return ResponseEntity.internalServerError().body("Error fetching leaderboard");
+        }
+    }
+    
+    // Rank of the authenticated user in an exam
+    @GetMapping("/exam/{examId}/leaderboard/me")
+    public ResponseEntity<?> getMyExamRank(@PathVariable Long examId, Principal principal) {
+        if (principal == null) {
+            logger.warn("Unauthorized access attempt to leaderboard endpoint");
+            return ResponseEntity.status(401).body("Unauthorized");
+        }
+        
+        try {
+            User user = currentUser.get().orElse(null);
+            if (user == null) {
+                return ResponseEntity.status(404).body("User not found");
+            }
+            
+            ExamLeaderboard.Standing standing = leaderboardService.standingOf(examId, user.getId());
+            if (standing == null) {
+                return ResponseEntity.status(404).body("No result for this exam");
+            }
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("examId", examId);
+            response.put("rank", standing.getRank());
+            response.put("score", standing.getScore());
+            response.put("resultId", standing.getResultId());
+            response.put("totalParticipants", leaderboardService.participantCount(examId));
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            logger.error("Error fetching rank for exam: {}", examId, e);
+            return ResponseEntity.internalServerError().body("Error fetching rank");
+        }
+    }
+    
     // Get specific result by ID
     @GetMapping("/{id}")
     public ResponseEntity<?> getResultById(@PathVariable Long id, Principal principal) {
@@ -120,7 +251,7 @@ public class ResultController {
             }
             
             // Check if user owns this result or is instructor
-            User user = userRepository.findByUsername(username).orElse(null);
+            User user = currentUser.get().orElse(null);
             if (user == null || (!result.getUserId().equals(user.getId()) && !"ROLE_INSTRUCTOR".equals(user.getRole()))) {
                 logger.warn("Unauthorized access to result: {} by user: {}", id, username);
                 return ResponseEntity.status(403).body("Unauthorized");
@@ -135,6 +266,26 @@ public class ResultController {
         }
     }
     
+    /**
+     * Admins, and the instructor of the exam's course, may see who scored what. Exams without
+     * a course instructor are open to every instructor.
+     */
+    private boolean canSeeExamResults(Long examId) {
+        String role = currentUser.role();
+        if ("ROLE_ADMIN".equals(role)) {
+            return true;
+        }
+        ExamSnapshot snapshot = examSnapshotCache.get(examId);
+        if (snapshot == null) {
+            return false;
+        }
+        Exam exam = snapshot.getExam();
+        if (exam.getCourse() == null || exam.getCourse().getInstructor() == null) {
+            return "ROLE_INSTRUCTOR".equals(role);
+        }
+        return exam.getCourse().getInstructor().getId().equals(currentUser.id());
+    }
+    
     private Map<String, Object> enhanceResultData(Result result) {
         Map<String, Object> resultData = new HashMap<>();
         
@@ -145,12 +296,15 @@ public class ResultController {
         resultData.put("timeTaken", result.getTimeTaken());
         resultData.put("attemptDate", result.getAttemptDate());
         resultData.put("feedback", result.getFeedback());
-        resultData.put("userRank", result.getUserRank());
+        // Live rank from the in-memory leaderboard, the stored rank is only refreshed periodically
+        int liveRank = leaderboardService.rankOf(result.getExamExamId(), result.getUserId());
+        resultData.put("userRank", liveRank > 0 ? Integer.valueOf(liveRank) : result.getUserRank());
         resultData.put("answers", result.getAnswers());
         
         // Get exam information
         try {
-            Exam exam = examRepository.findById(result.getExamExamId()).orElse(null);
+            ExamSnapshot snapshot = examSnapshotCache.get(result.getExamExamId());
+            Exam exam = snapshot != null ? snapshot.getExam() : null;
             if (exam != null) {
                 Map<String, Object> examInfo = new HashMap<>();
                 examInfo.put("id", exam.getExam_id());
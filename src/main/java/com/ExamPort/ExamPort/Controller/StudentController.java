@@ -1,7 +1,10 @@
 package com.ExamPort.ExamPort.Controller;
 
 import com.ExamPort.ExamPort.Service.EnrollmentService;
-import com.ExamPort.ExamPort.Repository.UserRepository;
+import com.ExamPort.ExamPort.Service.ExamAccessIndex;
+import com.ExamPort.ExamPort.Service.ExamSnapshot;
+import com.ExamPort.ExamPort.Service.ExamSnapshotCache;
+import com.ExamPort.ExamPort.Security.CurrentUser;
 import com.ExamPort.ExamPort.Repository.Exam_repo;
 import com.ExamPort.ExamPort.Repository.ResultRepository;
 import com.ExamPort.ExamPort.Entity.User;
@@ -10,10 +13,13 @@ import com.ExamPort.ExamPort.Entity.Result;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.security.Principal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
@@ -30,13 +36,22 @@ public class StudentController {
     private EnrollmentService enrollmentService;
     
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUser currentUser;
     
     @Autowired
     private Exam_repo examRepository;
     
     @Autowired
     private ResultRepository resultRepository;
+    
+    @Autowired
+    private ExamAccessIndex examAccessIndex;
+    
+    @Autowired
+    private ExamSnapshotCache examSnapshotCache;
+
+    @Value("${app.exams.upcoming-window-days:7}")
+    private int upcomingWindowDays;
 
     @GetMapping("/dashboard")
     public ResponseEntity<?> getDashboardData(Principal principal) {
@@ -50,7 +65,7 @@ public class StudentController {
         
         try {
             // Get student user
-            Optional<User> studentOpt = userRepository.findByUsername(username);
+            Optional<User> studentOpt = currentUser.get();
             if (studentOpt.isEmpty()) {
                 logger.warn("Student not found: {}", username);
                 return ResponseEntity.status(404).body("Student not found");
@@ -59,8 +74,7 @@ public class StudentController {
             User student = studentOpt.get();
             
             // Get student enrollments count
-            long totalEnrollments = enrollmentService.getEnrollmentsByUsername(username, 
-                org.springframework.data.domain.PageRequest.of(0, Integer.MAX_VALUE)).getTotalElements();
+            long totalEnrollments = enrollmentService.countEnrollmentsByUsername(username);
             
             // Get upcoming exams for the student
             List<Map<String, Object>> upcomingExams = getUpcomingExamsForStudent(student);
@@ -96,14 +110,23 @@ public class StudentController {
         List<Map<String, Object>> upcomingExams = new ArrayList<>();
         
         try {
-            // Get all exams that the student has access to
-            List<Exam> allExams = examRepository.findAll();
+            // Exams the student already submitted
+            java.util.Set<Long> submittedExamIds = new java.util.HashSet<>();
+            for (Result result : resultRepository.findByUserId(student.getId())) {
+                submittedExamIds.add(result.getExamExamId());
+            }
             
-            for (Exam exam : allExams) {
-                // Check if student has access to this exam (through course enrollment)
-                if (hasAccessToExam(student, exam)) {
+            // Exams of the courses the student is enrolled in whose window overlaps the next app.exams.upcoming-window-days
+            List<Long> courseIds = examAccessIndex.courseIdsByEnrollment(student.getId());
+            Instant now = Instant.now();
+            List<Long> examIds = courseIds.isEmpty() ? List.of()
+                : examRepository.findIdsInWindow(courseIds, now, now.plus(upcomingWindowDays, ChronoUnit.DAYS));
+            for (Long examId : examIds) {
+                ExamSnapshot snapshot = examSnapshotCache.get(examId);
+                if (snapshot != null) {
+                    Exam exam = snapshot.getExam();
                     // Check if student hasn't submitted this exam yet
-                    boolean hasSubmitted = resultRepository.findByUserIdAndExamExamId(student.getId(), exam.getExam_id()).isPresent();
+                    boolean hasSubmitted = submittedExamIds.contains(exam.getExam_id());
                     
                     if (!hasSubmitted) {
                         Map<String, Object> examData = new HashMap<>();
@@ -227,15 +250,6 @@ public class StudentController {
         return performanceData;
     }
     
-    private boolean hasAccessToExam(User student, Exam exam) {
-        if (exam.getCourse() == null) {
-            return false;
-        }
-        
-        // Check if student is enrolled in the course
-        return enrollmentService.isUserEnrolledInCourse(student.getUsername(), exam.getCourse().getId());
-    }
-    
     private String calculateGrade(double score, int totalMarks) {
         if (totalMarks == 0) return "N/A";
         
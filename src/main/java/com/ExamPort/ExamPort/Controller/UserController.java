@@ -2,6 +2,9 @@ package com.ExamPort.ExamPort.Controller;
 
 import com.ExamPort.ExamPort.Entity.User;
 import com.ExamPort.ExamPort.Repository.UserRepository;
+import com.ExamPort.ExamPort.Security.CurrentUser;
+import com.ExamPort.ExamPort.Service.PendingEnrollmentService;
+import com.ExamPort.ExamPort.Service.UserCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -24,6 +27,15 @@ public class UserController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CurrentUser currentUser;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private PendingEnrollmentService pendingEnrollmentService;
+
     @GetMapping("/me")
     public ResponseEntity<?> getCurrentUser(java.security.Principal principal) {
         if (principal == null) {
@@ -35,7 +47,7 @@ public class UserController {
         logger.info("Fetching profile for user: {}", username);
         
         try {
-            Optional<User> userOpt = userRepository.findByUsername(username);
+            Optional<User> userOpt = currentUser.get();
             if (userOpt.isEmpty()) {
                 logger.warn("User profile not found: {}", username);
                 return ResponseEntity.status(404).body("User not found");
@@ -79,10 +91,12 @@ public class UserController {
             
             User user = userOpt.get();
             boolean passwordChanged = false;
+            boolean emailChanged = false;
             
             // Only update allowed fields
             if (update.email != null && !update.email.isBlank()) {
                 logger.debug("Updating email for user: {}", username);
+                emailChanged = !update.email.equalsIgnoreCase(user.getEmail());
                 user.setEmail(update.email);
             }
             if (update.fullName != null) user.setFullName(update.fullName);
@@ -104,6 +118,14 @@ public class UserController {
             }
             
             userRepository.save(user);
+            userCache.invalidate(user.getId());
+            if (emailChanged) {
+                try {
+                    pendingEnrollmentService.materialize(user);
+                } catch (Exception e) {
+                    logger.error("Pending course enrollments failed for user: {}", username, e);
+                }
+            }
             logger.info("Profile updated successfully for user: {} (password changed: {})", username, passwordChanged);
             
             return ResponseEntity.ok(new UserProfileDTO(
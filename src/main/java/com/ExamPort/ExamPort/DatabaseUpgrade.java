@@ -0,0 +1,97 @@
+package com.ExamPort.ExamPort;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * Data steps of the db/migration scripts that Hibernate's ddl-auto=update cannot do, run at startup
+ * before the entity manager factory updates the schema. Flyway stays disabled because the base
+ * tables are created by Hibernate, so the scripts cannot run on an empty database. The schema-only
+ * parts of the scripts (columns, indexes, tables) are declared on the entities.
+ *
+ * Each step is guarded by the state of the schema and is skipped once it has been applied.
+ */
+@Configuration
+public class DatabaseUpgrade {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseUpgrade.class);
+
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Makes the entity manager factory, and with it ddl-auto=update, wait for the upgrade
+     */
+    @Bean
+    public static EntityManagerFactoryDependsOnPostProcessor entityManagerFactoryDependsOnDatabaseUpgrade() {
+        return new EntityManagerFactoryDependsOnPostProcessor(DatabaseUpgrade.class);
+    }
+
+    @PostConstruct
+    void upgrade() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        removeDuplicateResults();
+        copyCourseRosters();
+    }
+
+    /**
+     * V2: keep the earliest result per (user, exam) so Hibernate can add uk_result_user_exam
+     */
+    private void removeDuplicateResults() {
+        if (!tableExists("result") || indexExists("result", "uk_result_user_exam")) {
+            return;
+        }
+        int deleted = jdbcTemplate.update(
+                "DELETE r1 FROM result r1 JOIN result r2 " +
+                "ON r1.user_id = r2.user_id AND r1.exam_exam_id = r2.exam_exam_id " +
+                "AND (r1.attempt_date > r2.attempt_date OR (r1.attempt_date = r2.attempt_date AND r1.id > r2.id))");
+        logger.info("Removed {} duplicate exam results before adding uk_result_user_exam", deleted);
+    }
+
+    /**
+     * V3: copy the rosters of course_allowed_emails into course_members, once, when course_members is created
+     */
+    private void copyCourseRosters() {
+        if (!tableExists("course_allowed_emails") || tableExists("course_members")) {
+            return;
+        }
+        jdbcTemplate.execute(
+                "CREATE TABLE course_members (" +
+                "id BIGINT NOT NULL AUTO_INCREMENT, " +
+                "course_id BIGINT NOT NULL, " +
+                "email VARCHAR(100) NOT NULL, " +
+                "created_at DATETIME(6) NOT NULL, " +
+                "PRIMARY KEY (id), " +
+                "CONSTRAINT uk_course_member UNIQUE (course_id, email), " +
+                "INDEX idx_course_member_email (email))");
+        int copied = jdbcTemplate.update(
+                "INSERT IGNORE INTO course_members (course_id, email, created_at) " +
+                "SELECT course_id, LOWER(TRIM(email)), NOW() FROM course_allowed_emails " +
+                "WHERE email IS NOT NULL AND TRIM(email) <> ''");
+        logger.info("Copied {} course roster emails into course_members", copied);
+    }
+
+    private boolean tableExists(String table) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.tables WHERE table_schema = database() AND table_name = ?",
+                Integer.class, table);
+        return count != null && count > 0;
+    }
+
+    private boolean indexExists(String table, String index) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.statistics WHERE table_schema = database() AND table_name = ? AND index_name = ?",
+                Integer.class, table, index);
+        return count != null && count > 0;
+    }
+}
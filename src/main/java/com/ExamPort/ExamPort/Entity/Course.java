@@ -20,9 +20,9 @@ public class Course {
     @Size(min = 3, max = 100, message = "Course name must be between 3 and 100 characters")
     private String name;
 
-    @ElementCollection(fetch = FetchType.EAGER)
-    @CollectionTable(name = "course_allowed_emails", joinColumns = @JoinColumn(name = "course_id"))
-    @Column(name = "email")
+    // Roster of a private course as submitted with a create or update request. Stored
+    // membership lives in course_members, see CourseMembershipService.
+    @Transient
     private List<String> allowedEmails;
 
     @OneToMany(mappedBy = "course", cascade = CascadeType.ALL, orphanRemoval = true)
@@ -0,0 +1,47 @@
+package com.ExamPort.ExamPort.Entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Email allowed into a private course. Emails are stored normalized (trimmed, lower case),
+ * unique per course and indexed on their own for lookups by student.
+ */
+@Entity
+@Table(name = "course_members",
+       uniqueConstraints = @UniqueConstraint(name = "uk_course_member", columnNames = {"course_id", "email"}),
+       indexes = @Index(name = "idx_course_member_email", columnList = "email"))
+public class CourseMember {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+
+    @Column(nullable = false, length = 100)
+    private String email;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public CourseMember() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public CourseMember(Long courseId, String email) {
+        this();
+        this.courseId = courseId;
+        this.email = email;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getCourseId() { return courseId; }
+    public void setCourseId(Long courseId) { this.courseId = courseId; }
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
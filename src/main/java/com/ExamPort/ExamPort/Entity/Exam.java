@@ -1,5 +1,6 @@
 package com.ExamPort.ExamPort.Entity;
 
+import java.time.Instant;
 import java.util.List;
 
 import org.springframework.data.annotation.LastModifiedBy;
@@ -12,12 +13,21 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
 
 
 @Entity
+@Table(indexes = {
+    @Index(name = "idx_exam_start_at", columnList = "start_at"),
+    @Index(name = "idx_exam_end_at", columnList = "end_at"),
+    @Index(name = "idx_exam_course_window", columnList = "course_id, start_at, end_at")
+})
 public class Exam {
     @ManyToOne
     @JoinColumn(name = "course_id")
@@ -42,6 +52,13 @@ public class Exam {
     @Column
     private String endTime;
 
+    // Start and end as instants, derived from the date and time strings on every save
+    @Column(name = "start_at")
+    private Instant startAt;
+
+    @Column(name = "end_at")
+    private Instant endAt;
+
     @Column(length = 2000)
     private String instructions;
 
@@ -108,6 +125,26 @@ public class Exam {
     public void setEndTime(String endTime) {
         this.endTime = endTime;
     }
+    public Instant getStartAt() {
+        return startAt;
+    }
+    public void setStartAt(Instant startAt) {
+        this.startAt = startAt;
+    }
+    public Instant getEndAt() {
+        return endAt;
+    }
+    public void setEndAt(Instant endAt) {
+        this.endAt = endAt;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void syncSchedule() {
+        this.startAt = ExamSchedule.toInstant(startDate, startTime);
+        this.endAt = ExamSchedule.toInstant(endDate, endTime);
+    }
+
     public String getInstructions() {
         return instructions;
     }
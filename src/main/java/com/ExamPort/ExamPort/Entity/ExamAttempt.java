@@ -0,0 +1,65 @@
+package com.ExamPort.ExamPort.Entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * Exam a student has started but not submitted yet, one row per (user, exam): the session
+ * started by ExamSessionService and the answers autosaved by AttemptStore. Deleted once the
+ * exam is submitted, by the student or automatically at the deadline.
+ */
+@Entity
+@Table(name = "exam_attempts",
+       uniqueConstraints = @UniqueConstraint(name = "uk_exam_attempt_user_exam", columnNames = {"user_id", "exam_id"}),
+       indexes = @Index(name = "idx_exam_attempt_deadline", columnList = "deadline_at"))
+public class ExamAttempt {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "exam_id", nullable = false)
+    private Long examId;
+
+    @Column(columnDefinition = "TEXT")
+    private String answers;
+
+    // Number of autosaves applied, a stored row is only replaced by a later version
+    @Column(nullable = false)
+    private long version;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Set when the session is started, null for attempts that were only autosaved
+    @Column(name = "started_at")
+    private Instant startedAt;
+
+    @Column(name = "deadline_at")
+    private Instant deadlineAt;
+
+    public ExamAttempt() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public Long getExamId() { return examId; }
+    public void setExamId(Long examId) { this.examId = examId; }
+    public String getAnswers() { return answers; }
+    public void setAnswers(String answers) { this.answers = answers; }
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+    public Instant getStartedAt() { return startedAt; }
+    public void setStartedAt(Instant startedAt) { this.startedAt = startedAt; }
+    public Instant getDeadlineAt() { return deadlineAt; }
+    public void setDeadlineAt(Instant deadlineAt) { this.deadlineAt = deadlineAt; }
+}
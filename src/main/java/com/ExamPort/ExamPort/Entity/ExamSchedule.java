@@ -0,0 +1,42 @@
+package com.ExamPort.ExamPort.Entity;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Conversion of an exam's date and time strings ("yyyy-MM-dd", "HH:mm") to the instants
+ * stored in exam.start_at and exam.end_at. The strings are local times of the zone set
+ * from app.exams.time-zone, the server's zone by default.
+ */
+public final class ExamSchedule {
+
+    private static volatile ZoneId zone = ZoneId.systemDefault();
+
+    private ExamSchedule() {
+    }
+
+    public static ZoneId getZone() {
+        return zone;
+    }
+
+    public static void setZone(ZoneId zone) {
+        ExamSchedule.zone = zone;
+    }
+
+    /**
+     * Instant of a date and time in the exam zone, null when either is missing or not a valid date or time
+     */
+    public static Instant toInstant(String date, String time) {
+        if (date == null || time == null || date.isBlank() || time.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(date.trim()).atTime(LocalTime.parse(time.trim())).atZone(zone).toInstant();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.ExamPort.ExamPort.Entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * The single row up to which ExamScheduleIndex has fired exam start and end transitions (UTC).
+ * Read and advanced by ExamScheduleIndex through JDBC, under a row lock.
+ */
+@Entity
+@Table(name = "exam_schedule_state")
+public class ExamScheduleState {
+
+    public static final int ROW_ID = 1;
+
+    @Id
+    private Integer id = ROW_ID;
+
+    @Column(name = "fired_up_to", nullable = false)
+    private Instant firedUpTo;
+
+    public ExamScheduleState() {
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public Instant getFiredUpTo() {
+        return firedUpTo;
+    }
+
+    public void setFiredUpTo(Instant firedUpTo) {
+        this.firedUpTo = firedUpTo;
+    }
+}
@@ -4,7 +4,12 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "result")
+@Table(name = "result",
+       uniqueConstraints = @UniqueConstraint(name = "uk_result_user_exam", columnNames = {"user_id", "exam_exam_id"}),
+       indexes = {
+           @Index(name = "idx_result_exam_score", columnList = "exam_exam_id, score, id"),
+           @Index(name = "idx_result_user_attempt", columnList = "user_id, attempt_date, id")
+       })
 public class Result {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -37,6 +42,10 @@ public class Result {
     @Column(name = "user_id")
     private Long userId;
     
+    // Client supplied key of the submit request, lets a retried submit get the original result back
+    @Column(name = "idempotency_key", length = 64)
+    private String idempotencyKey;
+    
     // Constructors
     public Result() {
         this.attemptDate = LocalDateTime.now();
@@ -132,6 +141,14 @@ public class Result {
         this.userId = userId;
     }
     
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+    
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+    
     @Override
     public String toString() {
         return "Result{" +
@@ -0,0 +1,29 @@
+package com.ExamPort.ExamPort.Repository;
+
+import com.ExamPort.ExamPort.Entity.CourseMember;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for private course memberships, emails are expected normalized
+ */
+@Repository
+public interface CourseMemberRepository extends JpaRepository<CourseMember, Long> {
+
+    boolean existsByCourseIdAndEmail(Long courseId, String email);
+
+    long countByCourseId(Long courseId);
+
+    @Query("SELECT m.email FROM CourseMember m WHERE m.courseId = :courseId")
+    List<String> findEmailsByCourseId(@Param("courseId") Long courseId);
+
+    @Query("SELECT m.courseId, COUNT(m) FROM CourseMember m WHERE m.courseId IN :courseIds GROUP BY m.courseId")
+    List<Object[]> countByCourseIds(@Param("courseIds") List<Long> courseIds);
+
+    @Query("SELECT m.courseId FROM CourseMember m WHERE m.email = :email")
+    List<Long> findCourseIdsByEmail(@Param("email") String email);
+}
@@ -3,6 +3,7 @@ package com.ExamPort.ExamPort.Repository;
 import com.ExamPort.ExamPort.Entity.Course;
 import com.ExamPort.ExamPort.Entity.CourseVisibility;
 import com.ExamPort.ExamPort.Entity.CoursePricing;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -41,6 +42,17 @@ public interface CourseRepository extends JpaRepository<Course, Long> {
      */
     List<Course> findByVisibility(CourseVisibility visibility);
     
+    /**
+     * Keyset page of courses by visibility, ordered by ID, with their instructors
+     * @param visibility The course visibility (PRIVATE or PUBLIC)
+     * @param afterId ID of the last course of the previous page, 0 for the first page
+     * @param pageable Row limit
+     * @return Courses with a higher ID than afterId
+     */
+    @Query("SELECT c FROM Course c JOIN FETCH c.instructor WHERE c.visibility = :visibility AND c.id > :afterId ORDER BY c.id ASC")
+    List<Course> findPageByVisibilityAfter(@Param("visibility") CourseVisibility visibility, @Param("afterId") Long afterId,
+                                           Pageable pageable);
+    
     /**
      * Find courses by visibility and pricing
      * @param visibility The course visibility
@@ -58,6 +58,13 @@ public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
      */
     Page<Enrollment> findByStudent_Id(Long studentId, Pageable pageable);
     
+    /**
+     * Count enrollments of a student by ID
+     * @param studentId The student's user ID
+     * @return Number of enrollments of the student, whatever their status
+     */
+    long countByStudent_Id(Long studentId);
+    
     /**
      * Find all enrollments for a specific course
      * @param course The course
@@ -191,6 +198,13 @@ public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
      */
     Page<Enrollment> findByStudentUsername(String username, Pageable pageable);
     
+    /**
+     * Count enrollments of a student by username
+     * @param username The student's username
+     * @return Number of enrollments of the student, whatever their status
+     */
+    long countByStudentUsername(String username);
+    
     /**
      * Check if user is enrolled in course by username
      * @param username The student's username
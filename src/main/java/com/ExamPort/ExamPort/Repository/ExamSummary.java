@@ -0,0 +1,109 @@
+package com.ExamPort.ExamPort.Repository;
+
+import com.ExamPort.ExamPort.Entity.CourseVisibility;
+import com.ExamPort.ExamPort.Entity.Exam;
+import com.ExamPort.ExamPort.Entity.ExamSchedule;
+import com.ExamPort.ExamPort.Entity.Question;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * List columns of an exam without its questions. Question count and marks are computed by the
+ * query, so listing exams never loads questions or options.
+ */
+public class ExamSummary {
+
+    private final long examId;
+    private final String title;
+    private final String description;
+    private final int duration;
+    private final String startDate;
+    private final String startTime;
+    private final String endDate;
+    private final String endTime;
+    private final Instant startAt;
+    private final Instant endAt;
+    private final String instructions;
+    private final boolean isactive;
+    private final LocalDateTime createdAt;
+    private final int totalMarks;
+    private final Long courseId;
+    private final String courseName;
+    private final CourseVisibility courseVisibility;
+    private final long questionCount;
+    private final long questionMarks;
+
+    public ExamSummary(long examId, String title, String description, int duration, String startDate, String startTime,
+                       String endDate, String endTime, Instant startAt, Instant endAt, String instructions, boolean isactive, LocalDateTime createdAt,
+                       int totalMarks, Long courseId, String courseName, CourseVisibility courseVisibility,
+                       Long questionCount, Long questionMarks) {
+        this.examId = examId;
+        this.title = title;
+        this.description = description;
+        this.duration = duration;
+        this.startDate = startDate;
+        this.startTime = startTime;
+        this.endDate = endDate;
+        this.endTime = endTime;
+        // Null until ExamScheduleService has filled start_at/end_at of rows saved before they existed
+        this.startAt = startAt != null ? startAt : ExamSchedule.toInstant(startDate, startTime);
+        this.endAt = endAt != null ? endAt : ExamSchedule.toInstant(endDate, endTime);
+        this.instructions = instructions;
+        this.isactive = isactive;
+        this.createdAt = createdAt;
+        this.totalMarks = totalMarks;
+        this.courseId = courseId;
+        this.courseName = courseName;
+        this.courseVisibility = courseVisibility;
+        this.questionCount = questionCount != null ? questionCount : 0;
+        this.questionMarks = questionMarks != null ? questionMarks : 0;
+    }
+
+    /**
+     * Summary of an exam whose questions are already loaded
+     */
+    public static ExamSummary of(Exam exam) {
+        long count = 0;
+        long marks = 0;
+        if (exam.getQuestions() != null) {
+            for (Question question : exam.getQuestions()) {
+                count++;
+                marks += question.getMarks() != null ? question.getMarks() : 1;
+            }
+        }
+        return new ExamSummary(exam.getExam_id(), exam.getTitle(), exam.getDescription(), exam.getDuration(),
+                exam.getStartDate(), exam.getStartTime(), exam.getEndDate(), exam.getEndTime(), exam.getStartAt(), exam.getEndAt(), exam.getInstructions(),
+                exam.isIsactive(), exam.getCreatedAt(), exam.getTotalMarks(),
+                exam.getCourse() != null ? exam.getCourse().getId() : null,
+                exam.getCourse() != null ? exam.getCourse().getName() : null,
+                exam.getCourse() != null ? exam.getCourse().getVisibility() : null,
+                count, marks);
+    }
+
+    @JsonProperty("exam_id")
+    public long getExam_id() { return examId; }
+    public String getTitle() { return title; }
+    public String getDescription() { return description; }
+    public int getDuration() { return duration; }
+    public String getStartDate() { return startDate; }
+    public String getStartTime() { return startTime; }
+    public String getEndDate() { return endDate; }
+    public String getEndTime() { return endTime; }
+    public Instant getStartAt() { return startAt; }
+    public Instant getEndAt() { return endAt; }
+    public String getInstructions() { return instructions; }
+    public boolean isIsactive() { return isactive; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public int getTotalMarks() { return totalMarks; }
+    public Long getCourseId() { return courseId; }
+    public String getCourseName() { return courseName; }
+    public CourseVisibility getCourseVisibility() { return courseVisibility; }
+    public long getQuestionCount() { return questionCount; }
+
+    /**
+     * Sum of question marks, a question without marks counting 1
+     */
+    public long getQuestionMarks() { return questionMarks; }
+}
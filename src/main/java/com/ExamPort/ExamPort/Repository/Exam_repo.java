@@ -1,7 +1,12 @@
 package com.ExamPort.ExamPort.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.ExamPort.ExamPort.Entity.Exam;
 
@@ -15,4 +20,31 @@ public interface Exam_repo extends JpaRepository<Exam, Long>{
     
     // Find exams by course id (alternative naming)
     List<Exam> findByCourseId(Long courseId);
+    
+    // List columns of exams with question count and marks computed in SQL, see ExamSummary
+    String SUMMARY_SELECT = "SELECT new com.ExamPort.ExamPort.Repository.ExamSummary(" +
+            "e.Exam_id, e.title, e.description, e.duration, e.startDate, e.startTime, e.endDate, e.endTime, " +
+            "e.startAt, e.endAt, e.instructions, e.isactive, e.createdAt, e.totalMarks, c.id, c.name, c.visibility, " +
+            "(SELECT COUNT(q) FROM Exam qe JOIN qe.questions q WHERE qe = e), " +
+            "(SELECT COALESCE(SUM(COALESCE(q.marks, 1)), 0) FROM Exam qe JOIN qe.questions q WHERE qe = e)) " +
+            "FROM Exam e LEFT JOIN e.course c ";
+    
+    // Keyset page of all exam summaries by id
+    @Query(SUMMARY_SELECT + "WHERE e.Exam_id > :afterId ORDER BY e.Exam_id ASC")
+    List<ExamSummary> findSummaryPageAfter(@Param("afterId") long afterId, Pageable pageable);
+    
+    // Exam summaries of an instructor's courses
+    @Query(SUMMARY_SELECT + "WHERE c.instructor.id = :instructorId ORDER BY e.Exam_id ASC")
+    List<ExamSummary> findSummariesByInstructorId(@Param("instructorId") Long instructorId);
+    
+    // Exam summaries of several courses
+    @Query(SUMMARY_SELECT + "WHERE c.id IN :courseIds ORDER BY e.Exam_id ASC")
+    List<ExamSummary> findSummariesByCourseIds(@Param("courseIds") List<Long> courseIds);
+    
+    // Ids of exams of the given courses whose window overlaps [from, to), earliest start first.
+    // An exam without a start or end is open on that side.
+    @Query("SELECT e.Exam_id FROM Exam e WHERE e.course.id IN :courseIds " +
+           "AND (e.startAt IS NULL OR e.startAt < :to) AND (e.endAt IS NULL OR e.endAt > :from) " +
+           "ORDER BY e.startAt ASC, e.Exam_id ASC")
+    List<Long> findIdsInWindow(@Param("courseIds") Collection<Long> courseIds, @Param("from") Instant from, @Param("to") Instant to);
 }
@@ -1,7 +1,16 @@
 package com.ExamPort.ExamPort.Repository;
 
 import com.ExamPort.ExamPort.Entity.Question;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 public interface QuestionRepository extends JpaRepository<Question, Long> {
+
+    // Keyset page of all questions by id
+    @Query("SELECT q FROM Question q WHERE q.Que_id > :afterId ORDER BY q.Que_id ASC")
+    List<Question> findPageAfter(@Param("afterId") long afterId, Pageable pageable);
 }
@@ -1,9 +1,11 @@
 package com.ExamPort.ExamPort.Repository;
 
 import com.ExamPort.ExamPort.Entity.Result;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,6 +26,32 @@ public interface ResultRepository extends JpaRepository<Result, Long> {
     // Find results by exam ID ordered by score
     List<Result> findByExamExamIdOrderByScoreDesc(Long examId);
     
+    // Keyset pages of an exam's results: best score first, ties and missing scores by id
+    @Query("SELECT r FROM Result r WHERE r.examExamId = :examId ORDER BY r.score DESC, r.id ASC")
+    List<Result> findExamResultsPage(@Param("examId") Long examId, Pageable pageable);
+    
+    @Query("SELECT r FROM Result r WHERE r.examExamId = :examId " +
+           "AND (r.score < :score OR r.score IS NULL OR (r.score = :score AND r.id > :id)) " +
+           "ORDER BY r.score DESC, r.id ASC")
+    List<Result> findExamResultsPageAfter(@Param("examId") Long examId, @Param("score") Double score,
+                                          @Param("id") Long id, Pageable pageable);
+    
+    @Query("SELECT r FROM Result r WHERE r.examExamId = :examId AND r.score IS NULL AND r.id > :id ORDER BY r.id ASC")
+    List<Result> findExamResultsPageAfterUnscored(@Param("examId") Long examId, @Param("id") Long id, Pageable pageable);
+    
+    // Keyset pages of a user's results: latest attempt first, ties and missing dates by id
+    @Query("SELECT r FROM Result r WHERE r.userId = :userId ORDER BY r.attemptDate DESC, r.id DESC")
+    List<Result> findUserResultsPage(@Param("userId") Long userId, Pageable pageable);
+    
+    @Query("SELECT r FROM Result r WHERE r.userId = :userId " +
+           "AND (r.attemptDate < :attemptDate OR r.attemptDate IS NULL OR (r.attemptDate = :attemptDate AND r.id < :id)) " +
+           "ORDER BY r.attemptDate DESC, r.id DESC")
+    List<Result> findUserResultsPageAfter(@Param("userId") Long userId, @Param("attemptDate") LocalDateTime attemptDate,
+                                          @Param("id") Long id, Pageable pageable);
+    
+    @Query("SELECT r FROM Result r WHERE r.userId = :userId AND r.attemptDate IS NULL AND r.id < :id ORDER BY r.id DESC")
+    List<Result> findUserResultsPageAfterUndated(@Param("userId") Long userId, @Param("id") Long id, Pageable pageable);
+    
     // Count total attempts for an exam
     @Query("SELECT COUNT(r) FROM Result r WHERE r.examExamId = :examId")
     Long countAttemptsByExamId(@Param("examId") Long examId);
@@ -31,4 +59,8 @@ public interface ResultRepository extends JpaRepository<Result, Long> {
     // Get average score for an exam
     @Query("SELECT AVG(r.score) FROM Result r WHERE r.examExamId = :examId")
     Double getAverageScoreByExamId(@Param("examId") Long examId);
+    
+    // Count all attempts and their average score in one query
+    @Query("SELECT COUNT(r), AVG(r.score) FROM Result r")
+    List<Object[]> countAndAverageScore();
 }
\ No newline at end of file
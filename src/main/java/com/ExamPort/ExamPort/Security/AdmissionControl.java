@@ -0,0 +1,326 @@
+package com.ExamPort.ExamPort.Security;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission control for request threads, by endpoint class (lane).
+ *
+ * Every lane has its own concurrency limit and a bounded queue of requests waiting for a slot.
+ * On top of that all lanes share app.admission.max-in-flight, and a lane is only admitted while
+ * the requests in flight are below its share of it, so under load exports shed first, then
+ * dashboards, then exam fetches, and submissions can use the whole capacity. A waiting request is
+ * only admitted when no request of a higher lane is waiting for capacity. Each user also has a
+ * token bucket per lane. Lane settings are app.admission.{lane}.max-concurrent, queue-size,
+ * max-wait-ms, capacity-share (percent), user-rate (requests per second, 0 for no limit) and
+ * user-burst.
+ *
+ * Most admitted requests hold a database connection, so the lanes other than submit together
+ * run at most the connection pool size (spring.datasource.hikari.maximum-pool-size) minus
+ * app.admission.submit.reserved-connections: however busy exam fetches and dashboards get,
+ * that many connections stay free for submissions instead of them timing out in the pool.
+ */
+@Component
+public class AdmissionControl {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionControl.class);
+
+    /**
+     * Endpoint classes, highest priority first
+     */
+    public enum Lane {
+        SUBMIT("submit", 64, 100, 10000, 100, 1, 3),
+        EXAM("exam", 48, 50, 2000, 90, 20, 40),
+        DASHBOARD("dashboard", 16, 20, 1000, 60, 5, 10),
+        EXPORT("export", 4, 4, 500, 30, 0.2, 2);
+
+        private final String key;
+        private final int defaultMaxConcurrent;
+        private final int defaultQueueSize;
+        private final long defaultMaxWaitMs;
+        private final int defaultCapacityShare;
+        private final double defaultUserRate;
+        private final int defaultUserBurst;
+
+        Lane(String key, int maxConcurrent, int queueSize, long maxWaitMs, int capacityShare, double userRate, int userBurst) {
+            this.key = key;
+            this.defaultMaxConcurrent = maxConcurrent;
+            this.defaultQueueSize = queueSize;
+            this.defaultMaxWaitMs = maxWaitMs;
+            this.defaultCapacityShare = capacityShare;
+            this.defaultUserRate = userRate;
+            this.defaultUserBurst = userBurst;
+        }
+
+        public String getKey() {
+            return key;
+        }
+    }
+
+    /**
+     * Outcome of an admission attempt: admitted, or rejected with the seconds after which to retry
+     */
+    public static final class Decision {
+        private static final Decision ADMITTED = new Decision(true, 0, null);
+
+        private final boolean admitted;
+        private final long retryAfterSeconds;
+        private final String reason;
+
+        private Decision(boolean admitted, long retryAfterSeconds, String reason) {
+            this.admitted = admitted;
+            this.retryAfterSeconds = retryAfterSeconds;
+            this.reason = reason;
+        }
+
+        public boolean isAdmitted() {
+            return admitted;
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+    }
+
+    @Value("${app.admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.admission.max-in-flight:150}")
+    private int maxInFlight;
+
+    @Value("${app.admission.retry-after-seconds:2}")
+    private long retryAfterSeconds;
+
+    @Value("${app.admission.bucket-idle-ms:300000}")
+    private long bucketIdleMs;
+
+    // Hikari's own default when the pool size is not configured
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int connectionPoolSize;
+
+    @Autowired
+    private Environment environment;
+
+    private final Map<Lane, LaneState> lanes = new EnumMap<>(Lane.class);
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    // Requests of the lanes other than submit that may run at once, from the connection pool size
+    private int otherLanesLimit;
+
+    // Guarded by this
+    private int inFlight;
+    private int otherLanesInFlight;
+
+    @PostConstruct
+    void init() {
+        int reservedForSubmit = environment.getProperty("app.admission.submit.reserved-connections", Integer.class,
+                Math.max(1, connectionPoolSize / 4));
+        otherLanesLimit = Math.max(1, connectionPoolSize - reservedForSubmit);
+        logger.info("Admission: {} of {} database connections reserved for submissions, other lanes run at most {} requests",
+                connectionPoolSize - otherLanesLimit, connectionPoolSize, otherLanesLimit);
+        for (Lane lane : Lane.values()) {
+            String prefix = "app.admission." + lane.key + ".";
+            LaneState state = new LaneState(
+                    environment.getProperty(prefix + "max-concurrent", Integer.class, lane.defaultMaxConcurrent),
+                    environment.getProperty(prefix + "queue-size", Integer.class, lane.defaultQueueSize),
+                    environment.getProperty(prefix + "max-wait-ms", Long.class, lane.defaultMaxWaitMs),
+                    environment.getProperty(prefix + "capacity-share", Integer.class, lane.defaultCapacityShare),
+                    environment.getProperty(prefix + "user-rate", Double.class, lane.defaultUserRate),
+                    environment.getProperty(prefix + "user-burst", Integer.class, lane.defaultUserBurst));
+            lanes.put(lane, state);
+            logger.info("Admission lane {}: {} concurrent, queue {}, wait {} ms, {}% of {} in flight, {}/s per user (burst {})",
+                    lane.key, state.maxConcurrent, state.queueSize, state.maxWaitMs, state.capacityShare, maxInFlight,
+                    state.userRate, state.userBurst);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Admit a request of the user into the lane, waiting up to the lane's max wait for a slot.
+     * An admitted request must call {@link #release(Lane)} when it is done.
+     */
+    public Decision acquire(Lane lane, String userKey) throws InterruptedException {
+        LaneState state = lanes.get(lane);
+        long bucketWaitMs = bucket(lane, userKey, state).tryTake();
+        if (bucketWaitMs > 0) {
+            state.throttled.incrementAndGet();
+            return new Decision(false, Math.max(1, TimeUnit.MILLISECONDS.toSeconds(bucketWaitMs + 999)), "Too many requests");
+        }
+
+        synchronized (this) {
+            if (canAdmit(lane, state)) {
+                admit(lane, state);
+                return Decision.ADMITTED;
+            }
+            if (state.waiting >= state.queueSize) {
+                state.rejected.incrementAndGet();
+                return new Decision(false, retryAfterSeconds, "Server busy");
+            }
+            state.waiting++;
+            try {
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(state.maxWaitMs);
+                while (!canAdmit(lane, state)) {
+                    long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                    if (remainingMs <= 0) {
+                        state.rejected.incrementAndGet();
+                        return new Decision(false, retryAfterSeconds, "Server busy");
+                    }
+                    wait(remainingMs);
+                }
+            } finally {
+                state.waiting--;
+            }
+            admit(lane, state);
+            return Decision.ADMITTED;
+        }
+    }
+
+    public synchronized void release(Lane lane) {
+        lanes.get(lane).running--;
+        inFlight--;
+        if (lane != Lane.SUBMIT) {
+            otherLanesInFlight--;
+        }
+        notifyAll();
+    }
+
+    /**
+     * Drop the token buckets of users idle for app.admission.bucket-idle-ms and report shed requests
+     */
+    @Scheduled(fixedDelayString = "${app.admission.report-ms:60000}")
+    public void housekeeping() {
+        long idleBefore = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(bucketIdleMs);
+        buckets.values().removeIf(bucket -> bucket.isIdleSince(idleBefore));
+        for (Map.Entry<Lane, LaneState> entry : lanes.entrySet()) {
+            long rejected = entry.getValue().rejected.getAndSet(0);
+            long throttled = entry.getValue().throttled.getAndSet(0);
+            if (rejected > 0 || throttled > 0) {
+                logger.warn("Admission lane {}: {} requests rejected as busy, {} throttled per user",
+                        entry.getKey().key, rejected, throttled);
+            }
+        }
+    }
+
+    // Caller holds this
+    private boolean canAdmit(Lane lane, LaneState state) {
+        if (state.running >= state.maxConcurrent || inFlight >= (long) maxInFlight * state.capacityShare / 100) {
+            return false;
+        }
+        if (lane != Lane.SUBMIT && otherLanesInFlight >= otherLanesLimit) {
+            // The remaining connections are kept for submissions
+            return false;
+        }
+        for (Lane higher : Lane.values()) {
+            if (higher == lane) {
+                return true;
+            }
+            // A higher lane waiting for shared capacity goes first; one held back by its own limit does not block others
+            LaneState higherState = lanes.get(higher);
+            if (higherState.waiting > 0 && higherState.running < higherState.maxConcurrent) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Caller holds this
+    private void admit(Lane lane, LaneState state) {
+        state.running++;
+        inFlight++;
+        if (lane != Lane.SUBMIT) {
+            otherLanesInFlight++;
+        }
+    }
+
+    private TokenBucket bucket(Lane lane, String userKey, LaneState state) {
+        return buckets.computeIfAbsent(lane.key + ":" + userKey, key -> new TokenBucket(state.userRate, state.userBurst));
+    }
+
+    private static final class LaneState {
+        private final int maxConcurrent;
+        private final int queueSize;
+        private final long maxWaitMs;
+        private final int capacityShare;
+        private final double userRate;
+        private final int userBurst;
+        // Guarded by the AdmissionControl monitor
+        private int running;
+        private int waiting;
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong throttled = new AtomicLong();
+
+        private LaneState(int maxConcurrent, int queueSize, long maxWaitMs, int capacityShare, double userRate, int userBurst) {
+            this.maxConcurrent = maxConcurrent;
+            this.queueSize = queueSize;
+            this.maxWaitMs = maxWaitMs;
+            this.capacityShare = capacityShare;
+            this.userRate = userRate;
+            this.userBurst = userBurst;
+        }
+    }
+
+    /**
+     * Tokens refill continuously at the rate up to the burst size, one token per request
+     */
+    private static final class TokenBucket {
+        private final double ratePerNano;
+        private final double capacity;
+        // Guarded by this
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+        private long usedAt = refilledAt;
+
+        private TokenBucket(double ratePerSecond, int burst) {
+            this.ratePerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.capacity = Math.max(1, burst);
+            this.tokens = capacity;
+        }
+
+        /**
+         * Take a token; returns 0 when taken, otherwise the milliseconds until one is available
+         */
+        private synchronized long tryTake() {
+            if (ratePerNano <= 0) {
+                // No per-user limit on this lane
+                return 0;
+            }
+            usedAt = System.nanoTime();
+            refill();
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return Math.max(1, TimeUnit.NANOSECONDS.toMillis((long) Math.ceil((1 - tokens) / ratePerNano)));
+        }
+
+        private synchronized boolean isIdleSince(long nanoTime) {
+            refill();
+            return usedAt - nanoTime < 0 && (ratePerNano <= 0 || tokens >= capacity);
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * ratePerNano);
+            refilledAt = now;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.ExamPort.ExamPort.Security;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Puts every API request into its {@link AdmissionControl} lane before it reaches a controller,
+ * and answers 429 Too Many Requests with a Retry-After header when the lane cannot take it.
+ * Runs after the JWT filter so requests are limited per signed-in user.
+ */
+@Component
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionControlFilter.class);
+
+    private static final Pattern SUBMIT = Pattern.compile("^/api/exams/\\d+/submit$");
+    private static final Pattern EXPORT = Pattern.compile(
+            "^/api/exams/\\d+/regrade$|^/api/courses/\\d+/members/import$|^/api/results/exam/\\d+$|^/api/enrollments/course/.*");
+
+    private static final ObjectWriter JSON_WRITER = JsonMapper.builder().build().writer();
+
+    @Autowired
+    private AdmissionControl admissionControl;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        AdmissionControl.Lane lane = admissionControl.isEnabled() ? laneOf(request.getMethod(), request.getRequestURI()) : null;
+        if (lane == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        AdmissionControl.Decision decision;
+        try {
+            decision = admissionControl.acquire(lane, userKey(request));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reject(response, 1, "Server busy");
+            return;
+        }
+        if (!decision.isAdmitted()) {
+            logger.debug("Request {} {} not admitted to lane {}: {}", request.getMethod(), request.getRequestURI(),
+                    lane.getKey(), decision.getReason());
+            reject(response, decision.getRetryAfterSeconds(), decision.getReason());
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            admissionControl.release(lane);
+        }
+    }
+
+    /**
+     * Lane of a request, null for requests that are not admission controlled (auth, admin, event streams)
+     */
+    static AdmissionControl.Lane laneOf(String method, String uri) {
+        if ("OPTIONS".equals(method)) {
+            return null;
+        }
+        if ("POST".equals(method) && SUBMIT.matcher(uri).matches()) {
+            return AdmissionControl.Lane.SUBMIT;
+        }
+        if (EXPORT.matcher(uri).matches() && !("GET".equals(method) && uri.endsWith("/regrade"))) {
+            return AdmissionControl.Lane.EXPORT;
+        }
+        if (uri.startsWith("/api/exams") || uri.equals("/exam") || uri.startsWith("/exam/")
+                || uri.equals("/api/questions") || uri.startsWith("/api/questions/")) {
+            return AdmissionControl.Lane.EXAM;
+        }
+        if (uri.startsWith("/api/dashboard") || uri.startsWith("/api/student/") || uri.startsWith("/api/instructor/")
+                || uri.startsWith("/api/results/") || uri.startsWith("/api/enrollments/")
+                || uri.startsWith("/api/courses/") || uri.startsWith("/api/users/")) {
+            return AdmissionControl.Lane.DASHBOARD;
+        }
+        return null;
+    }
+
+    private static String userKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof JwtPrincipal principal) {
+            return principal.getUserId() != null ? "id:" + principal.getUserId() : "name:" + principal.getUsername();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private static void reject(HttpServletResponse response, long retryAfterSeconds, String reason) throws IOException {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("error", reason);
+        errorResponse.put("retryAfterSeconds", retryAfterSeconds);
+        errorResponse.put("timestamp", System.currentTimeMillis());
+        response.setStatus(429);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write(JSON_WRITER.writeValueAsString(errorResponse));
+    }
+}
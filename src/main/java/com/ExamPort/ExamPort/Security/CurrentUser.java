@@ -0,0 +1,86 @@
+package com.ExamPort.ExamPort.Security;
+
+import com.ExamPort.ExamPort.Entity.User;
+import com.ExamPort.ExamPort.Service.UserCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Optional;
+
+/**
+ * The signed-in user of the current request.
+ *
+ * The user id and role come straight from the verified token. The full user row comes from
+ * {@link UserCache} and is resolved at most once per request; the returned user is shared and
+ * must not be modified, load it from the repository to change it.
+ */
+@Component
+public class CurrentUser {
+
+    private static final String REQUEST_ATTRIBUTE = CurrentUser.class.getName() + ".user";
+
+    @Autowired
+    private UserCache userCache;
+
+    /**
+     * The signed-in user, empty when the request is not authenticated or the user no longer exists
+     */
+    public Optional<User> get() {
+        Authentication authentication = authentication();
+        if (authentication == null) {
+            return Optional.empty();
+        }
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null && request.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof User user) {
+            return Optional.of(user);
+        }
+
+        JwtPrincipal principal = principal(authentication);
+        Optional<User> user = principal != null && principal.getUserId() != null
+                ? userCache.get(principal.getUserId())
+                : userCache.getByUsername(authentication.getName());
+        if (request != null && user.isPresent()) {
+            request.setAttribute(REQUEST_ATTRIBUTE, user.get(), RequestAttributes.SCOPE_REQUEST);
+        }
+        return user;
+    }
+
+    /**
+     * Id of the signed-in user, read from the token without loading the user when the token carries it
+     */
+    public Long id() {
+        JwtPrincipal principal = principal(authentication());
+        if (principal != null && principal.getUserId() != null) {
+            return principal.getUserId();
+        }
+        return get().map(User::getId).orElse(null);
+    }
+
+    /**
+     * Role of the signed-in user, read from the token without loading the user when the token carries it
+     */
+    public String role() {
+        JwtPrincipal principal = principal(authentication());
+        if (principal != null && principal.getRole() != null) {
+            return principal.getRole();
+        }
+        return get().map(User::getRole).orElse(null);
+    }
+
+    private static Authentication authentication() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated() || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication;
+    }
+
+    private static JwtPrincipal principal(Authentication authentication) {
+        return authentication != null && authentication.getPrincipal() instanceof JwtPrincipal principal ? principal : null;
+    }
+}
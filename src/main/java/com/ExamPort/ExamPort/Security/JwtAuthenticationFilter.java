@@ -1,7 +1,5 @@
 package com.ExamPort.ExamPort.Security;
 
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
 import java.util.List;
 import java.util.ArrayList;
 import org.slf4j.Logger;
@@ -51,46 +49,48 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         logger.debug("Processing request: {} {}", method, requestURI);
         
         final String authHeader = request.getHeader("Authorization");
-        String username = null;
         String jwt = null;
 
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             jwt = authHeader.substring(7);
-            try {
-                username = jwtUtil.extractUsername(jwt);
-                logger.debug("JWT token found for user: {}", username);
-            } catch (Exception e) {
-                logger.warn("Invalid JWT token in request to {}: {}", requestURI, e.getMessage());
-            }
+        } else if (requestURI.equals(com.ExamPort.ExamPort.Controller.LiveUpdateController.STREAM_PATH)
+                && request.getParameter("token") != null) {
+            // EventSource cannot set headers, the live update stream takes the token as a parameter
+            jwt = request.getParameter("token");
         } else {
             logger.debug("No Bearer token found in request to: {}", requestURI);
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+        JwtPrincipal principal = null;
+        if (jwt != null) {
             try {
-                // Extract roles array from JWT
-                Claims claims = Jwts.parserBuilder().setSigningKey(jwtUtil.getKey()).build().parseClaimsJws(jwt).getBody();
-                List<String> roles = claims.get("roles", List.class);
-                List<GrantedAuthority> authorities = new ArrayList<>();
-                if (roles != null) {
-                    for (String role : roles) {
-                        authorities.add(new SimpleGrantedAuthority(role));
-                    }
-                    logger.debug("User {} authenticated with roles: {}", username, roles);
-                } else {
-                    logger.warn("No roles found in JWT for user: {}", username);
-                }
-                
-                UsernamePasswordAuthenticationToken authToken =
-                        new UsernamePasswordAuthenticationToken(username, null, authorities);
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
-                
-                logger.debug("Security context set for user: {}", username);
+                // One verification per token, repeated requests are served from the verified-token cache
+                principal = jwtUtil.verify(jwt);
+                logger.debug("JWT token found for user: {}", principal.getUsername());
             } catch (Exception e) {
-                logger.error("Error processing JWT token for user: {}", username, e);
+                logger.warn("Invalid JWT token in request to {}: {}", requestURI, e.getMessage());
             }
         }
+
+        if (principal != null && principal.getUsername() != null
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            List<GrantedAuthority> authorities = new ArrayList<>();
+            for (String role : principal.getRoles()) {
+                authorities.add(new SimpleGrantedAuthority(role));
+            }
+            if (authorities.isEmpty()) {
+                logger.warn("No roles found in JWT for user: {}", principal.getUsername());
+            } else {
+                logger.debug("User {} authenticated with roles: {}", principal.getUsername(), principal.getRoles());
+            }
+
+            UsernamePasswordAuthenticationToken authToken =
+                    new UsernamePasswordAuthenticationToken(principal, null, authorities);
+            authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authToken);
+
+            logger.debug("Security context set for user: {}", principal.getUsername());
+        }
         
         filterChain.doFilter(request, response);
     }
@@ -0,0 +1,333 @@
+package com.ExamPort.ExamPort.Security;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyStore;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The HS256 keys that sign and verify JWTs, kept in a PKCS12 keystore file so tokens survive
+ * restarts and every node sharing the file accepts the tokens of the others.
+ *
+ * Each key is stored under its key id (the kid header of the tokens it signs). The newest key
+ * signs new tokens; an older key keeps verifying until the tokens it could have signed have
+ * expired, that is the token lifetime after the next key was created, plus one reload interval
+ * for nodes that have not seen the new key yet. {@link #rotate()} adds a key and drops the keys
+ * past that window. Nodes pick up a rotation done elsewhere when the file changes, or at once
+ * when they meet a token signed with a key id they do not know.
+ *
+ * The keystore password has no default: startup fails when app.jwt.keystore-password is not set,
+ * except under the dev and test profiles, which fall back to a well-known development password.
+ */
+@Component
+public class JwtKeyRing {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtKeyRing.class);
+
+    // Unknown key ids reload the file at most this often, so forged kids cannot make every request read it
+    private static final long MIN_FORCED_RELOAD_MS = 1000;
+
+    private static final String DEV_KEYSTORE_PASSWORD = "changeit";
+
+    @Value("${app.jwt.keystore-path:jwt-keystore.p12}")
+    private String keystorePath;
+
+    @Value("${app.jwt.keystore-password:}")
+    private String keystorePassword;
+
+    @Value("${app.jwt.keystore-reload-ms:60000}")
+    private long reloadMs;
+
+    @Autowired
+    private Environment environment;
+
+    private volatile Ring ring = new Ring(List.of(), -1, -1);
+    private volatile long lastForcedReload;
+
+    /**
+     * A signing key of the ring
+     */
+    public static final class RingKey {
+        private final String id;
+        private final SecretKey key;
+        private final Instant createdAt;
+        // Null while the key is the newest
+        private final Instant validUntil;
+
+        private RingKey(String id, SecretKey key, Instant createdAt, Instant validUntil) {
+            this.id = id;
+            this.key = key;
+            this.createdAt = createdAt;
+            this.validUntil = validUntil;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public Instant getCreatedAt() {
+            return createdAt;
+        }
+
+        /**
+         * When the key stops verifying tokens, null for the current signing key
+         */
+        public Instant getValidUntil() {
+            return validUntil;
+        }
+
+        Key getKey() {
+            return key;
+        }
+
+        private boolean isValid(Instant now) {
+            return validUntil == null || now.isBefore(validUntil);
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        if (keystorePassword == null || keystorePassword.isBlank()) {
+            if (!environment.acceptsProfiles(Profiles.of("dev", "test"))) {
+                throw new IllegalStateException("app.jwt.keystore-password is not set: set JWT_KEYSTORE_PASSWORD, "
+                        + "or run with the dev profile to use the development password");
+            }
+            logger.warn("app.jwt.keystore-password is not set, using the development password of the dev and test profiles");
+            keystorePassword = DEV_KEYSTORE_PASSWORD;
+        }
+        try {
+            withFileLock(() -> {
+                if (!Files.exists(path())) {
+                    KeyStore store = emptyStore();
+                    addKey(store);
+                    save(store);
+                    logger.info("Created JWT keystore {}", path().toAbsolutePath());
+                }
+                return null;
+            });
+            load();
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("Could not open JWT keystore " + path().toAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * The key new tokens are signed with
+     */
+    public RingKey signingKey() {
+        return ring.keys.get(ring.keys.size() - 1);
+    }
+
+    /**
+     * The key with this id if it still verifies tokens, null otherwise
+     */
+    public RingKey verificationKey(String keyId) {
+        if (keyId == null) {
+            return null;
+        }
+        RingKey key = ring.byId.get(keyId);
+        if (key == null) {
+            // Possibly rotated on another node
+            long now = System.currentTimeMillis();
+            if (now - lastForcedReload < MIN_FORCED_RELOAD_MS) {
+                return null;
+            }
+            lastForcedReload = now;
+            reloadIfChanged();
+            key = ring.byId.get(keyId);
+        }
+        return key != null && key.isValid(Instant.now()) ? key : null;
+    }
+
+    /**
+     * Whether the key with this id is known and still verifies tokens, without reloading the keystore
+     */
+    public boolean isValid(String keyId) {
+        RingKey key = keyId != null ? ring.byId.get(keyId) : null;
+        return key != null && key.isValid(Instant.now());
+    }
+
+    public List<RingKey> keys() {
+        return ring.keys;
+    }
+
+    /**
+     * Add a new signing key and drop the keys whose tokens have all expired
+     */
+    public synchronized RingKey rotate() {
+        try {
+            withFileLock(() -> {
+                KeyStore store = readStore();
+                addKey(store);
+                Instant now = Instant.now();
+                for (RingKey key : toRing(store).keys) {
+                    if (!key.isValid(now)) {
+                        store.deleteEntry(key.id);
+                        logger.info("Dropped expired JWT signing key {}", key.id);
+                    }
+                }
+                save(store);
+                return null;
+            });
+            load();
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("Could not rotate JWT keys in " + path().toAbsolutePath(), e);
+        }
+        RingKey signing = signingKey();
+        logger.info("Rotated JWT signing key, new key {}, {} keys in ring", signing.id, ring.keys.size());
+        return signing;
+    }
+
+    /**
+     * Load the keystore again when another node changed it
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.keystore-reload-ms:60000}")
+    public synchronized void reloadIfChanged() {
+        try {
+            Path path = path();
+            if (Files.getLastModifiedTime(path).toMillis() != ring.modified || Files.size(path) != ring.size) {
+                load();
+                logger.info("Reloaded JWT keystore, signing key {}", signingKey().id);
+            }
+        } catch (IOException | GeneralSecurityException e) {
+            logger.error("Could not reload JWT keystore {}", path().toAbsolutePath(), e);
+        }
+    }
+
+    private synchronized void load() throws IOException, GeneralSecurityException {
+        Path path = path();
+        long modified = Files.getLastModifiedTime(path).toMillis();
+        long size = Files.size(path);
+        Ring loaded = toRing(readStore());
+        if (loaded.keys.isEmpty()) {
+            throw new IllegalStateException("JWT keystore " + path.toAbsolutePath() + " holds no keys");
+        }
+        ring = new Ring(loaded.keys, modified, size);
+    }
+
+    private Ring toRing(KeyStore store) throws GeneralSecurityException {
+        List<String> aliases = Collections.list(store.aliases());
+        List<Object[]> entries = new ArrayList<>();
+        for (String alias : aliases) {
+            Key key = store.getKey(alias, password());
+            if (key != null) {
+                entries.add(new Object[]{alias, Keys.hmacShaKeyFor(key.getEncoded()), store.getCreationDate(alias).toInstant()});
+            }
+        }
+        entries.sort(Comparator.comparing(entry -> (Instant) entry[2]));
+
+        List<RingKey> keys = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            Object[] entry = entries.get(i);
+            Instant validUntil = i + 1 < entries.size()
+                    ? ((Instant) entries.get(i + 1)[2]).plusMillis(JwtUtil.EXPIRATION_TIME + reloadMs)
+                    : null;
+            keys.add(new RingKey((String) entry[0], (SecretKey) entry[1], (Instant) entry[2], validUntil));
+        }
+        return new Ring(List.copyOf(keys), -1, -1);
+    }
+
+    private void addKey(KeyStore store) throws GeneralSecurityException {
+        String id = UUID.randomUUID().toString();
+        SecretKey key = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+        store.setEntry(id, new KeyStore.SecretKeyEntry(key), new KeyStore.PasswordProtection(password()));
+    }
+
+    private KeyStore readStore() throws IOException, GeneralSecurityException {
+        KeyStore store = KeyStore.getInstance("PKCS12");
+        try (InputStream in = Files.newInputStream(path())) {
+            store.load(in, password());
+        }
+        return store;
+    }
+
+    private KeyStore emptyStore() throws IOException, GeneralSecurityException {
+        KeyStore store = KeyStore.getInstance("PKCS12");
+        store.load(null, password());
+        return store;
+    }
+
+    // Written next to the keystore and moved over it, so readers never see a half-written file
+    private void save(KeyStore store) throws IOException, GeneralSecurityException {
+        Path path = path().toAbsolutePath();
+        Files.createDirectories(path.getParent());
+        Path temp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                store.store(out, password());
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Nodes sharing the keystore change it one at a time
+    private <T> T withFileLock(KeystoreAction<T> action) throws IOException, GeneralSecurityException {
+        Path lockFile = Paths.get(path().toAbsolutePath() + ".lock");
+        Files.createDirectories(lockFile.getParent());
+        try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock lock = channel.lock()) {
+            return action.run();
+        }
+    }
+
+    private Path path() {
+        return Paths.get(keystorePath);
+    }
+
+    private char[] password() {
+        return keystorePassword.toCharArray();
+    }
+
+    @FunctionalInterface
+    private interface KeystoreAction<T> {
+        T run() throws IOException, GeneralSecurityException;
+    }
+
+    private static final class Ring {
+        private final List<RingKey> keys;
+        private final Map<String, RingKey> byId = new HashMap<>();
+        private final long modified;
+        private final long size;
+
+        private Ring(List<RingKey> keys, long modified, long size) {
+            this.keys = keys;
+            this.modified = modified;
+            this.size = size;
+            for (RingKey key : keys) {
+                byId.put(key.id, key);
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.ExamPort.ExamPort.Security;
+
+import java.security.Principal;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * The signed-in user as read from a verified JWT, set as the principal of the request's authentication.
+ * {@link #getName()} is the username, so {@code principal.getName()} keeps working in controllers.
+ */
+public final class JwtPrincipal implements Principal {
+
+    private final String username;
+    private final Long userId;
+    private final String role;
+    private final List<String> roles;
+    private final Instant expiresAt;
+
+    public JwtPrincipal(String username, Long userId, String role, List<String> roles, Instant expiresAt) {
+        this.username = username;
+        this.userId = userId;
+        this.role = role;
+        this.roles = roles != null ? List.copyOf(roles) : List.of();
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * Id of the user, null for tokens issued before the id was part of the token
+     */
+    public Long getUserId() {
+        return userId;
+    }
+
+    /**
+     * Role of the user as stored on the user, null for tokens issued before the role was part of the token
+     */
+    public String getRole() {
+        return role;
+    }
+
+    /**
+     * Spring roles of the user, with the ROLE_ prefix
+     */
+    public List<String> getRoles() {
+        return roles;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    @Override
+    public String toString() {
+        return username;
+    }
+}
@@ -1,44 +1,104 @@
 package com.ExamPort.ExamPort.Security;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Issues and verifies the JWTs of signed-in users.
+ *
+ * A token is verified once and the resulting {@link JwtPrincipal} is cached under the SHA-256
+ * digest of the token until the token expires, so the repeated requests of a signed-in user cost
+ * a digest and a map lookup instead of a signature check and a claims parse. The cache is bounded
+ * by app.jwt.verified-cache-size, tokens closest to expiry are evicted first.
+ *
+ * Tokens are signed with the current key of the {@link JwtKeyRing} and name it in their kid header.
+ */
 @Component
 public class JwtUtil {
-    
+
     private static final Logger logger = LoggerFactory.getLogger(JwtUtil.class);
-    public Key getKey() {
-        return key;
+
+    static final String ROLES_CLAIM = "roles";
+    static final String USER_ID_CLAIM = "uid";
+    static final String ROLE_CLAIM = "role";
+
+    static final long EXPIRATION_TIME = 1000 * 60 * 60 * 5; // 5 hours
+
+    @Value("${app.jwt.verified-cache-size:10000}")
+    private int verifiedCacheSize;
+
+    @Autowired
+    private JwtKeyRing keyRing;
+
+    // Parsers are immutable and thread-safe, one is shared by every request
+    private JwtParser parser;
+
+    private final ConcurrentHashMap<String, Verified> verified = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        JwtKeyRing.RingKey key = keyRing.verificationKey(header.getKeyId());
+                        if (key == null) {
+                            throw new JwtException("Unknown or retired signing key: " + header.getKeyId());
+                        }
+                        return key.getKey();
+                    }
+                })
+                .build();
     }
-    private final Key key = Keys.secretKeyFor(SignatureAlgorithm.HS256);
-    private final long EXPIRATION_TIME = 1000 * 60 * 60 * 5; // 5 hours
 
-    public String generateToken(String username, String role) {
+    public String generateToken(Long userId, String username, String role) {
         logger.debug("Generating JWT token for user: {} with role: {}", username, role);
-        
+
         try {
             Map<String, Object> claims = new HashMap<>();
             // Ensure the role is prefixed with 'ROLE_'
             String springRole = role.startsWith("ROLE_") ? role : ("ROLE_" + role.toUpperCase());
-            claims.put("roles", java.util.Collections.singletonList(springRole));
-            
+            claims.put(ROLES_CLAIM, java.util.Collections.singletonList(springRole));
+            claims.put(ROLE_CLAIM, role);
+            if (userId != null) {
+                claims.put(USER_ID_CLAIM, userId);
+            }
+
+            JwtKeyRing.RingKey signingKey = keyRing.signingKey();
             String token = Jwts.builder()
+                    .setHeaderParam(JwsHeader.KEY_ID, signingKey.getId())
                     .setClaims(claims)
                     .setSubject(username)
                     .setIssuedAt(new Date(System.currentTimeMillis()))
                     .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
-                    .signWith(key)
+                    .signWith(signingKey.getKey())
                     .compact();
-            
+
             logger.info("JWT token generated successfully for user: {}", username);
             return token;
         } catch (Exception e) {
@@ -47,9 +107,32 @@ public class JwtUtil {
         }
     }
 
+    /**
+     * Verify a token and return its user. Throws a JwtException when the token is invalid or expired.
+     */
+    public JwtPrincipal verify(String token) {
+        String digest = digest(token);
+        Verified cached = verified.get(digest);
+        if (cached != null) {
+            // A token stays trusted only while it is unexpired and its key is still in the ring
+            if (Instant.now().isBefore(cached.principal.getExpiresAt()) && keyRing.isValid(cached.keyId)) {
+                return cached.principal;
+            }
+            verified.remove(digest, cached);
+        }
+
+        Jws<Claims> jws = parser.parseClaimsJws(token);
+        JwtPrincipal principal = toPrincipal(jws.getBody());
+        if (principal.getExpiresAt() != null) {
+            verified.put(digest, new Verified(principal, jws.getHeader().getKeyId()));
+            evictIfNeeded();
+        }
+        return principal;
+    }
+
     public String extractUsername(String token) {
         try {
-            String username = Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody().getSubject();
+            String username = verify(token).getUsername();
             logger.debug("Extracted username from token: {}", username);
             return username;
         } catch (Exception e) {
@@ -60,7 +143,7 @@ public class JwtUtil {
 
     public String extractRole(String token) {
         try {
-            String role = (String) Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody().get("role");
+            String role = verify(token).getRole();
             logger.debug("Extracted role from token: {}", role);
             return role;
         } catch (Exception e) {
@@ -68,4 +151,63 @@ public class JwtUtil {
             throw e;
         }
     }
+
+    private static JwtPrincipal toPrincipal(Claims claims) {
+        List<String> roles = new ArrayList<>();
+        Object rolesClaim = claims.get(ROLES_CLAIM);
+        if (rolesClaim instanceof List<?> list) {
+            for (Object role : list) {
+                if (role != null) {
+                    roles.add(role.toString());
+                }
+            }
+        }
+        Object userIdClaim = claims.get(USER_ID_CLAIM);
+        Long userId = userIdClaim instanceof Number number ? number.longValue() : null;
+        Object roleClaim = claims.get(ROLE_CLAIM);
+        String role = roleClaim != null ? roleClaim.toString() : null;
+        Instant expiresAt = claims.getExpiration() != null ? claims.getExpiration().toInstant() : null;
+        return new JwtPrincipal(claims.getSubject(), userId, role, roles, expiresAt);
+    }
+
+    private void evictIfNeeded() {
+        int overflow = verified.size() - verifiedCacheSize;
+        if (overflow <= 0) {
+            return;
+        }
+        Instant now = Instant.now();
+        verified.values().removeIf(entry -> !now.isBefore(entry.principal.getExpiresAt()));
+        overflow = verified.size() - verifiedCacheSize;
+        if (overflow <= 0) {
+            return;
+        }
+        // Evict a little more than needed so a full cache is not sorted on every new token
+        int toEvict = overflow + Math.max(1, verifiedCacheSize / 10);
+        List<Map.Entry<String, Verified>> candidates = new ArrayList<>(verified.entrySet());
+        candidates.sort(Comparator.comparing(e -> e.getValue().principal.getExpiresAt()));
+        for (int i = 0; i < toEvict && i < candidates.size(); i++) {
+            verified.remove(candidates.get(i).getKey(), candidates.get(i).getValue());
+        }
+        logger.debug("Evicted {} verified tokens, {} remain", toEvict, verified.size());
+    }
+
+    private static String digest(String token) {
+        try {
+            // MessageDigest instances are not thread-safe, getting one is cheap
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class Verified {
+        private final JwtPrincipal principal;
+        private final String keyId;
+
+        private Verified(JwtPrincipal principal, String keyId) {
+            this.principal = principal;
+            this.keyId = keyId;
+        }
+    }
 }
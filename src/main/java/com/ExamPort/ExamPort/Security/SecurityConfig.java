@@ -16,6 +16,8 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
+    @Autowired
+    private AdmissionControlFilter admissionControlFilter;
 
     @Bean
     public PasswordEncoder passwordEncoder() {
@@ -30,6 +32,7 @@ public class SecurityConfig {
                 corsConfig.setAllowedOrigins(java.util.List.of("http://localhost:5173", "http://localhost:3000"));
                 corsConfig.setAllowedMethods(java.util.List.of("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
                 corsConfig.setAllowedHeaders(java.util.List.of("*"));
+                corsConfig.setExposedHeaders(java.util.List.of(com.ExamPort.ExamPort.Service.KeysetPagination.NEXT_CURSOR_HEADER, org.springframework.http.HttpHeaders.RETRY_AFTER));
                 corsConfig.setAllowCredentials(true);
                 corsConfig.setMaxAge(3600L);
                 return corsConfig;
@@ -40,7 +43,12 @@ public class SecurityConfig {
                 // Public endpoints - no authentication required
                 .requestMatchers("/api/auth/**", "/welcome", "/health", "/api/courses/public", "/api/test/**").permitAll()
                 .requestMatchers(org.springframework.http.HttpMethod.OPTIONS, "/**").permitAll()
+                // Async dispatches only continue a request that was already authorized (live update stream)
+                .dispatcherTypeMatchers(jakarta.servlet.DispatcherType.ASYNC).permitAll()
                 
+                // Admin endpoints
+                .requestMatchers("/api/admin/**").hasRole("ADMIN")
+
                 // Course endpoints
                 .requestMatchers(org.springframework.http.HttpMethod.GET, "/api/courses/public").permitAll()
                 .requestMatchers(org.springframework.http.HttpMethod.POST, "/api/courses/create").hasAnyRole("ADMIN", "INSTRUCTOR")
@@ -65,7 +73,9 @@ public class SecurityConfig {
                 // All other requests require authentication
                 .anyRequest().authenticated()
             )
-            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+            // Admission control needs the authenticated user for its per-user limits
+            .addFilterAfter(admissionControlFilter, JwtAuthenticationFilter.class);
         return http.build();
     }
 }
@@ -0,0 +1,170 @@
+package com.ExamPort.ExamPort.Service;
+
+import com.ExamPort.ExamPort.Repository.Exam_repo;
+import com.ExamPort.ExamPort.Repository.ResultRepository;
+import com.ExamPort.ExamPort.Repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Site-wide statistics for the admin dashboard.
+ *
+ * The numbers come from a few aggregate queries (COUNT, AVG, GROUP BY role) and are kept as a
+ * snapshot that a scheduled task refreshes every app.admin-stats.ttl-ms. Requests read the
+ * snapshot; if it is missing or stale they wait for a refresh, and concurrent callers share
+ * the same one.
+ */
+@Service
+public class AdminStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdminStatsService.class);
+
+    @Value("${app.admin-stats.ttl-ms:60000}")
+    private long ttlMs;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private Exam_repo examRepository;
+
+    @Autowired
+    private ResultRepository resultRepository;
+
+    private volatile Snapshot snapshot;
+
+    private final AtomicReference<CompletableFuture<Snapshot>> inFlight = new AtomicReference<>();
+
+    /**
+     * Current statistics, at most app.admin-stats.ttl-ms old
+     */
+    public Snapshot get() {
+        Snapshot current = snapshot;
+        if (current != null && System.currentTimeMillis() - current.generatedAt <= ttlMs) {
+            return current;
+        }
+        return refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${app.admin-stats.ttl-ms:60000}")
+    public void refreshInBackground() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            logger.error("Failed to refresh admin dashboard stats", e);
+        }
+    }
+
+    /**
+     * Recompute the snapshot, or join a refresh that is already running
+     */
+    public Snapshot refresh() {
+        CompletableFuture<Snapshot> future = new CompletableFuture<>();
+        CompletableFuture<Snapshot> running = inFlight.compareAndExchange(null, future);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        try {
+            Snapshot fresh = compute();
+            snapshot = fresh;
+            future.complete(fresh);
+            return fresh;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.set(null);
+        }
+    }
+
+    private Snapshot compute() {
+        long started = System.currentTimeMillis();
+
+        Map<String, Long> usersByRole = new LinkedHashMap<>();
+        long totalUsers = 0;
+        for (Object[] row : userRepository.countUsersByRole()) {
+            long count = ((Number) row[1]).longValue();
+            usersByRole.put((String) row[0], count);
+            totalUsers += count;
+        }
+
+        long totalExams = examRepository.count();
+
+        long totalAttempts = 0;
+        double averageScore = 0.0;
+        List<Object[]> attemptStats = resultRepository.countAndAverageScore();
+        if (!attemptStats.isEmpty()) {
+            Object[] row = attemptStats.get(0);
+            totalAttempts = row[0] != null ? ((Number) row[0]).longValue() : 0;
+            averageScore = row[1] != null ? ((Number) row[1]).doubleValue() : 0.0;
+        }
+
+        Snapshot fresh = new Snapshot(totalUsers, totalExams, totalAttempts, averageScore,
+                Collections.unmodifiableMap(usersByRole), System.currentTimeMillis());
+        logger.debug("Admin dashboard stats refreshed in {} ms", fresh.generatedAt - started);
+        return fresh;
+    }
+
+    /**
+     * Statistics as of one refresh
+     */
+    public static final class Snapshot {
+        private final long totalUsers;
+        private final long totalExams;
+        private final long totalAttempts;
+        private final double averageScore;
+        private final Map<String, Long> usersByRole;
+        private final long generatedAt;
+
+        Snapshot(long totalUsers, long totalExams, long totalAttempts, double averageScore,
+                 Map<String, Long> usersByRole, long generatedAt) {
+            this.totalUsers = totalUsers;
+            this.totalExams = totalExams;
+            this.totalAttempts = totalAttempts;
+            this.averageScore = averageScore;
+            this.usersByRole = usersByRole;
+            this.generatedAt = generatedAt;
+        }
+
+        public long getTotalUsers() {
+            return totalUsers;
+        }
+
+        public long getTotalExams() {
+            return totalExams;
+        }
+
+        public long getTotalAttempts() {
+            return totalAttempts;
+        }
+
+        public double getAverageScore() {
+            return averageScore;
+        }
+
+        /** User count per role, in the order the database returned them */
+        public Map<String, Long> getUsersByRole() {
+            return usersByRole;
+        }
+
+        public long getGeneratedAt() {
+            return generatedAt;
+        }
+    }
+}
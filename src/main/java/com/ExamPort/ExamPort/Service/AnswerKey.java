@@ -0,0 +1,383 @@
+package com.ExamPort.ExamPort.Service;
+
+import com.ExamPort.ExamPort.Entity.Exam;
+import com.ExamPort.ExamPort.Entity.ExamOption;
+import com.ExamPort.ExamPort.Entity.Question;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable answer key compiled once from an exam's questions, options and correct_options.
+ *
+ * Questions are addressed by their position in the exam (int index). Each question keeps its
+ * marks, a bitmask of correct option indexes and a small token table mapping every accepted
+ * answer spelling (option text, option index, option id) to the options it refers to, so
+ * scoring a submission is a handful of array reads and does not allocate.
+ *
+ * Scoring rules are the same as the original calculateScore:
+ * - "mcq": full marks when the answer matches the first correct option by text, index or option id
+ * - "multiple": comma separated option texts, (correct - incorrect) / correct options * marks, never below 0
+ * - anything else: full marks when answered (manual grading needed)
+ */
+public final class AnswerKey {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnswerKey.class);
+
+    /** Bitmasks are held in a long, so only the first 64 options of a question can be matched. */
+    public static final int MAX_OPTIONS = 64;
+
+    private static final byte TYPE_TEXT = 0;
+    private static final byte TYPE_SINGLE = 1;
+    private static final byte TYPE_MULTIPLE = 2;
+
+    private final long examId;
+    private final long[] questionIds;
+    private final String[] answerKeys;
+    private final byte[] types;
+    private final int[] marks;
+    private final long[] correctMasks;
+    private final int[] correctCounts;
+    private final TokenTable[] tokens;
+    private final long[] sortedIds;
+    private final int[] sortedIndexes;
+    private final int totalMarks;
+
+    private AnswerKey(long examId, int size, int declaredTotalMarks) {
+        this.examId = examId;
+        this.questionIds = new long[size];
+        this.answerKeys = new String[size];
+        this.types = new byte[size];
+        this.marks = new int[size];
+        this.correctMasks = new long[size];
+        this.correctCounts = new int[size];
+        this.tokens = new TokenTable[size];
+        this.sortedIds = new long[size];
+        this.sortedIndexes = new int[size];
+        this.totalMarks = declaredTotalMarks;
+    }
+
+    /**
+     * Compile the answer key of an exam. Questions, options and correct_options must be loaded.
+     */
+    public static AnswerKey compile(Exam exam) {
+        List<Question> questions = exam.getQuestions() != null ? exam.getQuestions() : List.of();
+        int size = questions.size();
+
+        int summedMarks = 0;
+        for (Question q : questions) {
+            summedMarks += q.getMarks() != null ? q.getMarks() : 1;
+        }
+        int total = exam.getTotalMarks() > 0 ? exam.getTotalMarks() : summedMarks;
+
+        AnswerKey key = new AnswerKey(exam.getExam_id(), size, total);
+        for (int i = 0; i < size; i++) {
+            key.compileQuestion(i, questions.get(i));
+        }
+
+        // id -> index lookup: ids sorted alongside their positions, searched with binary search
+        Integer[] positions = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            positions[i] = i;
+        }
+        Arrays.sort(positions, (a, b) -> Long.compare(key.questionIds[a], key.questionIds[b]));
+        for (int i = 0; i < size; i++) {
+            key.sortedIds[i] = key.questionIds[positions[i]];
+            key.sortedIndexes[i] = positions[i];
+        }
+
+        logger.debug("Compiled answer key for exam {} with {} questions and {} total marks", exam.getExam_id(), size, total);
+        return key;
+    }
+
+    private void compileQuestion(int i, Question question) {
+        questionIds[i] = question.getQue_id();
+        answerKeys[i] = String.valueOf(question.getQue_id());
+        marks[i] = question.getMarks() != null ? question.getMarks() : 1;
+
+        String type = question.getType();
+        if ("mcq".equals(type)) {
+            types[i] = TYPE_SINGLE;
+        } else if ("multiple".equals(type)) {
+            types[i] = TYPE_MULTIPLE;
+        } else {
+            types[i] = TYPE_TEXT;
+            return;
+        }
+
+        List<ExamOption> options = question.getOptions() != null ? question.getOptions() : List.of();
+        List<Integer> correct = question.getCorrect_options();
+        int optionCount = options.size();
+        if (optionCount > MAX_OPTIONS) {
+            logger.warn("Question {} has {} options, only the first {} can be scored", question.getQue_id(), optionCount, MAX_OPTIONS);
+            optionCount = MAX_OPTIONS;
+        }
+
+        long mask = 0L;
+        int count = 0;
+        if (correct != null && !correct.isEmpty()) {
+            if (types[i] == TYPE_SINGLE) {
+                // Single choice only ever looked at the first correct option
+                Integer index = correct.get(0);
+                if (index != null && index >= 0 && index < optionCount) {
+                    mask = 1L << index;
+                    count = 1;
+                }
+            } else {
+                for (Integer index : correct) {
+                    if (index != null && index >= 0 && index < optionCount) {
+                        mask |= 1L << index;
+                        count++;
+                    }
+                }
+            }
+        }
+        correctMasks[i] = mask;
+        correctCounts[i] = count;
+
+        TokenTable table = new TokenTable(optionCount * 3);
+        for (int o = 0; o < optionCount; o++) {
+            ExamOption option = options.get(o);
+            long bit = 1L << o;
+            if (option.getAvailableOption() != null) {
+                table.add(option.getAvailableOption(), bit);
+            }
+            if (types[i] == TYPE_SINGLE) {
+                table.add(String.valueOf(o), bit);
+                table.add(String.valueOf(option.getOption_id()), bit);
+            }
+        }
+        tokens[i] = table;
+    }
+
+    /**
+     * Score a submission and return the score of every question, in exam order.
+     */
+    public double[] score(Map<String, String> answers) {
+        double[] perQuestion = new double[questionIds.length];
+        scoreInto(answers, perQuestion);
+        return perQuestion;
+    }
+
+    /**
+     * Score a submission into a caller supplied array and return the rounded total.
+     */
+    public double scoreInto(Map<String, String> answers, double[] perQuestion) {
+        double total = 0.0;
+        for (int i = 0; i < questionIds.length; i++) {
+            double questionScore = scoreQuestion(i, answers != null ? answers.get(answerKeys[i]) : null);
+            perQuestion[i] = questionScore;
+            total += questionScore;
+        }
+        return round(total);
+    }
+
+    /**
+     * Score a submission and return only the rounded total.
+     */
+    public double totalScore(Map<String, String> answers) {
+        double total = 0.0;
+        for (int i = 0; i < questionIds.length; i++) {
+            total += scoreQuestion(i, answers != null ? answers.get(answerKeys[i]) : null);
+        }
+        return round(total);
+    }
+
+    /**
+     * Score the answer given to the question at the given index.
+     */
+    public double scoreQuestion(int index, String answer) {
+        if (answer == null) {
+            return 0.0;
+        }
+        int from = 0;
+        int to = answer.length();
+        while (from < to && answer.charAt(from) <= ' ') from++;
+        while (to > from && answer.charAt(to - 1) <= ' ') to--;
+        if (from == to) {
+            return 0.0;
+        }
+
+        switch (types[index]) {
+            case TYPE_SINGLE:
+                return (tokens[index].lookup(answer, from, to) & correctMasks[index]) != 0 ? marks[index] : 0.0;
+            case TYPE_MULTIPLE:
+                return scoreMultiple(index, answer);
+            default:
+                return marks[index];
+        }
+    }
+
+    private double scoreMultiple(int index, String answer) {
+        int count = correctCounts[index];
+        if (count == 0) {
+            return 0.0;
+        }
+        long correctMask = correctMasks[index];
+        TokenTable table = tokens[index];
+
+        // Same pieces as answer.split(","): trailing empty pieces are dropped
+        int end = answer.length();
+        while (end > 0 && answer.charAt(end - 1) == ',') end--;
+
+        int correctSelections = 0;
+        int incorrectSelections = 0;
+        int start = 0;
+        for (int p = 0; p <= end && end > 0; p++) {
+            if (p == end || answer.charAt(p) == ',') {
+                int from = start;
+                int to = p;
+                while (from < to && answer.charAt(from) <= ' ') from++;
+                while (to > from && answer.charAt(to - 1) <= ' ') to--;
+                if ((table.lookup(answer, from, to) & correctMask) != 0) {
+                    correctSelections++;
+                } else {
+                    incorrectSelections++;
+                }
+                start = p + 1;
+            }
+        }
+
+        double partialScore = Math.max(0, correctSelections - incorrectSelections);
+        return (partialScore / count) * marks[index];
+    }
+
+    private static double round(double score) {
+        return Math.round(score * 100.0) / 100.0;
+    }
+
+    /**
+     * Position of a question in this key, or -1 when the exam has no such question.
+     */
+    public int indexOf(long questionId) {
+        int found = Arrays.binarySearch(sortedIds, questionId);
+        return found >= 0 ? sortedIndexes[found] : -1;
+    }
+
+    public long getExamId() {
+        return examId;
+    }
+
+    public int getQuestionCount() {
+        return questionIds.length;
+    }
+
+    public long getQuestionId(int index) {
+        return questionIds[index];
+    }
+
+    public int getMarks(int index) {
+        return marks[index];
+    }
+
+    /**
+     * Total marks of the exam: the declared total, or the sum of question marks when none was set.
+     */
+    public int getTotalMarks() {
+        return totalMarks;
+    }
+
+    /**
+     * Whether both keys give every possible submission the same score. Used to decide if
+     * an exam edit needs its stored results re-graded.
+     */
+    public boolean sameScoringAs(AnswerKey other) {
+        if (other == null || totalMarks != other.totalMarks
+                || !Arrays.equals(questionIds, other.questionIds)
+                || !Arrays.equals(types, other.types)
+                || !Arrays.equals(marks, other.marks)
+                || !Arrays.equals(correctMasks, other.correctMasks)
+                || !Arrays.equals(correctCounts, other.correctCounts)) {
+            return false;
+        }
+        for (int i = 0; i < tokens.length; i++) {
+            if (tokens[i] == null ? other.tokens[i] != null : !tokens[i].sameAs(other.tokens[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Open addressing table from answer spelling to the bitmask of options it names.
+     * Lookups compare a region of the submitted answer in place, so no substring is created.
+     */
+    private static final class TokenTable {
+        private final String[] keys;
+        private final int[] hashes;
+        private final long[] masks;
+        private final int mask;
+
+        TokenTable(int expected) {
+            int capacity = 4;
+            while (capacity < expected * 2) {
+                capacity <<= 1;
+            }
+            this.keys = new String[capacity];
+            this.hashes = new int[capacity];
+            this.masks = new long[capacity];
+            this.mask = capacity - 1;
+        }
+
+        void add(String token, long bit) {
+            int hash = token.hashCode();
+            int slot = spread(hash) & mask;
+            while (keys[slot] != null) {
+                if (hashes[slot] == hash && keys[slot].equals(token)) {
+                    masks[slot] |= bit;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = token;
+            hashes[slot] = hash;
+            masks[slot] = bit;
+        }
+
+        boolean sameAs(TokenTable other) {
+            if (other == null || size() != other.size()) {
+                return false;
+            }
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] != null && other.lookup(keys[slot], 0, keys[slot].length()) != masks[slot]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int size() {
+            int size = 0;
+            for (String key : keys) {
+                if (key != null) {
+                    size++;
+                }
+            }
+            return size;
+        }
+
+        long lookup(String source, int from, int to) {
+            int length = to - from;
+            int hash = 0;
+            for (int i = from; i < to; i++) {
+                hash = 31 * hash + source.charAt(i);
+            }
+            int slot = spread(hash) & mask;
+            while (keys[slot] != null) {
+                String key = keys[slot];
+                if (hashes[slot] == hash && key.length() == length && key.regionMatches(0, source, from, length)) {
+                    return masks[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            return 0L;
+        }
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package com.ExamPort.ExamPort.Service;
+
+import com.ExamPort.ExamPort.Exception.ValidationException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Answers of exams in progress, autosaved by students and kept in memory by (user, exam).
+ *
+ * Autosaves only merge a few answers into memory. Attempts changed since the last flush are
+ * written to exam_attempts in one batch every app.autosave.flush-ms (write-behind), so the
+ * database sees at most one write per attempt per interval whatever the autosave rate.
+ * An attempt not in memory, for instance after a restart, is loaded from exam_attempts.
+ *
+ * The exam_attempts row is created when the exam session starts and deleted when the exam is
+ * submitted. Flushes only update an existing row, so a late autosave cannot bring a submitted
+ * attempt back; an attempt whose row is gone or was written with a newer version is dropped
+ * from memory and reloaded on next use.
+ *
+ * Each node keeps its own copy, so autosaves of one attempt should reach one node (sticky
+ * routing by user). A submit reads through to the database with {@link #answersForSubmit}, so it
+ * sees what other nodes flushed, up to one flush interval old.
+ */
+@Service
+public class AttemptStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(AttemptStore.class);
+
+    private static final String UPDATE_SQL =
+            "UPDATE exam_attempts SET answers = ?, version = ?, updated_at = ? " +
+            "WHERE user_id = ? AND exam_id = ? AND version < ?";
+
+    private static final JsonMapper JSON = JsonMapper.builder().build();
+    private static final ObjectReader ANSWERS_READER = JSON.readerFor(new TypeReference<LinkedHashMap<String, String>>() {});
+    private static final ObjectWriter ANSWERS_WRITER = JSON.writerFor(new TypeReference<Map<String, String>>() {});
+
+    @Value("${app.autosave.max-answers:1000}")
+    private int maxAnswers;
+
+    @Value("${app.autosave.max-answer-length:5000}")
+    private int maxAnswerLength;
+
+    @Value("${app.autosave.idle-evict-ms:3600000}")
+    private long idleEvictMs;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ConcurrentHashMap<String, Attempt> attempts = new ConcurrentHashMap<>();
+
+    // Held while writing to exam_attempts, so a discarded attempt cannot be written back after its delete
+    private final Object writeLock = new Object();
+
+    /**
+     * Merge answers into the attempt; a null or empty answer clears the question. Returns the attempt's new version.
+     */
+    public long save(Long userId, Long examId, Map<String, String> delta) {
+        for (Map.Entry<String, String> entry : delta.entrySet()) {
+            if (entry.getKey() == null || entry.getKey().length() > 64) {
+                throw new ValidationException("answers", "Invalid question id");
+            }
+            if (entry.getValue() != null && entry.getValue().length() > maxAnswerLength) {
+                throw new ValidationException("answers", "Answer is longer than " + maxAnswerLength + " characters");
+            }
+        }
+        while (true) {
+            Attempt attempt = attempt(userId, examId);
+            synchronized (attempt) {
+                if (attempt.evicted) {
+                    continue;
+                }
+                int added = 0;
+                for (Map.Entry<String, String> entry : delta.entrySet()) {
+                    if (entry.getValue() != null && !entry.getValue().isEmpty() && !attempt.answers.containsKey(entry.getKey())) {
+                        added++;
+                    }
+                }
+                if (attempt.answers.size() + added > maxAnswers) {
+                    throw new ValidationException("answers", "Too many answers");
+                }
+                for (Map.Entry<String, String> entry : delta.entrySet()) {
+                    if (entry.getValue() == null || entry.getValue().isEmpty()) {
+                        attempt.answers.remove(entry.getKey());
+                    } else {
+                        attempt.answers.put(entry.getKey(), entry.getValue());
+                    }
+                }
+                attempt.version++;
+                attempt.touchedAt = System.currentTimeMillis();
+                return attempt.version;
+            }
+        }
+    }
+
+    /**
+     * Current answers of the attempt, empty when nothing was saved
+     */
+    public Map<String, String> answersOf(Long userId, Long examId) {
+        Attempt attempt = attempt(userId, examId);
+        synchronized (attempt) {
+            return new LinkedHashMap<>(attempt.answers);
+        }
+    }
+
+    /**
+     * Final answers of an attempt being submitted: this node's changes are written first, then
+     * the stored row is read, and the newer of the two is returned.
+     */
+    public Map<String, String> answersForSubmit(Long userId, Long examId) {
+        Attempt attempt = attempts.get(key(userId, examId));
+        Map<String, String> local = null;
+        long localVersion = -1;
+        if (attempt != null) {
+            List<Object[]> row = new ArrayList<>(1);
+            synchronized (attempt) {
+                if (!attempt.evicted) {
+                    local = new LinkedHashMap<>(attempt.answers);
+                    localVersion = attempt.version;
+                    if (attempt.version != attempt.flushedVersion) {
+                        row.add(rowOf(attempt, Timestamp.valueOf(LocalDateTime.now())));
+                    }
+                }
+            }
+            if (!row.isEmpty()) {
+                write(List.of(attempt), row);
+            }
+        }
+        Attempt stored = load(userId, examId);
+        if (local != null && localVersion >= stored.version) {
+            return local;
+        }
+        return new LinkedHashMap<>(stored.answers);
+    }
+
+    public long versionOf(Long userId, Long examId) {
+        Attempt attempt = attempt(userId, examId);
+        synchronized (attempt) {
+            return attempt.version;
+        }
+    }
+
+    /**
+     * Forget a submitted attempt, in memory and in exam_attempts
+     */
+    public void discard(Long userId, Long examId) {
+        Attempt attempt = attempts.remove(key(userId, examId));
+        if (attempt != null) {
+            synchronized (attempt) {
+                attempt.evicted = true;
+            }
+        }
+        try {
+            synchronized (writeLock) {
+                jdbcTemplate.update("DELETE FROM exam_attempts WHERE user_id = ? AND exam_id = ?", userId, examId);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not delete autosaved attempt of user {} for exam {}", userId, examId, e);
+        }
+    }
+
+    /**
+     * Write every attempt changed since the last flush in one batch, and drop attempts idle for app.autosave.idle-evict-ms
+     */
+    @Scheduled(fixedDelayString = "${app.autosave.flush-ms:2000}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+        List<Attempt> dirty = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        Timestamp updatedAt = Timestamp.valueOf(LocalDateTime.now());
+        for (Attempt attempt : attempts.values()) {
+            synchronized (attempt) {
+                if (attempt.evicted) {
+                    continue;
+                }
+                if (attempt.version != attempt.flushedVersion) {
+                    dirty.add(attempt);
+                    rows.add(rowOf(attempt, updatedAt));
+                } else if (now - attempt.touchedAt > idleEvictMs) {
+                    attempt.evicted = true;
+                    attempts.remove(key(attempt.userId, attempt.examId), attempt);
+                }
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+        write(dirty, rows);
+    }
+
+    private void write(List<Attempt> dirty, List<Object[]> rows) {
+        long started = System.nanoTime();
+        try {
+            synchronized (writeLock) {
+                List<Object[]> live = new ArrayList<>(rows.size());
+                List<Attempt> written = new ArrayList<>(rows.size());
+                for (int i = 0; i < dirty.size(); i++) {
+                    Attempt attempt = dirty.get(i);
+                    long version = (Long) rows.get(i)[1];
+                    boolean pending;
+                    synchronized (attempt) {
+                        // A concurrent flush or submit may have written this version already
+                        pending = !attempt.evicted && attempt.flushedVersion < version;
+                    }
+                    if (pending && attempts.get(key(attempt.userId, attempt.examId)) == attempt) {
+                        live.add(rows.get(i));
+                        written.add(attempt);
+                    }
+                }
+                if (live.isEmpty()) {
+                    return;
+                }
+                int[] updated = jdbcTemplate.batchUpdate(UPDATE_SQL, live);
+                for (int i = 0; i < written.size(); i++) {
+                    Attempt attempt = written.get(i);
+                    long version = (Long) live.get(i)[1];
+                    synchronized (attempt) {
+                        if (i < updated.length && updated[i] == 0) {
+                            // Row deleted by a submit, or written with a newer version elsewhere
+                            attempt.evicted = true;
+                            attempts.remove(key(attempt.userId, attempt.examId), attempt);
+                        } else {
+                            attempt.flushedVersion = Math.max(attempt.flushedVersion, version);
+                        }
+                    }
+                }
+            }
+            logger.debug("Flushed {} autosaved attempts in {} ms", rows.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (RuntimeException e) {
+            // Attempts stay dirty and are retried by the next flush
+            logger.error("Could not flush {} autosaved attempts", rows.size(), e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flush();
+    }
+
+    private Attempt attempt(Long userId, Long examId) {
+        String key = key(userId, examId);
+        Attempt attempt = attempts.get(key);
+        if (attempt != null) {
+            return attempt;
+        }
+        Attempt loaded = load(userId, examId);
+        Attempt existing = attempts.putIfAbsent(key, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private Attempt load(Long userId, Long examId) {
+        Attempt attempt = new Attempt(userId, examId);
+        jdbcTemplate.query("SELECT answers, version FROM exam_attempts WHERE user_id = ? AND exam_id = ?", rs -> {
+            attempt.answers.putAll(fromJson(rs.getString("answers")));
+            attempt.version = rs.getLong("version");
+            attempt.flushedVersion = attempt.version;
+        }, userId, examId);
+        return attempt;
+    }
+
+    // Caller holds the attempt's monitor
+    private static Object[] rowOf(Attempt attempt, Timestamp updatedAt) {
+        return new Object[]{toJson(attempt.answers), attempt.version, updatedAt, attempt.userId, attempt.examId, attempt.version};
+    }
+
+    private static String toJson(Map<String, String> answers) {
+        try {
+            return ANSWERS_WRITER.writeValueAsString(answers);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not serialize answers", e);
+        }
+    }
+
+    private static Map<String, String> fromJson(String json) {
+        if (json == null || json.isBlank()) {
+            return Map.of();
+        }
+        try {
+            return ANSWERS_READER.readValue(json);
+        } catch (Exception e) {
+            logger.warn("Unparseable autosaved answers: {}", json);
+            return Map.of();
+        }
+    }
+
+    private static String key(Long userId, Long examId) {
+        return userId + ":" + examId;
+    }
+
+    private static final class Attempt {
+        private final Long userId;
+        private final Long examId;
+        // All guarded by this
+        private final LinkedHashMap<String, String> answers = new LinkedHashMap<>();
+        private long version;
+        private long flushedVersion;
+        private long touchedAt = System.currentTimeMillis();
+        private boolean evicted;
+
+        private Attempt(Long userId, Long examId) {
+            this.userId = userId;
+            this.examId = examId;
+        }
+    }
+}
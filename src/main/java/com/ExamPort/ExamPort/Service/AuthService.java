@@ -11,6 +11,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
 import java.time.LocalDateTime;
 import java.util.Optional;
@@ -29,6 +30,9 @@ public class AuthService {
     
     @Autowired
     private EmailService emailService;
+
+    @Autowired
+    private UserCache userCache;
     
     private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
     
@@ -59,6 +63,8 @@ public class AuthService {
             
         } catch (Exception e) {
             logger.error("Failed to send email verification for user: {}", user.getEmail(), e);
+            // No token without its queued email, the previous tokens stay valid
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
             return false;
         }
     }
@@ -89,6 +95,7 @@ public class AuthService {
             User user = verificationToken.getUser();
             user.setEmailVerified(true);
             userRepository.save(user);
+            userCache.invalidate(user.getId());
             
             // Mark token as used
             verificationToken.setUsed(true);
@@ -139,6 +146,8 @@ public class AuthService {
             
         } catch (Exception e) {
             logger.error("Failed to send password reset token for email: {}", email, e);
+            // No token without its queued email, the previous tokens stay valid
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
             return false;
         }
     }
@@ -169,6 +178,7 @@ public class AuthService {
             User user = resetToken.getUser();
             user.setPassword(passwordEncoder.encode(newPassword));
             userRepository.save(user);
+            userCache.invalidate(user.getId());
             
             // Mark token as used
             resetToken.setUsed(true);
@@ -0,0 +1,268 @@
+package com.ExamPort.ExamPort.Service;
+
+import com.ExamPort.ExamPort.Repository.CourseMemberRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Membership of private courses, stored as (course_id, normalized email) rows in course_members.
+ *
+ * Membership checks go through a per-course hash set loaded with one indexed query and kept
+ * for up to app.course-members.cache-courses courses. Members are added and removed in JDBC
+ * batches; every change drops the cached set and updates the {@link ExamAccessIndex}.
+ * A set is also reloaded once it is app.course-members.cache-ttl-ms old, so changes made on
+ * another application node are seen within that time.
+ */
+@Service
+public class CourseMembershipService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CourseMembershipService.class);
+
+    private static final String INSERT_SQL = "INSERT IGNORE INTO course_members (course_id, email, created_at) VALUES (?, ?, ?)";
+    private static final String DELETE_SQL = "DELETE FROM course_members WHERE course_id = ? AND email = ?";
+    private static final String DELETE_COURSE_SQL = "DELETE FROM course_members WHERE course_id = ?";
+
+    @Value("${app.course-members.cache-courses:200}")
+    private int cacheCourses;
+
+    @Value("${app.course-members.cache-ttl-ms:30000}")
+    private long cacheTtlMs;
+
+    @Autowired
+    private CourseMemberRepository courseMemberRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ExamAccessIndex examAccessIndex;
+
+    @Autowired
+    private PendingEnrollmentService pendingEnrollmentService;
+
+    private final ConcurrentHashMap<Long, CachedMembers> membersByCourse = new ConcurrentHashMap<>();
+
+    /**
+     * Trimmed, lower case form under which emails are stored and looked up
+     */
+    public static String normalize(String email) {
+        return email != null ? email.trim().toLowerCase(Locale.ROOT) : null;
+    }
+
+    public boolean isMember(Long courseId, String email) {
+        String normalized = normalize(email);
+        return courseId != null && normalized != null && !normalized.isEmpty() && members(courseId).contains(normalized);
+    }
+
+    /**
+     * Normalized member emails of a course
+     */
+    public List<String> emailsOf(Long courseId) {
+        return courseId != null ? new ArrayList<>(members(courseId)) : List.of();
+    }
+
+    public int countOf(Long courseId) {
+        return courseId != null ? members(courseId).size() : 0;
+    }
+
+    /**
+     * Member counts of several courses, from the cached sets where present and one grouped query for the rest
+     */
+    public Map<Long, Integer> countsOf(Collection<Long> courseIds) {
+        Map<Long, Integer> counts = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long courseId : courseIds) {
+            Set<String> cached = courseId != null ? cachedMembers(courseId) : null;
+            if (cached != null) {
+                counts.put(courseId, cached.size());
+            } else if (courseId != null && !counts.containsKey(courseId)) {
+                counts.put(courseId, 0);
+                missing.add(courseId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (Object[] row : courseMemberRepository.countByCourseIds(missing)) {
+                counts.put(((Number) row[0]).longValue(), ((Number) row[1]).intValue());
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Ids of the courses the email is a member of
+     */
+    public List<Long> courseIdsOf(String email) {
+        String normalized = normalize(email);
+        return normalized != null ? courseMemberRepository.findCourseIdsByEmail(normalized) : List.of();
+    }
+
+    /**
+     * Add emails to a course, skipping ones already there. Returns how many were new.
+     */
+    public int addMembers(Long courseId, Collection<String> emails) {
+        Set<String> current = members(courseId);
+        List<String> added = new ArrayList<>();
+        for (String email : normalizeAll(emails)) {
+            if (!current.contains(email)) {
+                added.add(email);
+            }
+        }
+        if (added.isEmpty()) {
+            return 0;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(added.size());
+        for (String email : added) {
+            rows.add(new Object[]{courseId, email, now});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        changed(courseId);
+        examAccessIndex.membersAdded(courseId, added);
+        logger.info("Added {} members to course {}", added.size(), courseId);
+        return added.size();
+    }
+
+    /**
+     * Remove emails from a course. Returns how many were members.
+     */
+    public int removeMembers(Long courseId, Collection<String> emails) {
+        Set<String> current = members(courseId);
+        List<String> removed = new ArrayList<>();
+        for (String email : normalizeAll(emails)) {
+            if (current.contains(email)) {
+                removed.add(email);
+            }
+        }
+        if (removed.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> rows = new ArrayList<>(removed.size());
+        for (String email : removed) {
+            rows.add(new Object[]{courseId, email});
+        }
+        jdbcTemplate.batchUpdate(DELETE_SQL, rows);
+        changed(courseId);
+        examAccessIndex.membersRemoved(courseId, removed);
+        pendingEnrollmentService.untrack(courseId, removed);
+        logger.info("Removed {} members from course {}", removed.size(), courseId);
+        return removed.size();
+    }
+
+    /**
+     * Make the members of a course exactly the given emails
+     */
+    public void setMembers(Long courseId, Collection<String> emails) {
+        Set<String> wanted = normalizeAll(emails);
+        List<String> stale = new ArrayList<>();
+        for (String email : members(courseId)) {
+            if (!wanted.contains(email)) {
+                stale.add(email);
+            }
+        }
+        removeMembers(courseId, stale);
+        addMembers(courseId, wanted);
+    }
+
+    /**
+     * Drop every member of a deleted course
+     */
+    public void removeCourse(Long courseId) {
+        if (courseId == null) {
+            return;
+        }
+        List<String> removed = emailsOf(courseId);
+        jdbcTemplate.update(DELETE_COURSE_SQL, courseId);
+        changed(courseId);
+        examAccessIndex.membersRemoved(courseId, removed);
+        pendingEnrollmentService.untrack(courseId, removed);
+    }
+
+    private Set<String> members(Long courseId) {
+        Set<String> members = cachedMembers(courseId);
+        if (members != null) {
+            return members;
+        }
+        long now = System.currentTimeMillis();
+        members = Collections.unmodifiableSet(new HashSet<>(courseMemberRepository.findEmailsByCourseId(courseId)));
+        if (!inTransaction()) {
+            // Only sets read outside a transaction are cached, one inside could include uncommitted rows
+            membersByCourse.put(courseId, new CachedMembers(members, now));
+            evictIfNeeded();
+        }
+        return members;
+    }
+
+    // The cached set of a course, null when none is cached or it is due for a reload
+    private Set<String> cachedMembers(Long courseId) {
+        CachedMembers cached = membersByCourse.get(courseId);
+        return cached != null && System.currentTimeMillis() - cached.loadedAt <= cacheTtlMs ? cached.emails : null;
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Long> courses = membersByCourse.keySet().iterator();
+        while (membersByCourse.size() > cacheCourses && courses.hasNext()) {
+            courses.next();
+            courses.remove();
+        }
+    }
+
+    private void changed(Long courseId) {
+        membersByCourse.remove(courseId);
+        if (inTransaction()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    membersByCourse.remove(courseId);
+                }
+            });
+        }
+    }
+
+    private static boolean inTransaction() {
+        return TransactionSynchronizationManager.isSynchronizationActive();
+    }
+
+    private static Set<String> normalizeAll(Collection<String> emails) {
+        Set<String> normalized = new LinkedHashSet<>();
+        if (emails != null) {
+            for (String email : emails) {
+                String value = normalize(email);
+                if (value != null && !value.isEmpty()) {
+                    normalized.add(value);
+                }
+            }
+        }
+        return normalized;
+    }
+
+    private static final class CachedMembers {
+        private final Set<String> emails;
+        private final long loadedAt;
+
+        private CachedMembers(Set<String> emails, long loadedAt) {
+            this.emails = emails;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
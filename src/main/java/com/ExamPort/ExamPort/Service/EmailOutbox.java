@@ -0,0 +1,293 @@
+package com.ExamPort.ExamPort.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transactional email outbox.
+ *
+ * {@link #enqueue} only inserts a row into email_outbox, inside the caller's transaction when there
+ * is one, so an email is sent exactly when the change that caused it commits and no request waits
+ * on SMTP. A scheduled dispatcher claims due rows and hands them in batches of
+ * app.email.outbox.batch-size to app.email.outbox.workers sender threads; each batch goes over one
+ * SMTP connection. Failed emails are retried with exponential backoff up to
+ * app.email.outbox.max-attempts. Rows are claimed with a token and a timeout, so several nodes can
+ * dispatch from the same table; an email whose sender died mid-batch is sent again after the
+ * claim expires (at least once delivery).
+ */
+@Service
+public class EmailOutbox {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailOutbox.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO email_outbox (recipient, subject, body, html, status, attempts, next_attempt_at, created_at) " +
+            "VALUES (?, ?, ?, ?, 'PENDING', 0, ?, ?)";
+
+    private static final String CLAIM_SQL =
+            "UPDATE email_outbox SET claim_token = ?, claimed_until = ? " +
+            "WHERE status = 'PENDING' AND next_attempt_at <= ? AND (claimed_until IS NULL OR claimed_until < ?) " +
+            "ORDER BY next_attempt_at, id LIMIT ?";
+
+    private static final String SENT_SQL =
+            "UPDATE email_outbox SET status = 'SENT', attempts = attempts + 1, sent_at = ?, last_error = NULL, " +
+            "claim_token = NULL, claimed_until = NULL WHERE id = ?";
+
+    private static final String FAILED_SQL =
+            "UPDATE email_outbox SET status = ?, attempts = ?, next_attempt_at = ?, last_error = ?, " +
+            "claim_token = NULL, claimed_until = NULL WHERE id = ?";
+
+    @Value("${app.email.from}")
+    private String fromEmail;
+
+    @Value("${app.email.enabled:true}")
+    private boolean emailEnabled;
+
+    @Value("${app.email.outbox.workers:2}")
+    private int workers;
+
+    @Value("${app.email.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.email.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.email.outbox.backoff-ms:30000}")
+    private long backoffMs;
+
+    @Value("${app.email.outbox.max-backoff-ms:3600000}")
+    private long maxBackoffMs;
+
+    @Value("${app.email.outbox.claim-timeout-ms:600000}")
+    private long claimTimeoutMs;
+
+    @Value("${app.email.outbox.retention-days:7}")
+    private int retentionDays;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JavaMailSender mailSender;
+
+    private ExecutorService senderPool;
+    private final AtomicInteger batchesInFlight = new AtomicInteger();
+
+    @PostConstruct
+    void init() {
+        senderPool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "email-outbox-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.info("Email outbox initialized with {} senders and batches of {}", workers, batchSize);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        senderPool.shutdown();
+        try {
+            if (!senderPool.awaitTermination(10, TimeUnit.SECONDS)) {
+                senderPool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            senderPool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queue an email, in the current transaction when there is one. Nothing is queued while email is disabled.
+     */
+    public void enqueue(String to, String subject, String body, boolean html) {
+        if (!emailEnabled) {
+            logger.info("Email notifications are disabled. Skipping email to: {}", to);
+            return;
+        }
+        Instant now = Instant.now();
+        jdbcTemplate.update(INSERT_SQL, to, subject, body, html, utc(now), utc(now));
+        logger.debug("Email '{}' to {} queued", subject, to);
+    }
+
+    /**
+     * Claim the emails that are due and hand them to the senders, without waiting for them to be sent
+     */
+    @Scheduled(fixedDelayString = "${app.email.outbox.poll-ms:1000}")
+    public void dispatch() {
+        if (!emailEnabled) {
+            return;
+        }
+        int freeSenders = workers - batchesInFlight.get();
+        if (freeSenders <= 0) {
+            return;
+        }
+        Instant now = Instant.now();
+        String token = UUID.randomUUID().toString();
+        int claimed = jdbcTemplate.update(CLAIM_SQL, token, utc(now.plusMillis(claimTimeoutMs)), utc(now), utc(now),
+                freeSenders * batchSize);
+        if (claimed == 0) {
+            return;
+        }
+        List<Pending> messages = jdbcTemplate.query(
+                "SELECT id, recipient, subject, body, html, attempts FROM email_outbox WHERE claim_token = ? ORDER BY id",
+                (rs, rowNum) -> new Pending(rs.getLong("id"), rs.getString("recipient"), rs.getString("subject"),
+                        rs.getString("body"), rs.getBoolean("html"), rs.getInt("attempts")),
+                token);
+        logger.debug("Dispatching {} queued emails", messages.size());
+        for (int from = 0; from < messages.size(); from += batchSize) {
+            List<Pending> batch = messages.subList(from, Math.min(from + batchSize, messages.size()));
+            batchesInFlight.incrementAndGet();
+            senderPool.execute(() -> {
+                try {
+                    send(batch);
+                } finally {
+                    batchesInFlight.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    /**
+     * Delete sent emails older than app.email.outbox.retention-days
+     */
+    @Scheduled(fixedDelayString = "${app.email.outbox.purge-ms:3600000}")
+    public void purge() {
+        Instant before = Instant.now().minusSeconds(TimeUnit.DAYS.toSeconds(retentionDays));
+        int deleted = jdbcTemplate.update("DELETE FROM email_outbox WHERE status = 'SENT' AND sent_at < ?", utc(before));
+        if (deleted > 0) {
+            logger.info("Purged {} sent emails from the outbox", deleted);
+        }
+    }
+
+    private void send(List<Pending> batch) {
+        Map<MimeMessage, Pending> byMessage = new LinkedHashMap<>();
+        Map<Pending, Exception> failed = new LinkedHashMap<>();
+        for (Pending pending : batch) {
+            try {
+                byMessage.put(toMimeMessage(pending), pending);
+            } catch (MessagingException e) {
+                failed.put(pending, e);
+            }
+        }
+
+        if (!byMessage.isEmpty()) {
+            try {
+                // One send call keeps one SMTP connection open for the whole batch
+                mailSender.send(byMessage.keySet().toArray(new MimeMessage[0]));
+            } catch (MailSendException e) {
+                if (e.getFailedMessages().isEmpty()) {
+                    byMessage.values().forEach(pending -> failed.put(pending, e));
+                } else {
+                    e.getFailedMessages().forEach((message, error) -> {
+                        Pending pending = byMessage.get(message);
+                        if (pending != null) {
+                            failed.put(pending, error);
+                        }
+                    });
+                }
+            } catch (MailException e) {
+                byMessage.values().forEach(pending -> failed.put(pending, e));
+            }
+        }
+
+        Instant now = Instant.now();
+        List<Object[]> sentRows = new ArrayList<>();
+        List<Object[]> failedRows = new ArrayList<>();
+        for (Pending pending : batch) {
+            Exception error = failed.get(pending);
+            if (error == null) {
+                sentRows.add(new Object[]{utc(now), pending.id});
+                continue;
+            }
+            int attempts = pending.attempts + 1;
+            boolean giveUp = attempts >= maxAttempts;
+            long delay = backoffDelay(attempts, backoffMs, maxBackoffMs);
+            String message = String.valueOf(error.getMessage());
+            failedRows.add(new Object[]{giveUp ? "FAILED" : "PENDING", attempts, utc(now.plusMillis(delay)),
+                    message.length() > 1000 ? message.substring(0, 1000) : message, pending.id});
+            if (giveUp) {
+                logger.error("Giving up on email '{}' to {} after {} attempts: {}", pending.subject, pending.recipient, attempts, message);
+            } else {
+                logger.warn("Email '{}' to {} failed (attempt {}), retrying in {} ms: {}", pending.subject, pending.recipient, attempts, delay, message);
+            }
+        }
+        try {
+            if (!sentRows.isEmpty()) {
+                jdbcTemplate.batchUpdate(SENT_SQL, sentRows);
+            }
+            if (!failedRows.isEmpty()) {
+                jdbcTemplate.batchUpdate(FAILED_SQL, failedRows);
+            }
+        } catch (RuntimeException e) {
+            // The claims expire and the batch is picked up again
+            logger.error("Could not record the outcome of {} emails", batch.size(), e);
+        }
+        logger.info("Email batch done: {} sent, {} failed", sentRows.size(), failedRows.size());
+    }
+
+    private MimeMessage toMimeMessage(Pending pending) throws MessagingException {
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, pending.html, "UTF-8");
+        helper.setFrom(fromEmail);
+        helper.setTo(pending.recipient);
+        helper.setSubject(pending.subject);
+        helper.setText(pending.body, pending.html);
+        return mimeMessage;
+    }
+
+    /**
+     * Delay before the next try of an email that failed its attempts-th send: the base backoff
+     * doubled per earlier failure, capped at maxBackoffMs
+     */
+    static long backoffDelay(int attempts, long backoffMs, long maxBackoffMs) {
+        return Math.min(maxBackoffMs, backoffMs << Math.max(0, Math.min(attempts - 1, 20)));
+    }
+
+    private static LocalDateTime utc(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+
+    private static final class Pending {
+        private final long id;
+        private final String recipient;
+        private final String subject;
+        private final String body;
+        private final boolean html;
+        private final int attempts;
+
+        private Pending(long id, String recipient, String subject, String body, boolean html, int attempts) {
+            this.id = id;
+            this.recipient = recipient;
+            this.subject = subject;
+            this.body = body;
+            this.html = html;
+            this.attempts = attempts;
+        }
+    }
+}
@@ -4,15 +4,12 @@ import com.ExamPort.ExamPort.Entity.Exam;
 import com.ExamPort.ExamPort.Entity.Question;
 import com.ExamPort.ExamPort.Entity.Result;
 import com.ExamPort.ExamPort.Entity.User;
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
 import java.time.format.DateTimeFormatter;
@@ -26,6 +23,9 @@ public class EmailService {
     @Autowired
     private JavaMailSender mailSender;
     
+    @Autowired
+    private EmailOutbox emailOutbox;
+    
     @Value("${app.email.from}")
     private String fromEmail;
     
@@ -42,19 +42,12 @@ public class EmailService {
         }
         
         try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(student.getEmail());
-            message.setSubject("Exam Result - " + exam.getTitle());
-            
             String emailBody = buildPlainTextEmailBody(student, exam, result);
-            message.setText(emailBody);
-            
-            mailSender.send(message);
-            logger.info("Plain text exam result email sent successfully to: {}", student.getEmail());
+            emailOutbox.enqueue(student.getEmail(), "Exam Result - " + exam.getTitle(), emailBody, false);
+            logger.info("Plain text exam result email queued for: {}", student.getEmail());
             
         } catch (Exception e) {
-            logger.error("Failed to send plain text exam result email to: {}", student.getEmail(), e);
+            logger.error("Failed to queue plain text exam result email for: {}", student.getEmail(), e);
         }
     }
     
@@ -67,24 +60,22 @@ public class EmailService {
             return;
         }
         
+        String htmlBody;
         try {
-            MimeMessage mimeMessage = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
-            
-            helper.setFrom(fromEmail);
-            helper.setTo(student.getEmail());
-            helper.setSubject("🎓 Exam Result - " + exam.getTitle());
-            
-            String htmlBody = buildHtmlEmailBody(student, exam, result, answers);
-            helper.setText(htmlBody, true);
-            
-            mailSender.send(mimeMessage);
-            logger.info("HTML exam result email sent successfully to: {}", student.getEmail());
-            
-        } catch (MessagingException e) {
-            logger.error("Failed to send HTML exam result email to: {}", student.getEmail(), e);
+            htmlBody = buildHtmlEmailBody(student, exam, result, answers);
+        } catch (Exception e) {
+            logger.error("Failed to build HTML exam result email for: {}", student.getEmail(), e);
             // Fallback to plain text email
             sendExamResultNotification(student, exam, result);
+            return;
+        }
+        
+        try {
+            emailOutbox.enqueue(student.getEmail(), "🎓 Exam Result - " + exam.getTitle(), htmlBody, true);
+            logger.info("HTML exam result email queued for: {}", student.getEmail());
+            
+        } catch (Exception e) {
+            logger.error("Failed to queue HTML exam result email for: {}", student.getEmail(), e);
         }
     }
     
@@ -347,22 +338,15 @@ public class EmailService {
         }
         
         try {
-            MimeMessage mimeMessage = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
-            
-            helper.setFrom(fromEmail);
-            helper.setTo(toEmail);
-            helper.setSubject("🔐 Verify Your Email - ExamWizards");
-            
             String verificationUrl = "http://localhost:5173/verify-email?token=" + token;
             String htmlBody = buildVerificationEmailBody(toEmail, verificationUrl);
-            helper.setText(htmlBody, true);
             
-            mailSender.send(mimeMessage);
-            logger.info("Email verification email sent successfully to: {}", toEmail);
+            // Queued in the caller's transaction, so it is only sent once the token is saved
+            emailOutbox.enqueue(toEmail, "🔐 Verify Your Email - ExamWizards", htmlBody, true);
+            logger.info("Email verification email queued for: {}", toEmail);
             
         } catch (Exception e) {
-            logger.error("Failed to send email verification email to: {}", toEmail, e);
+            logger.error("Failed to queue email verification email for: {}", toEmail, e);
             throw new RuntimeException("Failed to send verification email", e);
         }
     }
@@ -377,22 +361,14 @@ public class EmailService {
         }
         
         try {
-            MimeMessage mimeMessage = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
-            
-            helper.setFrom(fromEmail);
-            helper.setTo(toEmail);
-            helper.setSubject("🔑 Reset Your Password - ExamWizards");
-            
             String resetUrl = "http://localhost:5173/reset-password?token=" + token;
             String htmlBody = buildPasswordResetEmailBody(toEmail, resetUrl);
-            helper.setText(htmlBody, true);
             
-            mailSender.send(mimeMessage);
-            logger.info("Password reset email sent successfully to: {}", toEmail);
+            emailOutbox.enqueue(toEmail, "🔑 Reset Your Password - ExamWizards", htmlBody, true);
+            logger.info("Password reset email queued for: {}", toEmail);
             
         } catch (Exception e) {
-            logger.error("Failed to send password reset email to: {}", toEmail, e);
+            logger.error("Failed to queue password reset email for: {}", toEmail, e);
             throw new RuntimeException("Failed to send password reset email", e);
         }
     }
@@ -0,0 +1,111 @@
+package com.ExamPort.ExamPort.Service;
+
+import com.ExamPort.ExamPort.Repository.EnrollmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Number of ENROLLED students per course for listings.
+ *
+ * A page of courses is counted with one grouped query for the courses not cached yet. Counts
+ * are kept per course for up to app.enrollment-counts.ttl-ms and dropped when an enrollment
+ * of the course is created or changes status.
+ */
+@Service
+public class EnrollmentCountService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnrollmentCountService.class);
+
+    @Value("${app.enrollment-counts.ttl-ms:30000}")
+    private long ttlMs;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    private final ConcurrentHashMap<Long, CachedCount> counts = new ConcurrentHashMap<>();
+
+    public long countOf(Long courseId) {
+        return courseId != null ? countsOf(List.of(courseId)).getOrDefault(courseId, 0L) : 0L;
+    }
+
+    /**
+     * Enrolled student counts of the given courses, courses without enrollments map to 0
+     */
+    public Map<Long, Long> countsOf(Collection<Long> courseIds) {
+        Map<Long, Long> result = new HashMap<>();
+        Set<Long> missing = new LinkedHashSet<>();
+        long now = System.currentTimeMillis();
+        for (Long courseId : courseIds) {
+            if (courseId == null) {
+                continue;
+            }
+            CachedCount cached = counts.get(courseId);
+            if (cached != null && now - cached.loadedAt < ttlMs) {
+                result.put(courseId, cached.count);
+            } else {
+                missing.add(courseId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        List<Long> ids = new ArrayList<>(missing);
+        Map<Long, Long> loaded = new HashMap<>();
+        for (Long courseId : ids) {
+            loaded.put(courseId, 0L);
+        }
+        for (Object[] row : enrollmentRepository.countEnrolledStudentsByMultipleCourseIds(ids)) {
+            loaded.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Counts read inside a transaction could include uncommitted enrollments
+            loaded.forEach((courseId, count) -> counts.put(courseId, new CachedCount(count, now)));
+        }
+        logger.debug("Loaded enrollment counts of {} courses", ids.size());
+        result.putAll(loaded);
+        return result;
+    }
+
+    /**
+     * Drop the cached count of a course whose enrollments changed, once the change is committed
+     */
+    public void changed(Long courseId) {
+        if (courseId == null) {
+            return;
+        }
+        counts.remove(courseId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    counts.remove(courseId);
+                }
+            });
+        }
+    }
+
+    private static final class CachedCount {
+        private final long count;
+        private final long loadedAt;
+
+        private CachedCount(long count, long loadedAt) {
+            this.count = count;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -12,6 +12,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,6 +26,15 @@ public class EnrollmentService {
     @Autowired
     private CourseRepository courseRepository;
 
+    @Autowired
+    private ExamAccessIndex examAccessIndex;
+
+    @Autowired
+    private EnrollmentCountService enrollmentCountService;
+
+    @Autowired
+    private UserCache userCache;
+
     /**
      * Enroll a student in a course
      */
@@ -42,7 +52,10 @@ public class EnrollmentService {
         enrollment.setCreatedAt(LocalDateTime.now());
         enrollment.setUpdatedAt(LocalDateTime.now());
 
-        return enrollmentRepository.save(enrollment);
+        Enrollment saved = enrollmentRepository.save(enrollment);
+        examAccessIndex.enrolled(student.getId(), course.getId());
+        enrollmentCountService.changed(course.getId());
+        return saved;
     }
 
     /**
@@ -63,7 +76,10 @@ public class EnrollmentService {
         enrollment.setCreatedAt(LocalDateTime.now());
         enrollment.setUpdatedAt(LocalDateTime.now());
 
-        return enrollmentRepository.save(enrollment);
+        Enrollment saved = enrollmentRepository.save(enrollment);
+        examAccessIndex.enrolled(student.getId(), course.getId());
+        enrollmentCountService.changed(course.getId());
+        return saved;
     }
 
     /**
@@ -105,7 +121,14 @@ public class EnrollmentService {
      * Get enrollment count by course
      */
     public long getEnrollmentCountByCourse(Long courseId) {
-        return enrollmentRepository.countByCourseId(courseId);
+        return enrollmentCountService.countOf(courseId);
+    }
+
+    /**
+     * Get enrollment counts of several courses with one query
+     */
+    public Map<Long, Long> getEnrollmentCountsByCourse(Collection<Long> courseIds) {
+        return enrollmentCountService.countsOf(courseIds);
     }
 
     /**
@@ -131,6 +154,8 @@ public class EnrollmentService {
             enrollment.setStatus(EnrollmentStatus.CANCELLED);
             enrollment.setUpdatedAt(LocalDateTime.now());
             enrollmentRepository.save(enrollment);
+            examAccessIndex.unenrolled(enrollment.getStudent().getId(), enrollment.getCourse().getId());
+            enrollmentCountService.changed(enrollment.getCourse().getId());
         }
     }
 
@@ -146,9 +171,11 @@ public class EnrollmentService {
         long totalEnrollments = 0;
         long totalRevenue = 0;
         Map<String, Object> courseStats = new HashMap<>();
+        Map<Long, Long> enrollmentCounts = getEnrollmentCountsByCourse(
+                instructorCourses.stream().map(Course::getId).toList());
         
         for (Course course : instructorCourses) {
-            long courseEnrollments = getEnrollmentCountByCourse(course.getId());
+            long courseEnrollments = enrollmentCounts.getOrDefault(course.getId(), 0L);
             totalEnrollments += courseEnrollments;
             
             // Calculate revenue for paid courses
@@ -183,30 +210,53 @@ public class EnrollmentService {
         if (enrollment != null) {
             enrollment.setStatus(status);
             enrollment.setUpdatedAt(LocalDateTime.now());
-            return enrollmentRepository.save(enrollment);
+            Enrollment saved = enrollmentRepository.save(enrollment);
+            if (status == EnrollmentStatus.CANCELLED) {
+                examAccessIndex.unenrolled(enrollment.getStudent().getId(), enrollment.getCourse().getId());
+            } else {
+                examAccessIndex.enrolled(enrollment.getStudent().getId(), enrollment.getCourse().getId());
+            }
+            enrollmentCountService.changed(enrollment.getCourse().getId());
+            return saved;
         }
         return null;
     }
 
     /**
-     * Get enrollments by username with pagination
+     * Get enrollments by username with pagination. The user id comes from the user cache, so the
+     * query filters on student_id instead of joining users.
      */
     public Page<Enrollment> getEnrollmentsByUsername(String username, Pageable pageable) {
-        return enrollmentRepository.findByStudentUsername(username, pageable);
+        return userCache.getByUsername(username)
+                .map(user -> enrollmentRepository.findByStudentId(user.getId(), pageable))
+                .orElse(Page.empty(pageable));
+    }
+
+    /**
+     * Count enrollments by username
+     */
+    public long countEnrollmentsByUsername(String username) {
+        return userCache.getByUsername(username)
+                .map(user -> enrollmentRepository.countByStudent_Id(user.getId()))
+                .orElse(0L);
     }
 
     /**
      * Check if user is enrolled in course by username
      */
     public boolean isUserEnrolledInCourse(String username, Long courseId) {
-        return enrollmentRepository.existsByStudentUsernameAndCourseId(username, courseId);
+        return userCache.getByUsername(username)
+                .map(user -> enrollmentRepository.existsByStudentIdAndCourseId(user.getId(), courseId))
+                .orElse(false);
     }
 
     /**
      * Get enrollment by username and course ID
      */
     public Enrollment getEnrollmentByUsernameAndCourseId(String username, Long courseId) {
-        return enrollmentRepository.findByStudentUsernameAndCourseId(username, courseId).orElse(null);
+        return userCache.getByUsername(username)
+                .flatMap(user -> enrollmentRepository.findByStudentIdAndCourseId(user.getId(), courseId))
+                .orElse(null);
     }
 
     /**
@@ -221,9 +271,11 @@ public class EnrollmentService {
         long totalEnrollments = 0;
         long totalRevenue = 0;
         Map<String, Object> courseStats = new HashMap<>();
+        Map<Long, Long> enrollmentCounts = getEnrollmentCountsByCourse(
+                instructorCourses.stream().map(Course::getId).toList());
         
         for (Course course : instructorCourses) {
-            long courseEnrollments = getEnrollmentCountByCourse(course.getId());
+            long courseEnrollments = enrollmentCounts.getOrDefault(course.getId(), 0L);
             totalEnrollments += courseEnrollments;
             
             // Calculate revenue for paid courses
@@ -0,0 +1,292 @@
+package com.ExamPort.ExamPort.Service;
+
+import com.ExamPort.ExamPort.Entity.Course;
+import com.ExamPort.ExamPort.Entity.CourseVisibility;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory index of which exams a student can reach.
+ *
+ * Holds course → exam ids, course → visibility, member email (normalized) → course ids
+ * and student → enrolled course ids (enrollments that are not cancelled). The student exam lists are answered from these maps
+ * instead of scanning every exam and querying enrollments per exam.
+ *
+ * The index is loaded at startup and kept current by the code that creates or deletes
+ * exams, changes course memberships or enrolls and unenrolls students. Inside a transaction
+ * changes are applied once it commits.
+ *
+ * Changes only reach the index of the node that made them, and sticky routing does not help
+ * because the instructor and the students are different users. Run a single application node;
+ * other nodes see the changes after their next restart.
+ */
+@Service
+public class ExamAccessIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExamAccessIndex.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ConcurrentHashMap<Long, Set<Long>> examsByCourse = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Long> courseByExam = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, CourseVisibility> visibilityByCourse = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<Long>> coursesByEmail = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Set<Long>> coursesByStudent = new ConcurrentHashMap<>();
+
+    /**
+     * Load the index from the exam, course, course member and enrollment tables
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.nanoTime();
+        jdbcTemplate.query("SELECT id, visibility FROM courses", rs -> {
+            visibilityByCourse.put(rs.getLong("id"), parseVisibility(rs.getString("visibility")));
+        });
+        jdbcTemplate.query("SELECT exam_id, course_id FROM exam WHERE course_id IS NOT NULL", rs -> {
+            putExam(rs.getLong("exam_id"), rs.getLong("course_id"));
+        });
+        jdbcTemplate.query("SELECT course_id, email FROM course_members", rs -> {
+            setOf(coursesByEmail, rs.getString("email")).add(rs.getLong("course_id"));
+        });
+        jdbcTemplate.query("SELECT student_id, course_id FROM enrollments WHERE status <> 'CANCELLED'", rs -> {
+            setOf(coursesByStudent, rs.getLong("student_id")).add(rs.getLong("course_id"));
+        });
+        logger.info("Exam access index loaded: {} courses, {} exams, {} allowed emails, {} enrolled students in {} ms",
+                visibilityByCourse.size(), courseByExam.size(), coursesByEmail.size(), coursesByStudent.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    /**
+     * Exams of private courses that list the email plus exams of public courses the student is enrolled in
+     */
+    public List<Long> accessibleExamIds(Long studentId, String email) {
+        Set<Long> examIds = new TreeSet<>();
+        for (Long courseId : coursesOfEmail(email)) {
+            if (visibilityByCourse.get(courseId) == CourseVisibility.PRIVATE) {
+                examIds.addAll(examsByCourse.getOrDefault(courseId, Set.of()));
+            }
+        }
+        for (Long courseId : coursesByStudent.getOrDefault(studentId, Set.of())) {
+            if (visibilityByCourse.get(courseId) == CourseVisibility.PUBLIC) {
+                examIds.addAll(examsByCourse.getOrDefault(courseId, Set.of()));
+            }
+        }
+        return new ArrayList<>(examIds);
+    }
+
+    /**
+     * Exams of every course whose allowed emails include the email
+     */
+    public List<Long> examIdsByAllowedEmail(String email) {
+        return examIdsOf(coursesOfEmail(email));
+    }
+
+    /**
+     * Exams of every course the student has an enrollment in that is not cancelled
+     */
+    public List<Long> examIdsByEnrollment(Long studentId) {
+        return examIdsOf(studentId != null ? coursesByStudent.getOrDefault(studentId, Set.of()) : Set.of());
+    }
+
+    /**
+     * Courses whose allowed emails include the email
+     */
+    public List<Long> courseIdsByAllowedEmail(String email) {
+        return new ArrayList<>(coursesOfEmail(email));
+    }
+
+    /**
+     * Courses the student has an enrollment in that is not cancelled
+     */
+    public List<Long> courseIdsByEnrollment(Long studentId) {
+        return studentId != null ? new ArrayList<>(coursesByStudent.getOrDefault(studentId, Set.of())) : new ArrayList<>();
+    }
+
+    /**
+     * Same rule as {@link #accessibleExamIds(Long, String)} for a single course
+     */
+    public boolean canAccessCourse(Long studentId, String email, Long courseId) {
+        CourseVisibility visibility = courseId != null ? visibilityByCourse.get(courseId) : null;
+        if (visibility == CourseVisibility.PRIVATE) {
+            return coursesOfEmail(email).contains(courseId);
+        }
+        if (visibility == CourseVisibility.PUBLIC) {
+            return studentId != null && coursesByStudent.getOrDefault(studentId, Set.of()).contains(courseId);
+        }
+        return false;
+    }
+
+    /**
+     * Number of exams of a course
+     */
+    public int examCountOf(Long courseId) {
+        return courseId != null ? examsByCourse.getOrDefault(courseId, Set.of()).size() : 0;
+    }
+
+    /**
+     * Record a created or updated exam under its course
+     */
+    public void examSaved(Long examId, Long courseId) {
+        if (examId == null) {
+            return;
+        }
+        afterCommit(() -> {
+            removeExam(examId);
+            if (courseId != null) {
+                putExam(examId, courseId);
+            }
+        });
+    }
+
+    public void examDeleted(Long examId) {
+        if (examId != null) {
+            afterCommit(() -> removeExam(examId));
+        }
+    }
+
+    /**
+     * Record the visibility of a created or updated course
+     */
+    public void courseSaved(Course course) {
+        if (course == null || course.getId() == null || course.getVisibility() == null) {
+            return;
+        }
+        Long courseId = course.getId();
+        CourseVisibility visibility = course.getVisibility();
+        afterCommit(() -> visibilityByCourse.put(courseId, visibility));
+    }
+
+    /**
+     * Record normalized emails added to a course's members
+     */
+    public void membersAdded(Long courseId, Collection<String> emails) {
+        List<String> added = new ArrayList<>(emails);
+        afterCommit(() -> added.forEach(email -> setOf(coursesByEmail, email).add(courseId)));
+    }
+
+    /**
+     * Record normalized emails removed from a course's members
+     */
+    public void membersRemoved(Long courseId, Collection<String> emails) {
+        List<String> removed = new ArrayList<>(emails);
+        afterCommit(() -> {
+            for (String email : removed) {
+                Set<Long> courses = coursesByEmail.get(email);
+                if (courses != null) {
+                    courses.remove(courseId);
+                }
+            }
+        });
+    }
+
+    /**
+     * Forget a deleted course and its exams. Emails and enrollments still naming it are ignored from then on.
+     */
+    public void courseDeleted(Long courseId) {
+        if (courseId == null) {
+            return;
+        }
+        afterCommit(() -> {
+            visibilityByCourse.remove(courseId);
+            Set<Long> exams = examsByCourse.remove(courseId);
+            if (exams != null) {
+                exams.forEach(courseByExam::remove);
+            }
+        });
+    }
+
+    /**
+     * Record that a student has an enrollment in a course
+     */
+    public void enrolled(Long studentId, Long courseId) {
+        if (studentId != null && courseId != null) {
+            afterCommit(() -> setOf(coursesByStudent, studentId).add(courseId));
+        }
+    }
+
+    /**
+     * Record that a student's enrollment in a course was cancelled or deleted
+     */
+    public void unenrolled(Long studentId, Long courseId) {
+        if (studentId != null && courseId != null) {
+            afterCommit(() -> {
+                Set<Long> courses = coursesByStudent.get(studentId);
+                if (courses != null) {
+                    courses.remove(courseId);
+                }
+            });
+        }
+    }
+
+    private Set<Long> coursesOfEmail(String email) {
+        String normalized = CourseMembershipService.normalize(email);
+        return normalized != null ? coursesByEmail.getOrDefault(normalized, Set.of()) : Set.of();
+    }
+
+    private List<Long> examIdsOf(Set<Long> courseIds) {
+        Set<Long> examIds = new TreeSet<>();
+        for (Long courseId : courseIds) {
+            if (visibilityByCourse.containsKey(courseId)) {
+                examIds.addAll(examsByCourse.getOrDefault(courseId, Set.of()));
+            }
+        }
+        return new ArrayList<>(examIds);
+    }
+
+    private void putExam(long examId, long courseId) {
+        courseByExam.put(examId, courseId);
+        setOf(examsByCourse, courseId).add(examId);
+    }
+
+    private void removeExam(Long examId) {
+        Long courseId = courseByExam.remove(examId);
+        if (courseId != null) {
+            Set<Long> exams = examsByCourse.get(courseId);
+            if (exams != null) {
+                exams.remove(examId);
+            }
+        }
+    }
+
+    private static <K> Set<Long> setOf(ConcurrentHashMap<K, Set<Long>> map, K key) {
+        return map.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet());
+    }
+
+    private static CourseVisibility parseVisibility(String value) {
+        try {
+            return value != null ? CourseVisibility.valueOf(value) : CourseVisibility.PRIVATE;
+        } catch (IllegalArgumentException e) {
+            logger.warn("Unknown course visibility in database: {}", value);
+            return CourseVisibility.PRIVATE;
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.ExamPort.ExamPort.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * In-memory ranking of one exam's results.
+ *
+ * Scores are bucketed to hundredths (scores are stored rounded to 2 decimals) and a
+ * {@link ScoreBucketTree} counts results per bucket, so inserting a score, finding a user's rank
+ * and locating the start of any leaderboard page are all O(log buckets). Ties share a rank (1, 2, 2, 4). Within a tie,
+ * pages list users by id so paging is stable.
+ *
+ * Each user holds at most one entry, a new score for the same user replaces the old one.
+ * All methods are synchronized, every operation is a handful of array and tree steps.
+ */
+public final class ExamLeaderboard {
+
+    private final long examId;
+    private final Map<Long, Entry> byUser = new HashMap<>();
+    private final TreeMap<Integer, TreeMap<Long, Entry>> byBucket = new TreeMap<>();
+    private final ScoreBucketTree tree = new ScoreBucketTree();
+    private boolean dirty;
+
+    ExamLeaderboard(long examId) {
+        this.examId = examId;
+    }
+
+    public long getExamId() {
+        return examId;
+    }
+
+    public synchronized int size() {
+        return byUser.size();
+    }
+
+    /**
+     * Add or replace the result of a user. Marks the ranking dirty for the next write-back.
+     */
+    public synchronized void record(long userId, long resultId, double score) {
+        put(userId, resultId, score, 0);
+        dirty = true;
+    }
+
+    /**
+     * Add a result as loaded from the database, remembering the rank already stored with it.
+     * A user already on the board was recorded while loading, and that result is newer.
+     */
+    synchronized void load(long userId, long resultId, double score, int storedRank) {
+        if (byUser.containsKey(userId)) {
+            return;
+        }
+        put(userId, resultId, score, storedRank);
+        dirty = true;
+    }
+
+    public synchronized void remove(long userId) {
+        Entry entry = byUser.remove(userId);
+        if (entry != null) {
+            unlink(entry);
+            dirty = true;
+        }
+    }
+
+    /**
+     * Rank of a user (1 is best), or 0 when the user has no result in this exam.
+     */
+    public synchronized int rankOf(long userId) {
+        Entry entry = byUser.get(userId);
+        return entry != null ? higherThan(entry.bucket) + 1 : 0;
+    }
+
+    public synchronized Standing standingOf(long userId) {
+        Entry entry = byUser.get(userId);
+        return entry != null ? new Standing(higherThan(entry.bucket) + 1, entry) : null;
+    }
+
+    /**
+     * Standings from position offset (0 based, best first), at most limit of them.
+     */
+    public synchronized List<Standing> page(int offset, int limit) {
+        List<Standing> standings = new ArrayList<>(Math.max(0, Math.min(limit, byUser.size() - offset)));
+        if (offset < 0 || limit <= 0 || offset >= byUser.size()) {
+            return standings;
+        }
+
+        // The offset-th best result is the (size - 1 - offset)-th smallest one
+        int bucket = tree.findAscending(byUser.size() - 1 - offset);
+        int rank = higherThan(bucket) + 1;
+        int skip = offset - (rank - 1);
+
+        for (Map.Entry<Integer, TreeMap<Long, Entry>> group : byBucket.headMap(bucket, true).descendingMap().entrySet()) {
+            for (Entry entry : group.getValue().values()) {
+                if (skip > 0) {
+                    skip--;
+                    continue;
+                }
+                standings.add(new Standing(rank, entry));
+                if (standings.size() >= limit) {
+                    return standings;
+                }
+            }
+            rank += group.getValue().size();
+        }
+        return standings;
+    }
+
+    public synchronized List<Standing> top(int k) {
+        return page(0, k);
+    }
+
+    /**
+     * Ranks that differ from what was last written to result.user_rank, as {resultId, rank} pairs.
+     * Clears the dirty flag; call {@link #markWritten(List)} once the pairs are stored.
+     */
+    synchronized List<long[]> takeChangedRanks() {
+        List<long[]> changed = new ArrayList<>();
+        if (!dirty) {
+            return changed;
+        }
+        dirty = false;
+        int rank = 1;
+        for (TreeMap<Long, Entry> group : byBucket.descendingMap().values()) {
+            for (Entry entry : group.values()) {
+                if (entry.writtenRank != rank) {
+                    changed.add(new long[]{entry.resultId, rank});
+                }
+            }
+            rank += group.size();
+        }
+        return changed;
+    }
+
+    synchronized void markWritten(List<long[]> written) {
+        Map<Long, Integer> ranks = new HashMap<>();
+        for (long[] pair : written) {
+            ranks.put(pair[0], (int) pair[1]);
+        }
+        for (Entry entry : byUser.values()) {
+            Integer rank = ranks.get(entry.resultId);
+            if (rank != null) {
+                entry.writtenRank = rank;
+            }
+        }
+    }
+
+    synchronized void markDirty() {
+        dirty = true;
+    }
+
+    private void put(long userId, long resultId, double score, int writtenRank) {
+        Entry existing = byUser.get(userId);
+        if (existing != null) {
+            unlink(existing);
+        }
+        Entry entry = new Entry(userId, resultId, score, ScoreBucketTree.bucketOf(score));
+        entry.writtenRank = existing != null && existing.resultId == resultId ? existing.writtenRank : writtenRank;
+        byUser.put(userId, entry);
+        byBucket.computeIfAbsent(entry.bucket, b -> new TreeMap<>()).put(userId, entry);
+        tree.add(entry.bucket, 1);
+    }
+
+    private void unlink(Entry entry) {
+        TreeMap<Long, Entry> group = byBucket.get(entry.bucket);
+        if (group != null) {
+            group.remove(entry.userId);
+            if (group.isEmpty()) {
+                byBucket.remove(entry.bucket);
+            }
+        }
+        tree.add(entry.bucket, -1);
+    }
+
+    /** Number of results in a strictly higher bucket */
+    private int higherThan(int bucket) {
+        return (int) tree.higherThan(bucket);
+    }
+
+    private static final class Entry {
+        final long userId;
+        final long resultId;
+        final double score;
+        final int bucket;
+        int writtenRank;
+
+        Entry(long userId, long resultId, double score, int bucket) {
+            this.userId = userId;
+            this.resultId = resultId;
+            this.score = score;
+            this.bucket = bucket;
+        }
+    }
+
+    /**
+     * A user's place on the leaderboard
+     */
+    public static final class Standing {
+        private final int rank;
+        private final long userId;
+        private final long resultId;
+        private final double score;
+
+        Standing(int rank, Entry entry) {
+            this.rank = rank;
+            this.userId = entry.userId;
+            this.resultId = entry.resultId;
+            this.score = entry.score;
+        }
+
+        public int getRank() {
+            return rank;
+        }
+
+        public long getUserId() {
+            return userId;
+        }
+
+        public long getResultId() {
+            return resultId;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.ExamPort.ExamPort.Service;
+
+import java.time.Instant;
+
+/**
+ * Published by {@link ExamScheduleIndex} once per exam when its start or end time passes.
+ * Listen with {@code @EventListener(ExamScheduleEvent.class)}.
+ */
+public final class ExamScheduleEvent {
+
+    public enum Transition { STARTED, ENDED }
+
+    private final long examId;
+    private final Long courseId;
+    private final Transition transition;
+    private final Instant at;
+
+    public ExamScheduleEvent(long examId, Long courseId, Transition transition, Instant at) {
+        this.examId = examId;
+        this.courseId = courseId;
+        this.transition = transition;
+        this.at = at;
+    }
+
+    public long getExamId() {
+        return examId;
+    }
+
+    public Long getCourseId() {
+        return courseId;
+    }
+
+    public Transition getTransition() {
+        return transition;
+    }
+
+    /**
+     * Scheduled start or end time of the exam
+     */
+    public Instant getAt() {
+        return at;
+    }
+
+    @Override
+    public String toString() {
+        return "ExamScheduleEvent [examId=" + examId + ", transition=" + transition + ", at=" + at + "]";
+    }
+}
@@ -0,0 +1,401 @@
+package com.ExamPort.ExamPort.Service;
+
+import com.ExamPort.ExamPort.Entity.Exam;
+import com.ExamPort.ExamPort.Entity.ExamSchedule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory index of exam windows (start_at, end_at) ordered by start and by end.
+ *
+ * "Open now" is kept as a set and "starting within" is a range of the start map, so both
+ * cost O(log n + k) instead of evaluating every exam. A scheduled tick fires each start and
+ * end transition once, when its time passes: isactive is set accordingly (only if it differs)
+ * and an {@link ExamScheduleEvent} is published. Exams without a start and an end are not indexed.
+ * A saved exam whose window moved across the time already ticked fires its transition right away.
+ *
+ * The time fired up to is stored in exam_schedule_state. A tick locks that row, fires the
+ * transitions between the stored time and now and stores now, with the isactive updates in the
+ * same transaction. So every transition is fired once: after a restart the tick resumes from the
+ * stored time, and with several nodes only one of them fires each stretch of time. Events are
+ * published after the commit and are lost if the node stops in between. The windows themselves
+ * are only updated on the node that saved the exam, so schedules need a single application node,
+ * as {@link ExamAccessIndex} does.
+ */
+@Service
+public class ExamScheduleIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExamScheduleIndex.class);
+
+    private static final String UPDATE_ISACTIVE_SQL = "UPDATE exam SET isactive = ? WHERE exam_id = ? AND isactive <> ?";
+    private static final String INIT_STATE_SQL = "INSERT IGNORE INTO exam_schedule_state (id, fired_up_to) VALUES (1, ?)";
+    private static final String SELECT_STATE_SQL = "SELECT fired_up_to FROM exam_schedule_state WHERE id = 1";
+    private static final String UPDATE_STATE_SQL = "UPDATE exam_schedule_state SET fired_up_to = ? WHERE id = 1";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ExamSnapshotCache examSnapshotCache;
+
+    // All guarded by this
+    private final Map<Long, Window> windows = new HashMap<>();
+    private final TreeMap<Instant, Set<Long>> byStart = new TreeMap<>();
+    private final TreeMap<Instant, Set<Long>> byEnd = new TreeMap<>();
+    private final Set<Long> open = new TreeSet<>();
+    private Instant firedUpTo;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Load the exam windows. The next tick fires the transitions that came due since the stored
+     * time, such as those due while the application was down. On first start nothing is fired
+     * for the past.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.nanoTime();
+        Map<Long, Window> loaded = new HashMap<>();
+        jdbcTemplate.query("SELECT exam_id, course_id, start_at, end_at, start_date, start_time, end_date, end_time FROM exam", rs -> {
+            Instant startAt = instantOf(rs, "start_at", "start_date", "start_time");
+            Instant endAt = instantOf(rs, "end_at", "end_date", "end_time");
+            if (startAt != null || endAt != null) {
+                long courseId = rs.getLong("course_id");
+                loaded.put(rs.getLong("exam_id"), new Window(rs.wasNull() ? null : courseId, startAt, endAt));
+            }
+        });
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        jdbcTemplate.update(INIT_STATE_SQL, utc(now));
+        Instant stored = jdbcTemplate.queryForObject(SELECT_STATE_SQL, LocalDateTime.class).toInstant(ZoneOffset.UTC);
+        synchronized (this) {
+            windows.clear();
+            byStart.clear();
+            byEnd.clear();
+            open.clear();
+            loaded.forEach((examId, window) -> put(examId, window, now));
+            firedUpTo = stored;
+        }
+        if (stored.isBefore(now)) {
+            logger.info("Exam schedule transitions fired up to {}, catching up", stored);
+        }
+        logger.info("Exam schedule index loaded: {} scheduled exams, {} open now in {} ms", loaded.size(), open.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    /**
+     * Scheduled exams whose window contains the current time, as of the last tick
+     */
+    public synchronized List<Long> openExamIds() {
+        return new ArrayList<>(open);
+    }
+
+    /**
+     * Exams starting after now and at most the given time from now, earliest first
+     */
+    public List<Long> startingWithin(Duration within) {
+        Instant now = Instant.now();
+        List<Long> examIds = new ArrayList<>();
+        synchronized (this) {
+            for (Set<Long> ids : byStart.subMap(now, false, now.plus(within), true).values()) {
+                examIds.addAll(ids);
+            }
+        }
+        return examIds;
+    }
+
+    /**
+     * Record the window of a created or updated exam, once the change is committed. The tick only
+     * covers instants after the time it last ticked, so a start or end moved to or before that
+     * time is fired here.
+     */
+    public void examSaved(Exam exam) {
+        if (exam == null) {
+            return;
+        }
+        long examId = exam.getExam_id();
+        Window window = new Window(exam.getCourse() != null ? exam.getCourse().getId() : null, exam.getStartAt(), exam.getEndAt());
+        afterCommit(() -> {
+            ExamScheduleEvent due = null;
+            boolean postponed = false;
+            synchronized (this) {
+                Window previous = windows.get(examId);
+                remove(examId);
+                if (window.startAt != null || window.endAt != null) {
+                    put(examId, window, Instant.now());
+                    due = missedTransition(examId, previous, window);
+                    postponed = due == null && firedUpTo != null && previous != null
+                            && previous.isOpenAt(firedUpTo) && !window.isOpenAt(firedUpTo);
+                }
+            }
+            if (due != null) {
+                fire(List.of(due));
+            } else if (postponed) {
+                // Start moved back into the future: closed until the tick reaches the new start, nothing ended
+                deactivate(examId);
+            }
+        });
+    }
+
+    public void examDeleted(Long examId) {
+        if (examId == null) {
+            return;
+        }
+        afterCommit(() -> {
+            synchronized (this) {
+                remove(examId);
+            }
+        });
+    }
+
+    /**
+     * Fire the start and end transitions that came due since the stored time. Holds this while
+     * the short transaction runs, so a saved exam is never fired by the tick and by examSaved.
+     */
+    @Scheduled(fixedDelayString = "${app.exam-schedule.tick-ms:1000}")
+    public void tick() {
+        // Stored with microsecond precision
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        List<ExamScheduleEvent> due = new ArrayList<>();
+        int[] updated;
+        synchronized (this) {
+            if (firedUpTo == null || !now.isAfter(firedUpTo)) {
+                return;
+            }
+            try {
+                updated = transactionTemplate.execute(status -> {
+                    // Locks the row: other nodes wait, then find the time already fired
+                    Instant stored = jdbcTemplate.queryForObject(SELECT_STATE_SQL + " FOR UPDATE", LocalDateTime.class)
+                            .toInstant(ZoneOffset.UTC);
+                    if (!now.isAfter(stored)) {
+                        return new int[0];
+                    }
+                    due.addAll(dueBetween(stored, now));
+                    jdbcTemplate.update(UPDATE_STATE_SQL, utc(now));
+                    return due.isEmpty() ? new int[0] : jdbcTemplate.batchUpdate(UPDATE_ISACTIVE_SQL, isactiveRows(due));
+                });
+            } catch (RuntimeException e) {
+                // Nothing was stored, the next tick fires the same stretch
+                logger.error("Could not fire exam schedule transitions after {}", firedUpTo, e);
+                return;
+            }
+            for (ExamScheduleEvent event : dueBetween(firedUpTo, now)) {
+                if (event.getTransition() == ExamScheduleEvent.Transition.ENDED) {
+                    open.remove(event.getExamId());
+                } else if (windows.get(event.getExamId()).isOpenAt(now)) {
+                    open.add(event.getExamId());
+                }
+            }
+            firedUpTo = now;
+        }
+        invalidateUpdated(due, updated);
+        if (due.isEmpty()) {
+            return;
+        }
+
+        // Chronological, a start before an end at the same instant
+        due.sort(Comparator.comparing(ExamScheduleEvent::getAt).thenComparing(ExamScheduleEvent::getTransition));
+        publish(due);
+    }
+
+    // Caller holds this. Starts, then ends, of the indexed windows in (from, to]
+    private List<ExamScheduleEvent> dueBetween(Instant from, Instant to) {
+        List<ExamScheduleEvent> due = new ArrayList<>();
+        for (Set<Long> ids : byStart.subMap(from, false, to, true).values()) {
+            for (Long examId : ids) {
+                Window window = windows.get(examId);
+                due.add(new ExamScheduleEvent(examId, window.courseId, ExamScheduleEvent.Transition.STARTED, window.startAt));
+            }
+        }
+        for (Set<Long> ids : byEnd.subMap(from, false, to, true).values()) {
+            for (Long examId : ids) {
+                Window window = windows.get(examId);
+                due.add(new ExamScheduleEvent(examId, window.courseId, ExamScheduleEvent.Transition.ENDED, window.endAt));
+            }
+        }
+        return due;
+    }
+
+    // Caller holds this. The transition a saved window owes as of firedUpTo, null when it owes none
+    // or the tick will still reach it.
+    private ExamScheduleEvent missedTransition(Long examId, Window previous, Window window) {
+        if (firedUpTo == null) {
+            // Not loaded yet, rebuild picks the window up
+            return null;
+        }
+        boolean openNow = window.isOpenAt(firedUpTo);
+        if (previous != null && previous.isOpenAt(firedUpTo) == openNow) {
+            return null;
+        }
+        if (openNow) {
+            Instant at = window.startAt != null ? window.startAt : firedUpTo;
+            return new ExamScheduleEvent(examId, window.courseId, ExamScheduleEvent.Transition.STARTED, at);
+        }
+        if (window.endAt != null && !window.endAt.isAfter(firedUpTo)) {
+            return new ExamScheduleEvent(examId, window.courseId, ExamScheduleEvent.Transition.ENDED, window.endAt);
+        }
+        return null;
+    }
+
+    private void fire(List<ExamScheduleEvent> due) {
+        updateIsactive(due);
+        publish(due);
+    }
+
+    private void publish(List<ExamScheduleEvent> due) {
+        for (ExamScheduleEvent event : due) {
+            logger.info("Exam {} {} at {}", event.getExamId(), event.getTransition(), event.getAt());
+            eventPublisher.publishEvent(event);
+        }
+    }
+
+    private void deactivate(long examId) {
+        try {
+            if (jdbcTemplate.update(UPDATE_ISACTIVE_SQL, false, examId, false) != 0) {
+                examSnapshotCache.invalidate(examId);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Could not deactivate postponed exam {}", examId, e);
+        }
+    }
+
+    private void updateIsactive(List<ExamScheduleEvent> due) {
+        try {
+            invalidateUpdated(due, jdbcTemplate.batchUpdate(UPDATE_ISACTIVE_SQL, isactiveRows(due)));
+        } catch (RuntimeException e) {
+            logger.error("Could not update isactive of {} exams after schedule transitions", due.size(), e);
+        }
+    }
+
+    private static List<Object[]> isactiveRows(List<ExamScheduleEvent> due) {
+        List<Object[]> rows = new ArrayList<>(due.size());
+        for (ExamScheduleEvent event : due) {
+            boolean active = event.getTransition() == ExamScheduleEvent.Transition.STARTED;
+            rows.add(new Object[]{active, event.getExamId(), active});
+        }
+        return rows;
+    }
+
+    private void invalidateUpdated(List<ExamScheduleEvent> due, int[] updated) {
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] != 0) {
+                examSnapshotCache.invalidate(due.get(i).getExamId());
+            }
+        }
+    }
+
+    private void put(Long examId, Window window, Instant now) {
+        windows.put(examId, window);
+        if (window.startAt != null) {
+            byStart.computeIfAbsent(window.startAt, key -> new TreeSet<>()).add(examId);
+        }
+        if (window.endAt != null) {
+            byEnd.computeIfAbsent(window.endAt, key -> new TreeSet<>()).add(examId);
+        }
+        if (window.isOpenAt(now)) {
+            open.add(examId);
+        }
+    }
+
+    private void remove(Long examId) {
+        Window window = windows.remove(examId);
+        if (window == null) {
+            return;
+        }
+        removeFrom(byStart, window.startAt, examId);
+        removeFrom(byEnd, window.endAt, examId);
+        open.remove(examId);
+    }
+
+    private static void removeFrom(TreeMap<Instant, Set<Long>> map, Instant key, Long examId) {
+        if (key == null) {
+            return;
+        }
+        Set<Long> ids = map.get(key);
+        if (ids != null) {
+            ids.remove(examId);
+            if (ids.isEmpty()) {
+                map.remove(key);
+            }
+        }
+    }
+
+    private static LocalDateTime utc(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+
+    private static Instant instantOf(ResultSet rs, String column, String dateColumn, String timeColumn) throws SQLException {
+        // Hibernate stores Instant columns as UTC date-times; rows not backfilled yet fall back to the strings
+        LocalDateTime value = rs.getObject(column, LocalDateTime.class);
+        return value != null ? value.toInstant(ZoneOffset.UTC)
+                : ExamSchedule.toInstant(rs.getString(dateColumn), rs.getString(timeColumn));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static final class Window {
+        private final Long courseId;
+        private final Instant startAt;
+        private final Instant endAt;
+
+        private Window(Long courseId, Instant startAt, Instant endAt) {
+            this.courseId = courseId;
+            this.startAt = startAt;
+            this.endAt = endAt;
+        }
+
+        private boolean isOpenAt(Instant time) {
+            return (startAt == null || !time.isBefore(startAt)) && (endAt == null || time.isBefore(endAt));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.ExamPort.ExamPort.Service;
+
+import com.ExamPort.ExamPort.Entity.ExamSchedule;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Zone of exam schedules and the backfill of exam.start_at / exam.end_at.
+ *
+ * New and updated exams get their instants from {@link com.ExamPort.ExamPort.Entity.Exam}
+ * itself. Rows saved before the columns existed are filled once at startup.
+ */
+@Service
+public class ExamScheduleService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExamScheduleService.class);
+
+    @Value("${app.exams.time-zone:}")
+    private String timeZone;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void init() {
+        if (timeZone != null && !timeZone.isBlank()) {
+            ExamSchedule.setZone(ZoneId.of(timeZone.trim()));
+        }
+        logger.info("Exam schedules use time zone {}", ExamSchedule.getZone());
+    }
+
+    /**
+     * Fill start_at and end_at of exams whose date and time strings have not been converted yet
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        List<Object[]> rows = new ArrayList<>();
+        jdbcTemplate.query(
+                "SELECT exam_id, start_date, start_time, end_date, end_time FROM exam " +
+                "WHERE (start_at IS NULL AND start_date IS NOT NULL AND start_time IS NOT NULL) " +
+                "OR (end_at IS NULL AND end_date IS NOT NULL AND end_time IS NOT NULL)",
+                rs -> {
+                    Instant startAt = ExamSchedule.toInstant(rs.getString("start_date"), rs.getString("start_time"));
+                    Instant endAt = ExamSchedule.toInstant(rs.getString("end_date"), rs.getString("end_time"));
+                    if (startAt != null || endAt != null) {
+                        rows.add(new Object[]{utc(startAt), utc(endAt), rs.getLong("exam_id")});
+                    }
+                });
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("UPDATE exam SET start_at = ?, end_at = ? WHERE exam_id = ?", rows);
+        logger.info("Filled start_at/end_at of {} exams", rows.size());
+    }
+
+    // Hibernate stores Instant columns as UTC date-times
+    private static LocalDateTime utc(Instant instant) {
+        return instant != null ? LocalDateTime.ofInstant(instant, ZoneOffset.UTC) : null;
+    }
+}
@@ -0,0 +1,355 @@
+package com.ExamPort.ExamPort.Service;
+
+import com.ExamPort.ExamPort.Entity.Exam;
+import com.ExamPort.ExamPort.Entity.Result;
+import com.ExamPort.ExamPort.Exception.ValidationException;
+import com.ExamPort.ExamPort.Repository.ResultRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Server-side exam sessions: when a student started an exam and by when it must be submitted.
+ *
+ * Starting an exam stores started_at and deadline_at on its exam_attempts row. The deadline is
+ * the exam duration after the start, capped at the exam's end time. Submissions later than the
+ * deadline plus app.exam-sessions.grace-ms are rejected, and sessions still open at that point
+ * are submitted automatically with their autosaved answers, and the student gets the same result
+ * email as for a manual submit. Deadlines sit in one timing wheel advanced by a single scheduled
+ * tick, and expired sessions go through the result batch writer together.
+ *
+ * Each node expires the sessions it loaded at startup or started itself, so with several nodes a
+ * session may be auto-submitted by more than one. The unique (user, exam) result keeps one
+ * result, and only the node whose save won sends the email.
+ */
+@Service
+public class ExamSessionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExamSessionService.class);
+
+    private static final String START_SQL =
+            "INSERT INTO exam_attempts (user_id, exam_id, answers, version, updated_at, started_at, deadline_at) " +
+            "VALUES (?, ?, NULL, 0, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE started_at = COALESCE(started_at, VALUES(started_at)), " +
+            "deadline_at = COALESCE(deadline_at, VALUES(deadline_at))";
+
+    private static final ObjectWriter ANSWERS_WRITER = JsonMapper.builder().build()
+            .writerFor(new TypeReference<Map<String, String>>() {});
+
+    @Value("${app.exam-sessions.grace-ms:30000}")
+    private long graceMs;
+
+    @Value("${app.exam-sessions.tick-ms:1000}")
+    private long tickMs;
+
+    @Value("${app.exam-sessions.wheel-size:4096}")
+    private int wheelSize;
+
+    @Value("${app.exam-sessions.retry-delay-ms:30000}")
+    private long retryDelayMs;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AttemptStore attemptStore;
+
+    @Autowired
+    private ResultBatchWriter resultBatchWriter;
+
+    @Autowired
+    private ResultIdGenerator resultIdGenerator;
+
+    @Autowired
+    private ExamSnapshotCache examSnapshotCache;
+
+    @Autowired
+    private ResultRepository resultRepository;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private UserCache userCache;
+
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    // Auto-submitted sessions, closed by the next tick rather than on the result writer's thread
+    private final ConcurrentLinkedQueue<AutoSubmission> autoSubmitted = new ConcurrentLinkedQueue<>();
+    private TimingWheel<Session> wheel;
+
+    /**
+     * A started exam of a student
+     */
+    public static final class Session {
+        private final Long userId;
+        private final Long examId;
+        private final Instant startedAt;
+        private final Instant deadline;
+
+        private Session(Long userId, Long examId, Instant startedAt, Instant deadline) {
+            this.userId = userId;
+            this.examId = examId;
+            this.startedAt = startedAt;
+            this.deadline = deadline;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public Long getExamId() {
+            return examId;
+        }
+
+        public Instant getStartedAt() {
+            return startedAt;
+        }
+
+        public Instant getDeadline() {
+            return deadline;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        wheel = new TimingWheel<>(tickMs, wheelSize, System.currentTimeMillis());
+    }
+
+    /**
+     * Load the sessions started before this application instance came up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        jdbcTemplate.query("SELECT user_id, exam_id, started_at, deadline_at FROM exam_attempts WHERE started_at IS NOT NULL",
+                rs -> {
+                    register(sessionFrom(rs));
+                });
+        logger.info("Exam sessions loaded: {} open", sessions.size());
+    }
+
+    /**
+     * Start the student's session of an exam, or return the session already started
+     */
+    public Session start(Long userId, Exam exam) {
+        Long examId = exam.getExam_id();
+        Session existing = sessionOf(userId, examId);
+        if (existing != null) {
+            return existing;
+        }
+        if (resultRepository.findByUserIdAndExamExamId(userId, examId).isPresent()) {
+            throw new ValidationException("Exam already submitted");
+        }
+        Instant now = Instant.now();
+        if (exam.getStartAt() != null && now.isBefore(exam.getStartAt())) {
+            throw new ValidationException("Exam has not started yet");
+        }
+        if (exam.getEndAt() != null && !now.isBefore(exam.getEndAt())) {
+            throw new ValidationException("Exam has ended");
+        }
+        if (!exam.isIsactive()) {
+            throw new ValidationException("Exam is not active");
+        }
+
+        Instant deadline = exam.getDuration() > 0 ? now.plus(Duration.ofMinutes(exam.getDuration())) : exam.getEndAt();
+        if (deadline == null) {
+            throw new ValidationException("Exam has no duration or end time");
+        }
+        if (exam.getEndAt() != null && exam.getEndAt().isBefore(deadline)) {
+            deadline = exam.getEndAt();
+        }
+        jdbcTemplate.update(START_SQL, userId, examId, Timestamp.valueOf(LocalDateTime.now()), utc(now), utc(deadline));
+
+        // Another request may have started the session first, the stored row decides
+        Session session = find(userId, examId);
+        if (session == null) {
+            throw new IllegalStateException("Exam session of user " + userId + " for exam " + examId + " was not stored");
+        }
+        logger.info("User {} started exam {}, deadline {}", userId, examId, session.deadline);
+        return session;
+    }
+
+    /**
+     * The student's open session of an exam, null when none was started
+     */
+    public Session sessionOf(Long userId, Long examId) {
+        Session session = sessions.get(key(userId, examId));
+        return session != null ? session : find(userId, examId);
+    }
+
+    /**
+     * Whether a submission made now is too late for a deadline, allowing app.exam-sessions.grace-ms
+     */
+    public boolean isPastDeadline(Instant deadline, Instant now) {
+        return deadline != null && now.isAfter(deadline.plusMillis(graceMs));
+    }
+
+    /**
+     * Seconds from the start of the session to now, at most to its deadline
+     */
+    public int timeTakenSeconds(Session session, Instant now) {
+        Instant end = now.isBefore(session.deadline) ? now : session.deadline;
+        return (int) Math.max(0, Duration.between(session.startedAt, end).getSeconds());
+    }
+
+    /**
+     * Close the student's session and autosaved answers once the exam is submitted
+     */
+    public void finish(Long userId, Long examId) {
+        sessions.remove(key(userId, examId));
+        attemptStore.discard(userId, examId);
+    }
+
+    /**
+     * Submit every session whose deadline plus grace period has passed
+     */
+    @Scheduled(fixedDelayString = "${app.exam-sessions.tick-ms:1000}")
+    public void expire() {
+        AutoSubmission done;
+        while ((done = autoSubmitted.poll()) != null) {
+            finish(done.session.userId, done.session.examId);
+            if (done.result != null) {
+                notifyStudent(done);
+            }
+        }
+
+        List<Session> due = wheel.advance(System.currentTimeMillis());
+        int submitted = 0;
+        for (Session session : due) {
+            // Sessions submitted by the student in the meantime are not in the map any more
+            if (sessions.get(key(session.userId, session.examId)) == session) {
+                autoSubmit(session);
+                submitted++;
+            }
+        }
+        if (submitted > 0) {
+            logger.info("Auto-submitting {} expired exam sessions, {} still open", submitted, sessions.size());
+        }
+    }
+
+    private void autoSubmit(Session session) {
+        ExamSnapshot snapshot = examSnapshotCache.get(session.examId);
+        if (snapshot == null) {
+            logger.warn("Exam {} of expired session of user {} no longer exists", session.examId, session.userId);
+            finish(session.userId, session.examId);
+            return;
+        }
+        Result result;
+        Map<String, String> answers;
+        try {
+            answers = attemptStore.answersForSubmit(session.userId, session.examId);
+            AnswerKey answerKey = snapshot.getAnswerKey();
+            double score = answerKey.totalScore(answers);
+            double totalMarks = answerKey.getTotalMarks();
+            boolean passed = ResultGrader.isPassed(score, totalMarks);
+
+            result = new Result();
+            result.setId(resultIdGenerator.nextId());
+            result.setAnswers(ANSWERS_WRITER.writeValueAsString(answers));
+            result.setExamExamId(session.examId);
+            result.setUserId(session.userId);
+            result.setScore(score);
+            result.setTimeTaken(timeTakenSeconds(session, session.deadline));
+            result.setPassed(passed);
+            result.setAttemptDate(LocalDateTime.now());
+            result.setFeedback(ResultGrader.feedback(score, totalMarks, passed));
+        } catch (Exception e) {
+            logger.error("Could not grade expired session of user {} for exam {}", session.userId, session.examId, e);
+            wheel.schedule(session, System.currentTimeMillis() + retryDelayMs);
+            return;
+        }
+
+        resultBatchWriter.submit(result).whenComplete((receipt, error) -> {
+            if (error != null) {
+                logger.warn("Auto-submit of user {} for exam {} failed, retrying in {} ms", session.userId, session.examId, retryDelayMs, error);
+                wheel.schedule(session, System.currentTimeMillis() + retryDelayMs);
+                return;
+            }
+            boolean saved = receipt.getOutcome() == ResultBatchWriter.Outcome.SAVED;
+            if (saved) {
+                logger.info("Auto-submitted exam {} of user {} with score {}", session.examId, session.userId, result.getScore());
+            }
+            // A submit that won the race already sent its own email
+            autoSubmitted.add(new AutoSubmission(session, snapshot.getExam(), saved ? result : null, answers));
+        });
+    }
+
+    private void notifyStudent(AutoSubmission submission) {
+        try {
+            userCache.get(submission.session.userId).ifPresentOrElse(
+                    student -> emailService.sendExamResultNotificationHtml(student, submission.exam, submission.result, submission.answers),
+                    () -> logger.warn("User {} of auto-submitted exam {} no longer exists, no result email", submission.session.userId, submission.session.examId));
+        } catch (RuntimeException e) {
+            logger.error("Could not queue the result email of auto-submitted exam {} for user {}", submission.session.examId, submission.session.userId, e);
+        }
+    }
+
+    private Session find(Long userId, Long examId) {
+        List<Session> found = jdbcTemplate.query(
+                "SELECT user_id, exam_id, started_at, deadline_at FROM exam_attempts " +
+                "WHERE user_id = ? AND exam_id = ? AND started_at IS NOT NULL",
+                (rs, rowNum) -> sessionFrom(rs), userId, examId);
+        return found.isEmpty() ? null : register(found.get(0));
+    }
+
+    private Session register(Session session) {
+        Session existing = sessions.putIfAbsent(key(session.userId, session.examId), session);
+        if (existing != null) {
+            return existing;
+        }
+        wheel.schedule(session, session.deadline.toEpochMilli() + graceMs);
+        return session;
+    }
+
+    // started_at and deadline_at are UTC date-times, like the Instant columns Hibernate writes
+    private static Session sessionFrom(ResultSet rs) throws SQLException {
+        LocalDateTime startedAt = rs.getObject("started_at", LocalDateTime.class);
+        LocalDateTime deadline = rs.getObject("deadline_at", LocalDateTime.class);
+        return new Session(rs.getLong("user_id"), rs.getLong("exam_id"), startedAt.toInstant(ZoneOffset.UTC),
+                deadline != null ? deadline.toInstant(ZoneOffset.UTC) : startedAt.toInstant(ZoneOffset.UTC));
+    }
+
+    private static LocalDateTime utc(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+
+    private static String key(Long userId, Long examId) {
+        return userId + ":" + examId;
+    }
+
+    // Result and answers are only set when the auto-submit saved a new result
+    private static final class AutoSubmission {
+        private final Session session;
+        private final Exam exam;
+        private final Result result;
+        private final Map<String, String> answers;
+
+        private AutoSubmission(Session session, Exam exam, Result result, Map<String, String> answers) {
+            this.session = session;
+            this.exam = exam;
+            this.result = result;
+            this.answers = answers;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.ExamPort.ExamPort.Service;
+
+import com.ExamPort.ExamPort.Entity.Course;
+import com.ExamPort.ExamPort.Entity.Exam;
+import com.ExamPort.ExamPort.Entity.ExamOption;
+import com.ExamPort.ExamPort.Entity.ExamSchedule;
+import com.ExamPort.ExamPort.Entity.Question;
+import com.ExamPort.ExamPort.Entity.User;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read-only copy of an exam with its course, questions, options and correct_options,
+ * taken inside a transaction and detached from Hibernate so it can be shared between requests.
+ *
+ * The copied entities still expose setters, callers must treat them as read-only.
+ * Collections are unmodifiable. Anything that changes an exam has to go through
+ * {@link ExamSnapshotCache#invalidate(Long)} instead of editing a snapshot.
+ */
+public final class ExamSnapshot {
+
+    private final Exam exam;
+    private final AnswerKey answerKey;
+    private final Long courseId;
+
+    private ExamSnapshot(Exam exam, AnswerKey answerKey) {
+        this.exam = exam;
+        this.answerKey = answerKey;
+        this.courseId = exam.getCourse() != null ? exam.getCourse().getId() : null;
+    }
+
+    /**
+     * Copy a managed exam. Lazy collections must still be loadable, so call this inside a transaction.
+     */
+    public static ExamSnapshot of(Exam source) {
+        Exam copy = new Exam();
+        copy.setExam_id(source.getExam_id());
+        copy.setTitle(source.getTitle());
+        copy.setDescription(source.getDescription());
+        copy.setStartDate(source.getStartDate());
+        copy.setStartTime(source.getStartTime());
+        copy.setEndDate(source.getEndDate());
+        copy.setEndTime(source.getEndTime());
+        // Rows saved before start_at/end_at existed are filled by ExamScheduleService at startup
+        copy.setStartAt(source.getStartAt() != null ? source.getStartAt()
+                : ExamSchedule.toInstant(source.getStartDate(), source.getStartTime()));
+        copy.setEndAt(source.getEndAt() != null ? source.getEndAt()
+                : ExamSchedule.toInstant(source.getEndDate(), source.getEndTime()));
+        copy.setInstructions(source.getInstructions());
+        copy.setTotalMarks(source.getTotalMarks());
+        copy.setCreatedAt(source.getCreatedAt());
+        copy.setDuration(source.getDuration());
+        copy.setExam_modifier(source.getExam_modifier());
+        copy.setIsactive(source.isIsactive());
+        copy.setCourse(copyCourse(source.getCourse()));
+
+        List<Question> questions = new ArrayList<>();
+        if (source.getQuestions() != null) {
+            for (Question question : source.getQuestions()) {
+                questions.add(copyQuestion(question));
+            }
+        }
+        copy.setQuestions(Collections.unmodifiableList(questions));
+
+        return new ExamSnapshot(copy, AnswerKey.compile(copy));
+    }
+
+    private static Question copyQuestion(Question source) {
+        List<ExamOption> options = new ArrayList<>();
+        if (source.getOptions() != null) {
+            for (ExamOption option : source.getOptions()) {
+                options.add(new ExamOption(option.getOption_id(), option.getOption_number(), option.getAvailableOption()));
+            }
+        }
+        List<Integer> correctOptions = source.getCorrect_options() != null
+                ? Collections.unmodifiableList(new ArrayList<>(source.getCorrect_options()))
+                : null;
+
+        Question copy = new Question(source.getQue_id(), source.getQuestion(),
+                Collections.unmodifiableList(options), source.getType(), correctOptions);
+        copy.setMarks(source.getMarks());
+        return copy;
+    }
+
+    private static Course copyCourse(Course source) {
+        if (source == null) {
+            return null;
+        }
+        Course copy = new Course();
+        copy.setId(source.getId());
+        copy.setName(source.getName());
+        copy.setDescription(source.getDescription());
+        copy.setVisibility(source.getVisibility());
+        copy.setPricing(source.getPricing());
+        copy.setPrice(source.getPrice());
+        copy.setInstructor(copyInstructor(source.getInstructor()));
+        return copy;
+    }
+
+    private static User copyInstructor(User source) {
+        if (source == null) {
+            return null;
+        }
+        // Only what exam views need, the password hash is not carried into the cache
+        User copy = new User();
+        copy.setId(source.getId());
+        copy.setUsername(source.getUsername());
+        copy.setEmail(source.getEmail());
+        copy.setFullName(source.getFullName());
+        copy.setRole(source.getRole());
+        return copy;
+    }
+
+    public Exam getExam() {
+        return exam;
+    }
+
+    public AnswerKey getAnswerKey() {
+        return answerKey;
+    }
+
+    public long getExamId() {
+        return exam.getExam_id();
+    }
+
+    public Long getCourseId() {
+        return courseId;
+    }
+
+    /**
+     * Total marks of the exam: the declared total, or the sum of question marks when none was set.
+     */
+    public int getTotalMarks() {
+        return answerKey.getTotalMarks();
+    }
+}
@@ -0,0 +1,239 @@
+package com.ExamPort.ExamPort.Service;
+
+import com.ExamPort.ExamPort.Repository.Exam_repo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache of {@link ExamSnapshot}s keyed by exam id.
+ *
+ * During a live exam every student reads the same exam, so after the first load the
+ * questions, options and answer key come from memory instead of MySQL. The cache is
+ * bounded by app.exam-cache.max-size, least recently read exams are evicted first.
+ * Invalidation only reaches this node's cache, so a snapshot is also reloaded once it is
+ * app.exam-cache.ttl-ms old: changes saved on another node are seen within that time.
+ *
+ * Writers must call one of the invalidate methods. Inside a transaction the entry is
+ * dropped again once the transaction completes, so a read that raced the write cannot
+ * leave a stale snapshot behind. Loads run outside the map: concurrent readers of the same
+ * exam wait for one shared load, and a load that overlapped an invalidation is not cached.
+ */
+@Service
+public class ExamSnapshotCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExamSnapshotCache.class);
+
+    /** Last-read timestamps are only refreshed when older than this, to keep reads write-free. */
+    private static final long ACCESS_RESOLUTION_MS = 1000;
+
+    @Value("${app.exam-cache.max-size:500}")
+    private int maxSize;
+
+    @Value("${app.exam-cache.ttl-ms:30000}")
+    private long ttlMs;
+
+    @Autowired
+    private Exam_repo examRepo;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    private final ConcurrentHashMap<Long, CacheEntry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, CompletableFuture<ExamSnapshot>> loading = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        logger.info("Exam snapshot cache initialized with max size {} and ttl {} ms", maxSize, ttlMs);
+    }
+
+    /**
+     * Get the snapshot of an exam, loading it on first use. Returns null when the exam does not exist.
+     */
+    public ExamSnapshot get(Long examId) {
+        if (examId == null) {
+            return null;
+        }
+        CacheEntry entry = entries.get(examId);
+        if (entry != null && !entry.isOlderThan(ttlMs)) {
+            entry.touch();
+            return entry.snapshot;
+        }
+
+        CompletableFuture<ExamSnapshot> load = new CompletableFuture<>();
+        CompletableFuture<ExamSnapshot> running = loading.putIfAbsent(examId, load);
+        if (running != null) {
+            // Another reader is loading this exam, share its result
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            ExamSnapshot snapshot = load(examId);
+            load.complete(snapshot);
+            return snapshot;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(examId, load);
+        }
+    }
+
+    /**
+     * Take a snapshot straight from the database without going through the cache, for callers
+     * that must see the latest committed exam. Returns null when the exam does not exist.
+     */
+    public ExamSnapshot loadFresh(Long examId) {
+        return readOnlyTransaction.execute(status ->
+                examRepo.findById(examId).map(ExamSnapshot::of).orElse(null));
+    }
+
+    private ExamSnapshot load(Long examId) {
+        long invalidationsBefore = invalidations.get();
+        ExamSnapshot snapshot = loadFresh(examId);
+        if (snapshot == null) {
+            logger.debug("Exam {} not found, nothing cached", examId);
+            return null;
+        }
+        if (invalidations.get() != invalidationsBefore) {
+            // An exam changed while loading, the snapshot may already be stale
+            logger.debug("Snapshot of exam {} not cached, invalidated while loading", examId);
+            return snapshot;
+        }
+        CacheEntry entry = new CacheEntry(snapshot);
+        entries.put(examId, entry);
+        if (invalidations.get() != invalidationsBefore) {
+            // Invalidated between the check and the put
+            entries.remove(examId, entry);
+            return snapshot;
+        }
+        evictIfNeeded();
+        logger.info("Cached snapshot of exam {} with {} questions", examId, snapshot.getAnswerKey().getQuestionCount());
+        return snapshot;
+    }
+
+    private void evictIfNeeded() {
+        int overflow = entries.size() - maxSize;
+        if (overflow <= 0) {
+            return;
+        }
+        // Evict a little more than needed so a full cache is not sorted on every miss
+        int toEvict = overflow + Math.max(1, maxSize / 10);
+        List<Map.Entry<Long, CacheEntry>> candidates = new ArrayList<>(entries.entrySet());
+        candidates.sort(Comparator.comparingLong(e -> e.getValue().lastAccess));
+        for (int i = 0; i < toEvict && i < candidates.size(); i++) {
+            Map.Entry<Long, CacheEntry> candidate = candidates.get(i);
+            entries.remove(candidate.getKey(), candidate.getValue());
+        }
+        logger.debug("Evicted {} exam snapshots, {} remain", toEvict, entries.size());
+    }
+
+    /**
+     * Drop the snapshot of an exam after it was updated or deleted
+     */
+    public void invalidate(Long examId) {
+        if (examId == null) {
+            return;
+        }
+        remove(examId);
+        afterTransaction(() -> remove(examId));
+        logger.debug("Exam snapshot invalidated: {}", examId);
+    }
+
+    /**
+     * Drop the snapshots of every exam of a course, used when the course itself changes
+     */
+    public void invalidateCourse(Long courseId) {
+        if (courseId == null) {
+            return;
+        }
+        removeCourse(courseId);
+        afterTransaction(() -> removeCourse(courseId));
+        logger.debug("Exam snapshots invalidated for course: {}", courseId);
+    }
+
+    /**
+     * Drop every snapshot, used when a question is edited without its exam being known
+     */
+    public void invalidateAll() {
+        clear();
+        afterTransaction(this::clear);
+        logger.debug("All exam snapshots invalidated");
+    }
+
+    private void remove(Long examId) {
+        invalidations.incrementAndGet();
+        loading.remove(examId);
+        entries.remove(examId);
+    }
+
+    private void removeCourse(Long courseId) {
+        invalidations.incrementAndGet();
+        loading.clear();
+        entries.values().removeIf(entry -> courseId.equals(entry.snapshot.getCourseId()));
+    }
+
+    private void clear() {
+        invalidations.incrementAndGet();
+        loading.clear();
+        entries.clear();
+    }
+
+    private void afterTransaction(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.run();
+                }
+            });
+        }
+    }
+
+    private static final class CacheEntry {
+        final ExamSnapshot snapshot;
+        final long loadedAt;
+        volatile long lastAccess;
+
+        CacheEntry(ExamSnapshot snapshot) {
+            this.snapshot = snapshot;
+            this.loadedAt = System.currentTimeMillis();
+            this.lastAccess = loadedAt;
+        }
+
+        boolean isOlderThan(long ageMs) {
+            return System.currentTimeMillis() - loadedAt > ageMs;
+        }
+
+        void touch() {
+            long now = System.currentTimeMillis();
+            if (now - lastAccess > ACCESS_RESOLUTION_MS) {
+                lastAccess = now;
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.ExamPort.ExamPort.Service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ranks students across all exams by their average score.
+ *
+ * Each user's running score sum and result count are kept in primitive maps, and a
+ * {@link ScoreBucketTree} counts users per average bucket (hundredths). A new or re-graded
+ * result moves its user from one bucket to another, and a rank is the number of users in a
+ * higher bucket plus one. Both are O(log buckets) and allocate nothing. Users whose averages
+ * round to the same hundredth share a rank.
+ *
+ * While the totals are rebuilt, results and score changes keep updating the current maps and
+ * are also buffered, then replayed into the rebuilt maps before they replace the current ones.
+ */
+@Service
+public class GlobalRankingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GlobalRankingService.class);
+
+    private static final String LOAD_SQL = "SELECT user_id, SUM(score) AS score_sum, COUNT(*) AS result_count FROM result GROUP BY user_id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private LongDoubleMap sums = new LongDoubleMap();
+    private LongDoubleMap counts = new LongDoubleMap();
+    private ScoreBucketTree averages = new ScoreBucketTree();
+
+    /** Changes made while a rebuild scans the result table, null when no rebuild runs */
+    private List<Change> changesDuringRebuild;
+
+    /**
+     * Rebuild the per-user totals from the result table
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.nanoTime();
+        synchronized (this) {
+            changesDuringRebuild = new ArrayList<>();
+        }
+        LongDoubleMap newSums = new LongDoubleMap();
+        LongDoubleMap newCounts = new LongDoubleMap();
+        ScoreBucketTree newAverages = new ScoreBucketTree();
+        jdbcTemplate.query(LOAD_SQL, rs -> {
+            long userId = rs.getLong("user_id");
+            double sum = rs.getDouble("score_sum");
+            long count = rs.getLong("result_count");
+            newSums.put(userId, sum);
+            newCounts.put(userId, count);
+            newAverages.add(ScoreBucketTree.bucketOf(sum / count), 1);
+        });
+        int replayed;
+        synchronized (this) {
+            List<Change> changes = changesDuringRebuild;
+            changesDuringRebuild = null;
+            sums = newSums;
+            counts = newCounts;
+            averages = newAverages;
+            // A result committed just before the scan began but counted after may be counted twice
+            for (Change change : changes) {
+                if (change.newResult) {
+                    apply(change.userId, change.delta);
+                } else {
+                    applyChange(change.userId, change.delta);
+                }
+            }
+            replayed = changes.size();
+        }
+        logger.info("Rebuilt global ranking of {} users in {} ms, {} changes replayed",
+                newSums.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), replayed);
+    }
+
+    /**
+     * Count a newly saved result
+     */
+    public synchronized void addResult(Long userId, Double score) {
+        if (userId == null) {
+            return;
+        }
+        double value = score != null ? score : 0.0;
+        if (changesDuringRebuild != null) {
+            changesDuringRebuild.add(new Change(userId, value, true));
+        }
+        apply(userId, value);
+    }
+
+    /**
+     * Apply the new score of a re-graded result
+     */
+    public synchronized void changeScore(Long userId, double oldScore, double newScore) {
+        if (userId == null) {
+            return;
+        }
+        if (changesDuringRebuild != null) {
+            changesDuringRebuild.add(new Change(userId, newScore - oldScore, false));
+        }
+        applyChange(userId, newScore - oldScore);
+    }
+
+    /**
+     * Rank of a user by average score (1 is best), or 0 when the user has no results
+     */
+    public synchronized int rankOf(Long userId) {
+        if (userId == null || counts.get(userId, 0) == 0) {
+            return 0;
+        }
+        return (int) averages.higherThan(bucketOf(userId)) + 1;
+    }
+
+    public synchronized int rankedUserCount() {
+        return (int) averages.total();
+    }
+
+    private void apply(long userId, double score) {
+        long count = (long) counts.get(userId, 0);
+        if (count > 0) {
+            averages.add(bucketOf(userId), -1);
+        }
+        sums.addTo(userId, score);
+        counts.put(userId, count + 1);
+        averages.add(bucketOf(userId), 1);
+    }
+
+    private void applyChange(long userId, double delta) {
+        if (counts.get(userId, 0) == 0) {
+            return;
+        }
+        averages.add(bucketOf(userId), -1);
+        sums.addTo(userId, delta);
+        averages.add(bucketOf(userId), 1);
+    }
+
+    private int bucketOf(long userId) {
+        return ScoreBucketTree.bucketOf(sums.get(userId, 0) / counts.get(userId, 1));
+    }
+
+    private static final class Change {
+        private final long userId;
+        private final double delta;
+        private final boolean newResult;
+
+        private Change(long userId, double delta, boolean newResult) {
+            this.userId = userId;
+            this.delta = delta;
+            this.newResult = newResult;
+        }
+    }
+}
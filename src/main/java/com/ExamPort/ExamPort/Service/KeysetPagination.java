@@ -0,0 +1,150 @@
+package com.ExamPort.ExamPort.Service;
+
+import com.ExamPort.ExamPort.Exception.ValidationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Keyset (cursor) pagination for list endpoints.
+ *
+ * A page is read with "WHERE sort key after the cursor ORDER BY sort key LIMIT size + 1", so
+ * every page costs the same however deep the client is. The extra row only tells whether
+ * another page follows; when it does, the sort key of the last returned row is sent back in
+ * the X-Next-Cursor header as an opaque token to pass as ?cursor= for the next page.
+ */
+@Service
+public class KeysetPagination {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final String VERSION = "k1";
+    private static final String SEPARATOR = "|";
+    private static final String NULL_VALUE = "~";
+
+    @Value("${app.pagination.default-size:50}")
+    private int defaultSize;
+
+    @Value("${app.pagination.max-size:200}")
+    private int maxSize;
+
+    /**
+     * Page size for a requested ?limit=, defaulted and capped at app.pagination.max-size
+     */
+    public int pageSize(Integer requested) {
+        if (requested == null) {
+            return defaultSize;
+        }
+        if (requested < 1) {
+            throw new ValidationException("limit", "limit must be at least 1");
+        }
+        return Math.min(requested, maxSize);
+    }
+
+    /**
+     * Row limit for a page query: the page plus one row to detect a following page
+     */
+    public Pageable rowsFor(int pageSize) {
+        return PageRequest.of(0, pageSize + 1);
+    }
+
+    /**
+     * Decode a ?cursor= token, null when the first page is requested
+     */
+    public Cursor decode(String token, int keys) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = decoded.split("\\|", -1);
+            if (parts.length != keys + 1 || !VERSION.equals(parts[0])) {
+                throw new ValidationException("cursor", "Invalid cursor");
+            }
+            List<String> values = new ArrayList<>(keys);
+            for (int i = 1; i < parts.length; i++) {
+                values.add(NULL_VALUE.equals(parts[i]) ? null : parts[i]);
+            }
+            return new Cursor(values);
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("cursor", "Invalid cursor");
+        }
+    }
+
+    public String encode(Object... keys) {
+        StringBuilder value = new StringBuilder(VERSION);
+        for (Object key : keys) {
+            value.append(SEPARATOR).append(key != null ? key.toString() : NULL_VALUE);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Respond with at most pageSize of the fetched rows, adding the next cursor when more rows were found
+     */
+    public <T, R> ResponseEntity<List<R>> respond(List<T> rows, int pageSize, Function<T, Object[]> keyOf,
+                                                  Function<T, R> mapper) {
+        boolean more = rows.size() > pageSize;
+        List<T> page = more ? rows.subList(0, pageSize) : rows;
+        List<R> body = new ArrayList<>(page.size());
+        for (T row : page) {
+            body.add(mapper.apply(row));
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (more) {
+            response.header(NEXT_CURSOR_HEADER, encode(keyOf.apply(page.get(page.size() - 1))));
+        }
+        return response.body(body);
+    }
+
+    /**
+     * Sort key values of the last row of the previous page
+     */
+    public static final class Cursor {
+        private final List<String> values;
+
+        private Cursor(List<String> values) {
+            this.values = values;
+        }
+
+        public boolean isNull(int index) {
+            return values.get(index) == null;
+        }
+
+        public Long getLong(int index) {
+            String value = values.get(index);
+            try {
+                return value != null ? Long.valueOf(value) : null;
+            } catch (NumberFormatException e) {
+                throw new ValidationException("cursor", "Invalid cursor");
+            }
+        }
+
+        public Double getDouble(int index) {
+            String value = values.get(index);
+            try {
+                return value != null ? Double.valueOf(value) : null;
+            } catch (NumberFormatException e) {
+                throw new ValidationException("cursor", "Invalid cursor");
+            }
+        }
+
+        public LocalDateTime getDateTime(int index) {
+            String value = values.get(index);
+            try {
+                return value != null ? LocalDateTime.parse(value) : null;
+            } catch (RuntimeException e) {
+                throw new ValidationException("cursor", "Invalid cursor");
+            }
+        }
+    }
+}
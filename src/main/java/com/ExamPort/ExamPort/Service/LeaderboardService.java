@@ -0,0 +1,142 @@
+package com.ExamPort.ExamPort.Service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps an {@link ExamLeaderboard} per exam so ranks, top-K and leaderboard pages are answered
+ * from memory. Boards are rebuilt from the result table at startup, updated as results are
+ * saved or re-graded, and their ranks are written back to result.user_rank periodically.
+ * A result recorded while the startup scan runs wins over the row the scan reads for it.
+ */
+@Service
+public class LeaderboardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaderboardService.class);
+
+    private static final String LOAD_SQL = "SELECT id, user_id, exam_exam_id, score, user_rank FROM result";
+    private static final String UPDATE_RANK_SQL = "UPDATE result SET user_rank = ? WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private final ConcurrentHashMap<Long, ExamLeaderboard> boards = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Rebuild every exam's leaderboard from the result table
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.nanoTime();
+        long[] rows = {0};
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(LOAD_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            // Stream the table instead of buffering it
+            ps.setFetchSize(Integer.MIN_VALUE);
+            return ps;
+        }, rs -> {
+            board(rs.getLong("exam_exam_id")).load(rs.getLong("user_id"), rs.getLong("id"),
+                    rs.getDouble("score"), rs.getInt("user_rank"));
+            rows[0]++;
+        });
+        logger.info("Rebuilt leaderboards of {} exams from {} results in {} ms",
+                boards.size(), rows[0], TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    /**
+     * Record a saved or re-graded result
+     */
+    public void record(Long examId, Long userId, Long resultId, Double score) {
+        if (examId == null || userId == null || resultId == null) {
+            return;
+        }
+        board(examId).record(userId, resultId, score != null ? score : 0.0);
+    }
+
+    /**
+     * Rank of a user in an exam (1 is best), or 0 when the user has no result there
+     */
+    public int rankOf(Long examId, Long userId) {
+        ExamLeaderboard board = boards.get(examId);
+        return board != null && userId != null ? board.rankOf(userId) : 0;
+    }
+
+    public ExamLeaderboard.Standing standingOf(Long examId, Long userId) {
+        ExamLeaderboard board = boards.get(examId);
+        return board != null && userId != null ? board.standingOf(userId) : null;
+    }
+
+    public List<ExamLeaderboard.Standing> page(Long examId, int page, int size) {
+        ExamLeaderboard board = boards.get(examId);
+        return board != null ? board.page(page * size, size) : List.of();
+    }
+
+    public int participantCount(Long examId) {
+        ExamLeaderboard board = boards.get(examId);
+        return board != null ? board.size() : 0;
+    }
+
+    /**
+     * Forget the leaderboard of a deleted exam
+     */
+    public void removeExam(Long examId) {
+        if (examId != null && boards.remove(examId) != null) {
+            logger.info("Leaderboard removed for exam: {}", examId);
+        }
+    }
+
+    /**
+     * Write changed ranks back to result.user_rank
+     */
+    @Scheduled(fixedDelayString = "${app.leaderboard.flush-interval-ms:30000}")
+    public void flushRanks() {
+        for (ExamLeaderboard board : boards.values()) {
+            List<long[]> changed = board.takeChangedRanks();
+            if (changed.isEmpty()) {
+                continue;
+            }
+            try {
+                List<Object[]> updates = new ArrayList<>(changed.size());
+                for (long[] pair : changed) {
+                    updates.add(new Object[]{pair[1], pair[0]});
+                }
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPDATE_RANK_SQL, updates));
+                board.markWritten(changed);
+                logger.debug("Wrote {} changed ranks for exam {}", changed.size(), board.getExamId());
+            } catch (Exception e) {
+                logger.error("Failed to write ranks for exam {}", board.getExamId(), e);
+                board.markDirty();
+            }
+        }
+    }
+
+    private ExamLeaderboard board(long examId) {
+        return boards.computeIfAbsent(examId, ExamLeaderboard::new);
+    }
+}
@@ -0,0 +1,282 @@
+package com.ExamPort.ExamPort.Service;
+
+import com.ExamPort.ExamPort.Entity.Exam;
+import com.ExamPort.ExamPort.Entity.Result;
+import com.ExamPort.ExamPort.Entity.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-sent event streams of exam status, schedule and result changes, one or more per signed-in user.
+ *
+ * Changes are queued per stream and sent by a periodic flush, so several changes of the same
+ * exam within one flush interval reach the client as a single event with the latest value.
+ * Idle streams get a heartbeat comment to keep proxies from closing them. The socket writes run
+ * on a bounded pool of app.live-updates.senders threads, one write task per stream at a time,
+ * so a slow client never holds up the shared scheduler thread or the other streams' order.
+ *
+ * Events (data is JSON, times are epoch milliseconds):
+ * "ready" {serverTime}, "exam-status" {examId, status, at}, "exam-schedule" {examId, startAt, endAt}
+ * and "result" {examId, resultId, score}.
+ */
+@Service
+public class LiveUpdateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiveUpdateService.class);
+
+    @Value("${app.live-updates.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${app.live-updates.max-streams-per-user:3}")
+    private int maxStreamsPerUser;
+
+    @Value("${app.live-updates.senders:4}")
+    private int senders;
+
+    @Value("${app.live-updates.send-queue-size:1000}")
+    private int sendQueueSize;
+
+    @Autowired
+    private ExamAccessIndex examAccessIndex;
+
+    @Autowired
+    private ExamSnapshotCache examSnapshotCache;
+
+    private final ConcurrentHashMap<Long, List<Stream>> streamsByUser = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor senderPool;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        senderPool = new ThreadPoolExecutor(senders, senders, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(sendQueueSize), runnable -> {
+                    Thread thread = new Thread(runnable, "live-update-sender-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        senderPool.shutdownNow();
+    }
+
+    /**
+     * Open a stream for the user. Clients reconnect when it times out.
+     */
+    public SseEmitter subscribe(User user) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Stream stream = new Stream(user.getId(), user.getEmail(), emitter);
+        List<Stream> streams = streamsByUser.compute(user.getId(), (userId, open) -> {
+            List<Stream> list = open != null ? open : new CopyOnWriteArrayList<>();
+            list.add(stream);
+            return list;
+        });
+        while (streams.size() > maxStreamsPerUser) {
+            Stream oldest = streams.remove(0);
+            oldest.emitter.complete();
+        }
+        emitter.onCompletion(() -> remove(stream));
+        emitter.onTimeout(() -> remove(stream));
+        emitter.onError(error -> remove(stream));
+
+        Map<String, Object> ready = new HashMap<>();
+        ready.put("serverTime", System.currentTimeMillis());
+        stream.offer("ready", "ready", ready);
+        logger.debug("Live update stream opened for user {}, {} open", user.getId(), streams.size());
+        return emitter;
+    }
+
+    @EventListener(ExamScheduleEvent.class)
+    public void onScheduleTransition(ExamScheduleEvent event) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("examId", event.getExamId());
+        data.put("status", event.getTransition() == ExamScheduleEvent.Transition.STARTED ? "active" : "completed");
+        data.put("at", event.getAt().toEpochMilli());
+        toExamAudience(event.getExamId(), event.getCourseId(), "exam-status", data);
+    }
+
+    /**
+     * Tell the exam's students and instructor that its start or end time changed
+     */
+    public void examRescheduled(Exam exam) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("examId", exam.getExam_id());
+        data.put("startAt", exam.getStartAt() != null ? exam.getStartAt().toEpochMilli() : null);
+        data.put("endAt", exam.getEndAt() != null ? exam.getEndAt().toEpochMilli() : null);
+        toExamAudience(exam.getExam_id(), exam.getCourse() != null ? exam.getCourse().getId() : null, "exam-schedule", data);
+    }
+
+    /**
+     * Tell a student their submitted result is stored
+     */
+    public void resultAvailable(Result result) {
+        List<Stream> streams = result.getUserId() != null ? streamsByUser.get(result.getUserId()) : null;
+        if (streams == null || streams.isEmpty()) {
+            return;
+        }
+        Map<String, Object> data = new HashMap<>();
+        data.put("examId", result.getExamExamId());
+        data.put("resultId", result.getId());
+        data.put("score", result.getScore());
+        for (Stream stream : streams) {
+            stream.offer("result:" + result.getExamExamId(), "result", data);
+        }
+    }
+
+    /**
+     * Hand the queued events of every stream to the senders
+     */
+    @Scheduled(fixedDelayString = "${app.live-updates.flush-ms:1000}")
+    public void flush() {
+        for (List<Stream> streams : streamsByUser.values()) {
+            for (Stream stream : streams) {
+                if (stream.hasWork()) {
+                    dispatch(stream);
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.live-updates.heartbeat-ms:20000}")
+    public void heartbeat() {
+        for (List<Stream> streams : streamsByUser.values()) {
+            for (Stream stream : streams) {
+                stream.heartbeatDue = true;
+                dispatch(stream);
+            }
+        }
+    }
+
+    private void dispatch(Stream stream) {
+        // A stream still being written to keeps its events for the next flush
+        if (!stream.sending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            senderPool.execute(() -> {
+                try {
+                    write(stream);
+                } finally {
+                    stream.sending.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            stream.sending.set(false);
+            logger.debug("Live update senders busy, stream of user {} waits for the next flush", stream.userId);
+        }
+    }
+
+    private void write(Stream stream) {
+        for (Object[] event : stream.drain()) {
+            if (!send(stream, SseEmitter.event().name((String) event[0]).data(event[1]))) {
+                return;
+            }
+        }
+        if (stream.heartbeatDue) {
+            stream.heartbeatDue = false;
+            send(stream, SseEmitter.event().comment("heartbeat " + System.currentTimeMillis()));
+        }
+    }
+
+    private void toExamAudience(long examId, Long courseId, String name, Map<String, Object> data) {
+        if (courseId == null || streamsByUser.isEmpty()) {
+            return;
+        }
+        Long instructorId = instructorOf(examId);
+        String key = name + ":" + examId;
+        for (List<Stream> streams : streamsByUser.values()) {
+            for (Stream stream : streams) {
+                if (stream.userId.equals(instructorId)
+                        || examAccessIndex.canAccessCourse(stream.userId, stream.email, courseId)) {
+                    stream.offer(key, name, data);
+                }
+            }
+        }
+    }
+
+    private Long instructorOf(long examId) {
+        ExamSnapshot snapshot = examSnapshotCache.get(examId);
+        Exam exam = snapshot != null ? snapshot.getExam() : null;
+        return exam != null && exam.getCourse() != null && exam.getCourse().getInstructor() != null
+                ? exam.getCourse().getInstructor().getId() : null;
+    }
+
+    private boolean send(Stream stream, SseEmitter.SseEventBuilder event) {
+        try {
+            stream.emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // Client went away
+            logger.debug("Live update stream of user {} closed: {}", stream.userId, e.getMessage());
+            remove(stream);
+            stream.emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    private void remove(Stream stream) {
+        streamsByUser.computeIfPresent(stream.userId, (userId, streams) -> {
+            streams.remove(stream);
+            return streams.isEmpty() ? null : streams;
+        });
+    }
+
+    private static final class Stream {
+        private final Long userId;
+        private final String email;
+        private final SseEmitter emitter;
+        // Event name and data by coalescing key, guarded by this
+        private final LinkedHashMap<String, Object[]> pending = new LinkedHashMap<>();
+        // Set while a sender writes to the stream
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile boolean heartbeatDue;
+
+        private Stream(Long userId, String email, SseEmitter emitter) {
+            this.userId = userId;
+            this.email = email;
+            this.emitter = emitter;
+        }
+
+        private synchronized void offer(String key, String name, Object data) {
+            pending.put(key, new Object[]{name, data});
+        }
+
+        private synchronized boolean hasWork() {
+            return !pending.isEmpty() || heartbeatDue;
+        }
+
+        private synchronized List<Object[]> drain() {
+            if (pending.isEmpty()) {
+                return List.of();
+            }
+            List<Object[]> events = new ArrayList<>(pending.values());
+            pending.clear();
+            return events;
+        }
+    }
+}
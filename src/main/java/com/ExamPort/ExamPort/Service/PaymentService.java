@@ -43,6 +43,15 @@ public class PaymentService {
     @Autowired
     private CourseRepository courseRepository;
     
+    @Autowired
+    private ExamAccessIndex examAccessIndex;
+
+    @Autowired
+    private EnrollmentCountService enrollmentCountService;
+    
+    @Autowired
+    private CourseMembershipService courseMembershipService;
+    
     private RazorpayClient razorpayClient;
     
     /**
@@ -110,6 +119,8 @@ public class PaymentService {
             }
             
             enrollmentRepository.save(enrollment);
+            examAccessIndex.enrolled(student.getId(), course.getId());
+            enrollmentCountService.changed(course.getId());
             
             logger.info("Payment order created successfully: {} for course: {}", order.get("id"), course.getName());
             
@@ -181,6 +192,7 @@ public class PaymentService {
             enrollment.setPaymentTransactionId(paymentId);
             
             enrollmentRepository.save(enrollment);
+            enrollmentCountService.changed(courseId);
             
             logger.info("Successfully processed payment and enrolled student: {} in course: {}", studentId, courseId);
             
@@ -213,7 +225,7 @@ public class PaymentService {
                 }
                 
                 String studentEmail = studentOpt.get().getEmail();
-                return course.getAllowedEmails() != null && course.getAllowedEmails().contains(studentEmail);
+                return courseMembershipService.isMember(courseId, studentEmail);
             }
             
             // For public courses
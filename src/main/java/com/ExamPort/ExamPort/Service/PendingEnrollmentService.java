@@ -0,0 +1,156 @@
+package com.ExamPort.ExamPort.Service;
+
+import com.ExamPort.ExamPort.Entity.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Private course memberships waiting for their email to register, keyed by normalized email.
+ *
+ * Roster imports record the member emails that had no account yet. When a user registers
+ * (or changes their email) the entry is removed and all its enrollments are inserted with
+ * one batch, so the courses show up as ordinary enrollments from then on.
+ */
+@Service
+public class PendingEnrollmentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PendingEnrollmentService.class);
+
+    private static final String INSERT_ENROLLMENT_SQL =
+            "INSERT INTO enrollments (student_id, course_id, enrollment_date, status, created_at, updated_at) VALUES (?, ?, ?, 'ENROLLED', ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ExamAccessIndex examAccessIndex;
+
+    @Autowired
+    private EnrollmentCountService enrollmentCountService;
+
+    private final ConcurrentHashMap<String, Set<Long>> pendingByEmail = new ConcurrentHashMap<>();
+
+    /**
+     * Load the private course members whose email has no account
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.nanoTime();
+        jdbcTemplate.query(
+                "SELECT m.email, m.course_id FROM course_members m " +
+                "JOIN courses c ON c.id = m.course_id AND c.visibility = 'PRIVATE' " +
+                "LEFT JOIN users u ON u.email = m.email WHERE u.id IS NULL",
+                rs -> {
+                    coursesOf(rs.getString("email")).add(rs.getLong("course_id"));
+                });
+        logger.info("Pending enrollments loaded: {} unregistered emails in {} ms", pendingByEmail.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    /**
+     * Record normalized member emails of a private course that have no account yet
+     */
+    public void track(Long courseId, Collection<String> emails) {
+        if (courseId == null || emails.isEmpty()) {
+            return;
+        }
+        List<String> pending = new ArrayList<>(emails);
+        afterCommit(() -> pending.forEach(email -> coursesOf(email).add(courseId)));
+    }
+
+    /**
+     * Forget normalized emails removed from a course's members
+     */
+    public void untrack(Long courseId, Collection<String> emails) {
+        if (courseId == null || emails.isEmpty()) {
+            return;
+        }
+        List<String> removed = new ArrayList<>(emails);
+        afterCommit(() -> {
+            for (String email : removed) {
+                Set<Long> courses = pendingByEmail.get(email);
+                if (courses != null) {
+                    courses.remove(courseId);
+                    pendingByEmail.remove(email, Collections.emptySet());
+                }
+            }
+        });
+    }
+
+    /**
+     * Enroll a newly registered user in every course waiting for their email. Returns how many enrollments were created.
+     */
+    public int materialize(User user) {
+        String email = user != null && user.getId() != null ? CourseMembershipService.normalize(user.getEmail()) : null;
+        Set<Long> courseIds = email != null ? pendingByEmail.remove(email) : null;
+        if (courseIds == null || courseIds.isEmpty()) {
+            return 0;
+        }
+        Long userId = user.getId();
+        try {
+            List<Object> params = new ArrayList<>(courseIds.size() + 1);
+            params.add(userId);
+            params.addAll(courseIds);
+            Set<Long> enrolled = new HashSet<>(jdbcTemplate.queryForList(
+                    "SELECT course_id FROM enrollments WHERE student_id = ? AND course_id IN (" +
+                    String.join(",", Collections.nCopies(courseIds.size(), "?")) + ")",
+                    Long.class, params.toArray()));
+
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Object[]> rows = new ArrayList<>();
+            for (Long courseId : courseIds) {
+                if (!enrolled.contains(courseId)) {
+                    rows.add(new Object[]{userId, courseId, now, now, now});
+                }
+            }
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_ENROLLMENT_SQL, rows);
+            }
+            courseIds.forEach(courseId -> {
+                examAccessIndex.enrolled(userId, courseId);
+                enrollmentCountService.changed(courseId);
+            });
+            logger.info("Enrolled user {} in {} private courses waiting for {}", userId, rows.size(), email);
+            return rows.size();
+        } catch (RuntimeException e) {
+            // Keep the entry so a later registration event can retry
+            courseIds.forEach(courseId -> coursesOf(email).add(courseId));
+            throw e;
+        }
+    }
+
+    private Set<Long> coursesOf(String email) {
+        return pendingByEmail.computeIfAbsent(email, key -> ConcurrentHashMap.newKeySet());
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,416 @@
+package com.ExamPort.ExamPort.Service;
+
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Re-grades the stored results of an exam after its answer key changed.
+ *
+ * One reader thread streams the exam's results from MySQL and cuts them into chunks. The chunks
+ * are scored in parallel on a fork-join pool against the new answer key. Only rows whose score,
+ * passed flag or feedback actually changed are written back, one batched update per chunk.
+ * At most two chunks per worker are in flight, so memory stays flat for any number of attempts.
+ *
+ * Jobs for the same exam never overlap: a request that arrives while a job runs is folded into a
+ * single follow-up job that starts when the running one finishes.
+ */
+@Service
+public class RegradeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegradeService.class);
+
+    private static final String SELECT_SQL = "SELECT id, user_id, answers, score, passed, feedback FROM result WHERE exam_exam_id = ?";
+    private static final String UPDATE_SQL = "UPDATE result SET score = ?, passed = ?, feedback = ? WHERE id = ?";
+
+    /** Finished jobs kept for the status endpoint */
+    private static final int MAX_FINISHED_JOBS = 100;
+
+    private static final ObjectReader ANSWERS_READER = JsonMapper.builder().build()
+            .readerFor(new TypeReference<Map<String, String>>() {});
+
+    // Answers stored before submits wrote real JSON: only quotes were escaped, line breaks and tabs are raw
+    private static final ObjectReader LEGACY_ANSWERS_READER = JsonMapper.builder()
+            .enable(JsonReadFeature.ALLOW_UNESCAPED_CONTROL_CHARS)
+            .build()
+            .readerFor(new TypeReference<Map<String, String>>() {});
+
+    public enum JobState {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    @Value("${app.regrade.parallelism:0}")
+    private int parallelism;
+
+    @Value("${app.regrade.chunk-size:2000}")
+    private int chunkSize;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ExamSnapshotCache examSnapshotCache;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private GlobalRankingService globalRankingService;
+
+    private TransactionTemplate transactionTemplate;
+    private ForkJoinPool scoringPool;
+    private ExecutorService readerPool;
+
+    private final Map<String, RegradeJob> jobs = new ConcurrentHashMap<>();
+    private final Map<Long, RegradeJob> activeJobs = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        int workers = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        scoringPool = new ForkJoinPool(workers);
+        readerPool = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "regrade-reader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.info("Regrade service initialized with {} scoring workers and chunks of {}", workers, chunkSize);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        readerPool.shutdownNow();
+        scoringPool.shutdownNow();
+    }
+
+    /**
+     * Start re-grading an exam once the current transaction commits, so the job reads the
+     * committed answer key. Outside a transaction the job starts right away.
+     */
+    public void regradeAfterCommit(Long examId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    regrade(examId);
+                }
+            });
+        } else {
+            regrade(examId);
+        }
+    }
+
+    /**
+     * Re-grade all results of an exam. Returns the job that will pick up the request.
+     */
+    public RegradeJob regrade(Long examId) {
+        synchronized (activeJobs) {
+            RegradeJob active = activeJobs.get(examId);
+            if (active != null) {
+                active.rerunRequested = true;
+                logger.info("Regrade of exam {} already running as job {}, follow-up queued", examId, active.id);
+                return active;
+            }
+            RegradeJob job = new RegradeJob(examId);
+            activeJobs.put(examId, job);
+            jobs.put(job.id, job);
+            pruneFinishedJobs();
+            readerPool.execute(() -> run(job));
+            logger.info("Regrade job {} queued for exam {}", job.id, examId);
+            return job;
+        }
+    }
+
+    public RegradeJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    /**
+     * The running job of an exam, or else its most recent finished one
+     */
+    public RegradeJob getLatestJob(Long examId) {
+        RegradeJob active = activeJobs.get(examId);
+        if (active != null) {
+            return active;
+        }
+        RegradeJob latest = null;
+        for (RegradeJob job : jobs.values()) {
+            if (job.examId.equals(examId) && (latest == null || job.createdAt.isAfter(latest.createdAt))) {
+                latest = job;
+            }
+        }
+        return latest;
+    }
+
+    private void run(RegradeJob job) {
+        job.state = JobState.RUNNING;
+        job.startedAt = LocalDateTime.now();
+        long started = System.nanoTime();
+        try {
+            ExamSnapshot snapshot = examSnapshotCache.loadFresh(job.examId);
+            if (snapshot == null) {
+                throw new IllegalStateException("Exam not found: " + job.examId);
+            }
+            streamAndScore(job, snapshot.getAnswerKey());
+            job.state = JobState.COMPLETED;
+            logger.info("Regrade job {} for exam {} done in {} ms: {} scanned, {} updated, {} failed",
+                    job.id, job.examId, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started),
+                    job.scanned.get(), job.updated.get(), job.failed.get());
+        } catch (Exception e) {
+            job.state = JobState.FAILED;
+            job.error = e.getMessage();
+            logger.error("Regrade job {} for exam {} failed", job.id, job.examId, e);
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            finish(job);
+        }
+    }
+
+    private void finish(RegradeJob job) {
+        synchronized (activeJobs) {
+            activeJobs.remove(job.examId, job);
+            if (job.rerunRequested) {
+                regrade(job.examId);
+            }
+        }
+    }
+
+    private void streamAndScore(RegradeJob job, AnswerKey answerKey) throws InterruptedException {
+        int maxInFlight = scoringPool.getParallelism() * 2;
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        List<StoredResult> chunk = new ArrayList<>(chunkSize);
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SELECT_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            // MySQL streams rows one by one with this fetch size instead of buffering the whole exam
+            ps.setFetchSize(Integer.MIN_VALUE);
+            ps.setLong(1, job.examId);
+            return ps;
+        }, rs -> {
+            chunk.add(new StoredResult(rs.getLong("id"), rs.getLong("user_id"), rs.getString("answers"),
+                    rs.getDouble("score"), rs.getBoolean("passed"), rs.getString("feedback")));
+            job.scanned.incrementAndGet();
+            if (chunk.size() >= chunkSize) {
+                dispatch(job, answerKey, new ArrayList<>(chunk), inFlight);
+                chunk.clear();
+            }
+        });
+        if (!chunk.isEmpty()) {
+            dispatch(job, answerKey, new ArrayList<>(chunk), inFlight);
+        }
+
+        // Every permit back means every chunk has been written
+        inFlight.acquire(maxInFlight);
+        inFlight.release(maxInFlight);
+    }
+
+    private void dispatch(RegradeJob job, AnswerKey answerKey, List<StoredResult> rows, Semaphore inFlight) {
+        inFlight.acquireUninterruptibly();
+        try {
+            scoringPool.execute(() -> {
+                try {
+                    scoreChunk(job, answerKey, rows);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    private void scoreChunk(RegradeJob job, AnswerKey answerKey, List<StoredResult> rows) {
+        double totalMarks = answerKey.getTotalMarks();
+        List<Object[]> updates = new ArrayList<>();
+        List<StoredResult> rescoredRows = new ArrayList<>();
+        List<Double> rescoredScores = new ArrayList<>();
+        for (StoredResult row : rows) {
+            Map<String, String> answers = parseAnswers(row.answers);
+            if (answers == null) {
+                job.failed.incrementAndGet();
+                continue;
+            }
+            double score = answerKey.totalScore(answers);
+            boolean passed = ResultGrader.isPassed(score, totalMarks);
+            String feedback = ResultGrader.feedback(score, totalMarks, passed);
+            if (score != row.score || passed != row.passed || !feedback.equals(row.feedback)) {
+                updates.add(new Object[]{score, passed, feedback, row.id});
+                if (score != row.score) {
+                    rescoredRows.add(row);
+                    rescoredScores.add(score);
+                }
+            }
+        }
+        try {
+            if (!updates.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPDATE_SQL, updates));
+            }
+            for (int i = 0; i < rescoredRows.size(); i++) {
+                StoredResult row = rescoredRows.get(i);
+                double score = rescoredScores.get(i);
+                leaderboardService.record(job.examId, row.userId, row.id, score);
+                globalRankingService.changeScore(row.userId, row.score, score);
+            }
+            job.rescored.addAndGet(rows.size());
+            job.updated.addAndGet(updates.size());
+        } catch (Exception e) {
+            logger.error("Regrade job {} failed to write a chunk of {} results", job.id, rows.size(), e);
+            job.failed.addAndGet(rows.size());
+            job.error = e.getMessage();
+        }
+    }
+
+    private Map<String, String> parseAnswers(String answersJson) {
+        if (answersJson == null || answersJson.isBlank()) {
+            return Map.of();
+        }
+        try {
+            return ANSWERS_READER.readValue(answersJson);
+        } catch (Exception e) {
+            // Not valid JSON, so written in the old format
+        }
+        try {
+            return LEGACY_ANSWERS_READER.readValue(escapeLegacyBackslashes(answersJson));
+        } catch (Exception e) {
+            logger.debug("Unparseable stored answers: {}", answersJson);
+            return null;
+        }
+    }
+
+    /**
+     * In the old format a backslash is a literal character unless it escapes a quote. Rows of
+     * that format that are also valid JSON were read as JSON above, and a text answer ending in a
+     * backslash cannot be told apart from an escaped quote, so it stays unreadable.
+     */
+    static String escapeLegacyBackslashes(String answersJson) {
+        StringBuilder escaped = new StringBuilder(answersJson.length() + 16);
+        for (int i = 0; i < answersJson.length(); i++) {
+            char c = answersJson.charAt(i);
+            if (c == '\\' && (i + 1 >= answersJson.length() || answersJson.charAt(i + 1) != '"')) {
+                escaped.append('\\');
+            } else if (c == '\\') {
+                escaped.append(c).append('"');
+                i++;
+                continue;
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    private void pruneFinishedJobs() {
+        if (jobs.size() <= MAX_FINISHED_JOBS) {
+            return;
+        }
+        jobs.values().stream()
+                .filter(job -> job.finishedAt != null)
+                .sorted((a, b) -> a.finishedAt.compareTo(b.finishedAt))
+                .limit(jobs.size() - MAX_FINISHED_JOBS)
+                .map(job -> job.id)
+                .toList()
+                .forEach(jobs::remove);
+    }
+
+    private static final class StoredResult {
+        final long id;
+        final long userId;
+        final String answers;
+        final double score;
+        final boolean passed;
+        final String feedback;
+
+        StoredResult(long id, long userId, String answers, double score, boolean passed, String feedback) {
+            this.id = id;
+            this.userId = userId;
+            this.answers = answers;
+            this.score = score;
+            this.passed = passed;
+            this.feedback = feedback;
+        }
+    }
+
+    /**
+     * Progress of one re-grade run
+     */
+    public static final class RegradeJob {
+        private final String id = UUID.randomUUID().toString();
+        private final Long examId;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private final AtomicLong scanned = new AtomicLong();
+        private final AtomicLong rescored = new AtomicLong();
+        private final AtomicLong updated = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private volatile JobState state = JobState.QUEUED;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+        private volatile boolean rerunRequested;
+
+        RegradeJob(Long examId) {
+            this.examId = examId;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public JobState getState() {
+            return state;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> status = new HashMap<>();
+            status.put("jobId", id);
+            status.put("examId", examId);
+            status.put("state", state.name());
+            status.put("scanned", scanned.get());
+            status.put("rescored", rescored.get());
+            status.put("updated", updated.get());
+            status.put("failed", failed.get());
+            status.put("createdAt", createdAt);
+            status.put("startedAt", startedAt);
+            status.put("finishedAt", finishedAt);
+            status.put("rerunQueued", rerunRequested);
+            if (error != null) {
+                status.put("error", error);
+            }
+            return status;
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package com.ExamPort.ExamPort.Service;
+
+import com.ExamPort.ExamPort.Entity.Result;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Group-commit writer for exam results.
+ *
+ * Submissions are queued and a single writer thread flushes them in JDBC batches, either when
+ * app.result-writer.max-batch-size rows are waiting or app.result-writer.max-delay-ms after the
+ * first row of the batch arrived. Each batch is one duplicate check query plus one batched insert
+ * in a single transaction. A submission's receipt completes only after its batch has committed.
+ *
+ * A user can hold one result per exam, enforced by the uk_result_user_exam constraint. A repeated
+ * submit that carries the idempotency key of the stored result is answered with that result;
+ * any other repeated submit is reported as already submitted.
+ */
+@Service
+public class ResultBatchWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResultBatchWriter.class);
+
+    private static final String INSERT_SQL = "INSERT INTO result (id, answers, attempt_date, exam_exam_id, feedback, passed, score, time_taken, user_id, idempotency_key) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    /** What happened to a queued result once its batch committed. */
+    public enum Outcome {
+        SAVED,
+        REPLAYED,
+        ALREADY_SUBMITTED
+    }
+
+    /**
+     * Durable receipt of a submission. The result is the stored one: the submitted result when
+     * it was saved, the original result when the submit was replayed or rejected as a repeat.
+     */
+    public static final class Receipt {
+        private final Outcome outcome;
+        private final Result result;
+
+        Receipt(Outcome outcome, Result result) {
+            this.outcome = outcome;
+            this.result = result;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        public Result getResult() {
+            return result;
+        }
+    }
+
+    /**
+     * The receipt did not arrive in time. The result is still queued or in a batch that may yet
+     * commit, so the submit must be retried with the same idempotency key rather than reported as failed.
+     */
+    public static final class ReceiptTimeoutException extends RuntimeException {
+        ReceiptTimeoutException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    @Value("${app.result-writer.max-batch-size:500}")
+    private int maxBatchSize;
+
+    @Value("${app.result-writer.max-delay-ms:5}")
+    private long maxDelayMs;
+
+    @Value("${app.result-writer.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.result-writer.receipt-timeout-ms:10000}")
+    private long receiptTimeoutMs;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private GlobalRankingService globalRankingService;
+
+    @Autowired
+    private LiveUpdateService liveUpdateService;
+
+    private TransactionTemplate transactionTemplate;
+    private BlockingQueue<PendingResult> queue;
+    private Thread writerThread;
+    private volatile boolean running;
+
+    @PostConstruct
+    void start() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        queue = new LinkedBlockingQueue<>(queueCapacity);
+        running = true;
+        writerThread = new Thread(this::runLoop, "result-batch-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        logger.info("Result batch writer started: max batch {} rows, max delay {} ms", maxBatchSize, maxDelayMs);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        writerThread.interrupt();
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Result batch writer stopped, {} results left unwritten", queue.size());
+    }
+
+    /**
+     * Queue a result for the next batch. The future completes once the batch has committed.
+     */
+    public CompletableFuture<Receipt> submit(Result result) {
+        PendingResult pending = new PendingResult(result);
+        if (!running || !queue.offer(pending)) {
+            logger.warn("Result queue is full, rejecting result for user {} and exam {}", result.getUserId(), result.getExamExamId());
+            pending.future.completeExceptionally(new IllegalStateException("Too many submissions right now, please retry"));
+        }
+        return pending.future;
+    }
+
+    /**
+     * Queue a result and wait for its durable receipt. Throws {@link ReceiptTimeoutException}
+     * when the receipt does not arrive within app.result-writer.receipt-timeout-ms.
+     */
+    public Receipt write(Result result) {
+        try {
+            return submit(result).get(receiptTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while saving result", e);
+        } catch (TimeoutException e) {
+            throw new ReceiptTimeoutException("Result is still being saved", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("Failed to save result", cause);
+        }
+    }
+
+    private void runLoop() {
+        List<PendingResult> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                collect(batch);
+            } catch (InterruptedException e) {
+                // Shutdown: flush whatever was collected, the loop drains the rest
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void collect(List<PendingResult> batch) throws InterruptedException {
+        PendingResult first = running ? queue.poll(100, TimeUnit.MILLISECONDS) : queue.poll();
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+        while (batch.size() < maxBatchSize) {
+            queue.drainTo(batch, maxBatchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= maxBatchSize || remaining <= 0 || !running) {
+                return;
+            }
+            PendingResult next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<PendingResult> batch) {
+        long started = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> writeBatch(batch));
+        } catch (Exception e) {
+            // One bad row must not fail everyone else in the batch
+            logger.warn("Batch of {} results failed, retrying one by one", batch.size(), e);
+            for (PendingResult pending : batch) {
+                try {
+                    writeSingle(pending);
+                } catch (Exception rowError) {
+                    logger.error("Failed to save result for user {} and exam {}", pending.result.getUserId(), pending.result.getExamExamId(), rowError);
+                    pending.future.completeExceptionally(rowError);
+                    continue;
+                }
+                complete(pending);
+            }
+            return;
+        }
+        batch.forEach(this::complete);
+        logger.debug("Flushed {} results in {} ms", batch.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    // The result is committed: the receipt only depends on that, rankings and live updates are best effort
+    private void complete(PendingResult pending) {
+        if (pending.outcome == Outcome.SAVED) {
+            Result result = pending.result;
+            try {
+                leaderboardService.record(result.getExamExamId(), result.getUserId(), result.getId(), result.getScore());
+                globalRankingService.addResult(result.getUserId(), result.getScore());
+                liveUpdateService.resultAvailable(result);
+            } catch (RuntimeException e) {
+                logger.error("Result {} saved, but rankings or live updates could not be updated", result.getId(), e);
+            }
+        }
+        pending.complete();
+    }
+
+    private void writeSingle(PendingResult pending) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> writeBatch(List.of(pending)));
+        } catch (DuplicateKeyException e) {
+            // Another node stored this user's result between our check and insert, report against it
+            logger.info("Concurrent submit detected for user {} and exam {}", pending.result.getUserId(), pending.result.getExamExamId());
+            transactionTemplate.executeWithoutResult(status -> writeBatch(List.of(pending)));
+        }
+    }
+
+    private void writeBatch(List<PendingResult> batch) {
+        Map<String, Result> stored = findExistingSubmissions(batch);
+
+        List<PendingResult> toInsert = new ArrayList<>(batch.size());
+        for (PendingResult pending : batch) {
+            Result submitted = pending.result;
+            // The map also holds results inserted earlier in this batch, so a double submit within one batch is caught too
+            Result original = stored.putIfAbsent(submissionKey(submitted.getUserId(), submitted.getExamExamId()), submitted);
+            if (original == null) {
+                pending.outcome = Outcome.SAVED;
+                pending.stored = submitted;
+                toInsert.add(pending);
+            } else if (submitted.getIdempotencyKey() != null && Objects.equals(submitted.getIdempotencyKey(), original.getIdempotencyKey())) {
+                pending.outcome = Outcome.REPLAYED;
+                pending.stored = original;
+            } else {
+                pending.outcome = Outcome.ALREADY_SUBMITTED;
+                pending.stored = original;
+            }
+        }
+        if (toInsert.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Result result = toInsert.get(i).result;
+                ps.setLong(1, result.getId());
+                ps.setString(2, result.getAnswers());
+                ps.setTimestamp(3, Timestamp.valueOf(result.getAttemptDate()));
+                ps.setLong(4, result.getExamExamId());
+                ps.setString(5, result.getFeedback());
+                ps.setBoolean(6, result.getPassed());
+                ps.setDouble(7, result.getScore());
+                ps.setInt(8, result.getTimeTaken());
+                ps.setLong(9, result.getUserId());
+                ps.setString(10, result.getIdempotencyKey());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return toInsert.size();
+            }
+        });
+    }
+
+    private Map<String, Result> findExistingSubmissions(List<PendingResult> batch) {
+        StringBuilder sql = new StringBuilder("SELECT id, answers, attempt_date, exam_exam_id, feedback, passed, score, time_taken, user_id, idempotency_key FROM result WHERE (user_id, exam_exam_id) IN (");
+        Object[] args = new Object[batch.size() * 2];
+        for (int i = 0; i < batch.size(); i++) {
+            sql.append(i == 0 ? "(?, ?)" : ", (?, ?)");
+            args[i * 2] = batch.get(i).result.getUserId();
+            args[i * 2 + 1] = batch.get(i).result.getExamExamId();
+        }
+        sql.append(")");
+
+        Map<String, Result> existing = new HashMap<>();
+        jdbcTemplate.query(sql.toString(), rs -> {
+            Result result = new Result();
+            result.setId(rs.getLong("id"));
+            result.setAnswers(rs.getString("answers"));
+            Timestamp attemptDate = rs.getTimestamp("attempt_date");
+            result.setAttemptDate(attemptDate != null ? attemptDate.toLocalDateTime() : null);
+            result.setExamExamId(rs.getLong("exam_exam_id"));
+            result.setFeedback(rs.getString("feedback"));
+            result.setPassed(rs.getBoolean("passed"));
+            result.setScore(rs.getDouble("score"));
+            result.setTimeTaken(rs.getInt("time_taken"));
+            result.setUserId(rs.getLong("user_id"));
+            result.setIdempotencyKey(rs.getString("idempotency_key"));
+            existing.put(submissionKey(result.getUserId(), result.getExamExamId()), result);
+        }, args);
+        return existing;
+    }
+
+    private static String submissionKey(long userId, long examId) {
+        return userId + ":" + examId;
+    }
+
+    private static final class PendingResult {
+        final Result result;
+        final CompletableFuture<Receipt> future = new CompletableFuture<>();
+        Outcome outcome;
+        Result stored;
+
+        PendingResult(Result result) {
+            this.result = result;
+        }
+
+        void complete() {
+            future.complete(new Receipt(outcome, stored));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.ExamPort.ExamPort.Service;
+
+/**
+ * Pass/fail rule and feedback text of a result, shared by submission and re-grading
+ * so a re-graded result reads exactly like a freshly submitted one.
+ */
+public final class ResultGrader {
+
+    /** Passing threshold as a fraction of total marks */
+    public static final double PASS_THRESHOLD = 0.6;
+
+    private ResultGrader() {
+        // Utility class
+    }
+
+    public static boolean isPassed(double score, double totalMarks) {
+        return totalMarks > 0 && (score / totalMarks) >= PASS_THRESHOLD;
+    }
+
+    public static String feedback(double score, double totalMarks, boolean passed) {
+        if (totalMarks == 0) {
+            return "Exam completed. Manual review required.";
+        }
+
+        double percentage = (score / totalMarks) * 100;
+
+        StringBuilder feedback = new StringBuilder();
+        feedback.append(String.format("You scored %.1f out of %.1f marks (%.1f%%). ", score, totalMarks, percentage));
+
+        if (passed) {
+            if (percentage >= 90) {
+                feedback.append("Excellent work! Outstanding performance.");
+            } else if (percentage >= 80) {
+                feedback.append("Great job! Very good performance.");
+            } else if (percentage >= 70) {
+                feedback.append("Good work! Solid performance.");
+            } else {
+                feedback.append("You passed! Keep up the good work.");
+            }
+        } else {
+            feedback.append("You did not meet the passing criteria (60%). Please review the material and try again.");
+        }
+
+        return feedback.toString();
+    }
+}
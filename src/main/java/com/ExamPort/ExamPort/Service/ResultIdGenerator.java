@@ -0,0 +1,60 @@
+package com.ExamPort.ExamPort.Service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Generates result ids without a database round-trip.
+ *
+ * An id is [40 bits milliseconds since 2024-01-01][5 bits node][8 bits sequence], so ids are
+ * unique across nodes as long as every node has its own app.node-id (0-31), and increase
+ * monotonically on each node. The layout stays within 53 bits so ids survive the JSON numbers
+ * the frontend parses. If the sequence runs out within a millisecond, or the wall clock steps
+ * back, the generator keeps counting on its own logical clock instead of waiting.
+ */
+@Service
+public class ResultIdGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResultIdGenerator.class);
+
+    /** 2024-01-01T00:00:00Z */
+    private static final long EPOCH_MS = 1704067200000L;
+
+    private static final int NODE_BITS = 5;
+    private static final int SEQUENCE_BITS = 8;
+    private static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    @Value("${app.node-id:0}")
+    private long nodeId;
+
+    private long lastTimestamp = -1L;
+    private long sequence = 0L;
+
+    @PostConstruct
+    void init() {
+        if (nodeId < 0 || nodeId > MAX_NODE) {
+            throw new IllegalStateException("app.node-id must be between 0 and " + MAX_NODE + ", got " + nodeId);
+        }
+        logger.info("Result id generator initialized for node {}", nodeId);
+    }
+
+    public synchronized long nextId() {
+        long timestamp = System.currentTimeMillis() - EPOCH_MS;
+        if (timestamp > lastTimestamp) {
+            lastTimestamp = timestamp;
+            sequence = 0L;
+        } else {
+            // Same millisecond, or the clock went back: stay on the logical clock
+            sequence = (sequence + 1) & SEQUENCE_MASK;
+            if (sequence == 0L) {
+                lastTimestamp++;
+            }
+        }
+        return (lastTimestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+    }
+}
@@ -0,0 +1,463 @@
+package com.ExamPort.ExamPort.Service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Imports private course rosters (one email per line, extra CSV columns ignored).
+ *
+ * The file is streamed and handled in chunks of app.roster-import.chunk-size emails: each chunk
+ * is validated, added to the course members, resolved to users with one IN query and the
+ * missing enrollments are inserted with one JDBC batch. Invalid and repeated lines are counted
+ * in the import report instead of failing the upload.
+ *
+ * Files above app.roster-import.async-threshold-bytes are copied to a temporary file and
+ * imported by a background job once the course is committed, one transaction per chunk.
+ */
+@Service
+public class RosterImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RosterImportService.class);
+
+    private static final String INSERT_ENROLLMENT_SQL =
+            "INSERT INTO enrollments (student_id, course_id, enrollment_date, status, created_at, updated_at) VALUES (?, ?, ?, 'ENROLLED', ?, ?)";
+
+    /** Finished jobs kept for the status endpoint */
+    private static final int MAX_FINISHED_JOBS = 100;
+
+    /** Invalid lines listed in a report, the rest are only counted */
+    private static final int MAX_INVALID_SAMPLES = 100;
+
+    public enum Mode {
+        /** Add the file's emails to the existing members */
+        ADD,
+        /** Make the file's emails the only members */
+        REPLACE
+    }
+
+    public enum JobState {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    @Value("${app.roster-import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${app.roster-import.async-threshold-bytes:262144}")
+    private long asyncThresholdBytes;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CourseMembershipService courseMembershipService;
+
+    @Autowired
+    private ExamAccessIndex examAccessIndex;
+
+    @Autowired
+    private EnrollmentCountService enrollmentCountService;
+
+    @Autowired
+    private ValidationService validationService;
+
+    @Autowired
+    private PendingEnrollmentService pendingEnrollmentService;
+
+    private TransactionTemplate transactionTemplate;
+    private ExecutorService importPool;
+
+    private final Map<String, RosterImportJob> jobs = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        importPool = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "roster-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        importPool.shutdownNow();
+    }
+
+    /**
+     * Whether an upload is large enough to be imported by a background job
+     */
+    public boolean runsInBackground(MultipartFile file) {
+        return file.getSize() > asyncThresholdBytes;
+    }
+
+    /**
+     * Import a roster within the caller's transaction
+     */
+    public RosterImportReport importNow(Long courseId, InputStream input, Mode mode) throws IOException {
+        RosterImportReport report = new RosterImportReport();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            process(courseId, reader, mode, report, Runnable::run);
+        }
+        logger.info("Roster import for course {}: {}", courseId, report.toMap());
+        return report;
+    }
+
+    /**
+     * Import a roster in the background. Inside a transaction the job starts once it commits.
+     */
+    public RosterImportJob importInBackground(Long courseId, MultipartFile file, Mode mode) throws IOException {
+        Path copy = Files.createTempFile("roster-" + courseId + "-", ".csv");
+        file.transferTo(copy);
+        RosterImportJob job = new RosterImportJob(courseId, mode);
+        jobs.put(job.id, job);
+        pruneFinishedJobs();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        importPool.execute(() -> run(job, copy));
+                    } else {
+                        job.fail("Course changes were not saved");
+                        deleteQuietly(copy);
+                    }
+                }
+            });
+        } else {
+            importPool.execute(() -> run(job, copy));
+        }
+        logger.info("Roster import job {} queued for course {} ({} bytes)", job.id, courseId, file.getSize());
+        return job;
+    }
+
+    /**
+     * Enroll every registered user among a course's members who is not enrolled yet. Returns how many were enrolled.
+     */
+    public int enrollMembers(Long courseId) {
+        return enrollMembers(courseId, courseMembershipService.emailsOf(courseId));
+    }
+
+    /**
+     * Enroll the registered users among some of a course's member emails. Returns how many were enrolled.
+     */
+    public int enrollMembers(Long courseId, List<String> emails) {
+        Set<String> normalized = new LinkedHashSet<>();
+        for (String email : emails) {
+            String value = CourseMembershipService.normalize(email);
+            if (value != null && !value.isEmpty()) {
+                normalized.add(value);
+            }
+        }
+        List<String> members = new ArrayList<>(normalized);
+        RosterImportReport report = new RosterImportReport();
+        for (int from = 0; from < members.size(); from += chunkSize) {
+            enrollChunk(courseId, members.subList(from, Math.min(members.size(), from + chunkSize)), report);
+        }
+        return (int) report.enrollmentsCreated.get();
+    }
+
+    public RosterImportJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    private void run(RosterImportJob job, Path file) {
+        job.state = JobState.RUNNING;
+        job.startedAt = LocalDateTime.now();
+        long started = System.nanoTime();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            process(job.courseId, reader, job.mode, job.report,
+                    chunk -> transactionTemplate.executeWithoutResult(status -> chunk.run()));
+            job.state = JobState.COMPLETED;
+            logger.info("Roster import job {} for course {} done in {} ms: {}", job.id, job.courseId,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), job.report.toMap());
+        } catch (Exception e) {
+            job.fail(e.getMessage());
+            logger.error("Roster import job {} for course {} failed", job.id, job.courseId, e);
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            deleteQuietly(file);
+        }
+    }
+
+    /**
+     * Stream the roster, handing each chunk of new emails to chunkRunner for writing
+     */
+    private void process(Long courseId, BufferedReader reader, Mode mode, RosterImportReport report,
+                         Consumer<Runnable> chunkRunner) throws IOException {
+        Set<String> seen = new HashSet<>();
+        List<String> chunk = new ArrayList<>(chunkSize);
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            String value = firstField(line);
+            if (value.isEmpty() || (lineNumber == 1 && value.equalsIgnoreCase("email"))) {
+                continue;
+            }
+            report.lines.incrementAndGet();
+            if (value.length() > 100 || !validationService.isValidEmail(value)) {
+                report.invalid(lineNumber, value);
+                continue;
+            }
+            String email = CourseMembershipService.normalize(value);
+            if (!seen.add(email)) {
+                report.duplicates.incrementAndGet();
+                continue;
+            }
+            chunk.add(email);
+            if (chunk.size() >= chunkSize) {
+                List<String> emails = new ArrayList<>(chunk);
+                chunkRunner.accept(() -> writeChunk(courseId, emails, report));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunkRunner.accept(() -> writeChunk(courseId, chunk, report));
+        }
+        if (mode == Mode.REPLACE) {
+            chunkRunner.accept(() -> {
+                List<String> stale = new ArrayList<>();
+                for (String member : courseMembershipService.emailsOf(courseId)) {
+                    if (!seen.contains(member)) {
+                        stale.add(member);
+                    }
+                }
+                report.membersRemoved.addAndGet(courseMembershipService.removeMembers(courseId, stale));
+            });
+        }
+    }
+
+    private void writeChunk(Long courseId, List<String> emails, RosterImportReport report) {
+        report.validEmails.addAndGet(emails.size());
+        report.membersAdded.addAndGet(courseMembershipService.addMembers(courseId, emails));
+        enrollChunk(courseId, emails, report);
+    }
+
+    /**
+     * Resolve a chunk of normalized emails to users and insert the enrollments they are missing
+     */
+    private void enrollChunk(Long courseId, List<String> emails, RosterImportReport report) {
+        if (emails.isEmpty()) {
+            return;
+        }
+        List<Long> userIds = new ArrayList<>();
+        Set<String> unmatched = new HashSet<>(emails);
+        jdbcTemplate.query("SELECT id, email FROM users WHERE email IN (" + placeholders(emails.size()) + ")",
+                rs -> {
+                    userIds.add(rs.getLong("id"));
+                    unmatched.remove(CourseMembershipService.normalize(rs.getString("email")));
+                }, emails.toArray());
+        report.matchedUsers.addAndGet(userIds.size());
+        report.unmatchedEmails.addAndGet(unmatched.size());
+        // Emails without an account are enrolled when they register
+        pendingEnrollmentService.track(courseId, unmatched);
+        if (userIds.isEmpty()) {
+            return;
+        }
+
+        List<Object> params = new ArrayList<>(userIds.size() + 1);
+        params.add(courseId);
+        params.addAll(userIds);
+        Set<Long> enrolled = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT student_id FROM enrollments WHERE course_id = ? AND student_id IN (" + placeholders(userIds.size()) + ")",
+                Long.class, params.toArray()));
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>();
+        List<Long> newlyEnrolled = new ArrayList<>();
+        for (Long userId : userIds) {
+            if (!enrolled.contains(userId)) {
+                rows.add(new Object[]{userId, courseId, now, now, now});
+                newlyEnrolled.add(userId);
+            }
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_ENROLLMENT_SQL, rows);
+            newlyEnrolled.forEach(userId -> examAccessIndex.enrolled(userId, courseId));
+            enrollmentCountService.changed(courseId);
+            report.enrollmentsCreated.addAndGet(rows.size());
+        }
+    }
+
+    private static String firstField(String line) {
+        int comma = line.indexOf(',');
+        String value = (comma >= 0 ? line.substring(0, comma) : line).trim();
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1).trim();
+        }
+        // Byte order mark left by spreadsheet exports
+        return value.startsWith("\uFEFF") ? value.substring(1).trim() : value;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete roster upload copy {}", file);
+        }
+    }
+
+    private void pruneFinishedJobs() {
+        if (jobs.size() <= MAX_FINISHED_JOBS) {
+            return;
+        }
+        jobs.values().stream()
+                .filter(job -> job.finishedAt != null)
+                .sorted((a, b) -> a.finishedAt.compareTo(b.finishedAt))
+                .limit(jobs.size() - MAX_FINISHED_JOBS)
+                .map(job -> job.id)
+                .toList()
+                .forEach(jobs::remove);
+    }
+
+    /**
+     * Counts of one roster import
+     */
+    public static final class RosterImportReport {
+        private final AtomicLong lines = new AtomicLong();
+        private final AtomicLong validEmails = new AtomicLong();
+        private final AtomicLong invalidLines = new AtomicLong();
+        private final AtomicLong duplicates = new AtomicLong();
+        private final AtomicLong membersAdded = new AtomicLong();
+        private final AtomicLong membersRemoved = new AtomicLong();
+        private final AtomicLong matchedUsers = new AtomicLong();
+        private final AtomicLong unmatchedEmails = new AtomicLong();
+        private final AtomicLong enrollmentsCreated = new AtomicLong();
+        private final List<Map<String, Object>> invalidSamples = Collections.synchronizedList(new ArrayList<>());
+
+        void invalid(int lineNumber, String value) {
+            invalidLines.incrementAndGet();
+            if (invalidSamples.size() < MAX_INVALID_SAMPLES) {
+                invalidSamples.add(Map.of("line", lineNumber, "value", value.length() > 100 ? value.substring(0, 100) : value));
+            }
+        }
+
+        public long getEnrollmentsCreated() {
+            return enrollmentsCreated.get();
+        }
+
+        public long getValidEmails() {
+            return validEmails.get();
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> report = new HashMap<>();
+            report.put("lines", lines.get());
+            report.put("validEmails", validEmails.get());
+            report.put("invalidLines", invalidLines.get());
+            report.put("duplicateLines", duplicates.get());
+            report.put("membersAdded", membersAdded.get());
+            report.put("membersRemoved", membersRemoved.get());
+            report.put("matchedUsers", matchedUsers.get());
+            report.put("unregisteredEmails", unmatchedEmails.get());
+            report.put("enrollmentsCreated", enrollmentsCreated.get());
+            synchronized (invalidSamples) {
+                report.put("invalid", new ArrayList<>(invalidSamples));
+            }
+            return report;
+        }
+    }
+
+    /**
+     * Progress of one background roster import
+     */
+    public static final class RosterImportJob {
+        private final String id = UUID.randomUUID().toString();
+        private final Long courseId;
+        private final Mode mode;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private final RosterImportReport report = new RosterImportReport();
+        private volatile JobState state = JobState.QUEUED;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+
+        RosterImportJob(Long courseId, Mode mode) {
+            this.courseId = courseId;
+            this.mode = mode;
+        }
+
+        void fail(String message) {
+            state = JobState.FAILED;
+            error = message;
+            if (finishedAt == null) {
+                finishedAt = LocalDateTime.now();
+            }
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public Long getCourseId() {
+            return courseId;
+        }
+
+        public JobState getState() {
+            return state;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> status = new HashMap<>();
+            status.put("jobId", id);
+            status.put("courseId", courseId);
+            status.put("mode", mode.name());
+            status.put("state", state.name());
+            status.put("report", report.toMap());
+            status.put("createdAt", createdAt);
+            status.put("startedAt", startedAt);
+            status.put("finishedAt", finishedAt);
+            if (error != null) {
+                status.put("error", error);
+            }
+            return status;
+        }
+    }
+}
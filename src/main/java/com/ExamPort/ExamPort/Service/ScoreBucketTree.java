@@ -0,0 +1,87 @@
+package com.ExamPort.ExamPort.Service;
+
+/**
+ * Fenwick tree counting scores per bucket of one hundredth, used by the rankings.
+ *
+ * Counting, prefix sums and finding the bucket of the k-th smallest score are O(log buckets)
+ * and do not allocate. The bucket range doubles when a higher score shows up.
+ */
+final class ScoreBucketTree {
+
+    private static final int INITIAL_CAPACITY = 1 << 12;
+
+    private long[] tree = new long[INITIAL_CAPACITY + 1];
+    private long[] counts = new long[INITIAL_CAPACITY];
+    private int capacity = INITIAL_CAPACITY;
+    private long total;
+
+    static int bucketOf(double score) {
+        return (int) Math.max(0, Math.round(score * 100.0));
+    }
+
+    long total() {
+        return total;
+    }
+
+    void add(int bucket, long delta) {
+        ensureCapacity(bucket);
+        counts[bucket] += delta;
+        total += delta;
+        for (int i = bucket + 1; i <= capacity; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /** Scores in buckets 0..bucket */
+    long prefix(int bucket) {
+        long sum = 0;
+        for (int i = Math.min(bucket, capacity - 1) + 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /** Scores in a strictly higher bucket */
+    long higherThan(int bucket) {
+        return total - prefix(bucket);
+    }
+
+    /** Bucket holding the index-th smallest score (0 based) */
+    int findAscending(long index) {
+        int position = 0;
+        long remaining = index + 1;
+        for (int step = Integer.highestOneBit(capacity); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next <= capacity && tree[next] < remaining) {
+                position = next;
+                remaining -= tree[next];
+            }
+        }
+        // position is the number of buckets fully below the target, i.e. the target bucket
+        return position;
+    }
+
+    private void ensureCapacity(int bucket) {
+        if (bucket < capacity) {
+            return;
+        }
+        int newCapacity = capacity;
+        while (newCapacity <= bucket) {
+            newCapacity <<= 1;
+        }
+        long[] newCounts = new long[newCapacity];
+        System.arraycopy(counts, 0, newCounts, 0, capacity);
+        long[] newTree = new long[newCapacity + 1];
+        // Linear Fenwick build from the per-bucket counts
+        for (int i = 1; i <= newCapacity; i++) {
+            newTree[i] += newCounts[i - 1];
+            int parent = i + (i & -i);
+            if (parent <= newCapacity) {
+                newTree[parent] += newTree[i];
+            }
+        }
+        counts = newCounts;
+        tree = newTree;
+        capacity = newCapacity;
+    }
+}
@@ -1,6 +1,7 @@
 package com.ExamPort.ExamPort.Service;
 
 import java.util.List;
+import java.util.Objects;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,6 +23,18 @@ public class TaskService {
 	Exam_repo exam;
 	@Autowired
 	QuestionRepository questionRepository;
+	@Autowired
+	ExamSnapshotCache examSnapshotCache;
+	@Autowired
+	RegradeService regradeService;
+	@Autowired
+	LeaderboardService leaderboardService;
+	@Autowired
+	ExamAccessIndex examAccessIndex;
+	@Autowired
+	ExamScheduleIndex examScheduleIndex;
+	@Autowired
+	LiveUpdateService liveUpdateService;
 
 	public void AddExam(Exam e) {
         logger.info("Adding new exam: {}", e.getTitle());
@@ -43,7 +56,9 @@ public class TaskService {
                 }
             }
             
-            exam.save(e);
+            Exam savedExam = exam.save(e);
+            examAccessIndex.examSaved(savedExam.getExam_id(), savedExam.getCourse() != null ? savedExam.getCourse().getId() : null);
+            examScheduleIndex.examSaved(savedExam);
             logger.info("Exam saved successfully: {} with {} questions", e.getTitle(), 
                        e.getQuestions() != null ? e.getQuestions().size() : 0);
         } catch (Exception ex) {
@@ -78,6 +93,10 @@ public class TaskService {
         try {
             if (exam.existsById(id)) {
                 exam.deleteById(id);
+                examSnapshotCache.invalidate(id);
+                leaderboardService.removeExam(id);
+                examAccessIndex.examDeleted(id);
+                examScheduleIndex.examDeleted(id);
                 logger.info("Exam deleted successfully with ID: {}", id);
             } else {
                 logger.warn("Attempted to delete non-existent exam with ID: {}", id);
@@ -107,7 +126,23 @@ public class TaskService {
                 }
             }
             
+            // Answer key as students were graded against, to spot a changed key after saving
+            ExamSnapshot before = examSnapshotCache.get(e.getExam_id());
+            
             Exam savedExam = exam.save(e);
+            examSnapshotCache.invalidate(savedExam.getExam_id());
+            examAccessIndex.examSaved(savedExam.getExam_id(), savedExam.getCourse() != null ? savedExam.getCourse().getId() : null);
+            examScheduleIndex.examSaved(savedExam);
+            
+            if (before != null && (!Objects.equals(before.getExam().getStartAt(), savedExam.getStartAt())
+                    || !Objects.equals(before.getExam().getEndAt(), savedExam.getEndAt()))) {
+                liveUpdateService.examRescheduled(savedExam);
+            }
+            
+            if (before != null && !before.getAnswerKey().sameScoringAs(AnswerKey.compile(savedExam))) {
+                logger.info("Answer key of exam {} changed, stored results will be re-graded", savedExam.getExam_id());
+                regradeService.regradeAfterCommit(savedExam.getExam_id());
+            }
             logger.info("Exam updated successfully: {} with {} questions", savedExam.getTitle(), 
                        savedExam.getQuestions() != null ? savedExam.getQuestions().size() : 0);
             return savedExam;
@@ -0,0 +1,83 @@
+package com.ExamPort.ExamPort.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Hashed timing wheel: deadlines hashed into a ring of buckets by tick.
+ *
+ * Scheduling is O(1) and advancing one tick only looks at one bucket, so tens of thousands of
+ * deadlines cost one periodic task instead of one scheduled task each. An entry whose deadline
+ * is more than one turn of the wheel away stays in its bucket until the wheel comes round to it
+ * on the right turn. Cancelled items are not removed; callers skip them when they expire.
+ */
+final class TimingWheel<T> {
+
+    private final long tickMs;
+    private final int mask;
+    private final List<ArrayDeque<Entry<T>>> buckets;
+    // Guarded by this
+    private long currentTick;
+    private int size;
+
+    TimingWheel(long tickMs, int wheelSize, long startMillis) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Wheel size must be a power of two: " + wheelSize);
+        }
+        this.tickMs = tickMs;
+        this.mask = wheelSize - 1;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new ArrayDeque<>());
+        }
+        this.currentTick = startMillis / tickMs;
+    }
+
+    /**
+     * Schedule an item to expire at the given epoch milliseconds, or on the next tick if that time has passed
+     */
+    synchronized void schedule(T item, long deadlineMillis) {
+        long tick = Math.max((deadlineMillis + tickMs - 1) / tickMs, currentTick);
+        buckets.get((int) (tick & mask)).add(new Entry<>(item, tick));
+        size++;
+    }
+
+    /**
+     * Advance the wheel to the given epoch milliseconds and return the items whose deadline has passed
+     */
+    synchronized List<T> advance(long nowMillis) {
+        List<T> expired = new ArrayList<>();
+        long nowTick = nowMillis / tickMs;
+        // After a long pause one turn visits every bucket, no need to walk the skipped turns
+        long from = Math.max(currentTick, nowTick - mask);
+        for (long tick = from; tick <= nowTick; tick++) {
+            Iterator<Entry<T>> entries = buckets.get((int) (tick & mask)).iterator();
+            while (entries.hasNext()) {
+                Entry<T> entry = entries.next();
+                if (entry.tick <= nowTick) {
+                    expired.add(entry.item);
+                    entries.remove();
+                    size--;
+                }
+            }
+        }
+        currentTick = Math.max(currentTick, nowTick + 1);
+        return expired;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    private static final class Entry<T> {
+        private final T item;
+        private final long tick;
+
+        private Entry(T item, long tick) {
+            this.item = item;
+            this.tick = tick;
+        }
+    }
+}
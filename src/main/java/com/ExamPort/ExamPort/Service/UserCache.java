@@ -0,0 +1,146 @@
+package com.ExamPort.ExamPort.Service;
+
+import com.ExamPort.ExamPort.Entity.User;
+import com.ExamPort.ExamPort.Repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Short-lived cache of user rows by id, so authenticated requests do not read the users table each time.
+ *
+ * Entries are kept for app.users.cache-ttl-ms and the cache holds at most app.users.cache-max-size
+ * users, the oldest loaded are evicted first. Cached users are shared between requests and must not
+ * be modified: code that changes a user loads it from the repository and calls {@link #invalidate}.
+ */
+@Service
+public class UserCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserCache.class);
+
+    @Value("${app.users.cache-ttl-ms:60000}")
+    private long ttlMs;
+
+    @Value("${app.users.cache-max-size:10000}")
+    private int maxSize;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final ConcurrentHashMap<Long, CacheEntry> byId = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Long> idsByUsername = new ConcurrentHashMap<>();
+
+    /**
+     * The user with this id, empty when there is none
+     */
+    public Optional<User> get(Long userId) {
+        if (userId == null) {
+            return Optional.empty();
+        }
+        CacheEntry entry = byId.get(userId);
+        if (entry != null && !entry.isExpired()) {
+            return Optional.of(entry.user);
+        }
+        Optional<User> user = userRepository.findById(userId);
+        user.ifPresentOrElse(this::put, () -> byId.remove(userId));
+        return user;
+    }
+
+    /**
+     * The user with this username, for tokens that do not carry the user id
+     */
+    public Optional<User> getByUsername(String username) {
+        if (username == null) {
+            return Optional.empty();
+        }
+        Long userId = idsByUsername.get(username);
+        if (userId != null) {
+            Optional<User> user = get(userId);
+            if (user.isPresent() && username.equals(user.get().getUsername())) {
+                return user;
+            }
+            idsByUsername.remove(username, userId);
+        }
+        Optional<User> user = userRepository.findByUsername(username);
+        user.ifPresent(this::put);
+        return user;
+    }
+
+    /**
+     * Drop a user after it was changed, again once the surrounding transaction completes
+     */
+    public void invalidate(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        remove(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    remove(userId);
+                }
+            });
+        }
+        logger.debug("User {} invalidated", userId);
+    }
+
+    private void put(User user) {
+        byId.put(user.getId(), new CacheEntry(user, System.currentTimeMillis() + ttlMs));
+        idsByUsername.put(user.getUsername(), user.getId());
+        evictIfNeeded();
+    }
+
+    private void remove(Long userId) {
+        CacheEntry entry = byId.remove(userId);
+        if (entry != null) {
+            idsByUsername.remove(entry.user.getUsername(), userId);
+        }
+    }
+
+    private void evictIfNeeded() {
+        int overflow = byId.size() - maxSize;
+        if (overflow <= 0) {
+            return;
+        }
+        byId.values().removeIf(CacheEntry::isExpired);
+        idsByUsername.values().removeIf(userId -> !byId.containsKey(userId));
+        overflow = byId.size() - maxSize;
+        if (overflow <= 0) {
+            return;
+        }
+        // Evict a little more than needed so a full cache is not sorted on every miss
+        int toEvict = overflow + Math.max(1, maxSize / 10);
+        List<Map.Entry<Long, CacheEntry>> candidates = new ArrayList<>(byId.entrySet());
+        candidates.sort(Comparator.comparingLong(e -> e.getValue().expiresAt));
+        for (int i = 0; i < toEvict && i < candidates.size(); i++) {
+            remove(candidates.get(i).getKey());
+        }
+        logger.debug("Evicted {} cached users, {} remain", toEvict, byId.size());
+    }
+
+    private static final class CacheEntry {
+        final User user;
+        final long expiresAt;
+
+        CacheEntry(User user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+    }
+}
@@ -2,7 +2,6 @@ package com.ExamPort.ExamPort.Service;
 
 import com.ExamPort.ExamPort.Entity.Course;
 import com.ExamPort.ExamPort.Entity.User;
-import com.ExamPort.ExamPort.Entity.CourseVisibility;
 import com.ExamPort.ExamPort.Entity.CoursePricing;
 import com.ExamPort.ExamPort.Exception.ValidationException;
 import com.ExamPort.ExamPort.Repository.CourseRepository;
@@ -57,12 +56,7 @@ public class ValidationService {
             }
         }
 
-        // Validate allowed emails for private courses
-        if (course.getVisibility() == CourseVisibility.PRIVATE) {
-            if (course.getAllowedEmails() == null || course.getAllowedEmails().isEmpty()) {
-                throw new ValidationException("allowedEmails", "Allowed emails are required for private courses");
-            }
-        }
+        // The roster of a private course is imported after the course is saved and checked there
     }
 
     /**
@@ -16,6 +16,7 @@ public class WebConfig{
                         .allowedOrigins("http://localhost:5173", "http://localhost:3000")
                         .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH")
                         .allowedHeaders("*")
+                        .exposedHeaders("X-Next-Cursor", "Retry-After")
                         .allowCredentials(true)
                         .maxAge(3600);
             }
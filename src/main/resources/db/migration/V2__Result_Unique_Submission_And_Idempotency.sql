@@ -0,0 +1,30 @@
+-- Migration script to make exam submission idempotent
+-- One result per user and exam, enforced by a unique key, plus the client idempotency key of the submit
+-- The duplicate cleanup also runs at startup in DatabaseUpgrade, before Hibernate adds the unique key
+
+-- Remove duplicate submissions left by the old check-then-insert, keeping the earliest attempt
+DELETE r1 FROM result r1
+JOIN result r2
+  ON r1.user_id = r2.user_id
+ AND r1.exam_exam_id = r2.exam_exam_id
+ AND (r1.attempt_date > r2.attempt_date OR (r1.attempt_date = r2.attempt_date AND r1.id > r2.id));
+
+SET @exist := (SELECT COUNT(*) FROM information_schema.columns 
+               WHERE table_name = 'result' 
+               AND column_name = 'idempotency_key' 
+               AND table_schema = database());
+SET @sqlstmt := IF(@exist > 0, 'SELECT ''Column idempotency_key already exists''', 
+                   'ALTER TABLE result ADD COLUMN idempotency_key VARCHAR(64) NULL');
+PREPARE stmt FROM @sqlstmt;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @exist := (SELECT COUNT(*) FROM information_schema.statistics 
+               WHERE table_name = 'result' 
+               AND index_name = 'uk_result_user_exam' 
+               AND table_schema = database());
+SET @sqlstmt := IF(@exist > 0, 'SELECT ''Index uk_result_user_exam already exists''', 
+                   'ALTER TABLE result ADD CONSTRAINT uk_result_user_exam UNIQUE (user_id, exam_exam_id)');
+PREPARE stmt FROM @sqlstmt;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
@@ -0,0 +1,23 @@
+-- Migration script to move private course rosters into an indexed membership table
+-- One row per (course, normalized email), replacing the eagerly loaded course_allowed_emails collection
+-- DatabaseUpgrade performs the copy at startup when course_members does not exist yet
+
+CREATE TABLE IF NOT EXISTS course_members (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    course_id BIGINT NOT NULL,
+    email VARCHAR(100) NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_course_member UNIQUE (course_id, email),
+    INDEX idx_course_member_email (email)
+);
+
+-- Copy existing allowed emails, trimmed and lower cased
+SET @exist := (SELECT COUNT(*) FROM information_schema.tables 
+               WHERE table_name = 'course_allowed_emails' 
+               AND table_schema = database());
+SET @sqlstmt := IF(@exist = 0, 'SELECT ''Table course_allowed_emails does not exist''', 
+                   'INSERT IGNORE INTO course_members (course_id, email, created_at) SELECT course_id, LOWER(TRIM(email)), NOW() FROM course_allowed_emails WHERE email IS NOT NULL AND TRIM(email) <> ''''');
+PREPARE stmt FROM @sqlstmt;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
@@ -0,0 +1,22 @@
+-- Migration script to support keyset pagination of results
+-- Exam results are paged by (score, id), a user's results by (attempt_date, id)
+
+SET @exist := (SELECT COUNT(*) FROM information_schema.statistics 
+               WHERE table_name = 'result' 
+               AND index_name = 'idx_result_exam_score' 
+               AND table_schema = database());
+SET @sqlstmt := IF(@exist > 0, 'SELECT ''Index idx_result_exam_score already exists''', 
+                   'CREATE INDEX idx_result_exam_score ON result (exam_exam_id, score, id)');
+PREPARE stmt FROM @sqlstmt;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @exist := (SELECT COUNT(*) FROM information_schema.statistics 
+               WHERE table_name = 'result' 
+               AND index_name = 'idx_result_user_attempt' 
+               AND table_schema = database());
+SET @sqlstmt := IF(@exist > 0, 'SELECT ''Index idx_result_user_attempt already exists''', 
+                   'CREATE INDEX idx_result_user_attempt ON result (user_id, attempt_date, id)');
+PREPARE stmt FROM @sqlstmt;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
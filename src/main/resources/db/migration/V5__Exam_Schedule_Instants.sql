@@ -0,0 +1,52 @@
+-- Migration script to store exam start/end as instants for time-window queries
+-- Values are filled from the date/time strings by ExamScheduleService at startup
+
+SET @exist := (SELECT COUNT(*) FROM information_schema.columns 
+               WHERE table_name = 'exam' 
+               AND column_name = 'start_at' 
+               AND table_schema = database());
+SET @sqlstmt := IF(@exist > 0, 'SELECT ''Column start_at already exists''', 
+                   'ALTER TABLE exam ADD COLUMN start_at DATETIME(6) NULL');
+PREPARE stmt FROM @sqlstmt;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @exist := (SELECT COUNT(*) FROM information_schema.columns 
+               WHERE table_name = 'exam' 
+               AND column_name = 'end_at' 
+               AND table_schema = database());
+SET @sqlstmt := IF(@exist > 0, 'SELECT ''Column end_at already exists''', 
+                   'ALTER TABLE exam ADD COLUMN end_at DATETIME(6) NULL');
+PREPARE stmt FROM @sqlstmt;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @exist := (SELECT COUNT(*) FROM information_schema.statistics 
+               WHERE table_name = 'exam' 
+               AND index_name = 'idx_exam_start_at' 
+               AND table_schema = database());
+SET @sqlstmt := IF(@exist > 0, 'SELECT ''Index idx_exam_start_at already exists''', 
+                   'CREATE INDEX idx_exam_start_at ON exam (start_at)');
+PREPARE stmt FROM @sqlstmt;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @exist := (SELECT COUNT(*) FROM information_schema.statistics 
+               WHERE table_name = 'exam' 
+               AND index_name = 'idx_exam_end_at' 
+               AND table_schema = database());
+SET @sqlstmt := IF(@exist > 0, 'SELECT ''Index idx_exam_end_at already exists''', 
+                   'CREATE INDEX idx_exam_end_at ON exam (end_at)');
+PREPARE stmt FROM @sqlstmt;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @exist := (SELECT COUNT(*) FROM information_schema.statistics 
+               WHERE table_name = 'exam' 
+               AND index_name = 'idx_exam_course_window' 
+               AND table_schema = database());
+SET @sqlstmt := IF(@exist > 0, 'SELECT ''Index idx_exam_course_window already exists''', 
+                   'CREATE INDEX idx_exam_course_window ON exam (course_id, start_at, end_at)');
+PREPARE stmt FROM @sqlstmt;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
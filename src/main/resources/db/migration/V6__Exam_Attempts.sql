@@ -0,0 +1,13 @@
+-- Migration script for autosaved answers of exams in progress
+-- One row per (user, exam), replaced in batches and deleted when the exam is submitted
+
+CREATE TABLE IF NOT EXISTS exam_attempts (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    user_id BIGINT NOT NULL,
+    exam_id BIGINT NOT NULL,
+    answers TEXT,
+    version BIGINT NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_exam_attempt_user_exam UNIQUE (user_id, exam_id)
+);
@@ -0,0 +1,32 @@
+-- Migration script for server-side exam sessions
+-- A started attempt records when it started and its deadline (UTC), auto-submitted once the deadline passes
+
+SET @exist := (SELECT COUNT(*) FROM information_schema.columns 
+               WHERE table_name = 'exam_attempts' 
+               AND column_name = 'started_at' 
+               AND table_schema = database());
+SET @sqlstmt := IF(@exist > 0, 'SELECT ''Column started_at already exists''', 
+                   'ALTER TABLE exam_attempts ADD COLUMN started_at DATETIME(6) NULL');
+PREPARE stmt FROM @sqlstmt;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @exist := (SELECT COUNT(*) FROM information_schema.columns 
+               WHERE table_name = 'exam_attempts' 
+               AND column_name = 'deadline_at' 
+               AND table_schema = database());
+SET @sqlstmt := IF(@exist > 0, 'SELECT ''Column deadline_at already exists''', 
+                   'ALTER TABLE exam_attempts ADD COLUMN deadline_at DATETIME(6) NULL');
+PREPARE stmt FROM @sqlstmt;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @exist := (SELECT COUNT(*) FROM information_schema.statistics 
+               WHERE table_name = 'exam_attempts' 
+               AND index_name = 'idx_exam_attempt_deadline' 
+               AND table_schema = database());
+SET @sqlstmt := IF(@exist > 0, 'SELECT ''Index idx_exam_attempt_deadline already exists''', 
+                   'CREATE INDEX idx_exam_attempt_deadline ON exam_attempts (deadline_at)');
+PREPARE stmt FROM @sqlstmt;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
@@ -0,0 +1,8 @@
+-- Migration script for the exam schedule watermark
+-- One row holding the time (UTC) up to which exam start and end transitions have been fired
+
+CREATE TABLE IF NOT EXISTS exam_schedule_state (
+    id INT NOT NULL,
+    fired_up_to DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+);
@@ -0,0 +1,156 @@
+package com.ExamPort.ExamPort.Integration;
+
+import com.ExamPort.ExamPort.Service.EmailOutbox;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Email outbox against a real SMTP server (GreenMail): claimed rows go out in one batch, and
+ * failed sends are put back with a backoff until the last attempt.
+ */
+@ExtendWith(MockitoExtension.class)
+class EmailOutboxIntegrationTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private EmailOutbox emailOutbox;
+
+    @BeforeEach
+    void setUp() {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+
+        emailOutbox = new EmailOutbox();
+        ReflectionTestUtils.setField(emailOutbox, "fromEmail", "noreply@examwizards.local");
+        ReflectionTestUtils.setField(emailOutbox, "emailEnabled", true);
+        ReflectionTestUtils.setField(emailOutbox, "workers", 1);
+        ReflectionTestUtils.setField(emailOutbox, "batchSize", 50);
+        ReflectionTestUtils.setField(emailOutbox, "maxAttempts", 3);
+        ReflectionTestUtils.setField(emailOutbox, "backoffMs", 1000L);
+        ReflectionTestUtils.setField(emailOutbox, "maxBackoffMs", 10000L);
+        ReflectionTestUtils.setField(emailOutbox, "claimTimeoutMs", 600000L);
+        ReflectionTestUtils.setField(emailOutbox, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(emailOutbox, "mailSender", mailSender);
+        ReflectionTestUtils.invokeMethod(emailOutbox, "init");
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(emailOutbox, "shutdown");
+    }
+
+    @Test
+    void dispatch_SendsClaimedEmailsInOneBatch() throws Exception {
+        claim(new Object[]{1L, "a@test.com", "Exam Result", "<p>Passed</p>", true, 0},
+              new Object[]{2L, "b@test.com", "Verify Your Email", "Click the link", false, 0});
+
+        emailOutbox.dispatch();
+
+        assertTrue(greenMail.waitForIncomingEmail(5000, 2));
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertEquals(2, received.length);
+        assertEquals("Exam Result", received[0].getSubject());
+        assertEquals("a@test.com", received[0].getAllRecipients()[0].toString());
+        assertEquals("Verify Your Email", received[1].getSubject());
+
+        List<Object[]> sent = outcomeRows("UPDATE email_outbox SET status = 'SENT'");
+        assertEquals(2, sent.size());
+        assertEquals(1L, sent.get(0)[1]);
+        assertEquals(2L, sent.get(1)[1]);
+        verify(jdbcTemplate, never()).batchUpdate(startsWith("UPDATE email_outbox SET status = ?"), anyList());
+    }
+
+    @Test
+    void dispatch_RetriesWithBackoffWhenSmtpIsDown() throws Exception {
+        greenMail.stop();
+        claim(new Object[]{7L, "c@test.com", "Exam Result", "Body", false, 1});
+        LocalDateTime before = LocalDateTime.now(ZoneOffset.UTC);
+
+        emailOutbox.dispatch();
+
+        List<Object[]> failed = outcomeRows("UPDATE email_outbox SET status = ?");
+        assertEquals(1, failed.size());
+        Object[] row = failed.get(0);
+        assertEquals("PENDING", row[0]);
+        assertEquals(2, row[1]);
+        // Second attempt: twice the base backoff
+        LocalDateTime nextAttempt = (LocalDateTime) row[2];
+        assertFalse(nextAttempt.isBefore(before.plusNanos(2_000_000_000L)));
+        assertTrue(nextAttempt.isBefore(before.plusSeconds(30)));
+        assertNotNull(row[3]);
+        assertEquals(7L, row[4]);
+    }
+
+    @Test
+    void dispatch_GivesUpAfterMaxAttempts() throws Exception {
+        greenMail.stop();
+        claim(new Object[]{9L, "d@test.com", "Reset Your Password", "Body", true, 2});
+
+        emailOutbox.dispatch();
+
+        List<Object[]> failed = outcomeRows("UPDATE email_outbox SET status = ?");
+        assertEquals("FAILED", failed.get(0)[0]);
+        assertEquals(3, failed.get(0)[1]);
+    }
+
+    // Rows: id, recipient, subject, body, html, attempts
+    private void claim(Object[]... rows) throws Exception {
+        when(jdbcTemplate.update(startsWith("UPDATE email_outbox SET claim_token"), any(Object[].class)))
+                .thenReturn(rows.length);
+        when(jdbcTemplate.query(startsWith("SELECT id, recipient"), any(RowMapper.class), any(Object[].class)))
+                .thenAnswer(invocation -> {
+                    RowMapper<?> mapper = invocation.getArgument(1);
+                    List<Object> mapped = new ArrayList<>();
+                    for (int i = 0; i < rows.length; i++) {
+                        mapped.add(mapper.mapRow(resultSet(rows[i]), i));
+                    }
+                    return mapped;
+                });
+    }
+
+    private ResultSet resultSet(Object[] row) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn((Long) row[0]);
+        when(rs.getString("recipient")).thenReturn((String) row[1]);
+        when(rs.getString("subject")).thenReturn((String) row[2]);
+        when(rs.getString("body")).thenReturn((String) row[3]);
+        when(rs.getBoolean("html")).thenReturn((Boolean) row[4]);
+        when(rs.getInt("attempts")).thenReturn((Integer) row[5]);
+        return rs;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> outcomeRows(String sqlPrefix) {
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, timeout(10000)).batchUpdate(startsWith(sqlPrefix), rows.capture());
+        return rows.getValue();
+    }
+}
@@ -0,0 +1,94 @@
+package com.ExamPort.ExamPort.Security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlTest {
+
+    private AdmissionControl admissionControl;
+    private MockEnvironment environment;
+
+    @BeforeEach
+    void setUp() {
+        environment = new MockEnvironment();
+        // Reject at once instead of waiting in a queue
+        environment.setProperty("app.admission.exam.queue-size", "0");
+        environment.setProperty("app.admission.exam.user-rate", "0");
+        environment.setProperty("app.admission.export.queue-size", "0");
+        environment.setProperty("app.admission.export.user-rate", "0");
+
+        admissionControl = new AdmissionControl();
+        ReflectionTestUtils.setField(admissionControl, "enabled", true);
+        ReflectionTestUtils.setField(admissionControl, "maxInFlight", 10);
+        ReflectionTestUtils.setField(admissionControl, "retryAfterSeconds", 2L);
+        ReflectionTestUtils.setField(admissionControl, "bucketIdleMs", 300000L);
+        ReflectionTestUtils.setField(admissionControl, "connectionPoolSize", 40);
+        ReflectionTestUtils.setField(admissionControl, "environment", environment);
+    }
+
+    @Test
+    void acquire_ThrottlesAUserPastTheBurst() throws Exception {
+        admissionControl.init();
+
+        // Submit lane: 1 request per second per user, burst of 3
+        for (int i = 0; i < 3; i++) {
+            assertTrue(admissionControl.acquire(AdmissionControl.Lane.SUBMIT, "user-1").isAdmitted());
+            admissionControl.release(AdmissionControl.Lane.SUBMIT);
+        }
+        AdmissionControl.Decision throttled = admissionControl.acquire(AdmissionControl.Lane.SUBMIT, "user-1");
+
+        assertFalse(throttled.isAdmitted());
+        assertEquals("Too many requests", throttled.getReason());
+        assertTrue(throttled.getRetryAfterSeconds() >= 1);
+        assertTrue(admissionControl.acquire(AdmissionControl.Lane.SUBMIT, "user-2").isAdmitted());
+    }
+
+    @Test
+    void acquire_LowerLanesShedFirst() throws Exception {
+        admissionControl.init();
+
+        // Export may use 30% of the 10 requests in flight, exam 90%
+        for (int i = 0; i < 3; i++) {
+            assertTrue(admissionControl.acquire(AdmissionControl.Lane.EXAM, "user-" + i).isAdmitted());
+        }
+        AdmissionControl.Decision export = admissionControl.acquire(AdmissionControl.Lane.EXPORT, "user-9");
+
+        assertFalse(export.isAdmitted());
+        assertEquals("Server busy", export.getReason());
+        assertEquals(2, export.getRetryAfterSeconds());
+        assertTrue(admissionControl.acquire(AdmissionControl.Lane.EXAM, "user-9").isAdmitted());
+
+        admissionControl.release(AdmissionControl.Lane.EXAM);
+        admissionControl.release(AdmissionControl.Lane.EXAM);
+        assertTrue(admissionControl.acquire(AdmissionControl.Lane.EXPORT, "user-9").isAdmitted());
+    }
+
+    @Test
+    void acquire_KeepsReservedConnectionsForSubmissions() throws Exception {
+        ReflectionTestUtils.setField(admissionControl, "connectionPoolSize", 4);
+        environment.setProperty("app.admission.submit.reserved-connections", "1");
+        admissionControl.init();
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(admissionControl.acquire(AdmissionControl.Lane.EXAM, "user-" + i).isAdmitted());
+        }
+
+        assertFalse(admissionControl.acquire(AdmissionControl.Lane.EXAM, "user-3").isAdmitted());
+        assertTrue(admissionControl.acquire(AdmissionControl.Lane.SUBMIT, "user-3").isAdmitted());
+
+        admissionControl.release(AdmissionControl.Lane.EXAM);
+        assertTrue(admissionControl.acquire(AdmissionControl.Lane.EXAM, "user-3").isAdmitted());
+    }
+
+    @Test
+    void laneOf_ClassifiesRequests() {
+        assertEquals(AdmissionControl.Lane.EXAM, AdmissionControlFilter.laneOf("GET", "/api/questions"));
+        assertEquals(AdmissionControl.Lane.EXAM, AdmissionControlFilter.laneOf("GET", "/api/questions/7"));
+        assertEquals(AdmissionControl.Lane.EXAM, AdmissionControlFilter.laneOf("GET", "/api/exams/7"));
+        assertNull(AdmissionControlFilter.laneOf("OPTIONS", "/api/exams/7"));
+    }
+}
@@ -0,0 +1,103 @@
+package com.ExamPort.ExamPort.Service;
+
+import com.ExamPort.ExamPort.Entity.Exam;
+import com.ExamPort.ExamPort.Entity.ExamOption;
+import com.ExamPort.ExamPort.Entity.Question;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnswerKeyTest {
+
+    private Exam exam;
+    private AnswerKey answerKey;
+
+    @BeforeEach
+    void setUp() {
+        exam = new Exam();
+        exam.setExam_id(1L);
+        exam.setQuestions(new ArrayList<>(List.of(
+                question(10L, "mcq", 2, List.of(
+                        new ExamOption(100L, 1, "Paris"),
+                        new ExamOption(101L, 2, "London"),
+                        new ExamOption(102L, 3, "Rome")), List.of(1)),
+                question(20L, "multiple", 4, List.of(
+                        new ExamOption(200L, 1, "Red"),
+                        new ExamOption(201L, 2, "Green"),
+                        new ExamOption(202L, 3, "Blue")), List.of(0, 2)),
+                question(30L, "text", 3, List.of(), List.of()))));
+        answerKey = AnswerKey.compile(exam);
+    }
+
+    @Test
+    void scoreQuestion_SingleChoice_MatchesTextIndexAndOptionId() {
+        assertEquals(2.0, answerKey.scoreQuestion(0, "London"));
+        assertEquals(2.0, answerKey.scoreQuestion(0, "1"));
+        assertEquals(2.0, answerKey.scoreQuestion(0, "101"));
+        assertEquals(2.0, answerKey.scoreQuestion(0, "  London "));
+        assertEquals(0.0, answerKey.scoreQuestion(0, "Paris"));
+        assertEquals(0.0, answerKey.scoreQuestion(0, "london"));
+        assertEquals(0.0, answerKey.scoreQuestion(0, null));
+    }
+
+    @Test
+    void scoreQuestion_Multiple_GivesPartialMarksNeverBelowZero() {
+        assertEquals(4.0, answerKey.scoreQuestion(1, "Red,Blue"));
+        assertEquals(4.0, answerKey.scoreQuestion(1, " Blue , Red,"));
+        assertEquals(2.0, answerKey.scoreQuestion(1, "Red"));
+        assertEquals(2.0, answerKey.scoreQuestion(1, "Red,Green,Blue"));
+        assertEquals(0.0, answerKey.scoreQuestion(1, "Red,Green"));
+        assertEquals(0.0, answerKey.scoreQuestion(1, "Green"));
+        // Option indexes are not accepted for multiple choice
+        assertEquals(0.0, answerKey.scoreQuestion(1, "0,2"));
+    }
+
+    @Test
+    void scoreQuestion_Text_FullMarksWhenAnswered() {
+        assertEquals(3.0, answerKey.scoreQuestion(2, "An essay"));
+        assertEquals(0.0, answerKey.scoreQuestion(2, "   "));
+    }
+
+    @Test
+    void totalScore_SumsQuestionsByQuestionId() {
+        Map<String, String> answers = Map.of("10", "London", "20", "Red", "30", "An essay", "99", "ignored");
+
+        assertEquals(7.0, answerKey.totalScore(answers));
+        assertArrayEquals(new double[]{2.0, 2.0, 3.0}, answerKey.score(answers));
+        assertEquals(0.0, answerKey.totalScore(null));
+    }
+
+    @Test
+    void getTotalMarks_DeclaredTotalOrSumOfMarks() {
+        assertEquals(9, answerKey.getTotalMarks());
+
+        exam.setTotalMarks(20);
+        assertEquals(20, AnswerKey.compile(exam).getTotalMarks());
+    }
+
+    @Test
+    void indexOf_FindsQuestionPosition() {
+        assertEquals(0, answerKey.indexOf(10L));
+        assertEquals(2, answerKey.indexOf(30L));
+        assertEquals(-1, answerKey.indexOf(99L));
+    }
+
+    @Test
+    void sameScoringAs_DetectsChangedCorrectOption() {
+        assertTrue(answerKey.sameScoringAs(AnswerKey.compile(exam)));
+
+        exam.getQuestions().get(0).setCorrect_options(List.of(2));
+        assertFalse(answerKey.sameScoringAs(AnswerKey.compile(exam)));
+    }
+
+    private static Question question(long id, String type, int marks, List<ExamOption> options, List<Integer> correct) {
+        Question question = new Question(id, "Question " + id, options, type, correct);
+        question.setMarks(marks);
+        return question;
+    }
+}
@@ -0,0 +1,26 @@
+package com.ExamPort.ExamPort.Service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmailOutboxTest {
+
+    @Test
+    void backoffDelay_DoublesPerFailedAttempt() {
+        assertEquals(30000, EmailOutbox.backoffDelay(1, 30000, 3600000));
+        assertEquals(60000, EmailOutbox.backoffDelay(2, 30000, 3600000));
+        assertEquals(240000, EmailOutbox.backoffDelay(4, 30000, 3600000));
+    }
+
+    @Test
+    void backoffDelay_IsCappedAndDoesNotOverflow() {
+        assertEquals(3600000, EmailOutbox.backoffDelay(8, 30000, 3600000));
+        assertEquals(3600000, EmailOutbox.backoffDelay(1000, 30000, 3600000));
+    }
+
+    @Test
+    void backoffDelay_FirstTryWaitsTheBaseBackoff() {
+        assertEquals(30000, EmailOutbox.backoffDelay(0, 30000, 3600000));
+    }
+}
@@ -0,0 +1,88 @@
+package com.ExamPort.ExamPort.Service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExamLeaderboardTest {
+
+    private ExamLeaderboard leaderboard;
+
+    @BeforeEach
+    void setUp() {
+        leaderboard = new ExamLeaderboard(1L);
+        leaderboard.record(1L, 101L, 90.0);
+        leaderboard.record(3L, 103L, 80.0);
+        leaderboard.record(2L, 102L, 80.0);
+        leaderboard.record(4L, 104L, 70.5);
+    }
+
+    @Test
+    void rankOf_TiesShareARank() {
+        assertEquals(1, leaderboard.rankOf(1L));
+        assertEquals(2, leaderboard.rankOf(2L));
+        assertEquals(2, leaderboard.rankOf(3L));
+        assertEquals(4, leaderboard.rankOf(4L));
+        assertEquals(0, leaderboard.rankOf(99L));
+    }
+
+    @Test
+    void page_StartsInsideATieAndOrdersTiesByUserId() {
+        List<ExamLeaderboard.Standing> page = leaderboard.page(2, 2);
+
+        assertEquals(2, page.size());
+        assertEquals(3L, page.get(0).getUserId());
+        assertEquals(2, page.get(0).getRank());
+        assertEquals(4L, page.get(1).getUserId());
+        assertEquals(4, page.get(1).getRank());
+        assertTrue(leaderboard.page(4, 10).isEmpty());
+    }
+
+    @Test
+    void record_ReplacesTheUsersPreviousScore() {
+        leaderboard.record(4L, 104L, 95.0);
+
+        assertEquals(4, leaderboard.size());
+        assertEquals(1, leaderboard.rankOf(4L));
+        assertEquals(2, leaderboard.rankOf(1L));
+        assertEquals(95.0, leaderboard.top(1).get(0).getScore());
+    }
+
+    @Test
+    void remove_MovesLowerResultsUp() {
+        leaderboard.remove(1L);
+
+        assertEquals(0, leaderboard.rankOf(1L));
+        assertEquals(1, leaderboard.rankOf(2L));
+        assertEquals(3, leaderboard.rankOf(4L));
+    }
+
+    @Test
+    void load_KeepsAResultRecordedDuringTheScan() {
+        // Re-graded to 95 before the startup scan read the old row
+        leaderboard.record(4L, 104L, 95.0);
+        leaderboard.load(4L, 104L, 70.5, 4);
+        leaderboard.load(5L, 105L, 60.0, 5);
+
+        assertEquals(1, leaderboard.rankOf(4L));
+        assertEquals(95.0, leaderboard.standingOf(4L).getScore());
+        assertEquals(5, leaderboard.rankOf(5L));
+    }
+
+    @Test
+    void takeChangedRanks_OnlyReportsRanksNotWrittenYet() {
+        List<long[]> changed = leaderboard.takeChangedRanks();
+        assertEquals(4, changed.size());
+        leaderboard.markWritten(changed);
+
+        leaderboard.record(4L, 104L, 85.0);
+        changed = leaderboard.takeChangedRanks();
+
+        // User 4 moves to rank 2, users 2 and 3 drop to rank 3
+        assertEquals(3, changed.size());
+        assertTrue(leaderboard.takeChangedRanks().isEmpty());
+    }
+}
@@ -0,0 +1,53 @@
+package com.ExamPort.ExamPort.Service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GlobalRankingServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private GlobalRankingService globalRankingService;
+
+    @Test
+    void rebuild_KeepsChangesMadeDuringTheScan() throws Exception {
+        // Given: user 1 averages 50 in the table, user 2 saves a first result and user 1 is re-graded mid-scan
+        ResultSet row = mock(ResultSet.class);
+        when(row.getLong("user_id")).thenReturn(1L);
+        when(row.getDouble("score_sum")).thenReturn(100.0);
+        when(row.getLong("result_count")).thenReturn(2L);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            globalRankingService.addResult(2L, 80.0);
+            globalRankingService.changeScore(1L, 40.0, 100.0);
+            handler.processRow(row);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+
+        // When
+        globalRankingService.rebuild();
+
+        // Then: user 1 now averages 80 as well
+        assertEquals(2, globalRankingService.rankedUserCount());
+        assertEquals(1, globalRankingService.rankOf(1L));
+        assertEquals(1, globalRankingService.rankOf(2L));
+
+        globalRankingService.addResult(2L, 90.0);
+        assertEquals(1, globalRankingService.rankOf(2L));
+        assertEquals(2, globalRankingService.rankOf(1L));
+    }
+}
@@ -0,0 +1,81 @@
+package com.ExamPort.ExamPort.Service;
+
+import com.ExamPort.ExamPort.Exception.ValidationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetPaginationTest {
+
+    private KeysetPagination pagination;
+
+    @BeforeEach
+    void setUp() {
+        pagination = new KeysetPagination();
+        ReflectionTestUtils.setField(pagination, "defaultSize", 50);
+        ReflectionTestUtils.setField(pagination, "maxSize", 200);
+    }
+
+    @Test
+    void pageSize_DefaultsAndCaps() {
+        assertEquals(50, pagination.pageSize(null));
+        assertEquals(10, pagination.pageSize(10));
+        assertEquals(200, pagination.pageSize(5000));
+        assertThrows(ValidationException.class, () -> pagination.pageSize(0));
+    }
+
+    @Test
+    void decode_ReadsBackWhatWasEncoded() {
+        LocalDateTime createdAt = LocalDateTime.of(2025, 3, 14, 9, 26, 53, 589000000);
+
+        String token = pagination.encode(createdAt, 42L, 87.5, null);
+        KeysetPagination.Cursor cursor = pagination.decode(token, 4);
+
+        assertFalse(token.contains("="));
+        assertEquals(createdAt, cursor.getDateTime(0));
+        assertEquals(42L, cursor.getLong(1));
+        assertEquals(87.5, cursor.getDouble(2));
+        assertTrue(cursor.isNull(3));
+        assertNull(cursor.getLong(3));
+    }
+
+    @Test
+    void decode_FirstPageHasNoCursor() {
+        assertNull(pagination.decode(null, 2));
+        assertNull(pagination.decode(" ", 2));
+    }
+
+    @Test
+    void decode_RejectsMalformedTokens() {
+        String twoKeys = pagination.encode(1L, 2L);
+        String otherVersion = Base64.getUrlEncoder().encodeToString("k0|1|2".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(ValidationException.class, () -> pagination.decode(twoKeys, 3));
+        assertThrows(ValidationException.class, () -> pagination.decode(otherVersion, 2));
+        assertThrows(ValidationException.class, () -> pagination.decode("not base64!", 2));
+        assertThrows(ValidationException.class, () -> pagination.decode(pagination.encode("abc"), 1).getLong(0));
+        assertThrows(ValidationException.class, () -> pagination.decode(pagination.encode("abc"), 1).getDateTime(0));
+    }
+
+    @Test
+    void respond_AddsNextCursorOnlyWhenMoreRowsWereFound() {
+        List<Long> rows = List.of(3L, 2L, 1L);
+
+        ResponseEntity<List<String>> page = pagination.respond(rows, 2, row -> new Object[]{row}, String::valueOf);
+        ResponseEntity<List<String>> last = pagination.respond(rows, 3, row -> new Object[]{row}, String::valueOf);
+
+        assertEquals(List.of("3", "2"), page.getBody());
+        String next = page.getHeaders().getFirst(KeysetPagination.NEXT_CURSOR_HEADER);
+        assertEquals(2L, pagination.decode(next, 1).getLong(0));
+        assertEquals(3, last.getBody().size());
+        assertNull(last.getHeaders().getFirst(KeysetPagination.NEXT_CURSOR_HEADER));
+    }
+}
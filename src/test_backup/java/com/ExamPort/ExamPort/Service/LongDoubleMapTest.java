@@ -0,0 +1,58 @@
+package com.ExamPort.ExamPort.Service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongDoubleMapTest {
+
+    @Test
+    void putAndGet_ReturnDefaultForMissingKeys() {
+        LongDoubleMap map = new LongDoubleMap();
+        map.put(0L, 1.5);
+        map.put(-7L, 2.5);
+        map.put(0L, 3.5);
+
+        assertEquals(2, map.size());
+        assertEquals(3.5, map.get(0L, -1));
+        assertEquals(2.5, map.get(-7L, -1));
+        assertEquals(-1.0, map.get(42L, -1));
+        assertTrue(map.containsKey(-7L));
+        assertFalse(map.containsKey(42L));
+    }
+
+    @Test
+    void addTo_StartsMissingKeysAtZero() {
+        LongDoubleMap map = new LongDoubleMap();
+
+        assertEquals(2.0, map.addTo(5L, 2.0));
+        assertEquals(2.5, map.addTo(5L, 0.5));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void put_GrowsAndKeepsEveryEntry() {
+        LongDoubleMap map = new LongDoubleMap(4);
+        for (long key = 0; key < 10000; key++) {
+            map.put(key * 1024, key);
+        }
+
+        assertEquals(10000, map.size());
+        for (long key = 0; key < 10000; key++) {
+            assertEquals(key, map.get(key * 1024, -1));
+        }
+        assertFalse(map.containsKey(1));
+    }
+
+    @Test
+    void clear_RemovesEverything() {
+        LongDoubleMap map = new LongDoubleMap();
+        map.put(1L, 1.0);
+
+        map.clear();
+
+        assertEquals(0, map.size());
+        assertFalse(map.containsKey(1L));
+        assertEquals(4.0, map.addTo(1L, 4.0));
+    }
+}
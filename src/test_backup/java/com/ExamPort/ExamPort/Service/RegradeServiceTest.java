@@ -0,0 +1,136 @@
+package com.ExamPort.ExamPort.Service;
+
+import com.ExamPort.ExamPort.Entity.Exam;
+import com.ExamPort.ExamPort.Entity.ExamOption;
+import com.ExamPort.ExamPort.Entity.Question;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RegradeServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ExamSnapshotCache examSnapshotCache;
+
+    @Mock
+    private LeaderboardService leaderboardService;
+
+    @Mock
+    private GlobalRankingService globalRankingService;
+
+    @InjectMocks
+    private RegradeService regradeService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(regradeService, "parallelism", 1);
+        ReflectionTestUtils.setField(regradeService, "chunkSize", 10);
+        regradeService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        regradeService.shutdown();
+    }
+
+    @Test
+    void regrade_ReadsMultiLineTextAnswersInBothStoredFormats() throws Exception {
+        // Given: the correct option of question 10 changed to "Paris", question 30 takes free text
+        Exam exam = new Exam();
+        exam.setExam_id(1L);
+        exam.setQuestions(new ArrayList<>(List.of(
+                question(10L, "mcq", 2, List.of(
+                        new ExamOption(100L, 1, "Paris"),
+                        new ExamOption(101L, 2, "London")), List.of(0)),
+                question(30L, "text", 3, List.of(), List.of()))));
+        when(examSnapshotCache.loadFresh(1L)).thenReturn(ExamSnapshot.of(exam));
+        // A row from before submits wrote real JSON, with a raw line break and tab, and a current one
+        ResultSet legacyRow = storedRow(7L, 70L, "{\"10\":\"Paris\",\"30\":\"First line\nSecond line\twith a \\\"quote\\\" and C:\\Users\"}");
+        ResultSet jsonRow = storedRow(8L, 80L, "{\"10\":\"Paris\",\"30\":\"First line\\nSecond line\"}");
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(legacyRow);
+            handler.processRow(jsonRow);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        // When
+        RegradeService.RegradeJob job = regradeService.regrade(1L);
+        for (int i = 0; i < 500 && !isFinished(job); i++) {
+            Thread.sleep(10);
+        }
+
+        // Then
+        Map<String, Object> status = job.toMap();
+        assertEquals(RegradeService.JobState.COMPLETED, job.getState());
+        assertEquals(2L, status.get("scanned"));
+        assertEquals(0L, status.get("failed"));
+        assertEquals(2L, status.get("updated"));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> updates = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq("UPDATE result SET score = ?, passed = ?, feedback = ? WHERE id = ?"), updates.capture());
+        assertEquals(2, updates.getValue().size());
+        for (Object[] update : updates.getValue()) {
+            assertEquals(5.0, update[0]);
+            assertEquals(true, update[1]);
+        }
+        verify(leaderboardService).record(1L, 70L, 7L, 5.0);
+        verify(globalRankingService).changeScore(80L, 3.0, 5.0);
+    }
+
+    @Test
+    void escapeLegacyBackslashes_KeepsEscapedQuotesOnly() {
+        assertEquals("{\"a\":\"C:\\\\Users \\\"x\\\"\"}",
+                RegradeService.escapeLegacyBackslashes("{\"a\":\"C:\\Users \\\"x\\\"\"}"));
+        assertEquals("trailing\\\\", RegradeService.escapeLegacyBackslashes("trailing\\"));
+    }
+
+    private static boolean isFinished(RegradeService.RegradeJob job) {
+        return job.getState() == RegradeService.JobState.COMPLETED || job.getState() == RegradeService.JobState.FAILED;
+    }
+
+    private static ResultSet storedRow(long id, long userId, String answers) throws Exception {
+        ResultSet row = mock(ResultSet.class);
+        when(row.getLong("id")).thenReturn(id);
+        when(row.getLong("user_id")).thenReturn(userId);
+        when(row.getString("answers")).thenReturn(answers);
+        // Scored when only the text answer was right
+        when(row.getDouble("score")).thenReturn(3.0);
+        when(row.getBoolean("passed")).thenReturn(true);
+        when(row.getString("feedback")).thenReturn(ResultGrader.feedback(3.0, 5.0, true));
+        return row;
+    }
+
+    private static Question question(long id, String type, int marks, List<ExamOption> options, List<Integer> correct) {
+        Question question = new Question(id, "Question " + id, options, type, correct);
+        question.setMarks(marks);
+        return question;
+    }
+}
@@ -0,0 +1,50 @@
+package com.ExamPort.ExamPort.Service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultIdGeneratorTest {
+
+    private ResultIdGenerator generator;
+
+    @BeforeEach
+    void setUp() {
+        generator = new ResultIdGenerator();
+        ReflectionTestUtils.setField(generator, "nodeId", 5L);
+        generator.init();
+    }
+
+    @Test
+    void nextId_IncreasesAndCarriesTheNodeId() {
+        long previous = 0;
+        Set<Long> ids = new HashSet<>();
+        // Far more than the 256 ids of one millisecond
+        for (int i = 0; i < 20000; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            assertEquals(5L, (id >> 8) & 31);
+            previous = id;
+            ids.add(id);
+        }
+        assertEquals(20000, ids.size());
+    }
+
+    @Test
+    void nextId_FitsInAJsonSafeNumber() {
+        assertTrue(generator.nextId() < (1L << 53));
+    }
+
+    @Test
+    void init_RejectsNodeIdsOutOfRange() {
+        ResultIdGenerator invalid = new ResultIdGenerator();
+        ReflectionTestUtils.setField(invalid, "nodeId", 32L);
+
+        assertThrows(IllegalStateException.class, invalid::init);
+    }
+}
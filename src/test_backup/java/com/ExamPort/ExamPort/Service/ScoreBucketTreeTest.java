@@ -0,0 +1,51 @@
+package com.ExamPort.ExamPort.Service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScoreBucketTreeTest {
+
+    @Test
+    void bucketOf_RoundsToHundredths() {
+        assertEquals(8050, ScoreBucketTree.bucketOf(80.5));
+        assertEquals(9999, ScoreBucketTree.bucketOf(99.99));
+        assertEquals(0, ScoreBucketTree.bucketOf(-3.0));
+    }
+
+    @Test
+    void prefixAndFindAscending_CountScoresPerBucket() {
+        ScoreBucketTree tree = new ScoreBucketTree();
+        tree.add(10, 2);
+        tree.add(20, 1);
+        tree.add(5, 1);
+
+        assertEquals(4, tree.total());
+        assertEquals(1, tree.prefix(9));
+        assertEquals(3, tree.prefix(10));
+        assertEquals(1, tree.higherThan(10));
+        assertEquals(5, tree.findAscending(0));
+        assertEquals(10, tree.findAscending(1));
+        assertEquals(10, tree.findAscending(2));
+        assertEquals(20, tree.findAscending(3));
+
+        tree.add(10, -2);
+        assertEquals(20, tree.findAscending(1));
+    }
+
+    @Test
+    void add_GrowsPastTheInitialRangeKeepingCounts() {
+        ScoreBucketTree tree = new ScoreBucketTree();
+        tree.add(100, 3);
+        tree.add(4095, 1);
+
+        tree.add(10000, 2);
+
+        assertEquals(6, tree.total());
+        assertEquals(3, tree.prefix(100));
+        assertEquals(4, tree.prefix(9999));
+        assertEquals(2, tree.higherThan(4095));
+        assertEquals(4095, tree.findAscending(3));
+        assertEquals(10000, tree.findAscending(5));
+    }
+}
@@ -0,0 +1,68 @@
+package com.ExamPort.ExamPort.Service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    // 100 ms ticks, 8 buckets: one turn of the wheel is 800 ms
+    private TimingWheel<String> wheel;
+
+    @BeforeEach
+    void setUp() {
+        wheel = new TimingWheel<>(100, 8, 0);
+    }
+
+    @Test
+    void advance_ExpiresItemsOnceTheirTickHasPassed() {
+        wheel.schedule("a", 250);
+        wheel.schedule("b", 300);
+
+        assertTrue(wheel.advance(200).isEmpty());
+        assertEquals(List.of("a", "b"), wheel.advance(300));
+        assertEquals(0, wheel.size());
+        assertTrue(wheel.advance(400).isEmpty());
+    }
+
+    @Test
+    void schedule_PastDeadlineExpiresOnNextAdvance() {
+        wheel.advance(500);
+
+        wheel.schedule("late", 100);
+
+        assertEquals(List.of("late"), wheel.advance(600));
+    }
+
+    @Test
+    void advance_KeepsItemsDueOnALaterTurn() {
+        // Same bucket as tick 1, two turns later
+        wheel.schedule("later", 1650);
+
+        assertTrue(wheel.advance(200).isEmpty());
+        assertTrue(wheel.advance(1000).isEmpty());
+        assertEquals(1, wheel.size());
+        assertEquals(List.of("later"), wheel.advance(1700));
+    }
+
+    @Test
+    void advance_AfterALongPauseExpiresEverythingDue() {
+        wheel.schedule("a", 500);
+        wheel.schedule("b", 5000);
+        wheel.schedule("c", 200000);
+
+        List<String> expired = wheel.advance(100000);
+
+        assertEquals(2, expired.size());
+        assertTrue(expired.containsAll(List.of("a", "b")));
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    void constructor_RejectsWheelSizeThatIsNotAPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel<String>(100, 6, 0));
+    }
+}